@@ -63,11 +63,30 @@ nl.naturalis.nba.aggregations.maxNumGroups=10000
 nl.naturalis.nba.specimen.groupByScientificName.maxNumBuckets=5000
 # The size of the query cache, which maps queries to their results.
 nl.naturalis.nba.specimen.groupByScientificName.queryCacheSize=1000
+# Alternatively, the maximum size (in MB) of the query cache. Takes
+# precedence over queryCacheSize if set.
+#nl.naturalis.nba.specimen.groupByScientificName.queryCacheSizeMB=100
 # The number of milliseconds a query must at least take to be cached.
 nl.naturalis.nba.specimen.groupByScientificName.cacheTreshold=3000
 nl.naturalis.nba.taxon.groupByScientificName.maxNumBuckets=5000
 nl.naturalis.nba.taxon.groupByScientificName.queryCacheSize=1000
+#nl.naturalis.nba.taxon.groupByScientificName.queryCacheSizeMB=100
 nl.naturalis.nba.taxon.groupByScientificName.cacheTreshold=3000
+# The maximum size (in MB) of the cache for regular queries, count
+# queries and aggregation queries. Default: 0 (disabled)
+nl.naturalis.nba.queryCache.maxSizeMB=0
+# The number of seconds after which cached queries expire.
+# Default: 3600
+nl.naturalis.nba.queryCache.ttl=3600
+# The number of slices (parallel scrolls) used when generating the
+# DwC archives for predefined data sets. Default: the number of
+# shards of the index. Set to 1 to scroll through a single connection.
+nl.naturalis.nba.dwca.numSlices=
+# The directory in which DwC archives for the predefined data sets
+# are generated in advance. The archives are regenerated after each
+# import and served from disk. Leave empty to generate the archives
+# on every request.
+nl.naturalis.nba.dwca.archiveDir=
 
 
 # **************************
@@ -82,11 +101,44 @@ nl.naturalis.nba.taxon.groupByScientificName.cacheTreshold=3000
 etl.output=es
 etl.enrich=false
 
+# Directory in which the taxonomic enrichment data used when
+# etl.enrich=true are saved, so they can be reused by subsequent
+# imports as long as the taxon index has not changed. Leave empty
+# to rebuild the enrichment data from the taxon index for every import.
+etl.enrich.data.dir=
+
 # Optional system property that can be used to set the size of
 # Elasticsearch bulk index requests (the number of documents to be indexed
 # at once). Default: 1000
 # nl.naturalis.nba.etl.queueSize=500
 
+# Optional system properties that can be used to set the maximum
+# size (in MB) of Elasticsearch bulk index requests and the maximum
+# number of bulk index requests in flight at any time.
+# Default: 5 (MB) and 2
+# nl.naturalis.nba.etl.bulkSize=5
+# nl.naturalis.nba.etl.bulkConcurrency=2
+
+# Optional system property that can be used to set the number of
+# threads transforming records during the Brahms imports. Default: 1
+# nl.naturalis.nba.etl.transformerThreads=4
+
+# Optional system property that can be used to set the number of
+# NSR source files processed concurrently. Default: 1
+# nl.naturalis.nba.etl.nsr.threads=4
+
+# Optional system property that can be used to set the amount of
+# memory (in MB) used for sorting the CoL source files. Larger files
+# are sorted using temporary files. Default: 256
+# nl.naturalis.nba.etl.col.sortBufferSize=512
+
+# Optional system properties for the JSON importer. In raw mode the
+# documents are passed on to Elasticsearch as-is and only every n-th
+# document is validated against the document model (0 = none).
+# Default: false and 1000
+# nl.naturalis.nba.etl.json.raw=true
+# nl.naturalis.nba.etl.json.validateEvery=1000
+
 # Optional property to suppress errors from the log file (default = true).
 #nl.naturalis.nba.etl.suppressErrors
 
@@ -1,48 +1,67 @@
 package nl.naturalis.nba.common;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InaccessibleObjectException;
 import java.lang.reflect.Modifier;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * A two-level cache that, per class, maps field names to {@link Field}
- * instances.
- * 
+ * A thread-safe, two-level cache that, per class, maps field names to getters
+ * for those fields. The getters are {@link MethodHandle method handles} of type
+ * {@code (Object)Object}, so they can be invoked using
+ * {@link MethodHandle#invokeExact(Object...) invokeExact}.
+ *
  * @author Ayco Holleman
  *
  */
 class FieldCache {
 
-	private static final HashMap<Class<?>, HashMap<String, Field>> cache = new HashMap<>(64);
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class,
+			Object.class);
 
-	static Field get(String name, Class<?> cls) throws InvalidPathException
-	{
-		HashMap<String, Field> subcache = cache.get(cls);
-		if (subcache == null) {
-			subcache = new HashMap<>();
-			cache.put(cls, subcache);
+	private static final ClassValue<ConcurrentHashMap<String, MethodHandle>> cache = new ClassValue<ConcurrentHashMap<String, MethodHandle>>() {
+
+		@Override
+		protected ConcurrentHashMap<String, MethodHandle> computeValue(Class<?> cls)
+		{
+			return new ConcurrentHashMap<>();
 		}
-		Field f = subcache.get(name);
+	};
+
+	/**
+	 * Returns a getter for the field with the specified name within the
+	 * specified class, or {@code null} if the class has no such field.
+	 *
+	 * @param name
+	 * @param cls
+	 * @return
+	 */
+	static MethodHandle getGetter(String name, Class<?> cls)
+	{
+		return cache.get(cls).computeIfAbsent(name, k -> createGetter(k, cls));
+	}
+
+	private static MethodHandle createGetter(String name, Class<?> cls)
+	{
+		Field f = getField(name, cls);
 		if (f == null) {
-			f = getField(name, cls);
-			if (f == null) {
-			  throw new RuntimeException("No such field: " + f);
-			}
-			try {
-			  f.setAccessible(true);			  
-			  subcache.put(name, f);
-			} 
-			catch (InaccessibleObjectException | SecurityException e){
-			  throw new RuntimeException(e);
-			}
+			return null;
+		}
+		try {
+			f.setAccessible(true);
+			return MethodHandles.lookup().unreflectGetter(f).asType(GETTER_TYPE);
+		}
+		catch (InaccessibleObjectException | SecurityException | IllegalAccessException e) {
+			throw new RuntimeException(e);
 		}
-		return f;
 	}
 
 	private static Field getField(String name, Class<?> cls)
 	{
-		while (cls != Object.class) {
+		while (cls != null && cls != Object.class) {
 			for (Field f : cls.getDeclaredFields()) {
 				if (Modifier.isStatic(f.getModifiers()))
 					continue;
@@ -1,6 +1,6 @@
 package nl.naturalis.nba.common;
 
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandle;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -22,7 +22,21 @@ import nl.naturalis.nba.api.Path;
  */
 public class PathValueReader {
 
-	private Path path;
+	private final Path path;
+	/*
+	 * The path elements and, for each path element, the array index it
+	 * represents, or -1 if it is not an array index. Parsed once, when the
+	 * reader is created.
+	 */
+	private final String[] elements;
+	private final int[] indices;
+	/*
+	 * For each path element, the getter for the class last encountered at
+	 * that position in the path. Since the objects at any given position are
+	 * nearly always of the same class, this saves a lookup in the FieldCache
+	 * for all but the first object read.
+	 */
+	private final Getter[] getters;
 
 	/**
 	 * Creates a {@code PathValueReader} that will read values from objects at
@@ -44,6 +58,13 @@ public class PathValueReader {
 	public PathValueReader(Path path)
 	{
 		this.path = path;
+		this.elements = new String[path.countElements()];
+		this.indices = new int[elements.length];
+		this.getters = new Getter[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = path.getElement(i);
+			indices[i] = parseIndex(elements[i]);
+		}
 	}
 
 	/**
@@ -61,52 +82,97 @@ public class PathValueReader {
 	public Object read(Object obj) throws InvalidPathException
 	{
 		Objects.requireNonNull(obj, "Object must not be null");
-		if (path.countElements() == 0) {
-			return obj;
-		}
-		for (int i = 0; i < path.countElements(); i++) {
-			obj = readField(path.getElement(i), obj);
-			if (obj == null || i == path.countElements() - 1) {
+		int last = elements.length - 1;
+		for (int i = 0; i <= last; i++) {
+			obj = readField(i, obj);
+			if (obj == null || i == last) {
 				return obj;
 			}
 			if (obj instanceof Iterable) {
-				++i;
-				try {
-					int idx = Integer.parseInt(path.getElement(i));
-					Iterator<?> iterator = ((Iterable<?>) obj).iterator();
-					for (int j = 0; j <= idx; j++) {
-						if (!iterator.hasNext()) {
-							return null;
-						}
-						obj = iterator.next();
-					}
-					if (obj == null || i == path.countElements() - 1) {
-						return obj;
-					}
-				}
-				catch (NumberFormatException e) {
+				int idx = indices[++i];
+				if (idx == -1) {
 					String fmt = "Missing array index after %s in path %s";
-					String msg = String.format(fmt, path.getElement(i), path);
+					String msg = String.format(fmt, elements[i - 1], path);
 					throw new InvalidPathException(msg);
 				}
+				obj = getElement((Iterable<?>) obj, idx);
+				if (obj == null || i == last) {
+					return obj;
+				}
+			}
+		}
+		return obj;
+	}
+
+	private Object readField(int i, Object obj) throws InvalidPathException
+	{
+		Getter getter = getters[i];
+		if (getter == null || getter.type != obj.getClass()) {
+			MethodHandle handle = FieldCache.getGetter(elements[i], obj.getClass());
+			if (handle == null) {
+				String fmt = "Invalid path for objects of type %s: %s (no such field: %s)";
+				String msg = String.format(fmt, obj.getClass(), path, elements[i]);
+				throw new InvalidPathException(msg);
+			}
+			getter = new Getter(obj.getClass(), handle);
+			getters[i] = getter;
+		}
+		try {
+			return (Object) getter.handle.invokeExact(obj);
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable t) {
+			throw new RuntimeException(t);
+		}
+	}
+
+	private static Object getElement(Iterable<?> iterable, int idx)
+	{
+		if (iterable instanceof List) {
+			List<?> list = (List<?>) iterable;
+			return idx < list.size() ? list.get(idx) : null;
+		}
+		Iterator<?> iterator = iterable.iterator();
+		Object obj = null;
+		for (int j = 0; j <= idx; j++) {
+			if (!iterator.hasNext()) {
+				return null;
 			}
+			obj = iterator.next();
 		}
-		/* Won't get here */ return null;
+		return obj;
 	}
 
-	private Object readField(String field, Object obj) throws InvalidPathException
+	private static int parseIndex(String element)
 	{
-		Field f = FieldCache.get(field, obj.getClass());
-		if (f == null) {
-			String fmt = "Invalid path for objects of type %s: %s (no such field: %s)";
-			String msg = String.format(fmt, obj.getClass(), path, field);
-			throw new InvalidPathException(msg);
+		for (int i = 0; i < element.length(); i++) {
+			if (!Character.isDigit(element.charAt(i))) {
+				return -1;
+			}
 		}
 		try {
-			return f.get(obj);
+			return element.isEmpty() ? -1 : Integer.parseInt(element);
+		}
+		catch (NumberFormatException e) {
+			return -1;
 		}
-		catch (IllegalAccessException e) {
-			throw new RuntimeException(e);
+	}
+
+	/*
+	 * Immutable, so it can be safely published through the (non-volatile)
+	 * getters array when a PathValueReader is shared between threads.
+	 */
+	private static final class Getter {
+
+		private final Class<?> type;
+		private final MethodHandle handle;
+
+		Getter(Class<?> type, MethodHandle handle)
+		{
+			this.type = type;
+			this.handle = handle;
 		}
 	}
 
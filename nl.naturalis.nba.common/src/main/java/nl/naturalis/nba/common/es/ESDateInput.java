@@ -3,6 +3,7 @@ package nl.naturalis.nba.common.es;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.Month;
 import java.time.OffsetDateTime;
 import java.time.Year;
 import java.time.YearMonth;
@@ -43,6 +44,15 @@ import nl.naturalis.nba.api.QuerySpec;
  * </ol>
  * </p>
  * <p>
+ * Date strings are first classified in a single pass, without the use of
+ * {@link DateTimeFormatter formatters}. For the common shapes (the ones listed
+ * above, without fractional seconds) the {@link OffsetDateTime} is constructed
+ * directly, and strings that cannot possibly be dates are rejected straight
+ * away. Only for the remaining strings do we fall back on the formatters. This
+ * avoids the cost of a {@link DateTimeParseException} for every date format
+ * that does not match.
+ * </p>
+ * <p>
  * This class is immutable and thread-safe.
  * </p>
  * 
@@ -69,6 +79,13 @@ public final class ESDateInput {
 	private static final DateTimeFormatter[] ACCEPTED_YEAR_MONTH_FORMATTERS = new DateTimeFormatter[] {
 			DateTimeFormatter.ofPattern("yyyy-MM") };
 
+	/*
+	 * Returned by scan() if it cannot decide by itself how to parse the date
+	 * string. Never a valid outcome, because scan() only constructs dates with a
+	 * four-digit year.
+	 */
+	private static final OffsetDateTime UNDECIDED = OffsetDateTime.MIN;
+
 	/**
 	 * Formats the specified date according to the date format pattern used by
 	 * the NBA indices. This method is null-safe; if the argument passed to it
@@ -155,8 +172,14 @@ public final class ESDateInput {
 	 */
 	public OffsetDateTime parse()
 	{
-		OffsetDateTime date;
-		if (null != (date = parseAsOffsetDateTime())) {
+		OffsetDateTime date = scan(dateString, false);
+		if (date != UNDECIDED) {
+			return date;
+		}
+		if (null != (date = parseAsOffsetDateTime(DEFAULT_FORMATTER))) {
+			return date;
+		}
+		if (null != (date = parseAsOffsetDateTime(DateTimeFormatter.ISO_OFFSET_DATE_TIME))) {
 			return date;
 		}
 		if (null != (date = parseAsLocalDateTime())) {
@@ -184,6 +207,10 @@ public final class ESDateInput {
 	 */
 	public OffsetDateTime parseAsOffsetDateTime()
 	{
+		OffsetDateTime date = scan(dateString, true);
+		if (date != UNDECIDED) {
+			return date;
+		}
 		try {
 			return OffsetDateTime.parse(dateString, DEFAULT_FORMATTER);
 		}
@@ -349,6 +376,16 @@ public final class ESDateInput {
 	 */
 	public OffsetDateTime parseAsYear()
 	{
+		if (dateString != null) {
+			int len = dateString.length();
+			if (len == 4 && isDigits(dateString, 0, 4) && getInt(dateString, 0, 4) != 0) {
+				return OffsetDateTime.of(getInt(dateString, 0, 4), 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+			}
+			int start = len != 0 && (dateString.charAt(0) == '+' || dateString.charAt(0) == '-') ? 1 : 0;
+			if (len == start || !isDigits(dateString, start, len)) {
+				return null;
+			}
+		}
 		try {
 			Year year = Year.parse(dateString);
 			return OffsetDateTime.of(year.atDay(1).atStartOfDay(), ZoneOffset.UTC);
@@ -373,4 +410,200 @@ public final class ESDateInput {
 		return Date.from(odt.toInstant());
 	}
 
+	/*
+	 * Classifies the date string in a single pass and constructs the
+	 * OffsetDateTime directly if the date string has one of the following
+	 * shapes:
+	 *
+	 * yyyy
+	 * yyyy-MM
+	 * yyyy-MM-dd
+	 * yyyy-MM-dd HH:mm[:ss]
+	 * yyyy-MM-dd'T'HH:mm[:ss]
+	 * yyyy-MM-dd'T'HH:mm:ss+HHmm
+	 * yyyy-MM-dd'T'HH:mm[:ss[.S{1,9}]](Z|+HH:mm)
+	 *
+	 * Returns null if the date string cannot match any of the accepted date
+	 * formats, and UNDECIDED if the formatters should decide (e.g. because of
+	 * fractional seconds in a local time, or because a field is out of range).
+	 * If offsetOnly is true, only the date formats with a time zone are
+	 * considered.
+	 */
+	private static OffsetDateTime scan(String s, boolean offsetOnly)
+	{
+		if (s == null) {
+			return UNDECIDED;
+		}
+		int len = s.length();
+		if (len == 0 || !isDigit(s.charAt(0)) && s.charAt(0) != '+' && s.charAt(0) != '-') {
+			return null;
+		}
+		for (int i = 1; i < len; i++) {
+			if (!isDateChar(s.charAt(i))) {
+				return null;
+			}
+		}
+		if (len < 4 || !isDigits(s, 0, 4)) {
+			return UNDECIDED;
+		}
+		int year = getInt(s, 0, 4);
+		if (len == 4) {
+			return offsetOnly ? null : toOffsetDateTime(year, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+		}
+		if (len < 7 || s.charAt(4) != '-' || !isDigits(s, 5, 7)) {
+			return UNDECIDED;
+		}
+		int month = getInt(s, 5, 7);
+		if (len == 7) {
+			return offsetOnly ? null : toOffsetDateTime(year, month, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+		}
+		if (len < 10 || s.charAt(7) != '-' || !isDigits(s, 8, 10)) {
+			return UNDECIDED;
+		}
+		int day = getInt(s, 8, 10);
+		if (len == 10) {
+			return offsetOnly ? null : toOffsetDateTime(year, month, day, 0, 0, 0, 0, ZoneOffset.UTC);
+		}
+		char sep = s.charAt(10);
+		if (len < 16 || (sep != 'T' && sep != ' ') || !isDigits(s, 11, 13) || s.charAt(13) != ':'
+				|| !isDigits(s, 14, 16)) {
+			return UNDECIDED;
+		}
+		int hour = getInt(s, 11, 13);
+		int minute = getInt(s, 14, 16);
+		int second = 0;
+		int pos = 16;
+		if (pos < len && s.charAt(pos) == ':') {
+			if (len < 19 || !isDigits(s, 17, 19)) {
+				return UNDECIDED;
+			}
+			second = getInt(s, 17, 19);
+			pos = 19;
+		}
+		if (pos == len) {
+			return offsetOnly ? null
+					: toOffsetDateTime(year, month, day, hour, minute, second, 0, ZoneOffset.UTC);
+		}
+		if (sep != 'T') {
+			return UNDECIDED;
+		}
+		int nano = 0;
+		boolean fraction = false;
+		if (pos == 19 && s.charAt(pos) == '.') {
+			int start = ++pos;
+			while (pos < len && isDigit(s.charAt(pos))) {
+				++pos;
+			}
+			int n = pos - start;
+			if (n == 0 || n > 9) {
+				return UNDECIDED;
+			}
+			nano = getInt(s, start, pos);
+			for (; n < 9; n++) {
+				nano *= 10;
+			}
+			fraction = true;
+			if (pos == len) {
+				return UNDECIDED;
+			}
+		}
+		if (pos + 1 == len && s.charAt(pos) == 'Z') {
+			return toOffsetDateTime(year, month, day, hour, minute, second, nano, ZoneOffset.UTC);
+		}
+		char sign = s.charAt(pos);
+		if (sign != '+' && sign != '-' || !isDigits(s, pos + 1, pos + 3)) {
+			return UNDECIDED;
+		}
+		int offsetHours = getInt(s, pos + 1, pos + 3);
+		int offsetMinutes;
+		if (pos + 6 == len && s.charAt(pos + 3) == ':' && isDigits(s, pos + 4, pos + 6)) {
+			// ISO_OFFSET_DATE_TIME
+			offsetMinutes = getInt(s, pos + 4, pos + 6);
+		}
+		else if (pos + 5 == len && pos == 19 && !fraction && isDigits(s, pos + 3, pos + 5)) {
+			// ES_DATE_FORMAT
+			offsetMinutes = getInt(s, pos + 3, pos + 5);
+		}
+		else {
+			return UNDECIDED;
+		}
+		if (offsetHours > 18 || offsetMinutes > 59 || (offsetHours == 18 && offsetMinutes != 0)) {
+			return UNDECIDED;
+		}
+		if (sign == '-') {
+			if (offsetHours == 0 && offsetMinutes == 0) {
+				return UNDECIDED;
+			}
+			offsetHours = -offsetHours;
+			offsetMinutes = -offsetMinutes;
+		}
+		ZoneOffset offset = ZoneOffset.ofHoursMinutes(offsetHours, offsetMinutes);
+		return toOffsetDateTime(year, month, day, hour, minute, second, nano, offset);
+	}
+
+	/*
+	 * Returns UNDECIDED rather than throwing an exception if any of the fields
+	 * is out of range.
+	 */
+	private static OffsetDateTime toOffsetDateTime(int year, int month, int day, int hour,
+			int minute, int second, int nano, ZoneOffset offset)
+	{
+		if (year == 0 || month < 1 || month > 12 || day < 1
+				|| day > Month.of(month).length(Year.isLeap(year)) || hour > 23 || minute > 59
+				|| second > 59) {
+			return UNDECIDED;
+		}
+		return OffsetDateTime.of(year, month, day, hour, minute, second, nano, offset);
+	}
+
+	/*
+	 * Whether the character can occur in any of the accepted date formats
+	 * (case-insensitively, since ISO formatters parse case-insensitively).
+	 */
+	private static boolean isDateChar(char c)
+	{
+		switch (c) {
+			case '-':
+			case '+':
+			case ':':
+			case '.':
+			case ',':
+			case ' ':
+			case 'T':
+			case 't':
+			case 'Z':
+			case 'z':
+				return true;
+			default:
+				return isDigit(c);
+		}
+	}
+
+	private static boolean isDigit(char c)
+	{
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isDigits(String s, int from, int to)
+	{
+		if (to > s.length()) {
+			return false;
+		}
+		for (int i = from; i < to; i++) {
+			if (!isDigit(s.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int getInt(String s, int from, int to)
+	{
+		int i = 0;
+		for (int j = from; j < to; j++) {
+			i = i * 10 + (s.charAt(j) - '0');
+		}
+		return i;
+	}
+
 }
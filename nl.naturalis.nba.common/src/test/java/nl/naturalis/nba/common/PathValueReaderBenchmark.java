@@ -0,0 +1,186 @@
+package nl.naturalis.nba.common;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import nl.naturalis.nba.api.Path;
+import nl.naturalis.nba.api.model.DefaultClassification;
+import nl.naturalis.nba.api.model.ScientificName;
+import nl.naturalis.nba.api.model.Specimen;
+import nl.naturalis.nba.api.model.SpecimenIdentification;
+
+/**
+ * Compares the cost of reading a value through a {@link PathValueReader} with
+ * the cost of reading it the way the {@code PathValueReader} used to do it:
+ * resolving each path element through a {@code HashMap} of {@link Field}
+ * objects and parsing array indices on every read. This is not a unit test;
+ * run it from the IDE or with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=nl.naturalis.nba.common.PathValueReaderBenchmark -Dexec.classpathScope=test
+ * </pre>
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class PathValueReaderBenchmark {
+
+	private static final int NUM_DOCUMENTS = 1000;
+	private static final int NUM_ROUNDS = 5000;
+
+	public static void main(String[] args) throws InvalidPathException
+	{
+		String[] paths = new String[] { "unitID", "identifications.0.scientificName.fullScientificName",
+				"identifications.0.defaultClassification.genus" };
+		Specimen[] specimens = createSpecimens();
+		for (int i = 0; i < 5; i++) {
+			for (String path : paths) {
+				long reflective = runReflective(new Path(path), specimens);
+				long compiled = runCompiled(new Path(path), specimens);
+				String fmt = "%-55s reflective: %6.1f ns/read   compiled: %6.1f ns/read%n";
+				System.out.printf(fmt, path, perRead(reflective), perRead(compiled));
+			}
+			System.out.println();
+		}
+	}
+
+	private static long runCompiled(Path path, Specimen[] specimens) throws InvalidPathException
+	{
+		PathValueReader pvr = new PathValueReader(path);
+		int count = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < NUM_ROUNDS; i++) {
+			for (Specimen specimen : specimens) {
+				if (pvr.read(specimen) != null) {
+					++count;
+				}
+			}
+		}
+		long took = System.nanoTime() - start;
+		check(count);
+		return took;
+	}
+
+	private static long runReflective(Path path, Specimen[] specimens)
+	{
+		ReflectivePathValueReader pvr = new ReflectivePathValueReader(path);
+		int count = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < NUM_ROUNDS; i++) {
+			for (Specimen specimen : specimens) {
+				if (pvr.read(specimen) != null) {
+					++count;
+				}
+			}
+		}
+		long took = System.nanoTime() - start;
+		check(count);
+		return took;
+	}
+
+	private static double perRead(long nanos)
+	{
+		return (double) nanos / (NUM_ROUNDS * NUM_DOCUMENTS);
+	}
+
+	private static void check(int count)
+	{
+		if (count != NUM_ROUNDS * NUM_DOCUMENTS) {
+			throw new AssertionError("Unexpected number of values read: " + count);
+		}
+	}
+
+	private static Specimen[] createSpecimens()
+	{
+		Specimen[] specimens = new Specimen[NUM_DOCUMENTS];
+		for (int i = 0; i < NUM_DOCUMENTS; i++) {
+			ScientificName sn = new ScientificName();
+			sn.setFullScientificName("Larus fuscus fuscus " + i);
+			DefaultClassification dc = new DefaultClassification();
+			dc.setGenus("Larus");
+			SpecimenIdentification si = new SpecimenIdentification();
+			si.setScientificName(sn);
+			si.setDefaultClassification(dc);
+			Specimen specimen = new Specimen();
+			specimen.setUnitID("ZMA.MAM." + i);
+			specimen.addIndentification(si);
+			specimens[i] = specimen;
+		}
+		return specimens;
+	}
+
+	/*
+	 * The PathValueReader as it was before path elements were resolved once and
+	 * cached as method handles.
+	 */
+	private static class ReflectivePathValueReader {
+
+		private static final HashMap<Class<?>, HashMap<String, Field>> cache = new HashMap<>();
+
+		private final Path path;
+
+		ReflectivePathValueReader(Path path)
+		{
+			this.path = path;
+		}
+
+		Object read(Object obj)
+		{
+			for (int i = 0; i < path.countElements(); i++) {
+				obj = readField(path.getElement(i), obj);
+				if (obj == null || i == path.countElements() - 1) {
+					return obj;
+				}
+				if (obj instanceof Iterable) {
+					++i;
+					int idx = Integer.parseInt(path.getElement(i));
+					Iterator<?> iterator = ((Iterable<?>) obj).iterator();
+					for (int j = 0; j <= idx; j++) {
+						if (!iterator.hasNext()) {
+							return null;
+						}
+						obj = iterator.next();
+					}
+					if (obj == null || i == path.countElements() - 1) {
+						return obj;
+					}
+				}
+			}
+			return null;
+		}
+
+		private static Object readField(String name, Object obj)
+		{
+			HashMap<String, Field> subcache = cache.computeIfAbsent(obj.getClass(),
+					k -> new HashMap<>());
+			Field f = subcache.get(name);
+			if (f == null) {
+				f = getField(name, obj.getClass());
+				f.setAccessible(true);
+				subcache.put(name, f);
+			}
+			try {
+				return f.get(obj);
+			}
+			catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		private static Field getField(String name, Class<?> cls)
+		{
+			while (cls != Object.class) {
+				for (Field f : cls.getDeclaredFields()) {
+					if (!Modifier.isStatic(f.getModifiers()) && f.getName().equals(name)) {
+						return f;
+					}
+				}
+				cls = cls.getSuperclass();
+			}
+			throw new RuntimeException("No such field: " + name);
+		}
+	}
+
+}
@@ -0,0 +1,270 @@
+package nl.naturalis.nba.common.es;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * Compares the cost of parsing date strings with {@link ESDateInput}, which
+ * classifies a date string in a single pass before falling back on the
+ * formatters, with the cost of parsing them the way {@code ESDateInput} used to
+ * do it: trying the formatters one after another until one of them does not
+ * throw a {@link DateTimeParseException}. The date strings are a mix of what
+ * the import programs and the REST service feed to {@code ESDateInput}: CRS
+ * OAI datestamps, dates as stored in Elasticsearch, partial dates, CoL and NSR
+ * years, and junk. (The Brahms import does its own date parsing.) The results
+ * of both methods are compared, so the benchmark also fails if they differ.
+ * This is not a unit test; run it from the IDE or with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=nl.naturalis.nba.common.es.ESDateInputBenchmark -Dexec.classpathScope=test
+ * </pre>
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class ESDateInputBenchmark {
+
+	/*
+	 * How the date string is parsed by the code calling ESDateInput
+	 */
+	private static enum Method
+	{
+		PARSE, OFFSET_DATE_TIME, YEAR
+	}
+
+	private static final Object[][] SAMPLES = {
+			// CRS OAI datestamps (CrsSpecimenTransformer, CrsMultiMediaTransformer)
+			{ "2017-08-21T08:40:59Z", Method.OFFSET_DATE_TIME },
+			{ "2009-02-11T13:22:04Z", Method.OFFSET_DATE_TIME },
+			{ "2014-11-03T09:05:41.123Z", Method.OFFSET_DATE_TIME },
+			{ "2017-08-21T08:40:59", Method.OFFSET_DATE_TIME },
+			// Dates as stored in Elasticsearch (OffsetDateTimeDeserializer)
+			{ "2017-08-21T08:40:59+0200", Method.PARSE },
+			{ "1204-06-10T08:10:11+0000", Method.PARSE },
+			{ "2017-08-21T08:40:59.880+02:00", Method.PARSE },
+			// Query-time and partial dates
+			{ "2017-08-21 08:40:59", Method.PARSE },
+			{ "2017-08-21T08:40", Method.PARSE },
+			{ "1998-03-12", Method.PARSE },
+			{ "1998-03", Method.PARSE },
+			{ "1998", Method.PARSE },
+			// CoL and NSR years (CoLReferenceBatchTransformer, NsrTaxonTransformer)
+			{ "1758", Method.YEAR },
+			{ "1838", Method.YEAR },
+			{ "1838 ", Method.YEAR },
+			{ "(1838)", Method.YEAR },
+			// Junk
+			{ "unknown", Method.PARSE },
+			{ "ca. 1900", Method.PARSE },
+			{ "1998-13-01", Method.PARSE },
+			{ "", Method.OFFSET_DATE_TIME } };
+
+	private static final int NUM_ROUNDS = 200000;
+
+	public static void main(String[] args)
+	{
+		String[] dates = new String[SAMPLES.length];
+		Method[] methods = new Method[SAMPLES.length];
+		for (int i = 0; i < SAMPLES.length; i++) {
+			dates[i] = (String) SAMPLES[i][0];
+			methods[i] = (Method) SAMPLES[i][1];
+			Object expected = parseWithFormatters(dates[i], methods[i]);
+			Object actual = parse(dates[i], methods[i]);
+			if (!Objects.equals(expected, actual)) {
+				String fmt = "\"%s\": expected %s, got %s";
+				throw new AssertionError(String.format(fmt, dates[i], expected, actual));
+			}
+		}
+		for (int i = 0; i < 5; i++) {
+			long formatters = runFormatters(dates, methods);
+			long scanned = runScanned(dates, methods);
+			String fmt = "formatters: %6.0f ns/date   scanned: %6.0f ns/date%n";
+			System.out.printf(fmt, perDate(formatters), perDate(scanned));
+		}
+		System.out.println();
+		for (int i = 0; i < dates.length; i++) {
+			String[] date = new String[] { dates[i] };
+			Method[] method = new Method[] { methods[i] };
+			long formatters = runFormatters(date, method);
+			long scanned = runScanned(date, method);
+			String fmt = "%-32s %-16s formatters: %6.0f ns   scanned: %6.0f ns%n";
+			System.out.printf(fmt, "\"" + dates[i] + "\"", methods[i], perDate(formatters, 1),
+					perDate(scanned, 1));
+		}
+	}
+
+	private static long runScanned(String[] dates, Method[] methods)
+	{
+		int count = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < NUM_ROUNDS; i++) {
+			for (int j = 0; j < dates.length; j++) {
+				if (parse(dates[j], methods[j]) != null) {
+					++count;
+				}
+			}
+		}
+		long took = System.nanoTime() - start;
+		check(count, dates, methods);
+		return took;
+	}
+
+	private static long runFormatters(String[] dates, Method[] methods)
+	{
+		int count = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < NUM_ROUNDS; i++) {
+			for (int j = 0; j < dates.length; j++) {
+				if (parseWithFormatters(dates[j], methods[j]) != null) {
+					++count;
+				}
+			}
+		}
+		long took = System.nanoTime() - start;
+		check(count, dates, methods);
+		return took;
+	}
+
+	private static double perDate(long nanos)
+	{
+		return perDate(nanos, SAMPLES.length);
+	}
+
+	private static double perDate(long nanos, int numDates)
+	{
+		return (double) nanos / (NUM_ROUNDS * numDates);
+	}
+
+	private static void check(int count, String[] dates, Method[] methods)
+	{
+		int valid = 0;
+		for (int i = 0; i < dates.length; i++) {
+			if (parse(dates[i], methods[i]) != null) {
+				++valid;
+			}
+		}
+		if (count != NUM_ROUNDS * valid) {
+			throw new AssertionError("Unexpected number of dates parsed: " + count);
+		}
+	}
+
+	private static OffsetDateTime parse(String date, Method method)
+	{
+		ESDateInput input = new ESDateInput(date);
+		switch (method) {
+			case OFFSET_DATE_TIME:
+				return input.parseAsOffsetDateTime();
+			case YEAR:
+				return input.parseAsYear();
+			default:
+				return input.parse();
+		}
+	}
+
+	private static OffsetDateTime parseWithFormatters(String date, Method method)
+	{
+		FormatterChain chain = new FormatterChain(date);
+		switch (method) {
+			case OFFSET_DATE_TIME:
+				return chain.parseAsOffsetDateTime();
+			case YEAR:
+				return chain.parseAsYear();
+			default:
+				return chain.parse();
+		}
+	}
+
+	/*
+	 * ESDateInput as it was before date strings were classified in a single
+	 * pass.
+	 */
+	private static class FormatterChain {
+
+		private static final DateTimeFormatter DEFAULT_FORMATTER = DateTimeFormatter
+				.ofPattern(ESDateInput.ES_DATE_FORMAT);
+
+		private static final DateTimeFormatter[] LOCAL_DATE_TIME_FORMATTERS = new DateTimeFormatter[] {
+				DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+				DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm[:ss]") };
+
+		private static final DateTimeFormatter YEAR_MONTH_FORMATTER = DateTimeFormatter
+				.ofPattern("yyyy-MM");
+
+		private final String dateString;
+
+		FormatterChain(String dateString)
+		{
+			this.dateString = dateString;
+		}
+
+		OffsetDateTime parse()
+		{
+			OffsetDateTime date;
+			if (null != (date = parseAsOffsetDateTime(DEFAULT_FORMATTER))) {
+				return date;
+			}
+			if (null != (date = parseAsOffsetDateTime(DateTimeFormatter.ISO_OFFSET_DATE_TIME))) {
+				return date;
+			}
+			for (DateTimeFormatter formatter : LOCAL_DATE_TIME_FORMATTERS) {
+				try {
+					return OffsetDateTime.of(LocalDateTime.parse(dateString, formatter), ZoneOffset.UTC);
+				}
+				catch (DateTimeParseException e) {}
+			}
+			try {
+				LocalDate ld = LocalDate.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE);
+				return OffsetDateTime.of(ld.atStartOfDay(), ZoneOffset.UTC);
+			}
+			catch (DateTimeParseException e) {}
+			try {
+				YearMonth ym = YearMonth.parse(dateString, YEAR_MONTH_FORMATTER);
+				return OffsetDateTime.of(ym.atDay(1).atStartOfDay(), ZoneOffset.UTC);
+			}
+			catch (DateTimeParseException e) {}
+			return parseAsYear();
+		}
+
+		OffsetDateTime parseAsOffsetDateTime()
+		{
+			try {
+				return OffsetDateTime.parse(dateString, DEFAULT_FORMATTER);
+			}
+			catch (DateTimeParseException e) {
+				try {
+					return OffsetDateTime.parse(dateString);
+				}
+				catch (DateTimeParseException e2) {
+					return null;
+				}
+			}
+		}
+
+		OffsetDateTime parseAsYear()
+		{
+			try {
+				Year year = Year.parse(dateString);
+				return OffsetDateTime.of(year.atDay(1).atStartOfDay(), ZoneOffset.UTC);
+			}
+			catch (DateTimeParseException e) {}
+			return null;
+		}
+
+		private OffsetDateTime parseAsOffsetDateTime(DateTimeFormatter formatter)
+		{
+			try {
+				return OffsetDateTime.parse(dateString, formatter);
+			}
+			catch (DateTimeParseException e) {}
+			return null;
+		}
+	}
+
+}
@@ -171,4 +171,62 @@ public class ESDateInputTest {
 		assertEquals("01", "2017-04-01T00:00Z", odt.toString());
 	}
 
+	/*
+	 * Test with ES_DATE_FORMAT and a negative time zone
+	 */
+	@Test
+	public void test_parse11()
+	{
+		String date = "2017-08-21T08:40:59-0130";
+		OffsetDateTime odt = new ESDateInput(date).parse();
+		assertEquals("01", "2017-08-21T08:40:59-01:30", odt.toString());
+	}
+
+	/*
+	 * Test with leap days
+	 */
+	@Test
+	public void test_parse12()
+	{
+		assertEquals("01", "2016-02-29T00:00Z", new ESDateInput("2016-02-29").parse().toString());
+		assertNull("02", new ESDateInput("2017-02-29").parse());
+	}
+
+	/*
+	 * Test with strings that are not dates at all
+	 */
+	@Test
+	public void test_parse13()
+	{
+		assertNull("01", new ESDateInput("").parse());
+		assertNull("02", new ESDateInput("unknown").parse());
+		assertNull("03", new ESDateInput("12/05/1998").parse());
+		assertNull("04", new ESDateInput("ca. 1900").parse());
+	}
+
+	/*
+	 * Test parseAsOffsetDateTime with date strings without a time zone
+	 */
+	@Test
+	public void test_parseAsOffsetDateTime01()
+	{
+		assertNull("01", new ESDateInput("2017-08-21T08:40:59").parseAsOffsetDateTime());
+		assertNull("02", new ESDateInput("2017").parseAsOffsetDateTime());
+		OffsetDateTime odt = new ESDateInput("2017-08-21T08:40Z").parseAsOffsetDateTime();
+		assertEquals("03", "2017-08-21T08:40Z", odt.toString());
+	}
+
+	/*
+	 * Test parseAsYear
+	 */
+	@Test
+	public void test_parseAsYear01()
+	{
+		assertEquals("01", "1823-01-01T00:00Z", new ESDateInput("1823").parseAsYear().toString());
+		assertEquals("02", "0017-01-01T00:00Z", new ESDateInput("17").parseAsYear().toString());
+		assertNull("03", new ESDateInput("1823?").parseAsYear());
+		assertNull("04", new ESDateInput("").parseAsYear());
+		assertNull("05", new ESDateInput("1823-05").parseAsYear());
+	}
+
 }
@@ -13,11 +13,8 @@ import static nl.naturalis.nba.dao.util.es.ESUtil.newSearchRequest;
 import static nl.naturalis.nba.dao.util.es.ESUtil.toDocumentObject;
 import static nl.naturalis.nba.utils.debug.DebugUtil.printCall;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -53,13 +50,27 @@ import nl.naturalis.nba.common.json.JsonUtil;
 import nl.naturalis.nba.dao.aggregation.AggregationQuery;
 import nl.naturalis.nba.dao.exception.DaoException;
 import nl.naturalis.nba.dao.translate.QuerySpecTranslator;
+import nl.naturalis.nba.dao.util.QueryCache;
 import nl.naturalis.nba.dao.util.es.DirtyDocumentIterator;
 import nl.naturalis.nba.dao.util.es.ESUtil;
+import nl.naturalis.nba.dao.util.es.SearchHitWriter;
+import nl.naturalis.nba.utils.ConfigObject;
 
 public abstract class NbaDao<T extends IDocumentObject> implements INbaAccess<T> {
 
   private static final Logger logger = getLogger(NbaDao.class);
 
+  /*
+   * The size of the output buffer used when streaming documents to the client.
+   */
+  private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+
+  /*
+   * Caches the results of query, count and aggregation requests for all document types. Disabled
+   * unless the nl.naturalis.nba.queryCache.maxSizeMB property is set.
+   */
+  private static final QueryCache<Object> queryCache = new QueryCache<>("nba", getQueryCacheSize());
+
   private final DocumentType<T> dt;
 
   NbaDao(DocumentType<T> dt) {
@@ -145,8 +156,13 @@ public abstract class NbaDao<T extends IDocumentObject> implements INbaAccess<T>
     if (logger.isDebugEnabled()) {
       logger.debug(printCall("query", querySpec));
     }
-    QuerySpecTranslator translator = new QuerySpecTranslator(querySpec, dt);
-    return createSearchResult(translator);
+    Object[] key = {"query", querySpec};
+    QueryResult<T> result = getCachedResult(key);
+    if (result == null) {
+      QuerySpecTranslator translator = new QuerySpecTranslator(querySpec, dt);
+      result = createSearchResult(translator, key);
+    }
+    return result;
   }
 
   @Override
@@ -154,8 +170,14 @@ public abstract class NbaDao<T extends IDocumentObject> implements INbaAccess<T>
     if (logger.isDebugEnabled()) {
       logger.debug(printCall("count", querySpec));
     }
-    QuerySpecTranslator translator = new QuerySpecTranslator(querySpec, dt);
-    return createCountResult(translator);  
+    Object[] key = {"count", querySpec};
+    Long count = getCachedResult(key);
+    if (count == null) {
+      QuerySpecTranslator translator = new QuerySpecTranslator(querySpec, dt);
+      count = createCountResult(translator);
+      cacheResult(count, 0, key);
+    }
+    return count;
   }
 
   @SuppressWarnings("unchecked")
@@ -164,9 +186,15 @@ public abstract class NbaDao<T extends IDocumentObject> implements INbaAccess<T>
     if (logger.isDebugEnabled()) {
       logger.debug(printCall("countDistinctValues", forField, querySpec));
     }
-    AggregationQuery<T, Long> aggregationQuery = 
-        (AggregationQuery<T, Long>) createAggregationQuery(COUNT_DISTINCT_VALUES, dt, forField, null, querySpec);
-    return aggregationQuery.getResult().longValue();
+    Object[] key = {COUNT_DISTINCT_VALUES, forField, querySpec};
+    Long result = getCachedResult(key);
+    if (result == null) {
+      AggregationQuery<T, Long> aggregationQuery = 
+          (AggregationQuery<T, Long>) createAggregationQuery(COUNT_DISTINCT_VALUES, dt, forField, null, querySpec);
+      result = aggregationQuery.getResult();
+      cacheResult(result, 0, key);
+    }
+    return result.longValue();
   }
 
   @SuppressWarnings("unchecked")
@@ -176,10 +204,16 @@ public abstract class NbaDao<T extends IDocumentObject> implements INbaAccess<T>
     if (logger.isDebugEnabled()) {
       logger.debug(printCall("countDistinctValuesPerGroup", forField, forGroup, querySpec));
     }
-    AggregationQuery<T, List<Map<String, Object>>> aggregationQuery =
-        (AggregationQuery<T, List<Map<String, Object>>>) createAggregationQuery(
-            COUNT_DISTINCT_VALUES_PER_GROUP, dt, forField, forGroup, querySpec);
-    return aggregationQuery.getResult();
+    Object[] key = {COUNT_DISTINCT_VALUES_PER_GROUP, forField, forGroup, querySpec};
+    List<Map<String, Object>> result = getCachedResult(key);
+    if (result == null) {
+      AggregationQuery<T, List<Map<String, Object>>> aggregationQuery =
+          (AggregationQuery<T, List<Map<String, Object>>>) createAggregationQuery(
+              COUNT_DISTINCT_VALUES_PER_GROUP, dt, forField, forGroup, querySpec);
+      result = aggregationQuery.getResult();
+      cacheResult(result, -1, key);
+    }
+    return result;
   }
 
   @SuppressWarnings("unchecked")
@@ -189,10 +223,16 @@ public abstract class NbaDao<T extends IDocumentObject> implements INbaAccess<T>
     if (logger.isDebugEnabled()) {
       logger.debug(printCall("getDistinctValues", forField, querySpec));
     }
-    AggregationQuery<T, Map<String, Long>> aggregationQuery =
-        (AggregationQuery<T, Map<String, Long>>) createAggregationQuery(GET_DISTINCT_VALUES, dt,
-            forField, null, querySpec);
-    return aggregationQuery.getResult();
+    Object[] key = {GET_DISTINCT_VALUES, forField, querySpec};
+    Map<String, Long> result = getCachedResult(key);
+    if (result == null) {
+      AggregationQuery<T, Map<String, Long>> aggregationQuery =
+          (AggregationQuery<T, Map<String, Long>>) createAggregationQuery(GET_DISTINCT_VALUES, dt,
+              forField, null, querySpec);
+      result = aggregationQuery.getResult();
+      cacheResult(result, -1, key);
+    }
+    return result;
   }
 
   @SuppressWarnings("unchecked")
@@ -201,11 +241,30 @@ public abstract class NbaDao<T extends IDocumentObject> implements INbaAccess<T>
     if (logger.isDebugEnabled()) {
       logger.debug(printCall("getDistinctValuesPerGroup", forField, forGroup, querySpec));
     }
-    AggregationQuery<T, List<Map<String, Object>>> aggregationQuery =
-        (AggregationQuery<T, List<Map<String, Object>>>) createAggregationQuery(GET_DISTINCT_VALUES_PER_GROUP, dt, forField, forGroup, querySpec);
-    return aggregationQuery.getResult();
+    Object[] key = {GET_DISTINCT_VALUES_PER_GROUP, forField, forGroup, querySpec};
+    List<Map<String, Object>> result = getCachedResult(key);
+    if (result == null) {
+      AggregationQuery<T, List<Map<String, Object>>> aggregationQuery =
+          (AggregationQuery<T, List<Map<String, Object>>>) createAggregationQuery(GET_DISTINCT_VALUES_PER_GROUP, dt, forField, forGroup, querySpec);
+      result = aggregationQuery.getResult();
+      cacheResult(result, -1, key);
+    }
+    return result;
   }
 
+  /**
+   * Saves the specified object and returns its id. The queries cached for the
+   * index are invalidated once the object has been saved (whether successfully
+   * or not). If {@code immediate} is true, the index is refreshed first, so
+   * the object is visible to the queries executed after this method returns.
+   * Otherwise the object only becomes visible with the next refresh of the
+   * index, and queries executed and cached in the meantime keep returning the
+   * old results until they expire (see {@link QueryCache}).
+   *
+   * @param apiObject
+   * @param immediate
+   * @return
+   */
   public String save(T apiObject, boolean immediate) {
     String id = apiObject.getId();
     apiObject.setId(null);
@@ -223,16 +282,33 @@ public abstract class NbaDao<T extends IDocumentObject> implements INbaAccess<T>
     try {
       response = ESUtil.esClient().index(request, RequestOptions.DEFAULT);
       if (immediate) {
-        RefreshRequest refreshRequest = new RefreshRequest(index);
-        ESUtil.esClient().indices().refresh(refreshRequest, RequestOptions.DEFAULT);
+        refresh(index);
       }
       apiObject.setId(response.getId());
       return response.getId();
     } catch (IOException e) {
       throw new DaoException(String.format("Failed to save object with id %s: %s", id, e.getMessage()));
+    } finally {
+      /*
+       * Invalidating the cached queries before the object is visible would let
+       * a query executed in between cache the old results again.
+       */
+      QueryCache.invalidate(index);
     }
   }
 
+  /**
+   * Deletes the document with the specified id. The queries cached for the
+   * index are invalidated once the document has been deleted (whether
+   * successfully or not). If {@code immediate} is true, the index is refreshed
+   * first. Otherwise the deletion only becomes visible with the next refresh
+   * of the index, and queries executed and cached in the meantime keep
+   * returning the document until they expire (see {@link QueryCache}).
+   *
+   * @param id
+   * @param immediate
+   * @return
+   */
   public boolean delete(String id, boolean immediate) {
     String index = dt.getIndexInfo().getName();
     boolean deleted = false;
@@ -241,15 +317,25 @@ public abstract class NbaDao<T extends IDocumentObject> implements INbaAccess<T>
     try {
       DeleteResponse deleteResponse = ESUtil.esClient().delete(request, RequestOptions.DEFAULT);
       logger.info("Deleted document with id \"{}\" from index \"{}\"", deleteResponse.getId(), deleteResponse.getIndex());
+      if (immediate) {
+        refresh(index);
+      }
       deleted = true;
     } catch (IOException e) {
       String msg = String.format("Failed to delete document with id \"%s\" from index \"%s\"", index, id);
       logger.error(msg);
       throw new DaoException(msg);
+    } finally {
+      QueryCache.invalidate(index);
     }
     return deleted;
   }
 
+  private static void refresh(String index) throws IOException {
+    RefreshRequest refreshRequest = new RefreshRequest(index);
+    ESUtil.esClient().indices().refresh(refreshRequest, RequestOptions.DEFAULT);
+  }
+
   public void downloadQuery(QuerySpec querySpec, OutputStream out) throws InvalidQueryException, IOException {
 
     if (logger.isDebugEnabled()) {
@@ -257,24 +343,32 @@ public abstract class NbaDao<T extends IDocumentObject> implements INbaAccess<T>
     }
 
     DirtyDocumentIterator<T> iterator = new DirtyDocumentIterator<>(dt, querySpec);
-    Writer writer = new BufferedWriter(new OutputStreamWriter(out), 4096);
+    iterator.setPrefetchDepth(2);
+    iterator.setSourceExcludes(SearchHitWriter.getHiddenFields(dt));
+    SearchHitWriter writer = new SearchHitWriter(out, DOWNLOAD_BUFFER_SIZE);
 
     /*
      * The output will be in NDJSON format which means:
      * - no square brackets (at beginning / end)
      * - one object per line, 
      * - delimited by a new line character
+     * 
+     * The documents are written as they come back from Elasticsearch, so we
+     * don't deserialize them into document objects only to serialize them
+     * again. Fields the document objects would not have returned are left
+     * out of the search hits. Output is flushed once, at the end, rather
+     * than after each document.
      */
     try {
       while (iterator.hasNext()) {
-        writer.write(JsonUtil.toJson(iterator.next()));
-        if (iterator.hasNext()) {
-          writer.write(System.lineSeparator());
-        }
-        writer.flush();
+        writer.write(iterator.nextHit());
       }
+      writer.flush();
     } catch (IOException e) {
       throw new DaoException(e);
+    } finally {
+      // Stop prefetching if the client aborted the download
+      iterator.close();
     }
   }
 
@@ -299,14 +393,55 @@ public abstract class NbaDao<T extends IDocumentObject> implements INbaAccess<T>
     return items;
   }
 
-  private QueryResult<T> createSearchResult(QuerySpecTranslator translator) throws InvalidQueryException {
+  private QueryResult<T> createSearchResult(QuerySpecTranslator translator, Object[] key) throws InvalidQueryException {
     SearchRequest request = translator.translate();    
     SearchResponse response = executeSearchRequest(request);    
     QueryResult<T> result = new QueryResult<>();
     result.setResultSet(createItems(response));
     result.setTotalSize(response.getHits().getTotalHits().value);
+    if (queryCache.isEnabled()) {
+      // Estimate the size of the result from the size of the raw documents
+      long weight = 0;
+      for (SearchHit hit : response.getHits().getHits()) {
+        weight += hit.getSourceRef() == null ? 0 : 2L * hit.getSourceRef().length();
+      }
+      cacheResult(result, weight, key);
+    }
     return result;
   }
+
+  @SuppressWarnings("unchecked")
+  private <U> U getCachedResult(Object[] key) {
+    return (U) queryCache.get(withDocumentType(key), dt.getIndexInfo());
+  }
+
+  /*
+   * Caches the result of a query. If weight is negative, the weight of the result is estimated by
+   * the query cache itself.
+   */
+  private void cacheResult(Object result, long weight, Object[] key) {
+    if (weight < 0) {
+      queryCache.put(withDocumentType(key), result, dt.getIndexInfo());
+    } else {
+      queryCache.put(withDocumentType(key), result, weight, dt.getIndexInfo());
+    }
+  }
+
+  private Object[] withDocumentType(Object[] key) {
+    Object[] result = new Object[key.length + 1];
+    result[0] = dt.getName();
+    System.arraycopy(key, 0, result, 1, key.length);
+    return result;
+  }
+
+  private static int getQueryCacheSize() {
+    ConfigObject config = DaoRegistry.getInstance().getConfiguration();
+    String val = config.get("nl.naturalis.nba.queryCache.maxSizeMB");
+    if (val == null) {
+      return 0;
+    }
+    return Integer.parseInt(val.trim());
+  }
   
   private long createCountResult(QuerySpecTranslator translator) throws InvalidConditionException {
     CountRequest request = translator.translateCountRequest();
@@ -26,6 +26,11 @@ public class DocumentFlattener {
 
 	private Path pathToEntity;
 	private int entitiesPerDocument;
+	/*
+	 * One reader per element of pathToEntity, created once rather than for
+	 * every document flattened.
+	 */
+	private PathValueReader[] readers;
 
 	public DocumentFlattener()
 	{
@@ -61,6 +66,12 @@ public class DocumentFlattener {
 	{
 		this.pathToEntity = pathToEntity;
 		this.entitiesPerDocument = entitiesPerDocument;
+		if (pathToEntity != null) {
+			readers = new PathValueReader[pathToEntity.countElements()];
+			for (int i = 0; i < readers.length; i++) {
+				readers[i] = new PathValueReader(pathToEntity.element(i));
+			}
+		}
 	}
 
 	public List<EntityObject> flatten(Object document) throws InvalidPathException
@@ -70,31 +81,30 @@ public class DocumentFlattener {
 		}
 		List<EntityObject> entityNodes = new ArrayList<>(entitiesPerDocument);
 		EntityObject root = new EntityObject(document);
-		flatten(root, pathToEntity, entityNodes);
+		flatten(root, 0, entityNodes);
 		return entityNodes;
 	}
 
-	private void flatten(EntityObject node, Path path, List<EntityObject> entities)
+	private void flatten(EntityObject node, int depth, List<EntityObject> entities)
 			throws InvalidPathException
 	{
-		if (path.countElements() == 0) {
+		if (depth == readers.length) {
 			entities.add(node);
 			return;
 		}
-		PathValueReader pvr = new PathValueReader(path.element(0));
-		Object obj = pvr.read(node.getEntity());
+		Object obj = readers[depth].read(node.getEntity());
 		if (obj == null) {
 			return;
 		}
 		if (obj instanceof Iterable) {
 			for (Object element : (Iterable<?>) obj) {
 				EntityObject child = new EntityObject(node.getDocument(), element, node);
-				flatten(child, path.shift(), entities);
+				flatten(child, depth + 1, entities);
 			}
 		}
 		else {
 			EntityObject child = new EntityObject(node.getDocument(), obj, node);
-			flatten(child, path.shift(), entities);
+			flatten(child, depth + 1, entities);
 		}
 	}
 
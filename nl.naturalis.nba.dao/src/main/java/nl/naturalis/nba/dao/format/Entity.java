@@ -1,5 +1,9 @@
 package nl.naturalis.nba.dao.format;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.dao.format.config.EntityXmlConfig;
 
 /**
@@ -65,4 +69,61 @@ public class Entity {
 		this.fields = fields;
 	}
 
+	/**
+	 * Returns the paths of the document fields needed to write this entity,
+	 * relative to the root of the document and without array indices. Returns
+	 * {@code null} if one of the fields or filters of this entity does not
+	 * declare which paths it reads, in which case the entire document is
+	 * needed.
+	 * 
+	 * @return
+	 */
+	public Set<Path> getRequiredPaths()
+	{
+		Path pathToEntity = dataSource.getPath();
+		Set<Path> paths = new LinkedHashSet<>();
+		for (IField field : fields) {
+			if (!addPaths(paths, field.getRequiredPaths(pathToEntity))) {
+				return null;
+			}
+		}
+		if (filters != null) {
+			for (IEntityFilter filter : filters) {
+				if (!addPaths(paths, filter.getRequiredPaths(pathToEntity))) {
+					return null;
+				}
+			}
+		}
+		/*
+		 * The document flattener needs the entity objects to be present, even
+		 * if none of their fields are written (e.g. all fields are constants).
+		 */
+		if (pathToEntity != null && pathToEntity.countElements() != 0) {
+			String prefix = pathToEntity.getPurePath().toString();
+			boolean found = false;
+			for (Path path : paths) {
+				String s = path.toString();
+				if (s.equals(prefix) || s.startsWith(prefix + ".")) {
+					found = true;
+					break;
+				}
+			}
+			if (!found) {
+				paths.add(pathToEntity.getPurePath());
+			}
+		}
+		return paths;
+	}
+
+	private static boolean addPaths(Set<Path> paths, Path[] required)
+	{
+		if (required == null) {
+			return false;
+		}
+		for (Path path : required) {
+			paths.add(path.getPurePath());
+		}
+		return true;
+	}
+
 }
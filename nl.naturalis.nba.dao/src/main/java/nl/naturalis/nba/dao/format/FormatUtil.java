@@ -5,6 +5,7 @@ import java.time.format.DateTimeFormatter;
 
 import org.apache.logging.log4j.Logger;
 
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.dao.DaoUtil;
 
 /**
@@ -43,6 +44,58 @@ public class FormatUtil {
 	  return date.format(ISO8601ShortDateFormat);
 	}
 
+	/**
+	 * Converts the specified strings to {@link Path} objects. Convenience
+	 * method for implementations of {@link ICalculator#getRequiredPaths(Path)}
+	 * and {@link IField#getRequiredPaths(Path)} that read from the document.
+	 * 
+	 * @param paths
+	 * @return
+	 */
+	public static Path[] documentPaths(String... paths)
+	{
+		return entityPaths(null, paths);
+	}
+
+	/**
+	 * Converts the specified paths, which are relative to an entity object, to
+	 * paths relative to the root of the document. Convenience method for
+	 * implementations of {@link ICalculator#getRequiredPaths(Path)} and
+	 * {@link IField#getRequiredPaths(Path)} that read from the entity object.
+	 * 
+	 * @param pathToEntity
+	 *            The path to the entity object within the document, or
+	 *            {@code null} if the entity object is the document itself
+	 * @param paths
+	 * @return
+	 */
+	public static Path[] entityPaths(Path pathToEntity, String... paths)
+	{
+		Path[] result = new Path[paths.length];
+		for (int i = 0; i < paths.length; i++) {
+			result[i] = entityPath(pathToEntity, new Path(paths[i]));
+		}
+		return result;
+	}
+
+	/**
+	 * Converts the specified path, which is relative to an entity object, to a
+	 * path relative to the root of the document.
+	 * 
+	 * @param pathToEntity
+	 *            The path to the entity object within the document, or
+	 *            {@code null} if the entity object is the document itself
+	 * @param path
+	 * @return
+	 */
+	public static Path entityPath(Path pathToEntity, Path path)
+	{
+		if (pathToEntity == null || pathToEntity.countElements() == 0) {
+			return path;
+		}
+		return pathToEntity.append(path);
+	}
+
 	private FormatUtil()
 	{
 	}
@@ -1,6 +1,7 @@
 package nl.naturalis.nba.dao.format;
 
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 
 /**
@@ -45,4 +46,27 @@ public interface ICalculator {
 	 */
 	Object calculateValue(EntityObject entity) throws CalculationException;
 
+	/**
+	 * Returns the paths of the document fields read by this calculator, so
+	 * that only those fields need to be retrieved from Elasticsearch. The
+	 * paths must be relative to the root of the document. Array indices within
+	 * the paths are ignored. The {@code pathToEntity} argument is the path to
+	 * the {@link EntityObject entity object} within the document
+	 * ({@code null} if the entity object is the document itself). Calculators
+	 * that read from the entity object rather than the document can use it to
+	 * convert their paths (see {@link FormatUtil#entityPaths(Path, String...)
+	 * FormatUtil.entityPaths}). A calculator that does not read from the
+	 * document at all should return an empty array. The default
+	 * implementation returns {@code null}, meaning that the calculator may
+	 * need any field in the document, in which case the entire document is
+	 * retrieved.
+	 * 
+	 * @param pathToEntity
+	 * @return
+	 */
+	default Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return null;
+	}
+
 }
@@ -1,6 +1,7 @@
 package nl.naturalis.nba.dao.format;
 
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.QuerySpec;
 
 /**
@@ -34,4 +35,18 @@ public interface IEntityFilter {
 	 */
 	boolean accept(EntityObject entity) throws EntityFilterException;
 
+	/**
+	 * Returns the paths of the document fields this filter reads, relative to
+	 * the root of the document. See {@link ICalculator#getRequiredPaths(Path)}.
+	 * The default implementation returns {@code null}, meaning that the filter
+	 * may need any field in the document.
+	 * 
+	 * @param pathToEntity
+	 * @return
+	 */
+	default Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return null;
+	}
+
 }
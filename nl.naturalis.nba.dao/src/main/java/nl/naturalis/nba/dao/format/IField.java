@@ -2,6 +2,8 @@ package nl.naturalis.nba.dao.format;
 
 import java.net.URI;
 
+import nl.naturalis.nba.api.Path;
+
 /**
  * <p>
  * An {@code IField} represents a single field within a file belonging to a
@@ -74,4 +76,21 @@ public interface IField {
 	 */
 	String getValue(EntityObject entity) throws FieldWriteException;
 
+	/**
+	 * Returns the paths of the document fields this field reads its value
+	 * from, relative to the root of the document. The {@code pathToEntity}
+	 * argument is the path to the {@link EntityObject entity object} within
+	 * the document ({@code null} if the entity object is the document itself).
+	 * See {@link ICalculator#getRequiredPaths(Path)}. The default
+	 * implementation returns {@code null}, meaning that the field may need any
+	 * field in the document.
+	 * 
+	 * @param pathToEntity
+	 * @return
+	 */
+	default Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return null;
+	}
+
 }
@@ -1,7 +1,10 @@
 package nl.naturalis.nba.dao.format.calc;
 
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
+
 import java.util.List;
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.AssociatedTaxon;
 import nl.naturalis.nba.api.model.GatheringEvent;
 import nl.naturalis.nba.api.model.IDocumentObject;
@@ -47,4 +50,9 @@ public class AssociatedTaxaNameCalculator implements ICalculator {
     return associatedTaxa;
   }
 
+  @Override
+  public Path[] getRequiredPaths(Path pathToEntity) {
+    return documentPaths("gatheringEvent.associatedTaxa");
+  }
+
 }
@@ -1,9 +1,11 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
 
 import java.util.Map;
 
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.MultiMediaObject;
 import nl.naturalis.nba.dao.format.CalculationException;
@@ -37,4 +39,9 @@ public class AssociatedTaxonReferenceIdCalculator implements ICalculator {
     return id;
   }
 
+  @Override
+  public Path[] getRequiredPaths(Path pathToEntity) {
+    return documentPaths("associatedTaxonReference", "sourceSystem");
+  }
+
 }
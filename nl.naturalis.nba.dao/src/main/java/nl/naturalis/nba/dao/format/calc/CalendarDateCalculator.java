@@ -33,6 +33,8 @@ import nl.naturalis.nba.dao.format.ICalculator;
  */
 public class CalendarDateCalculator implements ICalculator {
 
+  private Path path;
+
   private PathValueReader pathValueReader;
 
   private static Logger logger = LogManager.getLogger(CalendarDateCalculator.class);
@@ -49,6 +51,7 @@ public class CalendarDateCalculator implements ICalculator {
       String msg = format("Entity %s: %s", dateField, e.getMessage());
       throw new CalculatorInitializationException(msg);
     }
+    this.path = path;
     pathValueReader = new PathValueReader(path);
   }
 
@@ -104,4 +107,9 @@ public class CalendarDateCalculator implements ICalculator {
     }
   }
 
+  @Override
+  public Path[] getRequiredPaths(Path pathToEntity) {
+    return new Path[] { path };
+  }
+
 }
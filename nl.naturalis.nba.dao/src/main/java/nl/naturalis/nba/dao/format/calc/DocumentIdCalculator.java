@@ -1,6 +1,7 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.dao.format.CalculationException;
 import nl.naturalis.nba.dao.format.CalculatorInitializationException;
@@ -24,4 +25,9 @@ public class DocumentIdCalculator implements ICalculator {
     return doc.getId();
   }
 
+  @Override
+  public Path[] getRequiredPaths(Path pathToEntity) {
+    return new Path[0];
+  }
+
 }
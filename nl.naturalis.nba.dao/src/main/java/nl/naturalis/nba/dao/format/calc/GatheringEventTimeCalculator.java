@@ -1,10 +1,12 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.Specimen;
 import nl.naturalis.nba.dao.format.CalculationException;
@@ -107,4 +109,10 @@ public class GatheringEventTimeCalculator implements ICalculator {
     return dateTimeBegin.format(toTimeFormat) + "/" + dateTimeEnd.format(toTimeFormat);
   }
 
+  @Override
+  public Path[] getRequiredPaths(Path pathToEntity)
+  {
+    return documentPaths("gatheringEvent.dateTimeBegin", "gatheringEvent.dateTimeEnd");
+  }
+
 }
@@ -1,9 +1,11 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
 
 import java.util.Map;
 
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.DefaultClassification;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.SourceSystem;
@@ -61,4 +63,11 @@ public class HigherClassificationCalculator implements ICalculator {
 		}
 	}
 	
+
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return documentPaths("identifications.defaultClassification", "sourceSystem");
+	}
+
 }
@@ -1,8 +1,11 @@
 package nl.naturalis.nba.dao.format.calc;
 
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
+
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.AreaClass;
 import nl.naturalis.nba.api.model.GatheringEvent;
 import nl.naturalis.nba.api.model.IDocumentObject;
@@ -59,4 +62,9 @@ public class HigherGeographyCalculator implements ICalculator {
     return areaName;
   }
 
+  @Override
+  public Path[] getRequiredPaths(Path pathToEntity) {
+    return documentPaths("gatheringEvent.namedAreas");
+  }
+
 }
@@ -1,10 +1,12 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
 
 import java.util.List;
 import java.util.Map;
 
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.Agent;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.Specimen;
@@ -44,4 +46,11 @@ public class IdentifiedByCalculator implements ICalculator {
 		}
 		return identifier.getAgentText().replaceAll("[,\\[\\]]", "");
 	}
+
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return documentPaths("identifications.identifiers");
+	}
+
 }
@@ -1,7 +1,9 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.Specimen;
 import nl.naturalis.nba.api.model.SpecimenIdentification;
@@ -37,4 +39,10 @@ public class KingdomCalculator implements ICalculator {
 		return kingdom == null ? EMPTY_STRING : kingdom;
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return documentPaths("identifications.defaultClassification.kingdom");
+	}
+
 }
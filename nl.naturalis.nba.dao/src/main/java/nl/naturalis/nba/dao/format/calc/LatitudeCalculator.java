@@ -1,10 +1,12 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
 
 import java.util.List;
 import java.util.Map;
 
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.GatheringSiteCoordinates;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.Specimen;
@@ -43,4 +45,10 @@ public class LatitudeCalculator implements ICalculator {
 		return lat == null ? EMPTY_STRING : lat;
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return documentPaths("gatheringEvent.siteCoordinates.latitudeDecimal");
+	}
+
 }
@@ -1,10 +1,12 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.entityPaths;
 
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.Reference;
 import nl.naturalis.nba.api.model.Taxon;
@@ -107,4 +109,13 @@ public class NamePublishedInCalculator implements ICalculator {
 		return sb.toString();
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		if (type == ACCEPTED_NAME) {
+			return entityPaths(pathToEntity, "acceptedName.references");
+		}
+		return entityPaths(pathToEntity, "references");
+	}
+
 }
@@ -1,6 +1,9 @@
 package nl.naturalis.nba.dao.format.calc;
 
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
+
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.Specimen;
 import nl.naturalis.nba.dao.format.CalculationException;
@@ -37,4 +40,9 @@ public class OccurrenceIdCalculator implements ICalculator {
     return url + sourceSystemId;
   }
 
+  @Override
+  public Path[] getRequiredPaths(Path pathToEntity) {
+    return documentPaths("sourceSystemId");
+  }
+
 }
@@ -1,7 +1,10 @@
 package nl.naturalis.nba.dao.format.calc;
 
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
+
 import java.util.Map;
 import java.util.List;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.ScientificName;
 import nl.naturalis.nba.api.model.Specimen;
@@ -51,4 +54,10 @@ public class PreviousIdentificationsCalculator implements ICalculator {
     return previousIdentifications;
   }
 
+  @Override
+  public Path[] getRequiredPaths(Path pathToEntity) {
+    return documentPaths("identifications.preferred",
+          "identifications.scientificName.fullScientificName");
+  }
+
 }
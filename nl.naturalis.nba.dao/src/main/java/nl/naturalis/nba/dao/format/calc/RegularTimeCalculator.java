@@ -32,6 +32,8 @@ import nl.naturalis.nba.dao.format.ICalculator;
  */
 public class RegularTimeCalculator  implements ICalculator {
 
+  private Path path;
+
   private PathValueReader pathValueReader;
 
   private static Logger logger = LogManager.getLogger(RegularTimeCalculator.class);
@@ -47,6 +49,7 @@ public class RegularTimeCalculator  implements ICalculator {
       String msg = format("Entity %s: %s", dateTimeField, e.getMessage());
       throw new CalculatorInitializationException(msg);
     }
+    this.path = path;
     pathValueReader = new PathValueReader(path);    
   }
 
@@ -100,8 +103,9 @@ public class RegularTimeCalculator  implements ICalculator {
     }
   }
 
-
+  @Override
+  public Path[] getRequiredPaths(Path pathToEntity) {
+    return new Path[] { path };
+  }
 
 }
-
-
@@ -1,8 +1,10 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.entityPaths;
 
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.ScientificName;
 import nl.naturalis.nba.api.model.Taxon;
@@ -80,4 +82,14 @@ public class ScientificNameAuthorshipCalculator implements ICalculator {
 		return author + ", " + year;
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		if (type == ACCEPTED_NAME) {
+			return entityPaths(pathToEntity, "acceptedName.author", "acceptedName.year",
+					"acceptedName.authorshipVerbatim");
+		}
+		return entityPaths(pathToEntity, "author", "year", "authorshipVerbatim");
+	}
+
 }
@@ -1,6 +1,9 @@
 package nl.naturalis.nba.dao.format.calc;
 
+import static nl.naturalis.nba.dao.format.FormatUtil.entityPaths;
+
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.ScientificName;
 import nl.naturalis.nba.api.model.Taxon;
@@ -45,4 +48,11 @@ public class SynonymIdCalculator implements ICalculator {
 		return obj == null ? 0 : obj.hashCode();
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		Path[] paths = entityPaths(pathToEntity, "fullScientificName", "taxonomicStatus");
+		return new Path[] { new Path("sourceSystemId"), paths[0], paths[1] };
+	}
+
 }
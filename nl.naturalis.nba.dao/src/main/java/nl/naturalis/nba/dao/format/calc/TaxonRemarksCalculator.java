@@ -1,9 +1,11 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
 
 import java.util.List;
 import java.util.Map;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.Reference;
 import nl.naturalis.nba.api.model.Specimen;
@@ -47,4 +49,11 @@ public class TaxonRemarksCalculator implements ICalculator {
 		}
 		return fullName.replaceAll("[,\\[\\]]", "");
 	}
+
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return documentPaths("identifications.scientificName.references.author.fullName");
+	}
+
 }
@@ -1,10 +1,12 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.entityPaths;
 
 import java.util.List;
 import java.util.Map;
 
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.Expert;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.Taxon;
@@ -87,4 +89,13 @@ public class TaxonomicExpertCalculator implements ICalculator {
 		return name + " (" + org + ")";
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		if (type == ACCEPTED_NAME) {
+			return entityPaths(pathToEntity, "acceptedName.experts");
+		}
+		return entityPaths(pathToEntity, "experts");
+	}
+
 }
@@ -1,6 +1,7 @@
 package nl.naturalis.nba.dao.format.calc;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.documentPaths;
 import static nl.naturalis.nba.dao.format.FormatUtil.formatISO8601ShortDate;
 
 import java.time.OffsetDateTime;
@@ -8,6 +9,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Map;
 
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.api.model.Specimen;
 import nl.naturalis.nba.dao.format.CalculatorInitializationException;
@@ -59,4 +61,10 @@ public class VerbatimEventDateCalculator implements ICalculator {
 	  );
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return documentPaths("gatheringEvent.dateTimeBegin", "gatheringEvent.dateTimeEnd");
+	}
+
 }
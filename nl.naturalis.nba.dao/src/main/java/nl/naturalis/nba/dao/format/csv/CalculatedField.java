@@ -2,6 +2,7 @@ package nl.naturalis.nba.dao.format.csv;
 
 import java.net.URI;
 
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.dao.format.AbstractField;
 import nl.naturalis.nba.dao.format.EntityObject;
 import nl.naturalis.nba.dao.format.FieldWriteException;
@@ -31,4 +32,10 @@ class CalculatedField extends AbstractField {
 		return value.toString();
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return calculator.getRequiredPaths(pathToEntity);
+	}
+
 }
@@ -2,6 +2,7 @@ package nl.naturalis.nba.dao.format.csv;
 
 import java.net.URI;
 
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.dao.format.AbstractField;
 import nl.naturalis.nba.dao.format.EntityObject;
 
@@ -29,4 +30,10 @@ class ConstantField extends AbstractField {
 		return value;
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return new Path[0];
+	}
+
 }
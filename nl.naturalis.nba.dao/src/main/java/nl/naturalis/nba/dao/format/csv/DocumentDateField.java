@@ -21,11 +21,13 @@ import nl.naturalis.nba.dao.format.EntityObject;
  */
 class DocumentDateField extends AbstractField {
 
+	private Path path;
 	private PathValueReader pvr;
 
 	DocumentDateField(String name, URI term, Boolean isCoreId, Path path)
 	{
 		super(name, term, isCoreId);
+		this.path = path;
 		this.pvr = new PathValueReader(path);
 	}
 
@@ -36,4 +38,10 @@ class DocumentDateField extends AbstractField {
 		return value == null ? EMPTY_STRING : formatDate(value);
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return new Path[] { path };
+	}
+
 }
@@ -27,11 +27,13 @@ import nl.naturalis.nba.dao.format.IField;
  */
 class DocumentField extends AbstractField {
 
+	private Path path;
 	private PathValueReader pvr;
 
 	DocumentField(String name, URI term, Boolean isCoreId, Path path)
 	{
 		super(name, term, isCoreId);
+		this.path = path;
 		this.pvr = new PathValueReader(path);
 	}
 
@@ -42,4 +44,10 @@ class DocumentField extends AbstractField {
 		return value == null ? EMPTY_STRING : value.toString();
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return new Path[] { path };
+	}
+
 }
@@ -1,6 +1,7 @@
 package nl.naturalis.nba.dao.format.csv;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.entityPath;
 import static nl.naturalis.nba.dao.format.FormatUtil.formatDate;
 
 import java.net.URI;
@@ -21,11 +22,13 @@ import nl.naturalis.nba.dao.format.EntityObject;
  */
 class EntityDateField extends AbstractField {
 
+	private Path path;
 	private PathValueReader pvr;
 
 	EntityDateField(String name, URI term, Boolean isCoreId, Path path)
 	{
 		super(name, term, isCoreId);
+		this.path = path;
 		this.pvr = new PathValueReader(path);
 	}
 
@@ -36,4 +39,10 @@ class EntityDateField extends AbstractField {
 		return value == null ? EMPTY_STRING : formatDate(value);
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return new Path[] { entityPath(pathToEntity, path) };
+	}
+
 }
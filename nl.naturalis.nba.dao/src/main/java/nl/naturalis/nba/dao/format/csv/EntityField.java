@@ -1,6 +1,7 @@
 package nl.naturalis.nba.dao.format.csv;
 
 import static nl.naturalis.nba.dao.format.FormatUtil.EMPTY_STRING;
+import static nl.naturalis.nba.dao.format.FormatUtil.entityPath;
 
 import java.net.URI;
 
@@ -20,11 +21,13 @@ import nl.naturalis.nba.dao.format.IField;
  */
 class EntityField extends AbstractField {
 
+	private Path path;
 	private PathValueReader pvr;
 
 	EntityField(String name, URI term, Boolean isCoreId, Path path)
 	{
 		super(name, term, isCoreId);
+		this.path = path;
 		this.pvr = new PathValueReader(path);
 	}
 
@@ -35,4 +38,10 @@ class EntityField extends AbstractField {
 		return value == null ? EMPTY_STRING : value.toString();
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return new Path[] { entityPath(pathToEntity, path) };
+	}
+
 }
@@ -0,0 +1,433 @@
+package nl.naturalis.nba.dao.format.dwca;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static nl.naturalis.nba.dao.DaoUtil.getLogger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.zip.ZipFile;
+
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.client.core.CountRequest;
+
+import nl.naturalis.nba.api.NoSuchDataSetException;
+import nl.naturalis.nba.common.json.JsonUtil;
+import nl.naturalis.nba.dao.DaoRegistry;
+import nl.naturalis.nba.dao.DaoUtil;
+import nl.naturalis.nba.dao.IndexInfo;
+import nl.naturalis.nba.dao.SpecimenDao;
+import nl.naturalis.nba.dao.TaxonDao;
+import nl.naturalis.nba.dao.exception.DaoException;
+import nl.naturalis.nba.dao.format.DataSetConfigurationException;
+import nl.naturalis.nba.dao.format.DataSetWriteException;
+import nl.naturalis.nba.dao.util.es.ESUtil;
+import nl.naturalis.nba.utils.ConfigObject;
+import nl.naturalis.nba.utils.IOUtil;
+
+/**
+ * Maintains DarwinCore archives for the predefined data sets that have been
+ * generated in advance, so they can be served straight from disk rather than
+ * being generated anew for every request. The archives are stored in the
+ * directory specified by the {@code nl.naturalis.nba.dwca.archiveDir}
+ * property. If this property is not set, the store is disabled:
+ * {@link #getArchive(DwcaDataSetType, String) getArchive} always returns
+ * {@code null} and {@link #requestBuild() requestBuild} does nothing.
+ *
+ * <p>
+ * Each archive is stored along with the SHA-256 hash of its contents and a
+ * fingerprint of the state of the NBA indices at the time it was generated
+ * (the data version). The data version is calculated from the UUIDs and
+ * document counts of the indices and from the ETL metadata document. An
+ * archive is regenerated when the data version has changed, i.e. after an
+ * import. The archive being replaced remains available until the new one is
+ * ready. Since requests may still be streaming it at that point, its file is
+ * only deleted when the archive is replaced once more.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class DwcaArchiveStore {
+
+	private static final Logger logger = getLogger(DwcaArchiveStore.class);
+
+	private static final String ARCHIVE_EXTENSION = ".dwca.zip";
+	private static final String INFO_EXTENSION = ".dwca.properties";
+
+	/*
+	 * The data set name ends up in a file name, so make sure nobody gets out
+	 * of the archive directory.
+	 */
+	private static final Pattern VALID_NAME = Pattern.compile("[\\w\\-]+");
+
+	private static DwcaArchiveStore instance;
+
+	/**
+	 * Returns the one and only {@code DwcaArchiveStore}.
+	 *
+	 * @return
+	 */
+	public static synchronized DwcaArchiveStore getInstance()
+	{
+		if (instance == null) {
+			ConfigObject config = DaoRegistry.getInstance().getConfiguration();
+			String dir = config.get("nl.naturalis.nba.dwca.archiveDir");
+			if (dir == null || dir.isBlank()) {
+				logger.info("Pre-built DwCA archives disabled");
+				instance = new DwcaArchiveStore(null);
+			}
+			else {
+				logger.info("Pre-built DwCA archives stored in {}", dir);
+				instance = new DwcaArchiveStore(new File(dir.trim()));
+			}
+		}
+		return instance;
+	}
+
+	private final File root;
+	private final Map<String, PrebuiltDwcaArchive> archives = new ConcurrentHashMap<>();
+	private final AtomicBoolean building = new AtomicBoolean();
+	private final ExecutorService builder;
+
+	DwcaArchiveStore(File root)
+	{
+		this.root = root;
+		if (root == null) {
+			this.builder = null;
+		}
+		else {
+			this.builder = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, "dwca-archive-builder");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	/**
+	 * Returns whether or not pre-built archives are enabled.
+	 *
+	 * @return
+	 */
+	public boolean isEnabled()
+	{
+		return root != null;
+	}
+
+	/**
+	 * Returns the pre-built archive for the specified data set, or
+	 * {@code null} if no archive has been built yet for the data set (or if
+	 * the store is disabled).
+	 *
+	 * @param dataSetType
+	 * @param name
+	 * @return
+	 */
+	public PrebuiltDwcaArchive getArchive(DwcaDataSetType dataSetType, String name)
+	{
+		if (root == null || !VALID_NAME.matcher(name).matches()) {
+			return null;
+		}
+		String key = getKey(dataSetType, name);
+		PrebuiltDwcaArchive archive = archives.get(key);
+		if (archive == null || !archive.getFile().isFile()) {
+			archive = load(dataSetType, name);
+			if (archive == null) {
+				archives.remove(key);
+			}
+			else {
+				archives.put(key, archive);
+			}
+		}
+		return archive;
+	}
+
+	/**
+	 * Regenerates, in the background, the archives for all predefined data
+	 * sets whose data version has changed. Returns immediately. Does nothing
+	 * if the archives are already being regenerated.
+	 */
+	public void requestBuild()
+	{
+		if (root == null || !building.compareAndSet(false, true)) {
+			return;
+		}
+		builder.execute(() -> {
+			try {
+				buildAll();
+			}
+			catch (Throwable t) {
+				logger.error("Error while generating DwCA archives", t);
+			}
+			finally {
+				building.set(false);
+			}
+		});
+	}
+
+	/**
+	 * Regenerates the archives for all predefined data sets whose data version
+	 * has changed. Errors for individual data sets are logged, but do not
+	 * prevent the other data sets from being generated.
+	 */
+	public void buildAll()
+	{
+		String dataVersion = getDataVersion();
+		for (DwcaDataSetType dataSetType : DwcaDataSetType.values()) {
+			for (String name : getDataSetNames(dataSetType)) {
+				PrebuiltDwcaArchive archive = getArchive(dataSetType, name);
+				if (archive != null && archive.getDataVersion().equals(dataVersion)) {
+					continue;
+				}
+				try {
+					build(dataSetType, name, dataVersion);
+				}
+				catch (Exception e) {
+					String fmt = "Failed to generate DwCA archive for data set \"{}\": {}";
+					logger.error(fmt, name, e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Generates the archive for the specified data set.
+	 *
+	 * @param dataSetType
+	 * @param name
+	 * @param dataVersion
+	 * @return
+	 * @throws NoSuchDataSetException
+	 * @throws DataSetConfigurationException
+	 * @throws DataSetWriteException
+	 * @throws IOException
+	 */
+	public PrebuiltDwcaArchive build(DwcaDataSetType dataSetType, String name, String dataVersion)
+			throws NoSuchDataSetException, DataSetConfigurationException, DataSetWriteException,
+			IOException
+	{
+		if (!VALID_NAME.matcher(name).matches()) {
+			throw new NoSuchDataSetException(name);
+		}
+		long start = System.currentTimeMillis();
+		logger.info("Generating DwCA archive for data set \"{}\"", name);
+		File dir = getDirectory(dataSetType);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Failed to create directory " + dir.getAbsolutePath());
+		}
+		File tmp = File.createTempFile(name + "-", ".tmp", dir);
+		try {
+			MessageDigest digest = newMessageDigest();
+			try (OutputStream out = new DigestOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024), digest)) {
+				DwcaConfig config = new DwcaConfig(name, dataSetType);
+				config.getWriter(out).writeDwcaForDataSet();
+			}
+			check(tmp);
+			String hash = toHex(digest.digest());
+			File file = new File(dir, name + "-" + hash + ARCHIVE_EXTENSION);
+			Files.move(tmp.toPath(), file.toPath(), REPLACE_EXISTING);
+			PrebuiltDwcaArchive previous = load(dataSetType, name);
+			PrebuiltDwcaArchive archive = new PrebuiltDwcaArchive(file, hash, dataVersion,
+					System.currentTimeMillis());
+			saveInfo(dataSetType, name, archive);
+			archives.put(getKey(dataSetType, name), archive);
+			/*
+			 * Requests that were handed the previous archive may not even have
+			 * opened it yet, so we keep it around until the next rebuild.
+			 */
+			deleteStaleArchives(dir, name, file, previous == null ? null : previous.getFile());
+			logger.info("DwCA archive for data set \"{}\" generated (took {})", name,
+					DaoUtil.getDuration(start));
+			return archive;
+		}
+		finally {
+			Files.deleteIfExists(tmp.toPath());
+		}
+	}
+
+	/**
+	 * Returns a fingerprint of the current state of the NBA indices.
+	 *
+	 * @return
+	 */
+	public String getDataVersion()
+	{
+		List<IndexInfo> indices = new ArrayList<>(ESUtil.getDistinctIndices());
+		indices.sort(Comparator.comparing(IndexInfo::getName));
+		StringBuilder sb = new StringBuilder(256);
+		for (IndexInfo index : indices) {
+			sb.append(index.getName()).append(':');
+			try {
+				sb.append(ESUtil.getIndexSetting(index, "index.uuid"));
+			}
+			catch (DaoException e) {
+				// With aliases there is no UUID; rely on the document count
+				sb.append("null");
+			}
+			CountRequest request = new CountRequest(index.getName());
+			sb.append(':').append(ESUtil.executeCountRequest(request).getCount()).append(';');
+		}
+		try {
+			sb.append(JsonUtil.toJson(ESUtil.getNbaMetadata()));
+		}
+		catch (DaoException e) {
+			logger.warn("Could not retrieve ETL metadata: {}", e.getMessage());
+		}
+		MessageDigest digest = newMessageDigest();
+		return toHex(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/*
+	 * Deletes all archives generated for the specified data set, except for
+	 * the current and the previous one.
+	 */
+	static void deleteStaleArchives(File dir, String name, File current, File previous)
+	{
+		String regex = Pattern.quote(name) + "-[0-9a-f]{64}" + Pattern.quote(ARCHIVE_EXTENSION);
+		Pattern pattern = Pattern.compile(regex);
+		File[] files = dir.listFiles((d, f) -> pattern.matcher(f).matches());
+		if (files == null) {
+			return;
+		}
+		for (File f : files) {
+			if (f.equals(current) || f.equals(previous)) {
+				continue;
+			}
+			if (!f.delete()) {
+				logger.warn("Could not delete {}", f.getAbsolutePath());
+			}
+		}
+	}
+
+	private PrebuiltDwcaArchive load(DwcaDataSetType dataSetType, String name)
+	{
+		File info = getInfoFile(dataSetType, name);
+		if (!info.isFile()) {
+			return null;
+		}
+		Properties props = new Properties();
+		try (InputStream in = new FileInputStream(info)) {
+			props.load(in);
+		}
+		catch (IOException e) {
+			logger.warn("Could not read {}: {}", info.getAbsolutePath(), e.getMessage());
+			return null;
+		}
+		File file = new File(info.getParentFile(), props.getProperty("file"));
+		if (!file.isFile()) {
+			return null;
+		}
+		String hash = props.getProperty("hash");
+		String dataVersion = props.getProperty("dataVersion");
+		long created = Long.parseLong(props.getProperty("created"));
+		return new PrebuiltDwcaArchive(file, hash, dataVersion, created);
+	}
+
+	private void saveInfo(DwcaDataSetType dataSetType, String name, PrebuiltDwcaArchive archive)
+			throws IOException
+	{
+		Properties props = new Properties();
+		props.setProperty("file", archive.getFile().getName());
+		props.setProperty("hash", archive.getHash());
+		props.setProperty("dataVersion", archive.getDataVersion());
+		props.setProperty("created", String.valueOf(archive.getCreated()));
+		File info = getInfoFile(dataSetType, name);
+		File tmp = File.createTempFile(name + "-", ".tmp", info.getParentFile());
+		try {
+			try (OutputStream out = new FileOutputStream(tmp)) {
+				props.store(out, "DwCA archive for data set " + name);
+			}
+			Files.move(tmp.toPath(), info.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(tmp.toPath());
+		}
+	}
+
+	/*
+	 * The DwCA writers do not throw an exception when something goes wrong
+	 * while writing the archive. They log the error and, if possible, add an
+	 * __ERROR__.txt entry to the archive.
+	 */
+	private static void check(File file) throws DataSetWriteException
+	{
+		ZipFile zipFile = null;
+		try {
+			zipFile = new ZipFile(file);
+			if (zipFile.getEntry("__ERROR__.txt") != null) {
+				throw new DataSetWriteException("Error while writing archive (see log file)");
+			}
+		}
+		catch (IOException e) {
+			throw new DataSetWriteException("Invalid archive: " + e.getMessage());
+		}
+		finally {
+			IOUtil.close(zipFile);
+		}
+	}
+
+	private static String[] getDataSetNames(DwcaDataSetType dataSetType)
+	{
+		if (dataSetType == DwcaDataSetType.SPECIMEN) {
+			return new SpecimenDao().dwcaGetDataSetNames();
+		}
+		return new TaxonDao().dwcaGetDataSetNames();
+	}
+
+	private File getDirectory(DwcaDataSetType dataSetType)
+	{
+		return new File(root, dataSetType.name().toLowerCase());
+	}
+
+	private File getInfoFile(DwcaDataSetType dataSetType, String name)
+	{
+		return new File(getDirectory(dataSetType), name + INFO_EXTENSION);
+	}
+
+	private static String getKey(DwcaDataSetType dataSetType, String name)
+	{
+		return dataSetType.name() + '/' + name;
+	}
+
+	private static MessageDigest newMessageDigest()
+	{
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new DwcaCreationException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+}
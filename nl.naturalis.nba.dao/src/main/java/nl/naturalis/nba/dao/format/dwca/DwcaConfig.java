@@ -4,12 +4,22 @@ import static nl.naturalis.nba.dao.DaoUtil.getLogger;
 
 import java.io.File;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.apache.logging.log4j.Logger;
 
 import nl.naturalis.nba.api.InvalidQueryException;
+import nl.naturalis.nba.api.NoSuchFieldException;
 import nl.naturalis.nba.api.NoSuchDataSetException;
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.api.QuerySpec;
+import nl.naturalis.nba.common.es.map.ComplexField;
+import nl.naturalis.nba.common.es.map.ESField;
+import nl.naturalis.nba.common.es.map.MappingInfo;
 import nl.naturalis.nba.dao.DaoRegistry;
 import nl.naturalis.nba.dao.DocumentType;
 import nl.naturalis.nba.dao.format.DataSet;
@@ -20,6 +30,7 @@ import nl.naturalis.nba.dao.format.csv.CsvFieldFactory;
 import nl.naturalis.nba.dao.util.es.AcidScroller;
 import nl.naturalis.nba.dao.util.es.DirtyScroller;
 import nl.naturalis.nba.dao.util.es.IScroller;
+import nl.naturalis.nba.dao.util.es.SlicedScroller;
 import nl.naturalis.nba.utils.ArrayUtil;
 import nl.naturalis.nba.utils.ConfigObject;
 import nl.naturalis.nba.utils.ConfigObject.MissingPropertyException;
@@ -174,44 +185,133 @@ public class DwcaConfig {
 
 	IScroller createScroller(QuerySpec query) throws InvalidQueryException
 	{
+		DocumentType<?> dt = getDocumentType();
 		if (!isEmpty(query.getFields())) {
-			logger.warn("Nullifying QuerySpec.fields for DwCA download (all "
-					+ "fields required for generating DwCA file)");
-			query.setFields(null);
+			logger.warn("Ignoring QuerySpec.fields for DwCA download (fields "
+					+ "required for generating DwCA file determined by data set)");
 		}
+		query.setFields(getRequiredFields(dt, dataSet.getEntities()));
 		/*
 		 * TODO: Maybe softcode the integer constants here in dwca.properties or
-		 * nba.properties. For small datasets we use the Elasticsearch scroll
-		 * API (through the AcidScroller) as it will honor the sortFields of the
-		 * QuerySpec. Otherwise we use the "search_after" technique (through the
+		 * nba.properties. Predefined data sets are generated from (large parts
+		 * of) an entire index, so for them we use a sliced scroll, fetching
+		 * the documents through multiple connections at once. For small
+		 * datasets we use the Elasticsearch scroll API (through the
+		 * AcidScroller) as it will honor the sortFields of the QuerySpec.
+		 * Otherwise we use the "search_after" technique (through the
 		 * DirtyScroller) to exclude the possibility of timeouts.
 		 */
 		IScroller scroller;
-		if (query.getSize() == null || query.getSize() > 10000) {
-			DirtyScroller dirtyScroller;
-			if (dataSetType == DwcaDataSetType.TAXON) {
-				dirtyScroller = new DirtyScroller(query, DocumentType.TAXON);
-			}
-			else {
-				dirtyScroller = new DirtyScroller(query, DocumentType.SPECIMEN);
+		if (!dataSetName.equals("dynamic") && query.getSize() == null) {
+			int numSlices = getNumSlices(dt);
+			if (numSlices > 1) {
+				SlicedScroller slicedScroller = new SlicedScroller(query, dt, numSlices);
+				slicedScroller.setBatchSize(1000);
+				slicedScroller.setTimeout(5 * 60 * 1000);
+				return slicedScroller;
 			}
+		}
+		if (query.getSize() == null || query.getSize() > 10000) {
+			DirtyScroller dirtyScroller = new DirtyScroller(query, dt);
 			dirtyScroller.setBatchSize(1000);
 			scroller = dirtyScroller;
 		}
 		else {
-			AcidScroller acidScroller;
-			if (dataSetType == DwcaDataSetType.TAXON) {
-				acidScroller = new AcidScroller(query, DocumentType.TAXON);
-			}
-			else {
-				acidScroller = new AcidScroller(query, DocumentType.SPECIMEN);
-			}
+			AcidScroller acidScroller = new AcidScroller(query, dt);
 			acidScroller.setTimeout(30000);
 			scroller = acidScroller;
 		}
 		return scroller;
 	}
 
+	/*
+	 * Returns the fields to retrieve from Elasticsearch in order to write the
+	 * specified entities, or null if the entire documents must be retrieved.
+	 */
+	static List<Path> getRequiredFields(DocumentType<?> dt, Entity... entities)
+	{
+		Set<Path> paths = new LinkedHashSet<>();
+		for (Entity entity : entities) {
+			Set<Path> required = entity.getRequiredPaths();
+			if (required == null) {
+				logger.info("Retrieving entire documents (entity {} may need any field)",
+						entity.getName());
+				return null;
+			}
+			paths.addAll(required);
+		}
+		if (paths.isEmpty()) {
+			return null;
+		}
+		MappingInfo<?> mappingInfo = new MappingInfo<>(dt.getMapping());
+		Set<Path> fields = new LinkedHashSet<>();
+		for (Path path : paths) {
+			try {
+				fields.add(truncateAtArray(mappingInfo, path));
+			}
+			catch (NoSuchFieldException e) {
+				logger.warn("Retrieving entire documents (invalid path: {})", path);
+				return null;
+			}
+		}
+		List<Path> result = new ArrayList<>(fields.size());
+		for (Path field : fields) {
+			if (!hasAncestorIn(fields, field)) {
+				result.add(field);
+			}
+		}
+		logger.info("Fields retrieved for DwCA download: {}", result);
+		return result;
+	}
+
+	/*
+	 * When Elasticsearch filters the _source of a document, it drops array
+	 * elements that end up empty. E.g. if only identifications.typeStatus is
+	 * retrieved, identifications without a typeStatus disappear, and the
+	 * second identification becomes the first. Therefore, for paths going
+	 * through an array of objects, we retrieve the entire array.
+	 */
+	private static Path truncateAtArray(MappingInfo<?> mappingInfo, Path path)
+			throws NoSuchFieldException
+	{
+		mappingInfo.getField(path);
+		String[] elements = new String[path.countElements()];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = path.getElement(i);
+			Path prefix = new Path(Arrays.copyOf(elements, i + 1));
+			ESField field = mappingInfo.getField(prefix);
+			if (field.isArray() && field instanceof ComplexField) {
+				return prefix;
+			}
+		}
+		return path;
+	}
+
+	private static boolean hasAncestorIn(Set<Path> fields, Path field)
+	{
+		String s = field.toString();
+		for (Path other : fields) {
+			if (s.startsWith(other.toString() + ".")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Returns the number of slices to use when scrolling through the documents
+	 * of a predefined data set. Defaults to the number of shards of the index.
+	 */
+	static int getNumSlices(DocumentType<?> dt)
+	{
+		ConfigObject cfg = DaoRegistry.getInstance().getConfiguration();
+		String val = cfg.get("nl.naturalis.nba.dwca.numSlices");
+		if (val == null) {
+			return dt.getIndexInfo().getNumShards();
+		}
+		return Integer.parseInt(val.trim());
+	}
+
 	DocumentType<?> getDocumentType()
 	{
 		if (dataSetType == DwcaDataSetType.TAXON) {
@@ -5,7 +5,6 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.HashSet;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import nl.naturalis.nba.api.InvalidQueryException;
@@ -16,8 +15,10 @@ import nl.naturalis.nba.dao.format.DataSetConfigurationException;
 import nl.naturalis.nba.dao.format.DataSetWriteException;
 import nl.naturalis.nba.dao.format.Entity;
 import nl.naturalis.nba.dao.util.RandomEntryZipOutputStream;
+import nl.naturalis.nba.dao.util.SplicingZipOutputStream;
 import nl.naturalis.nba.dao.util.es.DirtyScroller;
 import nl.naturalis.nba.dao.util.es.IScroller;
+import nl.naturalis.nba.dao.util.es.SlicedScroller;
 import nl.naturalis.nba.utils.IOUtil;
 
 /**
@@ -72,7 +73,7 @@ class MultiDataSourceDwcaWriter implements IDwcaWriter {
     }
     // ... and add eml and meta xml files
     try {
-      ZipOutputStream zos = rezos.mergeEntries();
+      SplicingZipOutputStream zos = rezos.mergeEntries();
       logger.info("Writing meta.xml");
       zos.putNextEntry(new ZipEntry("meta.xml"));
       zos.write(dwcaPreparator.getMetaXml());
@@ -99,11 +100,18 @@ class MultiDataSourceDwcaWriter implements IDwcaWriter {
 
       QuerySpec query = entity.getDataSource().getQuerySpec();
       DocumentType<?> dt = entity.getDataSource().getDocumentType();
+      query.setFields(DwcaConfig.getRequiredFields(dt, entity));
 
       IScroller scroller;
       try {
-        // Hard coded to use DirtyScroller. This may need to be changed!!!
-        scroller = new DirtyScroller(query, dt);
+        int numSlices = DwcaConfig.getNumSlices(dt);
+        if (numSlices > 1 && query.getSize() == null) {
+          SlicedScroller slicedScroller = new SlicedScroller(query, dt, numSlices);
+          slicedScroller.setTimeout(5 * 60 * 1000);
+          scroller = slicedScroller;
+        } else {
+          scroller = new DirtyScroller(query, dt);
+        }
       } catch (InvalidQueryException e) {
         throw new DataSetConfigurationException(e);
       }
@@ -123,7 +131,7 @@ class MultiDataSourceDwcaWriter implements IDwcaWriter {
         String msg = "Error while writing archive for entity " + entity.getName() + " of dataset " + cfg.getDataSetName();
         logger.error(msg, t);
         try {
-          ZipOutputStream zos = rezos.mergeEntries();
+          SplicingZipOutputStream zos = rezos.mergeEntries();
           zos.putNextEntry(new ZipEntry("__ERROR__.txt"));
           t.printStackTrace(new PrintStream(zos));
           zos.finish();
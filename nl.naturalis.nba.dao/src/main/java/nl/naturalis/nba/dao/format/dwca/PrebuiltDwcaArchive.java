@@ -0,0 +1,81 @@
+package nl.naturalis.nba.dao.format.dwca;
+
+import java.io.File;
+
+/**
+ * A DarwinCore archive for a predefined data set that has been generated in
+ * advance by the {@link DwcaArchiveStore} and can be served straight from
+ * disk.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class PrebuiltDwcaArchive {
+
+	private final File file;
+	private final String hash;
+	private final String dataVersion;
+	private final long created;
+
+	PrebuiltDwcaArchive(File file, String hash, String dataVersion, long created)
+	{
+		this.file = file;
+		this.hash = hash;
+		this.dataVersion = dataVersion;
+		this.created = created;
+	}
+
+	/**
+	 * Returns the zip file.
+	 *
+	 * @return
+	 */
+	public File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * Returns the SHA-256 hash of the zip file (in hexadecimal format). This
+	 * can be used as an HTTP entity tag.
+	 *
+	 * @return
+	 */
+	public String getHash()
+	{
+		return hash;
+	}
+
+	/**
+	 * Returns a fingerprint of the state of the NBA indices at the time the
+	 * archive was generated.
+	 *
+	 * @return
+	 */
+	public String getDataVersion()
+	{
+		return dataVersion;
+	}
+
+	/**
+	 * Returns the time at which the archive was generated (in milliseconds
+	 * since the epoch).
+	 *
+	 * @return
+	 */
+	public long getCreated()
+	{
+		return created;
+	}
+
+	/**
+	 * Returns the size of the zip file in bytes.
+	 *
+	 * @return
+	 */
+	public long getSize()
+	{
+		return file.length();
+	}
+
+}
@@ -7,7 +7,6 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.HashSet;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.logging.log4j.Logger;
 
@@ -18,6 +17,7 @@ import nl.naturalis.nba.dao.format.DataSetConfigurationException;
 import nl.naturalis.nba.dao.format.DataSetWriteException;
 import nl.naturalis.nba.dao.format.Entity;
 import nl.naturalis.nba.dao.util.RandomEntryZipOutputStream;
+import nl.naturalis.nba.dao.util.SplicingZipOutputStream;
 import nl.naturalis.nba.dao.util.es.IScroller;
 import nl.naturalis.nba.utils.IOUtil;
 
@@ -72,7 +72,7 @@ class SingleDataSourceDwcaWriter implements IDwcaWriter {
 			String msg = "Error writing archive for user-defined query";
 			logger.error(msg, t);
 			try {
-				ZipOutputStream zos = rezos.mergeEntries();
+				SplicingZipOutputStream zos = rezos.mergeEntries();
 				zos.putNextEntry(new ZipEntry("__ERROR__.txt"));
 				t.printStackTrace(new PrintStream(zos));
 				zos.finish();
@@ -83,7 +83,7 @@ class SingleDataSourceDwcaWriter implements IDwcaWriter {
 			return;
 		}
 		try {
-			ZipOutputStream zos = rezos.mergeEntries();
+			SplicingZipOutputStream zos = rezos.mergeEntries();
 			logger.info("Writing meta.xml");
 			zos.putNextEntry(new ZipEntry("meta.xml"));
 			zos.write(dwcaPreparator.getMetaXml());
@@ -138,7 +138,7 @@ class SingleDataSourceDwcaWriter implements IDwcaWriter {
 			String msg = "Error while writing archive for dataset " + cfg.getDataSetName();
 			logger.error(msg, t);
 			try {
-				ZipOutputStream zos = rezos.mergeEntries();
+				SplicingZipOutputStream zos = rezos.mergeEntries();
 				zos.putNextEntry(new ZipEntry("__ERROR__.txt"));
 				t.printStackTrace(new PrintStream(zos));
 				zos.finish();
@@ -151,7 +151,7 @@ class SingleDataSourceDwcaWriter implements IDwcaWriter {
 
 		// And finally add eml and meta xml files ...
 		try {
-			ZipOutputStream zos = rezos.mergeEntries();
+			SplicingZipOutputStream zos = rezos.mergeEntries();
 			logger.info("Writing meta.xml");
 			zos.putNextEntry(new ZipEntry("meta.xml"));
 			zos.write(dwcaPreparator.getMetaXml());
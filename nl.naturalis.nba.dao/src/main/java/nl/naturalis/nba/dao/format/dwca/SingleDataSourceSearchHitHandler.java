@@ -30,6 +30,7 @@ final class SingleDataSourceSearchHitHandler implements SearchHitHandler {
 	private static final Logger logger = getLogger(SingleDataSourceSearchHitHandler.class);
 
 	private DwcaConfig dwcaConfig;
+	private DocumentType<?> dt;
 	private RandomEntryZipOutputStream zip;
 	private Entity[] entities;
 	private String[] fileNames;
@@ -44,6 +45,7 @@ final class SingleDataSourceSearchHitHandler implements SearchHitHandler {
 			throws DataSetConfigurationException
 	{
 		this.dwcaConfig = dwcaConfig;
+		this.dt = dwcaConfig.getDocumentType();
 		this.zip = rezos;
 		entities = dwcaConfig.getDataSet().getEntities();
 		fileNames = getCsvFileNames();
@@ -56,11 +58,15 @@ final class SingleDataSourceSearchHitHandler implements SearchHitHandler {
 	@Override
 	public boolean handle(SearchHit hit) throws DataSetWriteException
 	{
-		DocumentType<?> dt = dwcaConfig.getDocumentType();
+		/*
+		 * Deserialize the search hit just once and share the resulting document
+		 * between the entities. Neither the flatteners nor the fields modify
+		 * the document.
+		 */
+		Object document = ESUtil.toDocumentObject(hit, dt);
 		try {
 			for (int i = 0; i < entities.length; i++) {
 				// Squash current document and loop over resulting entity objects:
-				Object document = ESUtil.toDocumentObject(hit, dt);
 				List<EntityObject> eos = flatteners[i].flatten(document);
 				ENTITY_OBJECT_LOOP: for (EntityObject eo : eos) {
 					// Loop over filters defined for current entity:
@@ -1,9 +1,12 @@
 package nl.naturalis.nba.dao.format.filter;
 
+import static nl.naturalis.nba.dao.format.FormatUtil.entityPath;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import nl.naturalis.nba.api.Path;
 import nl.naturalis.nba.common.PathValueReader;
 import nl.naturalis.nba.dao.format.EntityFilterException;
 import nl.naturalis.nba.dao.format.EntityFilterInitializationException;
@@ -39,6 +42,7 @@ public class SimpleEntityFilter implements IEntityFilter {
 
 	private static final String NULL_STRING = "@NULL@";
 
+	private Path path;
 	private PathValueReader pvr;
 	private String separator = ",";
 	private String[] values;
@@ -57,7 +61,8 @@ public class SimpleEntityFilter implements IEntityFilter {
 					+ "entity filter \"GenericEntityFilter\"";
 			throw new EntityFilterInitializationException(msg);
 		}
-		pvr = new PathValueReader(arg);
+		path = new Path(arg);
+		pvr = new PathValueReader(path);
 		arg = args.get("separator");
 		if (arg != null && arg.length() != 0) {
 			separator = arg;
@@ -107,4 +112,10 @@ public class SimpleEntityFilter implements IEntityFilter {
 		return !accept;
 	}
 
+	@Override
+	public Path[] getRequiredPaths(Path pathToEntity)
+	{
+		return new Path[] { entityPath(pathToEntity, path) };
+	}
+
 }
@@ -2,26 +2,45 @@ package nl.naturalis.nba.dao.util;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterOutputStream;
 
 /**
  * A {@link DeflaterOutputStream} compresses data and then forwards it to a
- * {@link SwapFileOutputStream}.
+ * {@link SwapFileOutputStream}. The data is compressed into a raw deflate
+ * stream (without zlib header and trailer), while the CRC-32 checksum and the
+ * size of the uncompressed data are kept track of. This allows the compressed
+ * data to be copied as-is into a zip file (see
+ * {@link SplicingZipOutputStream#putNextDeflatedEntry(java.util.zip.ZipEntry)
+ * SplicingZipOutputStream}).
  * 
  * @author Ayco Holleman
  *
  */
 public class CompressedSwapFileOutputStream extends DeflaterOutputStream {
 
+	private final CRC32 crc = new CRC32();
+	private long size;
+
 	public CompressedSwapFileOutputStream() throws IOException
 	{
-		super(SwapFileOutputStream.newInstance());
+		super(SwapFileOutputStream.newInstance(), newDeflater());
 	}
 
 	public CompressedSwapFileOutputStream(int treshold) throws IOException
 	{
-		super(SwapFileOutputStream.newInstance(treshold));
+		super(SwapFileOutputStream.newInstance(treshold), newDeflater());
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		super.write(b, off, len);
+		crc.update(b, off, len);
+		size += len;
 	}
 
 	public void collect(OutputStream destination) throws IOException
@@ -34,13 +53,58 @@ public class CompressedSwapFileOutputStream extends DeflaterOutputStream {
 		close();
 		SwapFileOutputStream sfos = (SwapFileOutputStream) out;
 		if (uncompress) {
-			sfos.collect(new InflaterOutputStream(destination));
+			Inflater inflater = new Inflater(true);
+			try {
+				InflaterOutputStream ios = new InflaterOutputStream(destination, inflater);
+				sfos.collect(ios);
+				ios.finish();
+			}
+			finally {
+				inflater.end();
+			}
 		}
 		else {
 			sfos.collect(destination);
 		}
 	}
 
+	/**
+	 * Returns the CRC-32 checksum of the (uncompressed) data written to this
+	 * {@code CompressedSwapFileOutputStream}.
+	 * 
+	 * @return
+	 */
+	public long getCrc()
+	{
+		return crc.getValue();
+	}
+
+	/**
+	 * Returns the number of (uncompressed) bytes written to this
+	 * {@code CompressedSwapFileOutputStream}.
+	 * 
+	 * @return
+	 */
+	public long getSize()
+	{
+		return size;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try {
+			super.close();
+		}
+		finally {
+			/*
+			 * DeflaterOutputStream only ends deflaters it created itself.
+			 * Deflater.end() may safely be called more than once.
+			 */
+			def.end();
+		}
+	}
+
 	public void cleanUpAndClose() throws IOException
 	{
 		close();
@@ -54,4 +118,9 @@ public class CompressedSwapFileOutputStream extends DeflaterOutputStream {
 		return sfos.hasSwapped();
 	}
 
+	private static Deflater newDeflater()
+	{
+		return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	}
+
 }
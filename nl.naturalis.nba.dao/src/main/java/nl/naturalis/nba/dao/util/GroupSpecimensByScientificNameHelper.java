@@ -6,7 +6,10 @@ import static nl.naturalis.nba.api.GroupByScientificNameQuerySpec.GroupSort.NAME
 import static nl.naturalis.nba.api.GroupByScientificNameQuerySpec.GroupSort.NAME_DESC;
 import static nl.naturalis.nba.dao.DaoUtil.getLogger;
 import static nl.naturalis.nba.dao.DocumentType.SPECIMEN;
+import static nl.naturalis.nba.dao.DocumentType.TAXON;
+import static nl.naturalis.nba.dao.util.es.ESUtil.executeMultiSearchRequest;
 import static nl.naturalis.nba.dao.util.es.ESUtil.executeSearchRequest;
+import static nl.naturalis.nba.dao.util.es.ESUtil.toDocumentObject;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -16,10 +19,14 @@ import java.util.Map;
 import nl.naturalis.nba.common.json.JsonUtil;
 import org.apache.logging.log4j.Logger;
 
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse.Item;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.script.Script;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.bucket.nested.Nested;
@@ -42,11 +49,9 @@ import nl.naturalis.nba.api.QueryResultItem;
 import nl.naturalis.nba.api.QuerySpec;
 import nl.naturalis.nba.api.SortField;
 import nl.naturalis.nba.api.model.ScientificNameGroup;
-import nl.naturalis.nba.api.model.Specimen;
 import nl.naturalis.nba.api.model.Taxon;
 import nl.naturalis.nba.dao.DaoRegistry;
 import nl.naturalis.nba.dao.DaoUtil;
-import nl.naturalis.nba.dao.SpecimenDao;
 import nl.naturalis.nba.dao.TaxonDao;
 import nl.naturalis.nba.dao.exception.DaoException;
 import nl.naturalis.nba.dao.translate.QuerySpecTranslator;
@@ -56,11 +61,18 @@ public class GroupSpecimensByScientificNameHelper {
 
     private static Logger logger = getLogger(GroupSpecimensByScientificNameHelper.class);
 
-    private static final QueryCache<GroupByScientificNameQueryResult> queryCache = new QueryCache<>(getCacheSize());
+    /*
+     * The maximum number of (per-group) search requests bundled into a single
+     * multi-search request.
+     */
+    private static final int MULTI_SEARCH_BATCH_SIZE = 250;
+
+    private static final QueryCache<GroupByScientificNameQueryResult> queryCache = createQueryCache();
 
     public static GroupByScientificNameQueryResult groupByScientificName(GroupByScientificNameQuerySpec query) throws InvalidQueryException
     {
-        GroupByScientificNameQueryResult result = queryCache.get(query);
+        GroupByScientificNameQueryResult result = queryCache.get(query, SPECIMEN.getIndexInfo(),
+                TAXON.getIndexInfo());
         if (result != null) {
             return result;
         }
@@ -122,45 +134,32 @@ public class GroupSpecimensByScientificNameHelper {
         int to = Math.min(buckets.size(), from + size);
         List<QueryResultItem<ScientificNameGroup>> resultSet = new ArrayList<>(size);
         for (int i = from; i < to; i++) {
-            String name = buckets.get(i).getKeyAsString();
-            ScientificNameGroup sng = new ScientificNameGroup(name);
-            QueryResultItem<ScientificNameGroup> qri = new QueryResultItem<>(sng, 0);
-            resultSet.add(qri);
-            if (queryCopy.getSpecimensSize() == null || queryCopy.getSpecimensSize() > 0) {
-                /*
-                 * Adjust the extra condition so as to only retrieve specimens
-                 * whose scientific name equals the one we're currently dealing
-                 * with
-                 */
-                extraCondition.setValue(name);
-                QueryResult<Specimen> specimens = new SpecimenDao().query(queryCopy);
-                sng.setSpecimenCount((int) specimens.getTotalSize());
-                for (QueryResultItem<Specimen> specimen : specimens) {
-                    sng.addSpecimen(specimen.getItem());
-                    if (specimen.getScore() > qri.getScore()) {
-                        qri.setScore(specimen.getScore());
-                    }
-                }
-            }
-            /*
-             * If the client has requested (and gets) more than 1024 buckets, he
-             * pays a stiff penalty, because in that case taxa are retrieved
-             * separately for each bucket. Otherwise all taxa are retrieved at
-             * once and then distributed over the groups. The latter method uses
-             * a query condition with the IN operator, and you cannot have more
-             * than 1024 values following the IN operator.
-             */
-            if (!queryCopy.isNoTaxa() && buckets.size() > 1024) {
-                addTaxaToGroup(sng);
-            }
+            ScientificNameGroup sng = new ScientificNameGroup(buckets.get(i).getKeyAsString());
+            resultSet.add(new QueryResultItem<>(sng, 0));
+        }
+        if (queryCopy.getSpecimensSize() == null || queryCopy.getSpecimensSize() > 0) {
+            addSpecimensToGroups(resultSet, queryCopy, extraCondition);
         }
         result.setResultSet(resultSet);
-        if (!queryCopy.isNoTaxa() && buckets.size() <= 1024) {
-            addTaxaToResult(result);
+        /*
+         * If the client has requested (and gets) more than 1024 buckets, taxa
+         * are retrieved separately for each bucket (albeit bundled into
+         * multi-search requests). Otherwise all taxa are retrieved at once and
+         * then distributed over the groups. The latter method uses a query
+         * condition with the IN operator, and you cannot have more than 1024
+         * values following the IN operator.
+         */
+        if (!queryCopy.isNoTaxa()) {
+            if (buckets.size() > 1024) {
+                addTaxaToGroups(resultSet);
+            }
+            else {
+                addTaxaToResult(result);
+            }
         }
         TimeValue took = response.getTook();
-        if (getCacheSize() > 0 && took.getMillis() > getCacheTreshold()) {
-            queryCache.put(query, result);
+        if (queryCache.isEnabled() && took.getMillis() > getCacheTreshold()) {
+            queryCache.put(query, result, SPECIMEN.getIndexInfo(), TAXON.getIndexInfo());
         }
         return result;
     }
@@ -209,17 +208,68 @@ public class GroupSpecimensByScientificNameHelper {
         return nab;
     }
 
-    private static void addTaxaToGroup(ScientificNameGroup sng) throws InvalidQueryException {
-        TaxonDao taxonDao = new TaxonDao();
+    /*
+     * Retrieves the specimens for each group. Rather than executing one query
+     * per group, the specimen queries are bundled into multi-search requests,
+     * so that a page of groups costs only a few round trips to Elasticsearch.
+     * The extra condition is the (last) condition of the specimen query that
+     * selects the specimens belonging to a single group.
+     */
+    private static void addSpecimensToGroups(List<QueryResultItem<ScientificNameGroup>> groups,
+            QuerySpec specimenQuery, QueryCondition extraCondition) throws InvalidQueryException {
+        for (int i = 0; i < groups.size(); i += MULTI_SEARCH_BATCH_SIZE) {
+            List<QueryResultItem<ScientificNameGroup>> batch = groups.subList(i,
+                    Math.min(groups.size(), i + MULTI_SEARCH_BATCH_SIZE));
+            MultiSearchRequest request = new MultiSearchRequest();
+            for (QueryResultItem<ScientificNameGroup> qri : batch) {
+                extraCondition.setValue(qri.getItem().getName());
+                request.add(new QuerySpecTranslator(specimenQuery, SPECIMEN).translate());
+            }
+            Item[] responses = executeMultiSearchRequest(request).getResponses();
+            for (int j = 0; j < batch.size(); j++) {
+                QueryResultItem<ScientificNameGroup> qri = batch.get(j);
+                ScientificNameGroup sng = qri.getItem();
+                SearchHits hits = responses[j].getResponse().getHits();
+                sng.setSpecimenCount((int) hits.getTotalHits().value);
+                for (SearchHit hit : hits.getHits()) {
+                    sng.addSpecimen(toDocumentObject(hit, SPECIMEN));
+                    if (hit.getScore() > qri.getScore()) {
+                        qri.setScore(hit.getScore());
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Retrieves the taxa for each group separately. Used when there are too
+     * many groups to retrieve all taxa at once using the IN operator. The taxon
+     * queries are bundled into multi-search requests.
+     */
+    private static void addTaxaToGroups(List<QueryResultItem<ScientificNameGroup>> groups)
+            throws InvalidQueryException {
         QuerySpec taxonQuery = new QuerySpec();
         taxonQuery.setConstantScore(true);
         String field = "acceptedName.scientificNameGroup";
-        QueryCondition taxonCondition = new QueryCondition(field, "=", sng.getName());
+        QueryCondition taxonCondition = new QueryCondition(field, "=", null);
         taxonQuery.addCondition(taxonCondition);
-        QueryResult<Taxon> taxa = taxonDao.query(taxonQuery);
-        sng.setTaxonCount((int) taxa.getTotalSize());
-        for (QueryResultItem<Taxon> taxon : taxa) {
-            sng.addTaxon(taxon.getItem());
+        for (int i = 0; i < groups.size(); i += MULTI_SEARCH_BATCH_SIZE) {
+            List<QueryResultItem<ScientificNameGroup>> batch = groups.subList(i,
+                    Math.min(groups.size(), i + MULTI_SEARCH_BATCH_SIZE));
+            MultiSearchRequest request = new MultiSearchRequest();
+            for (QueryResultItem<ScientificNameGroup> qri : batch) {
+                taxonCondition.setValue(qri.getItem().getName());
+                request.add(new QuerySpecTranslator(taxonQuery, TAXON).translate());
+            }
+            Item[] responses = executeMultiSearchRequest(request).getResponses();
+            for (int j = 0; j < batch.size(); j++) {
+                ScientificNameGroup sng = batch.get(j).getItem();
+                SearchHits hits = responses[j].getResponse().getHits();
+                sng.setTaxonCount((int) hits.getTotalHits().value);
+                for (SearchHit hit : hits.getHits()) {
+                    sng.addTaxon(toDocumentObject(hit, TAXON));
+                }
+            }
         }
     }
 
@@ -265,10 +315,19 @@ public class GroupSpecimensByScientificNameHelper {
         return config.required(property, int.class);
     }
 
-    private static int getCacheSize() {
+    /*
+     * The size of the query cache is configured either in megabytes (queryCacheSizeMB) or as the
+     * maximum number of cached queries (queryCacheSize).
+     */
+    private static QueryCache<GroupByScientificNameQueryResult> createQueryCache() {
         ConfigObject config = DaoRegistry.getInstance().getConfiguration();
-        String property = "nl.naturalis.nba.specimen.groupByScientificName.queryCacheSize";
-        return config.required(property, int.class);
+        String prefix = "nl.naturalis.nba.specimen.groupByScientificName.";
+        String val = config.get(prefix + "queryCacheSizeMB");
+        if (val != null) {
+            return new QueryCache<>("specimen.groupByScientificName", Integer.parseInt(val.trim()));
+        }
+        int maxEntries = config.required(prefix + "queryCacheSize", int.class);
+        return QueryCache.withMaxEntries("specimen.groupByScientificName", maxEntries);
     }
 
 }
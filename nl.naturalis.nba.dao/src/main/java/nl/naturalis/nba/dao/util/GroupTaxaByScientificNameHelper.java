@@ -5,6 +5,7 @@ import static nl.naturalis.nba.api.GroupByScientificNameQuerySpec.GroupSort.COUN
 import static nl.naturalis.nba.api.GroupByScientificNameQuerySpec.GroupSort.NAME_ASC;
 import static nl.naturalis.nba.api.GroupByScientificNameQuerySpec.GroupSort.NAME_DESC;
 import static nl.naturalis.nba.dao.DaoUtil.getLogger;
+import static nl.naturalis.nba.dao.DocumentType.SPECIMEN;
 import static nl.naturalis.nba.dao.DocumentType.TAXON;
 import static nl.naturalis.nba.dao.util.es.ESUtil.executeSearchRequest;
 
@@ -51,12 +52,12 @@ public class GroupTaxaByScientificNameHelper {
 	@SuppressWarnings("unused")
 	private static Logger logger = getLogger(GroupTaxaByScientificNameHelper.class);
 
-	private static final QueryCache<GroupByScientificNameQueryResult> queryCache = new QueryCache<>(
-			getCacheSize());
+	private static final QueryCache<GroupByScientificNameQueryResult> queryCache = createQueryCache();
 
 	public static GroupByScientificNameQueryResult groupByScientificName(GroupByScientificNameQuerySpec query) throws InvalidQueryException
 	{
-		GroupByScientificNameQueryResult result = queryCache.get(query);
+		GroupByScientificNameQueryResult result = queryCache.get(query, TAXON.getIndexInfo(),
+				SPECIMEN.getIndexInfo());
 		if (result != null) {
 			return result;
 		}
@@ -142,8 +143,8 @@ public class GroupTaxaByScientificNameHelper {
 		}
 		result.setResultSet(resultSet);
 		TimeValue took = response.getTook();
-		if (getCacheSize() > 0 && took.getMillis() > getCacheTreshold()) {
-			queryCache.put(query, result);
+		if (queryCache.isEnabled() && took.getMillis() > getCacheTreshold()) {
+			queryCache.put(query, result, TAXON.getIndexInfo(), SPECIMEN.getIndexInfo());
 		}
 		return result;
 	}
@@ -218,11 +219,20 @@ public class GroupTaxaByScientificNameHelper {
 		return config.required(property, int.class);
 	}
 
-	private static int getCacheSize()
+	/*
+	 * The size of the query cache is configured either in megabytes (queryCacheSizeMB) or as the
+	 * maximum number of cached queries (queryCacheSize).
+	 */
+	private static QueryCache<GroupByScientificNameQueryResult> createQueryCache()
 	{
 		ConfigObject config = DaoRegistry.getInstance().getConfiguration();
-		String property = "nl.naturalis.nba.taxon.groupByScientificName.queryCacheSize";
-		return config.required(property, int.class);
+		String prefix = "nl.naturalis.nba.taxon.groupByScientificName.";
+		String val = config.get(prefix + "queryCacheSizeMB");
+		if (val != null) {
+			return new QueryCache<>("taxon.groupByScientificName", Integer.parseInt(val.trim()));
+		}
+		int maxEntries = config.required(prefix + "queryCacheSize", int.class);
+		return QueryCache.withMaxEntries("taxon.groupByScientificName", maxEntries);
 	}
 
 }
@@ -2,54 +2,369 @@ package nl.naturalis.nba.dao.util;
 
 import static nl.naturalis.nba.dao.DaoUtil.getLogger;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.Cache.CacheStats;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalNotification.RemovalReason;
+import org.elasticsearch.common.unit.TimeValue;
 
-import nl.naturalis.nba.api.QuerySpec;
 import nl.naturalis.nba.common.json.JsonUtil;
+import nl.naturalis.nba.dao.DaoRegistry;
+import nl.naturalis.nba.dao.IndexInfo;
+import nl.naturalis.nba.dao.exception.DaoException;
+import nl.naturalis.nba.dao.util.es.ESUtil;
+import nl.naturalis.nba.utils.ConfigObject;
 
 /**
- * A LRU cache for NBA queries.
- * 
+ * A thread-safe cache for NBA queries. The cache is bounded either by the (approximate) number of
+ * bytes occupied by the cached query results, or by the number of cached queries (see
+ * {@link #withMaxEntries(String, int)}). Least recently used queries are evicted first. Cached
+ * queries also expire after a configurable amount of time.
+ *
+ * <p>
+ * Cache entries are tied to the <i>generation</i> of the indices they were retrieved from. An
+ * index gets a new generation when it is re-created (i.e. when its UUID changes), which is checked
+ * at most once every minute, or when it is modified through this JVM (see
+ * {@link #invalidate(String)}). Queries cached for an older generation are never returned again
+ * and will eventually be evicted.
+ *
  * @author Ayco Holleman
  *
  * @param <V>
  */
-public class QueryCache<V> extends LinkedHashMap<QuerySpec, V> {
-  
-  private static final long serialVersionUID = 1L;
+public class QueryCache<V> {
+
+	private static final Logger logger = getLogger(QueryCache.class);
+
+	/*
+	 * The number of milliseconds after which we check again whether an index has been re-created.
+	 */
+	private static final long GENERATION_CHECK_INTERVAL = 60 * 1000;
+
+	/*
+	 * The estimated number of bytes occupied by a cache entry, not counting the key and the value.
+	 */
+	private static final long ENTRY_OVERHEAD = 128;
+
+	/*
+	 * The number of lookups after which the cache statistics are logged.
+	 */
+	private static final long LOG_INTERVAL = 1000;
+
+	private static final Map<String, IndexGeneration> generations = new ConcurrentHashMap<>();
+
+	/**
+	 * Invalidates all queries cached for the specified index, in all query caches. Call this method
+	 * after the modification of the index has become visible (i.e. after the index has been
+	 * refreshed), otherwise a query executed in between may cache the old results again.
+	 *
+	 * @param index
+	 */
+	public static void invalidate(String index)
+	{
+		IndexGeneration generation = generations.get(index);
+		if (generation != null) {
+			logger.debug("Invalidating cached queries for index {}", index);
+			generation.increment();
+		}
+	}
 
-	private static Logger logger = getLogger(QueryCache.class);
+	/**
+	 * Creates a query cache that holds at most {@code maxEntries} queries. If {@code maxEntries} is
+	 * zero, the cache is disabled. Cached queries expire after the number of seconds specified by the
+	 * {@code nl.naturalis.nba.queryCache.ttl} property (default one hour).
+	 *
+	 * @param name
+	 * @param maxEntries
+	 * @return
+	 */
+	public static <V> QueryCache<V> withMaxEntries(String name, int maxEntries)
+	{
+		return new QueryCache<>(name, maxEntries, true, getConfiguredTimeToLive());
+	}
 
-	private final int maxSize;
+	private final String name;
+	private final Cache<String, CacheEntry<V>> cache;
+	private final AtomicLong lookups = new AtomicLong();
+
+	/**
+	 * Creates a query cache that may occupy at most {@code maxSizeMB} megabytes. If
+	 * {@code maxSizeMB} is zero, the cache is disabled. Cached queries expire after the number of
+	 * seconds specified by the {@code nl.naturalis.nba.queryCache.ttl} property (default one hour).
+	 *
+	 * @param name
+	 * @param maxSizeMB
+	 */
+	public QueryCache(String name, int maxSizeMB)
+	{
+		this(name, maxSizeMB, getConfiguredTimeToLive());
+	}
 
-	public QueryCache(int maxSize)
+	/**
+	 * Creates a query cache that may occupy at most {@code maxSizeMB} megabytes. If
+	 * {@code maxSizeMB} is zero, the cache is disabled. If {@code ttl} (in seconds) is zero, cached
+	 * queries never expire.
+	 *
+	 * @param name
+	 * @param maxSizeMB
+	 * @param ttl
+	 */
+	public QueryCache(String name, int maxSizeMB, int ttl)
 	{
-		super(maxSize + 8, 1F, true);
-		this.maxSize = maxSize;
+		this(name, maxSizeMB, false, ttl);
 	}
 
-	@Override
-	public V put(QuerySpec key, V value)
+	private QueryCache(String name, int maxSize, boolean countEntries, int ttl)
 	{
+		this.name = name;
+		if (maxSize <= 0) {
+			logger.info("Query cache {} disabled", name);
+			this.cache = null;
+			return;
+		}
+		CacheBuilder<String, CacheEntry<V>> builder = CacheBuilder.builder();
+		if (countEntries) {
+			builder.setMaximumWeight(maxSize);
+			builder.weigher((key, entry) -> 1L);
+		}
+		else {
+			builder.setMaximumWeight(maxSize * 1024L * 1024L);
+			builder.weigher((key, entry) -> ENTRY_OVERHEAD + (2L * key.length()) + entry.weight);
+		}
+		if (ttl > 0) {
+			builder.setExpireAfterWrite(TimeValue.timeValueSeconds(ttl));
+		}
+		builder.removalListener(notification -> {
+			if (notification.getRemovalReason() == RemovalReason.EVICTED && logger.isDebugEnabled()) {
+				logger.debug("Query cache {}: evicting query {}", name, notification.getKey());
+			}
+		});
+		this.cache = builder.build();
+		logger.info("Query cache {} created (maximum size: {} {}; time-to-live: {} seconds)", name,
+				maxSize, countEntries ? "queries" : "MB", ttl);
+	}
+
+	/**
+	 * Returns whether or not this query cache is enabled.
+	 *
+	 * @return
+	 */
+	public boolean isEnabled()
+	{
+		return cache != null;
+	}
+
+	/**
+	 * Returns the cached result for the specified query, or null if the query is not cached (or no
+	 * longer valid). The indices are the indices against which the query was executed. The query
+	 * object is only used to create a cache key (by serializing it to JSON), so it can be anything
+	 * that uniquely identifies the query.
+	 *
+	 * @param query
+	 * @param indices
+	 * @return
+	 */
+	public V get(Object query, IndexInfo... indices)
+	{
+		if (cache == null) {
+			return null;
+		}
+		String key = createKey(query, indices);
+		CacheEntry<V> entry = cache.get(key);
+		if (lookups.incrementAndGet() % LOG_INTERVAL == 0) {
+			logStatistics();
+		}
+		return entry == null ? null : entry.value;
+	}
+
+	/**
+	 * Caches the specified query result. The weight of the query result (its approximate size in
+	 * bytes) is estimated from the size of its JSON representation.
+	 *
+	 * @param query
+	 * @param value
+	 * @param indices
+	 */
+	public void put(Object query, V value, IndexInfo... indices)
+	{
+		if (cache == null) {
+			return;
+		}
+		put(query, value, 2L * JsonUtil.toJson(value).length(), indices);
+	}
+
+	/**
+	 * Caches the specified query result. The weight is the approximate size of the query result in
+	 * bytes.
+	 *
+	 * @param query
+	 * @param value
+	 * @param weight
+	 * @param indices
+	 */
+	public void put(Object query, V value, long weight, IndexInfo... indices)
+	{
+		if (cache == null) {
+			return;
+		}
+		String key = createKey(query, indices);
 		if (logger.isDebugEnabled()) {
-			logger.debug("Caching query: {}", JsonUtil.toJson(key));
+			logger.debug("Query cache {}: caching query {} (weight: {})", name, key, weight);
+		}
+		cache.put(key, new CacheEntry<>(value, weight));
+	}
+
+	/**
+	 * Removes all queries from this cache.
+	 */
+	public void clear()
+	{
+		if (cache != null) {
+			cache.invalidateAll();
 		}
-		return super.put(key, value);
 	}
 
-	@Override
-	protected boolean removeEldestEntry(Map.Entry<QuerySpec, V> eldest)
+	/**
+	 * Returns the number of cached queries.
+	 *
+	 * @return
+	 */
+	public int size()
+	{
+		return cache == null ? 0 : cache.count();
+	}
+
+	/**
+	 * Returns the approximate number of bytes occupied by the cached queries (or, if the cache is
+	 * bounded by the number of queries, the number of cached queries).
+	 *
+	 * @return
+	 */
+	public long weight()
+	{
+		return cache == null ? 0 : cache.weight();
+	}
+
+	/**
+	 * Returns the number of lookups for which a cached result was found.
+	 *
+	 * @return
+	 */
+	public long getHitCount()
+	{
+		return cache == null ? 0 : cache.stats().getHits();
+	}
+
+	/**
+	 * Returns the number of lookups for which no cached result was found.
+	 *
+	 * @return
+	 */
+	public long getMissCount()
+	{
+		return cache == null ? 0 : cache.stats().getMisses();
+	}
+
+	/**
+	 * Returns the number of queries evicted from this cache because it was full.
+	 *
+	 * @return
+	 */
+	public long getEvictionCount()
+	{
+		return cache == null ? 0 : cache.stats().getEvictions();
+	}
+
+	/**
+	 * Logs the number of hits, misses and evictions for this cache.
+	 */
+	public void logStatistics()
 	{
-		if (size() > maxSize) {
-			if (logger.isDebugEnabled()) {
-				logger.debug("Evicting query: {}", JsonUtil.toJson(eldest.getKey()));
+		if (cache == null) {
+			return;
+		}
+		CacheStats stats = cache.stats();
+		String fmt = "Query cache {}: {} queries cached (weight: {}); {} hits; {} misses; {} evictions";
+		logger.info(fmt, name, cache.count(), cache.weight(), stats.getHits(), stats.getMisses(),
+				stats.getEvictions());
+	}
+
+	private static int getConfiguredTimeToLive()
+	{
+		ConfigObject config = DaoRegistry.getInstance().getConfiguration();
+		String val = config.get("nl.naturalis.nba.queryCache.ttl");
+		if (val == null) {
+			return 3600;
+		}
+		return Integer.parseInt(val.trim());
+	}
+
+	private static String createKey(Object query, IndexInfo... indices)
+	{
+		StringBuilder sb = new StringBuilder(128);
+		for (IndexInfo index : indices) {
+			IndexGeneration generation = generations.computeIfAbsent(index.getName(),
+					k -> new IndexGeneration());
+			sb.append(index.getName()).append('@').append(generation.get(index)).append(';');
+		}
+		sb.append(JsonUtil.toJson(query));
+		return sb.toString();
+	}
+
+	private static final class CacheEntry<V> {
+
+		private final V value;
+		private final long weight;
+
+		CacheEntry(V value, long weight)
+		{
+			this.value = value;
+			this.weight = weight;
+		}
+
+	}
+
+	private static final class IndexGeneration {
+
+		private final AtomicInteger counter = new AtomicInteger();
+		private volatile String uuid;
+		private volatile long checked;
+
+		String get(IndexInfo index)
+		{
+			long now = System.currentTimeMillis();
+			if (now - checked > GENERATION_CHECK_INTERVAL) {
+				try {
+					String setting = "index.uuid";
+					uuid = ESUtil.getIndexSettings(index, setting).get(setting);
+				}
+				catch (DaoException e) {
+					logger.warn("Could not determine generation of index {}: {}", index.getName(),
+							e.getMessage());
+					uuid = null;
+				}
+				checked = now;
 			}
-			return true;
+			/*
+			 * With aliases, the index name does not refer to a concrete index and no UUID is
+			 * available. Queries are then still cached, but they are only invalidated through
+			 * their time-to-live or through this JVM.
+			 */
+			return String.valueOf(uuid) + '#' + counter.get();
+		}
+
+		void increment()
+		{
+			counter.incrementAndGet();
+			checked = 0;
 		}
-		return false;
+
 	}
 
 }
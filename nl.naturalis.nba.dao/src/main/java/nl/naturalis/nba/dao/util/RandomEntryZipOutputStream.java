@@ -5,16 +5,16 @@ import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * An {@link OutputStream} that compresses data written to it according to the
- * zip file format. Contrary to a regular {@link ZipOutputStream}, this class
- * lets you write zip entries in a non-serial fashion. This allows you to
- * populate multiple zip entries while iterating over a single data source.
+ * zip file format. Contrary to a regular {@link java.util.zip.ZipOutputStream},
+ * this class lets you write zip entries in a non-serial fashion. This allows
+ * you to populate multiple zip entries while iterating over a single data
+ * source.
  * Otherwise you would have to start a new iteration for each zip entry. In
  * general you would create a {@code RandomEntryZipOutputStream} with one zip
  * entry (called the main entry) being compressed and written directly to the
@@ -23,16 +23,19 @@ import org.apache.logging.log4j.Logger;
  * want to write taxa.txt to the main entry, while simultaneously also buffering
  * content for varnacular.txt and reference.txt. Once you are done writing data
  * for the entries managed by the {@code RandomEntryZipOutputStream}, you call
- * {@link #mergeEntries()}. This will produce a regular {@code ZipOutputStream}
+ * {@link #mergeEntries()}. This will produce a {@link SplicingZipOutputStream}
  * that you can use as you see fit (e.g. to start writing other zip entries in a
  * serial fashion again). Most notably, {@code RandomEntryZipOutputStream} will
- * not have called {@link ZipOutputStream#close() close} or
- * {@link ZipOutputStream#finish() finish} on the {@code ZipOutputStream} it
- * produces. {@code RandomEntryZipOutputStream} internally uses a
+ * not have called {@link SplicingZipOutputStream#close() close} or
+ * {@link SplicingZipOutputStream#finish() finish} on the
+ * {@code SplicingZipOutputStream} it produces.
+ * {@code RandomEntryZipOutputStream} internally uses a
  * {@link CompressedSwapFileOutputStream} as intermediate storage for zip
  * entries (for each zip entry a separate {@code CompressedSwapFileOutputStream}
  * is created). This class will try to keep data for a zip entry in memory and
- * swap to a temporary file when the entry grows too big.
+ * swap to a temporary file when the entry grows too big. The data in the
+ * intermediate storage is already compressed the way it must be compressed
+ * within the zip file, so {@link #mergeEntries()} can copy it as-is.
  * 
  * @author Ayco Holleman
  *
@@ -50,7 +53,7 @@ public class RandomEntryZipOutputStream extends OutputStream {
 
 	private HashMap<String, OutputStream> streams;
 	private String mainEntry;
-	private ZipOutputStream zipStream;
+	private SplicingZipOutputStream zipStream;
 	private OutputStream active;
 
 	/**
@@ -65,7 +68,7 @@ public class RandomEntryZipOutputStream extends OutputStream {
 	public RandomEntryZipOutputStream(OutputStream out, String mainEntry) throws IOException
 	{
 		this.mainEntry = mainEntry;
-		zipStream = new ZipOutputStream(out);
+		zipStream = new SplicingZipOutputStream(out);
 		zipStream.putNextEntry(new ZipEntry(mainEntry));
 		streams = new HashMap<>();
 		streams.put(mainEntry, zipStream);
@@ -80,7 +83,7 @@ public class RandomEntryZipOutputStream extends OutputStream {
 	 */
 	public RandomEntryZipOutputStream(OutputStream out) throws IOException
 	{
-		zipStream = new ZipOutputStream(out);
+		zipStream = new SplicingZipOutputStream(out);
 		streams = new HashMap<>();
 	}
 
@@ -156,37 +159,36 @@ public class RandomEntryZipOutputStream extends OutputStream {
 	}
 
 	/**
-	 * Produces a {@link ZipOutputStream} containing all the zip entries managed
-	 * by this {@code RandomEntryZipOutputStream}.
+	 * Produces a {@link SplicingZipOutputStream} containing all the zip entries
+	 * managed by this {@code RandomEntryZipOutputStream}.
 	 * 
 	 * @return
 	 * @throws IOException
 	 */
-	public ZipOutputStream mergeEntries() throws IOException
+	public SplicingZipOutputStream mergeEntries() throws IOException
 	{
 		CompressedSwapFileOutputStream bucket;
 		for (Map.Entry<String, OutputStream> stream : streams.entrySet()) {
 			if (mainEntry != null && stream.getKey().equals(mainEntry)) {
 				continue;
 			}
-			ZipEntry zipEntry = new ZipEntry(stream.getKey());
-			zipStream.putNextEntry(zipEntry);
 			bucket = (CompressedSwapFileOutputStream) stream.getValue();
 			/*
-			 * Unfortunately, ZipOutputStream does not let you write
-			 * already-compressed data to it. Therefore we must uncompress the
-			 * data in the buckets (passing [true] to bucket.collect) and then
-			 * let the ZipOutputStream compress the data again. The alternative
-			 * would be to not compress the data in the buckets, but that would
-			 * significantly increase the chance that they overflow and thus
-			 * start swapping.
+			 * The buckets contain raw deflate streams, so we can copy them
+			 * into the zip file without uncompressing and compressing them
+			 * again.
 			 */
-			bucket.collect(zipStream, true);
+			ZipEntry zipEntry = new ZipEntry(stream.getKey());
+			zipEntry.setCrc(bucket.getCrc());
+			zipEntry.setSize(bucket.getSize());
+			zipStream.putNextDeflatedEntry(zipEntry);
+			bucket.collect(zipStream);
+			zipStream.closeEntry();
 			bucket.cleanUpAndClose();
 			if (bucket.hasSwapped()) {
 				String msg = "Data for zip entry \"{}\" could not be retained "
 						+ "in memory and was swapped to a temporary file";
-				logger.warn(msg);
+				logger.warn(msg, stream.getKey());
 			}
 		}
 		return zipStream;
@@ -216,9 +218,9 @@ public class RandomEntryZipOutputStream extends OutputStream {
 	/**
 	 * Do not call this method. It will always throw an {@link IOException}.
 	 * Call {@link #mergeEntries()} and then perform any book-keeping actions
-	 * like {@link ZipOutputStream#close() close} or
-	 * {@link ZipOutputStream#finish() finish} on the returned
-	 * {@link ZipOutputStream}. If some error situation prevented you from
+	 * like {@link SplicingZipOutputStream#close() close} or
+	 * {@link SplicingZipOutputStream#finish() finish} on the returned
+	 * {@link SplicingZipOutputStream}. If some error situation prevented you from
 	 * calling {@link #mergeEntries()}, call {@link #cleanup()}
 	 */
 	@Override
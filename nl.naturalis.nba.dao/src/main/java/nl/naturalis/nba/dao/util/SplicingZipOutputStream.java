@@ -0,0 +1,447 @@
+package nl.naturalis.nba.dao.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * An {@link OutputStream} that writes data according to the zip file format.
+ * Like a regular {@link ZipOutputStream} it lets you write zip entries one
+ * after another, compressing the data as you write it. Contrary to a regular
+ * {@code ZipOutputStream}, it also lets you write zip entries whose data has
+ * already been compressed (as a raw deflate stream, i.e. without zlib header
+ * and trailer). The already-compressed data is copied to the zip file as-is,
+ * so it is not deflated again. See {@link #putNextDeflatedEntry(ZipEntry)}.
+ * All entries are written using the {@link ZipEntry#DEFLATED DEFLATED}
+ * compression method. Entries (and the archive as a whole) may grow beyond 4
+ * GB, in which case the ZIP64 extensions are used.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class SplicingZipOutputStream extends OutputStream {
+
+	private static final int LOCSIG = 0x04034b50;
+	private static final int EXTSIG = 0x08074b50;
+	private static final int CENSIG = 0x02014b50;
+	private static final int ENDSIG = 0x06054b50;
+	private static final int ZIP64_ENDSIG = 0x06064b50;
+	private static final int ZIP64_LOCSIG = 0x07064b50;
+
+	private static final long ZIP64_MAGICVAL = 0xFFFFFFFFL;
+	private static final int ZIP64_MAGICCOUNT = 0xFFFF;
+	private static final short ZIP64_EXTID = 0x0001;
+
+	/*
+	 * Bit 3: CRC and sizes are written to a data descriptor following the
+	 * entry's data. Bit 11: the entry name is encoded using UTF-8.
+	 */
+	private static final short FLAGS = 0x0808;
+	private static final short VERSION_DEFLATED = 20;
+	private static final short VERSION_ZIP64 = 45;
+
+	private final CountingOutputStream out;
+	private final Deflater deflater;
+	private final CRC32 crc = new CRC32();
+	private final List<Entry> entries = new ArrayList<>();
+	private final Set<String> names = new HashSet<>();
+
+	private Entry current;
+	private DeflaterOutputStream entryStream;
+	private boolean finished;
+	private boolean closed;
+
+	/**
+	 * Creates a {@code SplicingZipOutputStream} that writes to the specified
+	 * output stream.
+	 *
+	 * @param out
+	 */
+	public SplicingZipOutputStream(OutputStream out)
+	{
+		this.out = new CountingOutputStream(out);
+		this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	}
+
+	/**
+	 * Begins writing a new zip entry. Any entry currently being written is
+	 * closed first. Data subsequently written to this
+	 * {@code SplicingZipOutputStream} is compressed before being written to
+	 * the underlying output stream.
+	 *
+	 * @param entry
+	 * @throws IOException
+	 */
+	public void putNextEntry(ZipEntry entry) throws IOException
+	{
+		openEntry(entry, false);
+		crc.reset();
+		entryStream = new DeflaterOutputStream(out, deflater, 8192);
+	}
+
+	/**
+	 * Begins writing a new zip entry whose data has already been compressed.
+	 * Any entry currently being written is closed first. Data subsequently
+	 * written to this {@code SplicingZipOutputStream} is written as-is to the
+	 * underlying output stream. It must be a raw deflate stream, as produced
+	 * by a {@link Deflater} created with {@code nowrap} set to {@code true}.
+	 * The CRC-32 checksum and the size of the uncompressed data must have
+	 * been set on the {@code ZipEntry}.
+	 *
+	 * @param entry
+	 * @throws IOException
+	 */
+	public void putNextDeflatedEntry(ZipEntry entry) throws IOException
+	{
+		if (entry.getCrc() == -1) {
+			throw new ZipException("CRC-32 not set for deflated entry: " + entry.getName());
+		}
+		if (entry.getSize() == -1) {
+			throw new ZipException("Size not set for deflated entry: " + entry.getName());
+		}
+		openEntry(entry, true);
+	}
+
+	/**
+	 * Closes the current zip entry. Does nothing if there is no current
+	 * entry.
+	 *
+	 * @throws IOException
+	 */
+	public void closeEntry() throws IOException
+	{
+		ensureOpen();
+		if (current == null) {
+			return;
+		}
+		if (entryStream != null) {
+			entryStream.finish();
+			current.crc = crc.getValue();
+			current.size = deflater.getBytesRead();
+			deflater.reset();
+			entryStream = null;
+		}
+		current.csize = out.written - current.dataOffset;
+		writeDataDescriptor(current);
+		current = null;
+	}
+
+	@Override
+	public void write(int b) throws IOException
+	{
+		byte[] buf = new byte[] { (byte) b };
+		write(buf, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		ensureOpen();
+		if (current == null) {
+			throw new ZipException("No current zip entry");
+		}
+		if (entryStream == null) {
+			out.write(b, off, len);
+		}
+		else {
+			crc.update(b, off, len);
+			entryStream.write(b, off, len);
+		}
+	}
+
+	/**
+	 * Finishes writing the zip file without closing the underlying output
+	 * stream.
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException
+	{
+		ensureOpen();
+		if (finished) {
+			return;
+		}
+		closeEntry();
+		long cenOffset = out.written;
+		for (Entry entry : entries) {
+			writeCentralDirectoryHeader(entry);
+		}
+		writeEndOfCentralDirectory(cenOffset, out.written - cenOffset);
+		out.flush();
+		finished = true;
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		if (entryStream != null) {
+			entryStream.flush();
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (!closed) {
+			try {
+				finish();
+			}
+			finally {
+				closed = true;
+				deflater.end();
+				out.close();
+			}
+		}
+	}
+
+	private void openEntry(ZipEntry zipEntry, boolean deflated) throws IOException
+	{
+		ensureOpen();
+		if (finished) {
+			throw new ZipException("Zip file already finished");
+		}
+		closeEntry();
+		if (!names.add(zipEntry.getName())) {
+			throw new ZipException("duplicate entry: " + zipEntry.getName());
+		}
+		Entry entry = new Entry(zipEntry);
+		if (deflated) {
+			entry.crc = zipEntry.getCrc();
+			entry.size = zipEntry.getSize();
+		}
+		entry.offset = out.written;
+		writeLocalHeader(entry);
+		entry.dataOffset = out.written;
+		entries.add(entry);
+		current = entry;
+	}
+
+	private void writeLocalHeader(Entry entry) throws IOException
+	{
+		/*
+		 * The CRC and sizes are not known yet when the entry is compressed
+		 * while being written, and we write a data descriptor anyhow for
+		 * deflated entries, so we treat both types of entries alike.
+		 */
+		ByteBuffer bb = buffer(30 + entry.name.length);
+		bb.putInt(LOCSIG);
+		bb.putShort(VERSION_DEFLATED);
+		bb.putShort(FLAGS);
+		bb.putShort((short) ZipEntry.DEFLATED);
+		bb.putInt(entry.dosTime);
+		bb.putInt(0);
+		bb.putInt(0);
+		bb.putInt(0);
+		bb.putShort((short) entry.name.length);
+		bb.putShort((short) 0);
+		bb.put(entry.name);
+		write(bb);
+	}
+
+	private void writeDataDescriptor(Entry entry) throws IOException
+	{
+		if (entry.csize >= ZIP64_MAGICVAL || entry.size >= ZIP64_MAGICVAL) {
+			ByteBuffer bb = buffer(24);
+			bb.putInt(EXTSIG);
+			bb.putInt((int) entry.crc);
+			bb.putLong(entry.csize);
+			bb.putLong(entry.size);
+			write(bb);
+		}
+		else {
+			ByteBuffer bb = buffer(16);
+			bb.putInt(EXTSIG);
+			bb.putInt((int) entry.crc);
+			bb.putInt((int) entry.csize);
+			bb.putInt((int) entry.size);
+			write(bb);
+		}
+	}
+
+	private void writeCentralDirectoryHeader(Entry entry) throws IOException
+	{
+		boolean zip64Size = entry.size >= ZIP64_MAGICVAL;
+		boolean zip64Csize = entry.csize >= ZIP64_MAGICVAL;
+		boolean zip64Offset = entry.offset >= ZIP64_MAGICVAL;
+		int extraLength = 0;
+		if (zip64Size || zip64Csize || zip64Offset) {
+			extraLength = 4 + (zip64Size ? 8 : 0) + (zip64Csize ? 8 : 0) + (zip64Offset ? 8 : 0);
+		}
+		short version = extraLength == 0 ? VERSION_DEFLATED : VERSION_ZIP64;
+		ByteBuffer bb = buffer(46 + entry.name.length + extraLength);
+		bb.putInt(CENSIG);
+		bb.putShort(version);
+		bb.putShort(version);
+		bb.putShort(FLAGS);
+		bb.putShort((short) ZipEntry.DEFLATED);
+		bb.putInt(entry.dosTime);
+		bb.putInt((int) entry.crc);
+		bb.putInt((int) (zip64Csize ? ZIP64_MAGICVAL : entry.csize));
+		bb.putInt((int) (zip64Size ? ZIP64_MAGICVAL : entry.size));
+		bb.putShort((short) entry.name.length);
+		bb.putShort((short) extraLength);
+		bb.putShort((short) 0); // comment length
+		bb.putShort((short) 0); // disk number start
+		bb.putShort((short) 0); // internal file attributes
+		bb.putInt(0); // external file attributes
+		bb.putInt((int) (zip64Offset ? ZIP64_MAGICVAL : entry.offset));
+		bb.put(entry.name);
+		if (extraLength != 0) {
+			bb.putShort(ZIP64_EXTID);
+			bb.putShort((short) (extraLength - 4));
+			if (zip64Size) {
+				bb.putLong(entry.size);
+			}
+			if (zip64Csize) {
+				bb.putLong(entry.csize);
+			}
+			if (zip64Offset) {
+				bb.putLong(entry.offset);
+			}
+		}
+		write(bb);
+	}
+
+	private void writeEndOfCentralDirectory(long cenOffset, long cenSize) throws IOException
+	{
+		int count = entries.size();
+		boolean zip64 = count >= ZIP64_MAGICCOUNT || cenOffset >= ZIP64_MAGICVAL
+				|| cenSize >= ZIP64_MAGICVAL;
+		if (zip64) {
+			long zip64EndOffset = out.written;
+			ByteBuffer bb = buffer(56 + 20);
+			bb.putInt(ZIP64_ENDSIG);
+			bb.putLong(44); // size of the remainder of the record
+			bb.putShort(VERSION_ZIP64);
+			bb.putShort(VERSION_ZIP64);
+			bb.putInt(0); // number of this disk
+			bb.putInt(0); // disk with the start of the central directory
+			bb.putLong(count);
+			bb.putLong(count);
+			bb.putLong(cenSize);
+			bb.putLong(cenOffset);
+			bb.putInt(ZIP64_LOCSIG);
+			bb.putInt(0); // disk with the start of the zip64 end record
+			bb.putLong(zip64EndOffset);
+			bb.putInt(1); // total number of disks
+			write(bb);
+		}
+		ByteBuffer bb = buffer(22);
+		bb.putInt(ENDSIG);
+		bb.putShort((short) 0);
+		bb.putShort((short) 0);
+		bb.putShort((short) Math.min(count, ZIP64_MAGICCOUNT));
+		bb.putShort((short) Math.min(count, ZIP64_MAGICCOUNT));
+		bb.putInt((int) Math.min(cenSize, ZIP64_MAGICVAL));
+		bb.putInt((int) Math.min(cenOffset, ZIP64_MAGICVAL));
+		bb.putShort((short) 0); // comment length
+		write(bb);
+	}
+
+	private void write(ByteBuffer bb) throws IOException
+	{
+		out.write(bb.array(), 0, bb.position());
+	}
+
+	private void ensureOpen() throws IOException
+	{
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+	private static ByteBuffer buffer(int size)
+	{
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static int toDosTime(long millis)
+	{
+		LocalDateTime ldt = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis),
+				ZoneId.systemDefault());
+		if (ldt.getYear() < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return (ldt.getYear() - 1980) << 25 | ldt.getMonthValue() << 21
+				| ldt.getDayOfMonth() << 16 | ldt.getHour() << 11 | ldt.getMinute() << 5
+				| ldt.getSecond() >> 1;
+	}
+
+	private static final class Entry {
+
+		final byte[] name;
+		final int dosTime;
+		long crc;
+		long size;
+		long csize;
+		long offset;
+		long dataOffset;
+
+		Entry(ZipEntry entry)
+		{
+			name = entry.getName().getBytes(StandardCharsets.UTF_8);
+			long time = entry.getTime();
+			dosTime = toDosTime(time == -1 ? System.currentTimeMillis() : time);
+		}
+
+	}
+
+	/*
+	 * Keeps track of the number of bytes written, which we need for the
+	 * offsets in the central directory.
+	 */
+	private static final class CountingOutputStream extends OutputStream {
+
+		private final OutputStream out;
+		private long written;
+
+		CountingOutputStream(OutputStream out)
+		{
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			out.write(b);
+			++written;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			out.write(b, off, len);
+			written += len;
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			out.close();
+		}
+
+	}
+
+}
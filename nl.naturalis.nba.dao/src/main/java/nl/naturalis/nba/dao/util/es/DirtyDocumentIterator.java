@@ -6,16 +6,21 @@ import static nl.naturalis.nba.dao.util.es.ESUtil.toDocumentObject;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
 import nl.naturalis.nba.api.InvalidQueryException;
 import nl.naturalis.nba.api.QuerySpec;
@@ -29,6 +34,17 @@ import nl.naturalis.nba.dao.translate.QuerySpecTranslator;
  * An {@link Iterator} implementation that iterates over Elasticsearch
  * documents.
  * 
+ * <p>
+ * By default the next batch of documents is only requested once the current
+ * batch has been consumed. When a {@link #setPrefetchDepth(int) prefetch
+ * depth} is set, subsequent batches are requested in the background (using the
+ * asynchronous Elasticsearch client API) while the current batch is being
+ * consumed. At most {@code prefetchDepth} batches are buffered at any time.
+ * The search requests are created and sent from the thread consuming the
+ * documents; the Elasticsearch client's I/O thread only buffers the responses.
+ * Call {@link #close()} when abandoning the iteration before all documents
+ * have been read.
+ * 
  * @author Ayco Holleman
  * @author Tom Gilissen
  *
@@ -48,6 +64,18 @@ public class DirtyDocumentIterator<T extends IDocumentObject> implements IDocume
 	private int batchIndex;    // Index into the current batch of documents (gets reset for every new batch)
 	
 	private long querySize;    // querySize is either set in the QuerySpec or equals the actual querySize
+	private String[] sourceExcludes; // Fields left out of the _source of the search hits
+
+	// Prefetching (all fields guarded by "prefetched")
+	private int prefetchDepth;
+	private final Deque<SearchHit[]> prefetched = new ArrayDeque<>();
+	private Object[] prefetchAfter; // The "search after" value for the next prefetch request
+	private long numPrefetched;     // Number of documents retrieved thus far
+	private boolean inFlight;       // Whether a prefetch request is pending
+	private boolean exhausted;      // Whether the last batch has been retrieved
+	private Exception failure;      // Set when a prefetch request failed
+	private boolean closed;         // Set when the iterator has been closed
+	private volatile boolean prefetchReady; // Whether another prefetch request may be sent
 
 	public DirtyDocumentIterator(DocumentType<T> dt)
 	{
@@ -74,6 +102,36 @@ public class DirtyDocumentIterator<T extends IDocumentObject> implements IDocume
 		this.dt = dt;
 	}
 
+	/**
+	 * Sets the number of batches to retrieve in the background while the
+	 * current batch is being consumed. Zero (the default) disables
+	 * prefetching. Must be called before the iteration starts.
+	 * 
+	 * @param prefetchDepth
+	 */
+	public void setPrefetchDepth(int prefetchDepth)
+	{
+		if (batch != null) {
+			throw new IllegalStateException("Iteration already started");
+		}
+		this.prefetchDepth = prefetchDepth;
+	}
+
+	/**
+	 * Sets the fields to be left out of the {@code _source} of the search hits
+	 * handed out by {@link #nextHit()}. Must be called before the iteration
+	 * starts.
+	 * 
+	 * @param fields
+	 */
+	public void setSourceExcludes(String... fields)
+	{
+		if (batch != null) {
+			throw new IllegalStateException("Iteration already started");
+		}
+		this.sourceExcludes = fields;
+	}
+
 	/**
 	 * Returns the total number of documents to iterate over.
 	 * 
@@ -114,10 +172,26 @@ public class DirtyDocumentIterator<T extends IDocumentObject> implements IDocume
 	public T next()
 	{
 		checkReady();
+		checkPrefetch();
 		docCounter++;
 		return toDocumentObject(batch[batchIndex++], dt);
 	}
 
+	/**
+	 * Returns the next document as a raw search hit, without converting it to
+	 * an instance of T. Use this method instead of {@link #next()} when the
+	 * document is going to be serialized again straight away.
+	 *
+	 * @return
+	 */
+	public SearchHit nextHit()
+	{
+		checkReady();
+		checkPrefetch();
+		docCounter++;
+		return batch[batchIndex++];
+	}
+
 	/**
 	 * Returns the next batch of documents or {@code null} if there are no more
 	 * documents to read.
@@ -137,6 +211,23 @@ public class DirtyDocumentIterator<T extends IDocumentObject> implements IDocume
 		return docs;
 	}
 
+	/**
+	 * Stops prefetching and discards the batches prefetched thus far. After
+	 * this method has been called, {@link #hasNext()} returns {@code false}. A
+	 * prefetch request that is still pending when the iterator is closed is
+	 * left to complete, but its response is ignored.
+	 */
+	public void close()
+	{
+		synchronized (prefetched) {
+			closed = true;
+			prefetched.clear();
+			prefetchReady = false;
+		}
+		batch = new SearchHit[0];
+		batchIndex = 0;
+	}
+
 	@Override
 	public Iterator<T> iterator()
 	{
@@ -157,14 +248,8 @@ public class DirtyDocumentIterator<T extends IDocumentObject> implements IDocume
 		}
 		setBatchSize();
 		qs.setSortFields(Arrays.asList(new SortField("id")));
-		SearchRequest request;
-		try {
-			request = new QuerySpecTranslator(qs, dt).translate();
-		}
-		catch (InvalidQueryException e) {
-			throw new DaoException(e);
-		}
-		SearchResponse response = executeSearchRequest(request);
+		SearchRequest request = createSearchRequest();
+		SearchResponse response = search(request);
 		batch = response.getHits().getHits();
 		if (batch.length > 0) {
       lastId = batch[batch.length - 1].getSortValues();
@@ -174,34 +259,202 @@ public class DirtyDocumentIterator<T extends IDocumentObject> implements IDocume
 		if (querySize == 0) {
 		  querySize = size;
 		}
+		if (prefetchDepth > 0) {
+			synchronized (prefetched) {
+				prefetchAfter = lastId;
+				numPrefetched = batch.length;
+				exhausted = batch.length == 0;
+				prefetch(false);
+			}
+		}
 	}
 
 	private void loadNextBatch()
 	{
+		if (prefetchDepth > 0) {
+			takePrefetchedBatch();
+			return;
+		}
 		if (logger.isDebugEnabled()) {
 			logger.debug("Refreshing document buffer");
 		}
+		SearchRequest request = createSearchAfterRequest(lastId);
+		SearchResponse response = search(request);
+		batch = response.getHits().getHits();
+		if (batch.length > 0) {
+		  lastId = batch[batch.length - 1].getSortValues();
+		}
+		batchIndex = 0;
+	}
+	
+	private SearchRequest createSearchRequest()
+	{
 		SearchRequest request;
 		try {
 			request = new QuerySpecTranslator(qs, dt).translate();
 		}
 		catch (InvalidQueryException e) {
-		  assert(false);
-		  return;
+			throw new DaoException(e);
 		}
+		if (sourceExcludes != null && sourceExcludes.length != 0) {
+			if (request.source() == null) {
+				request.source(new SearchSourceBuilder());
+			}
+			FetchSourceContext fsc = request.source().fetchSource();
+			if (fsc == null) {
+				request.source().fetchSource(null, sourceExcludes);
+			}
+			else if (fsc.fetchSource()) {
+				request.source().fetchSource(fsc.includes(), sourceExcludes);
+			}
+		}
+		return request;
+	}
+
+	private SearchRequest createSearchAfterRequest(Object[] searchAfter)
+	{
+		SearchRequest request = createSearchRequest();
 		SearchSourceBuilder searchSourceBuilder = (request.source() == null) ? new SearchSourceBuilder() : request.source();
 		searchSourceBuilder.trackTotalHits(false);
-		searchSourceBuilder.searchAfter(lastId);
+		searchSourceBuilder.searchAfter(searchAfter);
 		request.source(searchSourceBuilder);
-		
-		SearchResponse response = executeSearchRequest(request);
-		batch = response.getHits().getHits();
-		if (batch.length > 0) {
-		  lastId = batch[batch.length - 1].getSortValues();
+		return request;
+	}
+
+	/*
+	 * Waits until a prefetched batch is available and makes it the current
+	 * batch.
+	 */
+	private void takePrefetchedBatch()
+	{
+		synchronized (prefetched) {
+			while (prefetched.isEmpty()) {
+				if (closed) {
+					batch = new SearchHit[0];
+					batchIndex = 0;
+					return;
+				}
+				if (failure != null) {
+					throw new DaoException("Failed to execute the search request: " + failure.getMessage());
+				}
+				if (!inFlight) {
+					if (exhausted) {
+						batch = new SearchHit[0];
+						batchIndex = 0;
+						return;
+					}
+					/*
+					 * Prefetching stops once querySize documents have been
+					 * retrieved, but nextBatch() may read beyond querySize.
+					 */
+					prefetch(true);
+				}
+				try {
+					prefetched.wait();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new DaoException(e);
+				}
+			}
+			batch = prefetched.poll();
+			batchIndex = 0;
+			if (batch.length > 0) {
+				lastId = batch[batch.length - 1].getSortValues();
+			}
+			prefetch(false);
 		}
-		batchIndex = 0;
 	}
-	
+
+	/*
+	 * Sends the next prefetch request if the response to the previous one has
+	 * arrived in the meantime. Called for every document, so it only takes the
+	 * lock when there is something to do.
+	 */
+	private void checkPrefetch()
+	{
+		if (prefetchReady) {
+			synchronized (prefetched) {
+				prefetchReady = false;
+				prefetch(false);
+			}
+		}
+	}
+
+	/*
+	 * Sends an asynchronous request for the next batch if there is room in the
+	 * prefetch buffer. Search requests are chained through their "search after"
+	 * values, so there is never more than one request in flight. Must be called
+	 * by the consuming thread, while holding the lock on the prefetch buffer.
+	 * The response listener only buffers the response; it is up to the
+	 * consuming thread to send the next request (see checkPrefetch).
+	 */
+	private void prefetch(boolean force)
+	{
+		if (inFlight || exhausted || closed || failure != null) {
+			return;
+		}
+		if (!force && (prefetched.size() >= prefetchDepth || numPrefetched >= querySize)) {
+			return;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Prefetching next batch of documents");
+		}
+		SearchRequest request = createSearchAfterRequest(prefetchAfter);
+		inFlight = true;
+		searchAsync(request, new ActionListener<SearchResponse>() {
+
+			@Override
+			public void onResponse(SearchResponse response)
+			{
+				SearchHit[] hits = response.getHits().getHits();
+				synchronized (prefetched) {
+					inFlight = false;
+					if (closed) {
+						return;
+					}
+					prefetched.add(hits);
+					if (hits.length == 0) {
+						exhausted = true;
+					}
+					else {
+						prefetchAfter = hits[hits.length - 1].getSortValues();
+						numPrefetched += hits.length;
+						prefetchReady = true;
+					}
+					prefetched.notifyAll();
+				}
+			}
+
+			@Override
+			public void onFailure(Exception e)
+			{
+				synchronized (prefetched) {
+					inFlight = false;
+					failure = e;
+					prefetched.notifyAll();
+				}
+			}
+		});
+	}
+
+	/*
+	 * Executes a search request. Overridden in unit tests.
+	 */
+	SearchResponse search(SearchRequest request)
+	{
+		return executeSearchRequest(request);
+	}
+
+	/*
+	 * Executes a search request asynchronously. The listener is called on one
+	 * of the Elasticsearch client's I/O threads. Overridden in unit tests.
+	 */
+	void searchAsync(SearchRequest request, ActionListener<SearchResponse> listener)
+	{
+		ESUtil.esClient().searchAsync(request, RequestOptions.DEFAULT, listener);
+	}
+
 	private void setBatchSize()
 	{
     if (qs.getSize() != null) {
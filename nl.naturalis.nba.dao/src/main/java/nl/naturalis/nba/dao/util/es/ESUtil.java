@@ -29,6 +29,8 @@ import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
@@ -54,6 +56,7 @@ import nl.naturalis.nba.dao.DocumentType;
 import nl.naturalis.nba.dao.ESClientManager;
 import nl.naturalis.nba.dao.IndexInfo;
 import nl.naturalis.nba.dao.exception.DaoException;
+import nl.naturalis.nba.dao.util.QueryCache;
 
 /**
  * Methods for interacting with Elasticsearch, mostly intended to be used for unit testing and by
@@ -151,6 +154,33 @@ public class ESUtil {
     return response;
   }
   
+  /**
+   * Executes the specified multi-search request, sending all bundled search requests to
+   * Elasticsearch in a single round trip. The responses are returned in the same order as the
+   * requests were added to the multi-search request. If any of the bundled requests failed, a
+   * {@link DaoException} is thrown.
+   * 
+   * @param request
+   * @return
+   */
+  public static MultiSearchResponse executeMultiSearchRequest(MultiSearchRequest request) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("Executing multi-search request ({} search requests)", request.requests().size());
+    }
+    MultiSearchResponse response = null;
+    try {
+      response = esClient().msearch(request, RequestOptions.DEFAULT);
+    } catch (IOException e) {
+      throw new DaoException("Failed to execute the multi-search request: " + e.getMessage());
+    }
+    for (MultiSearchResponse.Item item : response.getResponses()) {
+      if (item.isFailure()) {
+        throw new DaoException("Failed to execute the multi-search request: " + item.getFailureMessage());
+      }
+    }
+    return response;
+  }
+
   public static CountResponse executeCountRequest(CountRequest request)
   {
     CountResponse countResponse = null;
@@ -274,6 +304,7 @@ public class ESUtil {
    */
   public static void deleteIndex(String index) {
     logger.info("Deleting index: {}", index);
+    QueryCache.invalidate(index);
     try {
       DeleteIndexRequest request = new DeleteIndexRequest(index);
       esClient().indices().delete(request, RequestOptions.DEFAULT);
@@ -316,6 +347,7 @@ public class ESUtil {
   public static void createIndex(IndexInfo indexInfo) {
     String index = indexInfo.getName();
     logger.info("Creating index: {}", index);
+    QueryCache.invalidate(index);
 
     // First load non-user-configurable settings
     String resource = "/es-settings.json";
@@ -464,6 +496,7 @@ public class ESUtil {
   public static void refreshIndex(IndexInfo indexInfo) {
     
     String index = indexInfo.getName();
+    QueryCache.invalidate(index);
     RefreshRequest request = new RefreshRequest(index);
     try {
       RefreshResponse refreshResponse =
@@ -594,6 +627,7 @@ public class ESUtil {
     qs.setSize(1000);
     
     DirtyDocumentIterator<T> extractor = new DirtyDocumentIterator<>(dt, qs);
+    extractor.setPrefetchDepth(1);
     String index = dt.getIndexInfo().getName();
     
     RestHighLevelClient client = ESClientManager.getInstance().getClient();
@@ -637,6 +671,7 @@ public class ESUtil {
     qs.addCondition(new QueryCondition("sourceSystem.code", "=", ss.getCode()));
     
     DirtyDocumentIterator<T> extractor = new DirtyDocumentIterator<>(dt, qs);
+    extractor.setPrefetchDepth(1);
     String index = dt.getIndexInfo().getName();
     
     RestHighLevelClient client = ESClientManager.getInstance().getClient();
@@ -0,0 +1,148 @@
+package nl.naturalis.nba.dao.util.es;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.search.SearchHit;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import nl.naturalis.nba.common.es.map.ComplexField;
+import nl.naturalis.nba.common.es.map.ESField;
+import nl.naturalis.nba.common.es.map.GeoShapeField;
+import nl.naturalis.nba.dao.DocumentType;
+import nl.naturalis.nba.dao.exception.DaoException;
+
+/**
+ * Writes search hits to an output stream in NDJSON format (one document per
+ * line). The {@code _source} of a search hit is copied as-is to the output
+ * stream; the id of the document is spliced into it as the first field. This
+ * saves deserializing the hit into a document object and serializing it again.
+ *
+ * <p>
+ * The {@code _source} may contain fields that the document objects do not
+ * return, notably the geo shapes (e.g. {@code gatheringEvent.siteCoordinates.geoShape})
+ * that are added to the documents after they have been imported. Exclude the
+ * fields returned by {@link #getHiddenFields(DocumentType) getHiddenFields}
+ * from the {@code _source} when searching (see
+ * {@link DirtyDocumentIterator#setSourceExcludes(String...)}). The output then
+ * contains the same fields as the serialized document objects, although not
+ * necessarily in the same order.
+ *
+ * <p>
+ * Output is buffered. Call {@link #flush()} once all search hits have been
+ * written.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class SearchHitWriter {
+
+  private static final byte[] ID_FIELD = "{\"id\":\"".getBytes(UTF_8);
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(UTF_8);
+
+  private final OutputStream out;
+  private boolean first = true;
+
+  /**
+   * Creates a writer that writes to the specified output stream, using an
+   * output buffer of the specified size.
+   *
+   * @param out
+   * @param bufferSize
+   */
+  public SearchHitWriter(OutputStream out, int bufferSize) {
+    this.out = new BufferedOutputStream(out, bufferSize);
+  }
+
+  /**
+   * Writes the document in the specified search hit, preceded by a line
+   * separator unless it is the first document.
+   *
+   * @param hit
+   * @throws IOException
+   */
+  public void write(SearchHit hit) throws IOException {
+    if (first) {
+      first = false;
+    } else {
+      out.write(LINE_SEPARATOR);
+    }
+    out.write(ID_FIELD);
+    out.write(JsonStringEncoder.getInstance().quoteAsUTF8(hit.getId()));
+    out.write('"');
+    BytesReference source = hit.getSourceRef();
+    if (source == null) {
+      /*
+       * This happens if the user specified a zero-size List for QuerySpec.fields. See
+       * QuerySpecTranslator.
+       */
+      out.write('}');
+      return;
+    }
+    int len = source.length();
+    int start = skipWhitespace(source, 0);
+    if (start == len || source.get(start) != '{') {
+      throw new DaoException("Source of document " + hit.getId() + " is not a JSON object");
+    }
+    int next = skipWhitespace(source, start + 1);
+    if (next < len && source.get(next) != '}') {
+      out.write(',');
+    }
+    source.slice(start + 1, len - start - 1).writeTo(out);
+  }
+
+  /**
+   * Returns the fields that may be present in the {@code _source} of a
+   * document of the specified type, but that are not returned by the
+   * corresponding document object. These are the geo_shape fields.
+   *
+   * @param dt
+   * @return
+   */
+  public static String[] getHiddenFields(DocumentType<?> dt) {
+    List<String> fields = new ArrayList<>();
+    collectHiddenFields(dt.getMapping(), null, fields);
+    return fields.toArray(new String[fields.size()]);
+  }
+
+  /**
+   * Flushes the output buffer.
+   *
+   * @throws IOException
+   */
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  private static void collectHiddenFields(ComplexField parent, String path, List<String> fields) {
+    for (Map.Entry<String, ESField> entry : parent.getProperties().entrySet()) {
+      String field = path == null ? entry.getKey() : path + '.' + entry.getKey();
+      if (entry.getValue() instanceof GeoShapeField) {
+        fields.add(field);
+      } else if (entry.getValue() instanceof ComplexField) {
+        collectHiddenFields((ComplexField) entry.getValue(), field, fields);
+      }
+    }
+  }
+
+  private static int skipWhitespace(BytesReference source, int from) {
+    int i = from;
+    while (i < source.length()) {
+      byte b = source.get(i);
+      if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+        break;
+      }
+      ++i;
+    }
+    return i;
+  }
+
+}
@@ -0,0 +1,303 @@
+package nl.naturalis.nba.dao.util.es;
+
+import static nl.naturalis.nba.dao.DaoUtil.getLogger;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+
+import nl.naturalis.nba.api.InvalidQueryException;
+import nl.naturalis.nba.api.NbaException;
+import nl.naturalis.nba.api.QuerySpec;
+import nl.naturalis.nba.dao.DocumentType;
+import nl.naturalis.nba.dao.ESClientManager;
+import nl.naturalis.nba.dao.translate.QuerySpecTranslator;
+
+/**
+ * An implementation of {@link IScroller} that uses Elasticsearch's sliced scroll API to iterate
+ * over the documents using multiple connections at once. The result set is split into a
+ * configurable number of slices, each of which is scrolled through by a separate worker thread.
+ * The search hits retrieved by the workers are handed over to the thread calling
+ * {@link #scroll(SearchHitHandler) scroll}, so the {@link SearchHitHandler} is only ever called
+ * from one thread and does not need to be thread-safe. Only the retrieval of the documents is
+ * parallelized.
+ *
+ * <p>
+ * The documents are passed to the {@code SearchHitHandler} in no particular order, so this
+ * scroller is meant for full passes over (a subset of) an index. Sort fields are ignored. The
+ * {@code from} and {@code size} properties of the {@link QuerySpec} still limit the number of
+ * documents passed to the {@code SearchHitHandler}, but it is undefined which documents those
+ * are. As with the {@link AcidScroller}, make sure to specify a generous scroll timeout using
+ * {@link #setTimeout(int) setTimeout}.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class SlicedScroller implements IScroller {
+
+	private static final Logger logger = getLogger(SlicedScroller.class);
+
+	/*
+	 * Marks the end of a slice in the queue of search hits.
+	 */
+	private static final SearchHit[] END_OF_SLICE = new SearchHit[0];
+
+	private final QuerySpec querySpec;
+	private final DocumentType<?> dt;
+	private final int numSlices;
+
+	private int batchSize = 1000;
+	private int timeout = 60000;
+	private int from = 0;
+	private int size = 0;
+
+	private volatile boolean stopped;
+	private volatile Exception failure;
+
+	/**
+	 * Creates a {@code SlicedScroller} for the specified query, using the specified number of
+	 * slices (and worker threads). A reasonable number of slices is the number of shards of the
+	 * index.
+	 *
+	 * @param querySpec
+	 * @param documentType
+	 * @param numSlices
+	 * @throws InvalidQueryException
+	 */
+	public SlicedScroller(QuerySpec querySpec, DocumentType<?> documentType, int numSlices)
+			throws InvalidQueryException
+	{
+		this.querySpec = new QuerySpec(querySpec);
+		this.dt = documentType;
+		this.numSlices = Math.max(1, numSlices);
+		if (querySpec.getFrom() != null) {
+			from = querySpec.getFrom().intValue();
+			this.querySpec.setFrom(null);
+		}
+		if (querySpec.getSize() != null) {
+			size = querySpec.getSize().intValue();
+			this.querySpec.setSize(null);
+		}
+		if (querySpec.getSortFields() != null) {
+			logger.warn("Ignoring sort fields");
+			this.querySpec.setSortFields(null);
+		}
+		// Validate the query before any worker starts
+		new QuerySpecTranslator(this.querySpec, dt).translate();
+	}
+
+	@Override
+	public void scroll(SearchHitHandler handler) throws NbaException
+	{
+		logger.info("Scrolling through {} documents using {} slices", dt.getName(), numSlices);
+		BlockingQueue<SearchHit[]> queue = new ArrayBlockingQueue<>(2 * numSlices);
+		ExecutorService executor = Executors.newFixedThreadPool(numSlices, new WorkerThreadFactory());
+		stopped = false;
+		failure = null;
+		try {
+			for (int i = 0; i < numSlices; i++) {
+				final int sliceId = i;
+				executor.execute(() -> scrollSlice(sliceId, queue));
+			}
+			consume(handler, queue);
+			if (failure != null) {
+				throw new NbaException("Error while scrolling through documents: " + failure.getMessage());
+			}
+		}
+		finally {
+			stopped = true;
+			queue.clear();
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Returns the number of documents to fetch per slice per scroll request. Defaults to 1000
+	 * documents.
+	 *
+	 * @return
+	 */
+	public int getBatchSize()
+	{
+		return batchSize;
+	}
+
+	/**
+	 * Sets the number of documents to fetch per slice per scroll request. Defaults to 1000
+	 * documents.
+	 *
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize)
+	{
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Returns the timeout of the scroll tokens. Defaults to 60 seconds.
+	 *
+	 * @return
+	 */
+	public int getTimeout()
+	{
+		return timeout;
+	}
+
+	/**
+	 * Sets the timeout of the scroll tokens (in milliseconds). Defaults to 60 seconds.
+	 *
+	 * @param timeout
+	 */
+	public void setTimeout(int timeout)
+	{
+		this.timeout = timeout;
+	}
+
+	private void consume(SearchHitHandler handler, BlockingQueue<SearchHit[]> queue)
+			throws NbaException
+	{
+		int to = from + size;
+		int i = 0;
+		int slicesDone = 0;
+		while (slicesDone < numSlices) {
+			SearchHit[] hits;
+			try {
+				hits = queue.poll(100, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new NbaException("Interrupted while scrolling through documents");
+			}
+			if (hits == null) {
+				if (failure != null) {
+					return;
+				}
+				continue;
+			}
+			if (hits == END_OF_SLICE) {
+				++slicesDone;
+				continue;
+			}
+			for (SearchHit hit : hits) {
+				if (size != 0 && i >= to) {
+					return;
+				}
+				if (i >= from && !handler.handle(hit)) {
+					return;
+				}
+				i += 1;
+			}
+		}
+	}
+
+	private void scrollSlice(int sliceId, BlockingQueue<SearchHit[]> queue)
+	{
+		RestHighLevelClient client = ESClientManager.getInstance().getClient();
+		Scroll scroll = new Scroll(new TimeValue(timeout));
+		String scrollId = null;
+		try {
+			SearchRequest request = new QuerySpecTranslator(querySpec, dt).translate();
+			SearchSourceBuilder source = request.source();
+			source.trackTotalHits(false);
+			source.size(batchSize);
+			source.sort(FieldSortBuilder.DOC_FIELD_NAME, SortOrder.ASC);
+			if (numSlices > 1) {
+				source.slice(new SliceBuilder(sliceId, numSlices));
+			}
+			request.scroll(scroll);
+			SearchResponse response = client.search(request, RequestOptions.DEFAULT);
+			scrollId = response.getScrollId();
+			SearchHit[] hits = response.getHits().getHits();
+			while (hits.length != 0 && !stopped) {
+				if (!offer(queue, hits)) {
+					return;
+				}
+				SearchScrollRequest scrollRequest = new SearchScrollRequest(scrollId);
+				scrollRequest.scroll(scroll);
+				response = client.scroll(scrollRequest, RequestOptions.DEFAULT);
+				scrollId = response.getScrollId();
+				hits = response.getHits().getHits();
+			}
+		}
+		catch (Exception e) {
+			logger.error("Error while scrolling through slice " + sliceId, e);
+			failure = e;
+			stopped = true;
+		}
+		finally {
+			clearScroll(client, scrollId);
+			offer(queue, END_OF_SLICE);
+		}
+	}
+
+	/*
+	 * Puts the hits on the queue, waiting for space to become available. Gives up (and returns
+	 * false) once the scroll has been stopped, because then nobody is taking hits off the queue
+	 * anymore.
+	 */
+	private boolean offer(BlockingQueue<SearchHit[]> queue, SearchHit[] hits)
+	{
+		try {
+			while (!queue.offer(hits, 100, TimeUnit.MILLISECONDS)) {
+				if (stopped) {
+					return false;
+				}
+			}
+			return true;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static void clearScroll(RestHighLevelClient client, String scrollId)
+	{
+		if (scrollId == null) {
+			return;
+		}
+		ClearScrollRequest request = new ClearScrollRequest();
+		request.addScrollId(scrollId);
+		try {
+			client.clearScroll(request, RequestOptions.DEFAULT);
+		}
+		catch (IOException e) {
+			logger.warn("Failed to clear scroll: {}", e.getMessage());
+		}
+	}
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private static final AtomicInteger counter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, "sliced-scroller-" + counter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+
+	}
+
+}
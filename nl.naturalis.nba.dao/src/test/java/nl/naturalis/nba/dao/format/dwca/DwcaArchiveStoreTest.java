@@ -0,0 +1,72 @@
+package nl.naturalis.nba.dao.format.dwca;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("static-method")
+public class DwcaArchiveStoreTest {
+
+	private File dir;
+
+	@Before
+	public void before() throws IOException
+	{
+		dir = Files.createTempDirectory("DwcaArchiveStoreTest").toFile();
+	}
+
+	@After
+	public void after()
+	{
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	@Test
+	public void testDeleteStaleArchives_01() throws IOException
+	{
+		File oldest = create("nsr-" + hash('a') + ".dwca.zip");
+		File previous = create("nsr-" + hash('b') + ".dwca.zip");
+		File current = create("nsr-" + hash('c') + ".dwca.zip");
+		File other = create("nsr-synonyms-" + hash('a') + ".dwca.zip");
+		File info = create("nsr.dwca.properties");
+		DwcaArchiveStore.deleteStaleArchives(dir, "nsr", current, previous);
+		assertFalse("01", oldest.exists());
+		assertTrue("02", previous.exists());
+		assertTrue("03", current.exists());
+		assertTrue("04", other.exists());
+		assertTrue("05", info.exists());
+	}
+
+	@Test
+	public void testDeleteStaleArchives_02() throws IOException
+	{
+		File previous = create("nsr-" + hash('b') + ".dwca.zip");
+		File current = create("nsr-" + hash('c') + ".dwca.zip");
+		DwcaArchiveStore.deleteStaleArchives(dir, "nsr", current, null);
+		assertFalse("01", previous.exists());
+		assertTrue("02", current.exists());
+	}
+
+	private File create(String name) throws IOException
+	{
+		File f = new File(dir, name);
+		Files.write(f.toPath(), new byte[] {1});
+		return f;
+	}
+
+	private static String hash(char c)
+	{
+		return String.valueOf(c).repeat(64);
+	}
+
+}
@@ -0,0 +1,37 @@
+package nl.naturalis.nba.dao.format.dwca;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import nl.naturalis.nba.api.NoSuchDataSetException;
+import nl.naturalis.nba.api.Path;
+import nl.naturalis.nba.dao.DocumentType;
+import nl.naturalis.nba.dao.format.DataSetConfigurationException;
+
+@SuppressWarnings("static-method")
+public class DwcaConfigTest {
+
+	@Test
+	public void testGetRequiredFields_01()
+			throws DataSetConfigurationException, NoSuchDataSetException
+	{
+		DwcaConfig cfg = new DwcaConfig("nsr", DwcaDataSetType.TAXON);
+		List<Path> fields = DwcaConfig.getRequiredFields(DocumentType.TAXON,
+				cfg.getDataSet().getEntities());
+		assertNotNull("01", fields);
+		assertTrue("02", fields.contains(new Path("sourceSystemId")));
+		assertTrue("03", fields.contains(new Path("acceptedName.fullScientificName")));
+		/*
+		 * Read by the SynonymIdCalculator. Synonyms is an array, so it must be
+		 * retrieved in its entirety.
+		 */
+		assertTrue("04", fields.contains(new Path("synonyms")));
+		assertFalse("05", fields.contains(new Path("synonyms.fullScientificName")));
+	}
+
+}
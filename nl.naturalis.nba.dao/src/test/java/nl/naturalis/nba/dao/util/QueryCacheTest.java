@@ -0,0 +1,80 @@
+package nl.naturalis.nba.dao.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import nl.naturalis.nba.api.QueryCondition;
+import nl.naturalis.nba.api.QuerySpec;
+
+public class QueryCacheTest {
+
+	@Test
+	public void testGet_01()
+	{
+		QueryCache<String> cache = new QueryCache<>("test", 1, 0);
+		QuerySpec qs = new QuerySpec();
+		qs.addCondition(new QueryCondition("unitID", "=", "L.12345"));
+		assertNull("01", cache.get(qs));
+		cache.put(qs, "foo");
+		assertEquals("02", "foo", cache.get(qs));
+		assertEquals("03", 1, cache.getHitCount());
+		assertEquals("04", 1, cache.getMissCount());
+	}
+
+	@Test
+	public void testGet_02()
+	{
+		/*
+		 * Make sure the cache key is a snapshot of the query, not the query
+		 * itself.
+		 */
+		QueryCache<String> cache = new QueryCache<>("test", 1, 0);
+		QuerySpec qs = new QuerySpec();
+		QueryCondition condition = new QueryCondition("unitID", "=", "L.12345");
+		qs.addCondition(condition);
+		cache.put(qs, "foo");
+		condition.setValue("L.67890");
+		assertNull("01", cache.get(qs));
+	}
+
+	@Test
+	public void testDisabled()
+	{
+		QueryCache<String> cache = new QueryCache<>("test", 0, 0);
+		assertFalse("01", cache.isEnabled());
+		cache.put("query", "foo");
+		assertNull("02", cache.get("query"));
+		assertEquals("03", 0, cache.size());
+	}
+
+	@Test
+	public void testEviction()
+	{
+		QueryCache<String> cache = new QueryCache<>("test", 1, 0);
+		long weight = 300 * 1024;
+		for (int i = 0; i < 10; i++) {
+			cache.put("query" + i, "result" + i, weight);
+		}
+		assertTrue("01", cache.weight() <= 1024 * 1024);
+		assertTrue("02", cache.getEvictionCount() > 0);
+		assertEquals("03", "result9", cache.get("query9"));
+		assertNull("04", cache.get("query0"));
+	}
+
+	@Test
+	public void testEviction_02()
+	{
+		QueryCache<String> cache = QueryCache.withMaxEntries("test", 3);
+		for (int i = 0; i < 5; i++) {
+			cache.put("query" + i, "result" + i, 1024 * 1024);
+		}
+		assertEquals("01", 3, cache.size());
+		assertEquals("02", "result4", cache.get("query4"));
+		assertNull("03", cache.get("query0"));
+	}
+
+}
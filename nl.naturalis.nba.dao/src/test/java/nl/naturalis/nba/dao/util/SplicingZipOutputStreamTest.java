@@ -0,0 +1,145 @@
+package nl.naturalis.nba.dao.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Test;
+
+import nl.naturalis.nba.utils.IOUtil;
+
+public class SplicingZipOutputStreamTest {
+
+	@Test
+	public void testPutNextDeflatedEntry_01() throws IOException
+	{
+		byte[] data1 = createData(100000);
+		byte[] data2 = createData(5000);
+		CompressedSwapFileOutputStream bucket = new CompressedSwapFileOutputStream(1024);
+		bucket.write(data2);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		SplicingZipOutputStream zos = new SplicingZipOutputStream(baos);
+		zos.putNextEntry(new ZipEntry("test1.txt"));
+		zos.write(data1);
+		ZipEntry entry = new ZipEntry("test2.txt");
+		entry.setCrc(bucket.getCrc());
+		entry.setSize(bucket.getSize());
+		zos.putNextDeflatedEntry(entry);
+		bucket.collect(zos);
+		bucket.cleanUpAndClose();
+		zos.putNextEntry(new ZipEntry("test3.txt"));
+		zos.finish();
+		ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		assertEquals("01", "test1.txt", zis.getNextEntry().getName());
+		assertArrayEquals("02", data1, read(zis));
+		assertEquals("03", "test2.txt", zis.getNextEntry().getName());
+		assertArrayEquals("04", data2, read(zis));
+		assertEquals("05", "test3.txt", zis.getNextEntry().getName());
+		assertEquals("06", 0, read(zis).length);
+		assertNull("07", zis.getNextEntry());
+	}
+
+	@Test
+	public void testMergeEntries_01() throws IOException
+	{
+		/*
+		 * Make sure the central directory is OK as well, by reading the zip
+		 * file with ZipFile rather than ZipInputStream.
+		 */
+		String tmpDir = System.getProperty("java.io.tmpdir");
+		File file = new File(tmpDir + "/SplicingZipOutputStreamTest.zip");
+		if (file.exists()) {
+			file.delete();
+		}
+		FileOutputStream fos = new FileOutputStream(file);
+		RandomEntryZipOutputStream rezos = new RandomEntryZipOutputStream(fos, "test1.txt");
+		rezos.addEntry("test2.txt", 64);
+		rezos.addEntry("test3.txt");
+		PrintStream ps = new PrintStream(rezos);
+		for (int i = 0; i < 1000; i++) {
+			rezos.setActiveEntry("test1.txt");
+			ps.println("This is line " + i + " for test1.txt");
+			rezos.setActiveEntry("test2.txt");
+			ps.println("This is line " + i + " for test2.txt");
+		}
+		rezos.setActiveEntry("test3.txt");
+		ps.print("Ünïcödé");
+		ps.flush();
+		SplicingZipOutputStream zos = rezos.mergeEntries();
+		zos.putNextEntry(new ZipEntry("meta.xml"));
+		zos.write("<archive/>".getBytes(StandardCharsets.UTF_8));
+		zos.close();
+		try (ZipFile zipFile = new ZipFile(file)) {
+			assertEquals("01", 4, zipFile.size());
+			String test1 = read(zipFile, "test1.txt");
+			assertEquals("02", 1000, test1.split("\n").length);
+			assertEquals("03", "This is line 999 for test1.txt\n", test1.substring(test1.lastIndexOf("This")));
+			String test2 = read(zipFile, "test2.txt");
+			assertEquals("04", 1000, test2.split("\n").length);
+			assertEquals("05", "This is line 0 for test2.txt", test2.split("\n")[0]);
+			assertEquals("06", "Ünïcödé", read(zipFile, "test3.txt"));
+			assertEquals("07", "<archive/>", read(zipFile, "meta.xml"));
+			assertEquals("08", test2.length(), zipFile.getEntry("test2.txt").getSize());
+		}
+		file.delete();
+	}
+
+	@Test(expected = ZipException.class)
+	public void testPutNextDeflatedEntry_02() throws IOException
+	{
+		SplicingZipOutputStream zos = new SplicingZipOutputStream(new ByteArrayOutputStream());
+		zos.putNextDeflatedEntry(new ZipEntry("test.txt"));
+	}
+
+	@Test(expected = ZipException.class)
+	public void testPutNextEntry_01() throws IOException
+	{
+		SplicingZipOutputStream zos = new SplicingZipOutputStream(new ByteArrayOutputStream());
+		zos.putNextEntry(new ZipEntry("test.txt"));
+		zos.putNextEntry(new ZipEntry("test.txt"));
+	}
+
+	private static byte[] createData(int size)
+	{
+		/*
+		 * Some text interspersed with random bytes, so the data is neither
+		 * trivially compressible nor incompressible.
+		 */
+		Random random = new Random(42);
+		byte[] data = new byte[size];
+		byte[] text = "The quick brown fox jumps over the lazy dog. ".getBytes();
+		for (int i = 0; i < size; i++) {
+			data[i] = i % 7 == 0 ? (byte) random.nextInt() : text[i % text.length];
+		}
+		return data;
+	}
+
+	private static String read(ZipFile zipFile, String name) throws IOException
+	{
+		try (InputStream in = zipFile.getInputStream(zipFile.getEntry(name))) {
+			return new String(read(in), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static byte[] read(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		IOUtil.pipe(in, baos, 2048);
+		return baos.toByteArray();
+	}
+
+}
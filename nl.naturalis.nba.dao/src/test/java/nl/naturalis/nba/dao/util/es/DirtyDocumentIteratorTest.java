@@ -0,0 +1,246 @@
+package nl.naturalis.nba.dao.util.es;
+
+import static nl.naturalis.nba.dao.DocumentType.SPECIMEN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchResponseSections;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import nl.naturalis.nba.api.model.Specimen;
+
+/**
+ * Tests the prefetching behaviour of DirtyDocumentIterator against a fake
+ * Elasticsearch cluster that answers asynchronous requests on a separate
+ * thread.
+ */
+public class DirtyDocumentIteratorTest {
+
+	private static final int NUM_DOCS = 3500;
+
+	private ExecutorService ioThread;
+
+	@Before
+	public void before()
+	{
+		ioThread = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void after()
+	{
+		ioThread.shutdownNow();
+	}
+
+	@Test
+	public void testPrefetch_01()
+	{
+		FakeIterator iterator = new FakeIterator();
+		iterator.setPrefetchDepth(3);
+		List<String> ids = new ArrayList<>(NUM_DOCS);
+		while (iterator.hasNext()) {
+			ids.add(iterator.next().getUnitID());
+		}
+		assertEquals("01", NUM_DOCS, ids.size());
+		for (int i = 0; i < NUM_DOCS; i++) {
+			assertEquals("02", unitID(i), ids.get(i));
+		}
+		assertEquals("03", NUM_DOCS, iterator.getDocCounter());
+		// All requests must have been sent by the consuming thread
+		assertEquals("04", Collections.singleton(Thread.currentThread()), iterator.senders);
+		assertEquals("05", 1, iterator.maxInFlight);
+	}
+
+	@Test
+	public void testPrefetch_02()
+	{
+		FakeIterator iterator = new FakeIterator();
+		iterator.setPrefetchDepth(3);
+		int n = 0;
+		List<Specimen> batch;
+		while ((batch = iterator.nextBatch()) != null) {
+			for (Specimen specimen : batch) {
+				assertEquals("01", unitID(n++), specimen.getUnitID());
+			}
+		}
+		assertEquals("02", NUM_DOCS, n);
+	}
+
+	@Test
+	public void testPrefetch_03() throws InterruptedException
+	{
+		/*
+		 * While the first batch is being consumed, the remaining three batches
+		 * must be prefetched, one request at a time, but no more than that.
+		 */
+		FakeIterator iterator = new FakeIterator();
+		iterator.setPrefetchDepth(2);
+		int consumed = 0;
+		for (int i = 0; i < 500 && iterator.asyncRequests < 2; i++) {
+			iterator.next();
+			++consumed;
+			Thread.sleep(5);
+		}
+		assertEquals("01", 2, iterator.asyncRequests);
+		for (int i = 0; i < 100; i++) {
+			iterator.next();
+			++consumed;
+			Thread.sleep(1);
+		}
+		// Depth reached: no more requests until a prefetched batch is taken
+		assertEquals("02", 2, iterator.asyncRequests);
+		while (iterator.hasNext()) {
+			iterator.next();
+			++consumed;
+		}
+		assertEquals("03", NUM_DOCS, consumed);
+		assertEquals("04", 1, iterator.maxInFlight);
+	}
+
+	@Test
+	public void testClose_01() throws InterruptedException
+	{
+		FakeIterator iterator = new FakeIterator();
+		iterator.setPrefetchDepth(3);
+		iterator.hold = new CountDownLatch(1);
+		assertTrue("01", iterator.hasNext());
+		iterator.next();
+		iterator.close();
+		assertFalse("02", iterator.hasNext());
+		int sent = iterator.asyncRequests;
+		// Let the pending request complete; its response must be ignored
+		iterator.hold.countDown();
+		ioThread.shutdown();
+		assertTrue("03", ioThread.awaitTermination(10, TimeUnit.SECONDS));
+		assertFalse("04", iterator.hasNext());
+		assertEquals("05", sent, iterator.asyncRequests);
+	}
+
+	@Test
+	public void testSourceExcludes_01()
+	{
+		FakeIterator iterator = new FakeIterator();
+		iterator.setPrefetchDepth(2);
+		String[] excludes = {"gatheringEvent.siteCoordinates.geoShape"};
+		iterator.setSourceExcludes(excludes);
+		while (iterator.hasNext()) {
+			iterator.nextHit();
+		}
+		assertEquals("01", 4, iterator.requests.size());
+		for (SearchRequest request : iterator.requests) {
+			FetchSourceContext fsc = request.source().fetchSource();
+			assertTrue("02", fsc.fetchSource());
+			assertArrayEquals("03", excludes, fsc.excludes());
+		}
+	}
+
+	@Test
+	public void testNoPrefetch_01()
+	{
+		FakeIterator iterator = new FakeIterator();
+		int n = 0;
+		while (iterator.hasNext()) {
+			assertEquals("01", unitID(n++), iterator.next().getUnitID());
+		}
+		assertEquals("02", NUM_DOCS, n);
+		assertEquals("03", 0, iterator.asyncRequests);
+	}
+
+	private static String unitID(int i)
+	{
+		return String.format("U%05d", i);
+	}
+
+	private class FakeIterator extends DirtyDocumentIterator<Specimen> {
+
+		final Set<Thread> senders = Collections.synchronizedSet(new HashSet<>());
+		final List<SearchRequest> requests = Collections.synchronizedList(new ArrayList<>());
+		volatile CountDownLatch hold;
+		volatile int asyncRequests;
+		volatile int inFlight;
+		volatile int maxInFlight;
+
+		FakeIterator()
+		{
+			super(SPECIMEN);
+		}
+
+		@Override
+		SearchResponse search(SearchRequest request)
+		{
+			return respond(request);
+		}
+
+		@Override
+		void searchAsync(SearchRequest request, ActionListener<SearchResponse> listener)
+		{
+			senders.add(Thread.currentThread());
+			synchronized (this) {
+				++asyncRequests;
+				maxInFlight = Math.max(maxInFlight, ++inFlight);
+			}
+			ioThread.execute(() -> {
+				try {
+					if (hold != null) {
+						hold.await();
+					}
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+				SearchResponse response = respond(request);
+				synchronized (this) {
+					--inFlight;
+				}
+				listener.onResponse(response);
+			});
+		}
+
+		private SearchResponse respond(SearchRequest request)
+		{
+			requests.add(request);
+			Object[] after = request.source().searchAfter();
+			int from = after == null ? 0 : Integer.parseInt(((String) after[0]).substring(1)) + 1;
+			int to = Math.min(NUM_DOCS, from + request.source().size());
+			SearchHit[] hits = new SearchHit[Math.max(0, to - from)];
+			for (int i = from; i < to; i++) {
+				SearchHit hit = new SearchHit(i, unitID(i) + "@CRS", null, Collections.emptyMap());
+				hit.sourceRef(new BytesArray("{\"unitID\":\"" + unitID(i) + "\"}"));
+				hit.sortValues(new Object[] {unitID(i)}, new DocValueFormat[] {DocValueFormat.RAW});
+				hits[i - from] = hit;
+			}
+			TotalHits total = new TotalHits(NUM_DOCS, TotalHits.Relation.EQUAL_TO);
+			SearchResponseSections sections = new SearchResponseSections(
+					new SearchHits(hits, total, 1F), null, null, false, null, null, 1);
+			SearchResponse response = new SearchResponse(sections, null, 1, 1, 0, 1,
+					ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+			return response;
+		}
+
+	}
+
+}
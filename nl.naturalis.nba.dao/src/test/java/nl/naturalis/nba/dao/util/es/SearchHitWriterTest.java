@@ -0,0 +1,125 @@
+package nl.naturalis.nba.dao.util.es;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static nl.naturalis.nba.dao.DocumentType.MULTI_MEDIA_OBJECT;
+import static nl.naturalis.nba.dao.DocumentType.SPECIMEN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.search.SearchHit;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.naturalis.nba.api.model.GatheringEvent;
+import nl.naturalis.nba.api.model.GatheringSiteCoordinates;
+import nl.naturalis.nba.api.model.Person;
+import nl.naturalis.nba.api.model.ScientificName;
+import nl.naturalis.nba.api.model.Sex;
+import nl.naturalis.nba.api.model.Specimen;
+import nl.naturalis.nba.api.model.SpecimenIdentification;
+import nl.naturalis.nba.api.model.SpecimenTypeStatus;
+import nl.naturalis.nba.common.json.JsonUtil;
+
+public class SearchHitWriterTest {
+
+	@Test
+	public void testWrite_01() throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SearchHitWriter writer = new SearchHitWriter(out, 16);
+		writer.write(createHit("1@CRS", "{\"unitID\":\"1\"}"));
+		writer.write(createHit("2@CRS", " { }"));
+		writer.write(createHit("3\"@CRS", null));
+		writer.flush();
+		String nl = System.lineSeparator();
+		String expected = "{\"id\":\"1@CRS\",\"unitID\":\"1\"}" + nl
+				+ "{\"id\":\"2@CRS\" }" + nl
+				+ "{\"id\":\"3\\\"@CRS\"}";
+		assertEquals("01", expected, new String(out.toByteArray(), UTF_8));
+	}
+
+	@Test
+	public void testWrite_02() throws IOException
+	{
+		// Output must be equivalent to the serialized document object
+		Specimen specimen = new Specimen();
+		specimen.setUnitID("ZMA.1234");
+		specimen.setSourceSystemId("ZMA.1234");
+		String source = JsonUtil.toJson(specimen);
+		specimen.setId("ZMA.1234@CRS");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SearchHitWriter writer = new SearchHitWriter(out, 1024);
+		writer.write(createHit(specimen.getId(), source));
+		writer.flush();
+		ObjectMapper om = new ObjectMapper();
+		JsonNode expected = om.readTree(JsonUtil.toJson(specimen));
+		assertEquals("01", expected, om.readTree(out.toByteArray()));
+	}
+
+	@Test
+	public void testWrite_03() throws IOException
+	{
+		// Same, for a document with nested objects, arrays, dates and enums
+		Specimen specimen = new Specimen();
+		specimen.setUnitID("RMNH.AVES.1");
+		specimen.setSourceSystemId("RMNH.AVES.1");
+		specimen.setSex(Sex.FEMALE);
+		specimen.setTheme(Arrays.asList("Birds", "Type specimens"));
+		GatheringEvent event = new GatheringEvent();
+		event.setLocalityText("Leiden, \"Hortus\"");
+		event.setDateTimeBegin(OffsetDateTime.of(1899, 5, 1, 0, 0, 0, 0, ZoneOffset.ofHours(1)));
+		event.setGatheringPersons(Arrays.asList(new Person("J. Doe"), new Person("R. Roe")));
+		event.setSiteCoordinates(Arrays.asList(new GatheringSiteCoordinates(52.16, 4.48)));
+		specimen.setGatheringEvent(event);
+		SpecimenIdentification si = new SpecimenIdentification();
+		si.setTypeStatus(SpecimenTypeStatus.HOLOTYPE);
+		ScientificName sn = new ScientificName();
+		sn.setFullScientificName("Larus fuscus Linnaeus, 1758");
+		sn.setGenusOrMonomial("Larus");
+		sn.setSpecificEpithet("fuscus");
+		si.setScientificName(sn);
+		specimen.setIdentifications(Arrays.asList(si));
+		String source = JsonUtil.toJson(specimen);
+		specimen.setId("RMNH.AVES.1@CRS");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SearchHitWriter writer = new SearchHitWriter(out, 64);
+		writer.write(createHit(specimen.getId(), source));
+		writer.flush();
+		ObjectMapper om = new ObjectMapper();
+		JsonNode expected = om.readTree(JsonUtil.toJson(specimen));
+		assertEquals("01", expected, om.readTree(out.toByteArray()));
+	}
+
+	@Test
+	public void testGetHiddenFields_01()
+	{
+		List<String> fields = Arrays.asList(SearchHitWriter.getHiddenFields(SPECIMEN));
+		assertTrue("01", fields.contains("gatheringEvent.siteCoordinates.geoShape"));
+		fields = Arrays.asList(SearchHitWriter.getHiddenFields(MULTI_MEDIA_OBJECT));
+		assertTrue("02", fields.contains("gatheringEvents.siteCoordinates.geoShape"));
+		for (String field : fields) {
+			assertTrue("03", field.endsWith(".geoShape"));
+		}
+	}
+
+	private static SearchHit createHit(String id, String source)
+	{
+		SearchHit hit = new SearchHit(0, id, null, Collections.emptyMap());
+		if (source != null) {
+			hit.sourceRef(new BytesArray(source));
+		}
+		return hit;
+	}
+
+}
@@ -4,6 +4,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.Logger;
 
@@ -50,20 +51,27 @@ public abstract class AbstractMimeTypeCache implements MimeTypeCache {
 	private final File cacheFile;
 	private final int numEntries;
 
-	private boolean changed = false;
+	private volatile boolean changed = false;
 
-	private int hits = 0;
-	private int misses = 0;
-	private int requestFailures = 0;
+	/*
+	 * Updated by multiple transformer threads when running in an ETLPipeline.
+	 */
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+	private final AtomicInteger requestFailures = new AtomicInteger();
 
 	AbstractMimeTypeCache(String cacheFileName)
 	{
-		File dir = DaoRegistry.getInstance().getConfiguration().getDirectory("medialib.data.dir");
-		cacheFile = FileUtil.newFile(dir, cacheFileName);
-		if (!cacheFile.isFile()) {
-			String fmt = "Missing cache file (%s). You should put it in %s.";
-			throw new ETLRuntimeException(String.format(fmt, cacheFileName, dir.getAbsolutePath()));
-		}
+		this(getCacheFile(cacheFileName));
+	}
+
+	/*
+	 * Creates a cache from a cache file outside the medialib data directory.
+	 * Used in unit tests.
+	 */
+	AbstractMimeTypeCache(File cacheFile)
+	{
+		this.cacheFile = cacheFile;
 		logger.info("Initializing mime type cache");
 		numEntries = buildCache(cacheFile);
 		logger.info(String.format("Initialization complete. Number of entries in cache: %s",
@@ -73,9 +81,9 @@ public abstract class AbstractMimeTypeCache implements MimeTypeCache {
 	@Override
 	public void resetCounters()
 	{
-		hits = 0;
-		misses = 0;
-		requestFailures = 0;
+		hits.set(0);
+		misses.set(0);
+		requestFailures.set(0);
 	}
 
 	/**
@@ -85,7 +93,7 @@ public abstract class AbstractMimeTypeCache implements MimeTypeCache {
 	{
 		String mimetype = getEntry(unitID);
 		if (mimetype == null) {
-			++misses;
+			misses.incrementAndGet();
 			mimetype = JPEG;
 			String fmt = "UnitID \"%s\" not found in mime type cache. The mime type cache is out-of-date!";
 			logger.warn(String.format(fmt, unitID));
@@ -93,7 +101,7 @@ public abstract class AbstractMimeTypeCache implements MimeTypeCache {
 			//mimetype = callMedialib(unitID);
 		}
 		else {
-			++hits;
+			hits.incrementAndGet();
 		}
 		return mimetype;
 	}
@@ -115,7 +123,7 @@ public abstract class AbstractMimeTypeCache implements MimeTypeCache {
 	@Override
 	public int getHits()
 	{
-		return hits;
+		return hits.get();
 	}
 
 	/**
@@ -126,7 +134,7 @@ public abstract class AbstractMimeTypeCache implements MimeTypeCache {
 	@Override
 	public int getMisses()
 	{
-		return misses;
+		return misses.get();
 	}
 
 	/**
@@ -138,7 +146,7 @@ public abstract class AbstractMimeTypeCache implements MimeTypeCache {
 	@Override
 	public int getRequestFailures()
 	{
-		return requestFailures;
+		return requestFailures.get();
 	}
 
 	/**
@@ -197,6 +205,17 @@ public abstract class AbstractMimeTypeCache implements MimeTypeCache {
 	 */
 	protected abstract void closeCache() throws IOException;
 
+	private static File getCacheFile(String cacheFileName)
+	{
+		File dir = DaoRegistry.getInstance().getConfiguration().getDirectory("medialib.data.dir");
+		File cacheFile = FileUtil.newFile(dir, cacheFileName);
+		if (!cacheFile.isFile()) {
+			String fmt = "Missing cache file (%s). You should put it in %s.";
+			throw new ETLRuntimeException(String.format(fmt, cacheFileName, dir.getAbsolutePath()));
+		}
+		return cacheFile;
+	}
+
 	@SuppressWarnings("unused")
 	private String callMedialib(String unitID)
 	{
@@ -210,7 +229,7 @@ public abstract class AbstractMimeTypeCache implements MimeTypeCache {
 			changed = true;
 		}
 		else {
-			++requestFailures;
+			requestFailures.incrementAndGet();
 			// We are still going to cache this UnitID, associating it
 			// with an empty mime type, because it's probably not going
 			// to get any better for this UnitID next time round, so no
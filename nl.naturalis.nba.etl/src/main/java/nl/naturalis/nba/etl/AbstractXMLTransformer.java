@@ -1,6 +1,11 @@
 package nl.naturalis.nba.etl;
 
+import java.util.List;
+
+import org.w3c.dom.Element;
+
 import nl.naturalis.nba.api.model.IDocumentObject;
+import nl.naturalis.nba.utils.xml.DOMUtil;
 
 /**
  * Base class for transformers that take XML elements as their input. Used for CRS and
@@ -17,4 +22,51 @@ public abstract class AbstractXMLTransformer<OUTPUT extends IDocumentObject> ext
 	{
 		super(stats);
 	}
+
+	/**
+	 * Returns the first descendant of the specified element with the specified
+	 * tag name, or {@code null} if there is no such descendant.
+	 * 
+	 * @param e
+	 * @param tag
+	 * @return
+	 */
+	protected Element descendant(Element e, String tag)
+	{
+		ElementIndex index = index(e);
+		return index == null ? DOMUtil.getDescendant(e, tag) : index.getDescendant(e, tag);
+	}
+
+	/**
+	 * Returns all descendants of the specified element with the specified tag
+	 * name.
+	 * 
+	 * @param e
+	 * @param tag
+	 * @return
+	 */
+	protected List<Element> descendants(Element e, String tag)
+	{
+		ElementIndex index = index(e);
+		return index == null ? DOMUtil.getDescendants(e, tag) : index.getDescendants(e, tag);
+	}
+
+	/**
+	 * Returns the index on the elements of the current record, so we don't
+	 * have to walk the record again for each and every field. Returns
+	 * {@code null} for elements not belonging to the current record, which
+	 * must then be searched the old way.
+	 * 
+	 * @param e
+	 * @return
+	 */
+	protected ElementIndex index(Element e)
+	{
+		if (input == null) {
+			return null;
+		}
+		ElementIndex index = input.getIndex();
+		return index.contains(e) ? index : null;
+	}
+
 }
@@ -1,6 +1,7 @@
 package nl.naturalis.nba.etl;
 
 import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.rest.RestStatus;
 
 /**
  * Provides information about an index request failure.
@@ -14,6 +15,7 @@ class BulkIndexFailure {
 	private String type;
 	private Object object;
 	private String message;
+	private RestStatus status;
 
 	BulkIndexFailure(BulkItemResponse response, Object obj)
 	{
@@ -21,6 +23,7 @@ class BulkIndexFailure {
 		this.type = response.getType();
 		this.object = obj;
 		this.message = response.getFailureMessage();
+		this.status = response.status();
 	}
 
 	/**
@@ -62,4 +65,14 @@ class BulkIndexFailure {
 	{
 		return message;
 	}
+
+	/**
+	 * The HTTP status that ElasticSearch returned for the object.
+	 * 
+	 * @return
+	 */
+	RestStatus getStatus()
+	{
+		return status;
+	}
 }
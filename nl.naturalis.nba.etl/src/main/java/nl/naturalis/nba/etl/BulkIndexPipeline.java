@@ -0,0 +1,438 @@
+package nl.naturalis.nba.etl;
+
+import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_BULK_CONCURRENCY;
+import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_BULK_SIZE;
+import static nl.naturalis.nba.etl.ETLUtil.getLogger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.naturalis.nba.api.model.IDocumentObject;
+import nl.naturalis.nba.dao.DocumentType;
+import nl.naturalis.nba.dao.ESClientManager;
+import nl.naturalis.nba.dao.exception.DaoException;
+
+/**
+ * Indexes documents using asynchronous bulk requests. Contrary to the
+ * {@link BulkIndexer}, which sends a bulk request and waits for the response,
+ * the {@code BulkIndexPipeline} lets the caller continue with the next batch
+ * of documents while the previous batches are still being indexed. Documents
+ * are serialized as soon as they are {@link #add(IDocumentObject) added} and
+ * a bulk request is sent once the serialized documents take up a certain
+ * number of bytes (system property {@code nl.naturalis.nba.etl.bulkSize}, in
+ * megabytes, default 5). At most {@code nl.naturalis.nba.etl.bulkConcurrency}
+ * bulk requests (default 2) are in flight at any time. When that many bulk
+ * requests are in flight, {@code add} blocks until one of them has completed.
+ *
+ * <p>
+ * Documents rejected by Elasticsearch because it is too busy (HTTP 429) are
+ * sent again, with exponential backoff. Only the rejected documents are sent
+ * again, not the entire bulk request. The same applies to bulk requests that
+ * fail as a whole because Elasticsearch is too busy or cannot be reached. All
+ * other failures are counted as rejected documents.
+ *
+ * <p>
+ * While documents are waiting to be sent again, no new bulk requests are sent,
+ * so a document that is added again cannot be overwritten by the earlier
+ * version of itself that is being sent again. This does not apply to the bulk
+ * requests that were already in flight when the documents were rejected. If
+ * the same document is added twice within that many bulk requests, and the
+ * first version is rejected because Elasticsearch is too busy, the first
+ * version may end up in the index. Set {@code bulkConcurrency} to 1 if this
+ * must not happen.
+ *
+ * <p>
+ * The ETL statistics are updated by the thread calling {@code add} and
+ * {@link #flush() flush}, so the {@link ETLStatistics} object need not be
+ * thread-safe. Call {@code flush} to wait until all documents added so far
+ * have been indexed.
+ *
+ * @author Ayco Holleman
+ *
+ * @param <T>
+ */
+public class BulkIndexPipeline<T extends IDocumentObject> {
+
+	private static final Logger logger = getLogger(BulkIndexPipeline.class);
+
+	private static final long INITIAL_BACKOFF = 250;
+	private static final long MAX_BACKOFF = 60 * 1000;
+
+	static final int MAX_RETRIES = 16;
+
+	private final RestHighLevelClient client;
+	private final String index;
+	private final ObjectMapper om;
+	private final ETLStatistics stats;
+	private final long maxBytes;
+	private final int maxDocs;
+	private final int maxInFlight;
+	private final long initialBackoff;
+	private final Semaphore permits;
+	private final ScheduledExecutorService retryScheduler;
+
+	private final AtomicInteger indexed = new AtomicInteger();
+	private final AtomicInteger rejected = new AtomicInteger();
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong totalLatency = new AtomicLong();
+	private final AtomicLong maxLatency = new AtomicLong();
+
+	private volatile boolean suppressErrors;
+	private volatile boolean retrying;
+	private volatile Exception failure;
+
+	private BulkRequest request;
+
+	/**
+	 * Creates a {@code BulkIndexPipeline} for the specified document type. If
+	 * {@code maxDocs} is greater than zero, a bulk request is also sent once it
+	 * contains that many documents, even if it has not reached its maximum
+	 * size in bytes yet.
+	 *
+	 * @param dt
+	 * @param maxDocs
+	 * @param stats
+	 */
+	public BulkIndexPipeline(DocumentType<T> dt, int maxDocs, ETLStatistics stats)
+	{
+		this(ESClientManager.getInstance().getClient(), dt.getIndexInfo().getName(),
+				dt.getObjectMapper(), maxDocs,
+				Integer.parseInt(System.getProperty(SYSPROP_BULK_CONCURRENCY, "2")),
+				INITIAL_BACKOFF, stats);
+	}
+
+	BulkIndexPipeline(RestHighLevelClient client, String index, ObjectMapper om, int maxDocs,
+			int maxInFlight, long initialBackoff, ETLStatistics stats)
+	{
+		this.client = client;
+		this.index = index;
+		this.om = om;
+		this.stats = stats;
+		this.maxDocs = maxDocs;
+		this.maxBytes = Long.parseLong(System.getProperty(SYSPROP_BULK_SIZE, "5")) * 1024 * 1024;
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.initialBackoff = initialBackoff;
+		this.permits = new Semaphore(this.maxInFlight);
+		this.retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "bulk-retry-" + index);
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Adds the specified document to the current bulk request, and sends the
+	 * bulk request if it is full.
+	 *
+	 * @param document
+	 */
+	public void add(T document)
+	{
+		checkFailure();
+		String id = document.getId();
+		IndexRequest indexRequest = new IndexRequest(index);
+		if (id != null) {
+			indexRequest.id(id);
+		}
+		/*
+		 * The ID is the Elasticsearch _id and must not end up in the document
+		 * itself.
+		 */
+		document.setId(null);
+		try {
+			indexRequest.source(om.writeValueAsBytes(document), XContentType.JSON);
+		}
+		catch (JsonProcessingException e) {
+			throw new DaoException(e);
+		}
+		finally {
+			document.setId(id);
+		}
+		if (request == null) {
+			request = newBulkRequest();
+		}
+		request.add(indexRequest);
+		if (request.estimatedSizeInBytes() >= maxBytes
+				|| (maxDocs > 0 && request.numberOfActions() >= maxDocs)) {
+			send();
+		}
+	}
+
+	/**
+	 * Sends the current bulk request (if any) and waits until all bulk
+	 * requests have completed.
+	 */
+	public void flush()
+	{
+		send();
+		awaitCompletion();
+		updateStatistics();
+		checkFailure();
+	}
+
+	/**
+	 * Flushes the pipeline, logs the latency of the bulk requests and releases
+	 * the resources held by the pipeline.
+	 */
+	public void close()
+	{
+		try {
+			flush();
+		}
+		finally {
+			retryScheduler.shutdownNow();
+			logStatistics();
+		}
+	}
+
+	/**
+	 * Determines whether to suppress the ERROR messages logged for documents
+	 * that could not be indexed.
+	 *
+	 * @param suppressErrors
+	 */
+	public void suppressErrors(boolean suppressErrors)
+	{
+		this.suppressErrors = suppressErrors;
+	}
+
+	/**
+	 * Logs the number of bulk requests sent and their average and maximum
+	 * latency.
+	 */
+	public void logStatistics()
+	{
+		long n = requests.get();
+		if (n == 0) {
+			return;
+		}
+		String fmt = "Bulk requests for index {}: {} (retries: {}); average latency: {} ms; maximum latency: {} ms";
+		logger.info(fmt, index, n, retries.get(), totalLatency.get() / n, maxLatency.get());
+	}
+
+	private void send()
+	{
+		if (request == null) {
+			return;
+		}
+		BulkRequest bulkRequest = request;
+		request = null;
+		if (retrying) {
+			/*
+			 * Hold the bulk request until the rejected documents have been sent
+			 * again, so an earlier version of a document cannot overwrite the
+			 * version in this bulk request.
+			 */
+			awaitCompletion();
+		}
+		try {
+			permits.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ETLRuntimeException("Interrupted while waiting to send bulk request");
+		}
+		send(bulkRequest, 0);
+		updateStatistics();
+	}
+
+	/*
+	 * Waits until all bulk requests sent so far have completed, including their
+	 * retries.
+	 */
+	private void awaitCompletion()
+	{
+		try {
+			permits.acquire(maxInFlight);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ETLRuntimeException("Interrupted while waiting for bulk requests to complete");
+		}
+		retrying = false;
+		permits.release(maxInFlight);
+	}
+
+	/*
+	 * The permit acquired for a bulk request is only released once the bulk
+	 * request has completed, including its retries.
+	 */
+	private void send(BulkRequest bulkRequest, int attempt)
+	{
+		long start = System.currentTimeMillis();
+		try {
+			bulkAsync(bulkRequest, new ActionListener<BulkResponse>() {
+
+				@Override
+				public void onResponse(BulkResponse response)
+				{
+					try {
+						recordLatency(bulkRequest, System.currentTimeMillis() - start);
+						handleResponse(bulkRequest, response, attempt);
+					}
+					catch (RuntimeException e) {
+						fail(bulkRequest, e);
+					}
+				}
+
+				@Override
+				public void onFailure(Exception e)
+				{
+					handleFailure(bulkRequest, e, attempt);
+				}
+			});
+		}
+		catch (RuntimeException e) {
+			fail(bulkRequest, e);
+		}
+	}
+
+	/*
+	 * Sends a bulk request asynchronously. Overridden in unit tests.
+	 */
+	void bulkAsync(BulkRequest bulkRequest, ActionListener<BulkResponse> listener)
+	{
+		client.bulkAsync(bulkRequest, RequestOptions.DEFAULT, listener);
+	}
+
+	private void handleResponse(BulkRequest bulkRequest, BulkResponse response, int attempt)
+	{
+		if (!response.hasFailures()) {
+			indexed.addAndGet(bulkRequest.numberOfActions());
+			permits.release();
+			return;
+		}
+		List<DocWriteRequest<?>> requests = bulkRequest.requests();
+		BulkRequest retry = null;
+		for (BulkItemResponse item : response) {
+			if (!item.isFailed()) {
+				indexed.incrementAndGet();
+			}
+			else if (item.status() == RestStatus.TOO_MANY_REQUESTS && attempt < MAX_RETRIES) {
+				if (retry == null) {
+					retry = newBulkRequest();
+				}
+				retry.add(requests.get(item.getItemId()));
+			}
+			else {
+				rejected.incrementAndGet();
+				if (!suppressErrors) {
+					logger.error("Failed to index document {}: {}", item.getId(), item.getFailureMessage());
+				}
+			}
+		}
+		if (retry == null) {
+			permits.release();
+		}
+		else {
+			long delay = getBackoff(attempt);
+			String fmt = "Elasticsearch is too busy to index {} document(s). Retrying in {} ms";
+			logger.warn(fmt, retry.numberOfActions(), delay);
+			scheduleRetry(retry, attempt + 1, delay);
+		}
+	}
+
+	private void handleFailure(BulkRequest bulkRequest, Exception e, int attempt)
+	{
+		if (isRetriable(e) && attempt < MAX_RETRIES) {
+			long delay = getBackoff(attempt);
+			logger.warn("Bulk request failed ({}). Retrying in {} ms", e.getMessage(), delay);
+			scheduleRetry(bulkRequest, attempt + 1, delay);
+		}
+		else {
+			fail(bulkRequest, e);
+		}
+	}
+
+	private void scheduleRetry(BulkRequest bulkRequest, int attempt, long delay)
+	{
+		retrying = true;
+		retries.incrementAndGet();
+		try {
+			retryScheduler.schedule(() -> send(bulkRequest, attempt), delay, TimeUnit.MILLISECONDS);
+		}
+		catch (RuntimeException e) {
+			fail(bulkRequest, e);
+		}
+	}
+
+	private void fail(BulkRequest bulkRequest, Exception e)
+	{
+		logger.error("Failed to execute a bulk index: {}", e.getMessage());
+		rejected.addAndGet(bulkRequest.numberOfActions());
+		failure = e;
+		permits.release();
+	}
+
+	private void recordLatency(BulkRequest bulkRequest, long took)
+	{
+		requests.incrementAndGet();
+		totalLatency.addAndGet(took);
+		maxLatency.accumulateAndGet(took, Math::max);
+		if (logger.isDebugEnabled()) {
+			String fmt = "Bulk request with {} documents ({} KB) took {} ms";
+			logger.debug(fmt, bulkRequest.numberOfActions(),
+					bulkRequest.estimatedSizeInBytes() / 1024, took);
+		}
+	}
+
+	private void updateStatistics()
+	{
+		stats.documentsIndexed += indexed.getAndSet(0);
+		stats.documentsRejected += rejected.getAndSet(0);
+	}
+
+	private void checkFailure()
+	{
+		Exception e = failure;
+		if (e != null) {
+			failure = null;
+			throw new ETLRuntimeException("Failed to execute a bulk index: " + e.getMessage(), e);
+		}
+	}
+
+	private static BulkRequest newBulkRequest()
+	{
+		BulkRequest bulkRequest = new BulkRequest();
+		bulkRequest.timeout(TimeValue.ZERO);
+		return bulkRequest;
+	}
+
+	private static boolean isRetriable(Exception e)
+	{
+		if (e instanceof ElasticsearchStatusException) {
+			RestStatus status = ((ElasticsearchStatusException) e).status();
+			return status == RestStatus.TOO_MANY_REQUESTS || status == RestStatus.SERVICE_UNAVAILABLE;
+		}
+		return e instanceof IOException;
+	}
+
+	private long getBackoff(int attempt)
+	{
+		return Math.min(MAX_BACKOFF, initialBackoff << Math.min(attempt, 20));
+	}
+
+}
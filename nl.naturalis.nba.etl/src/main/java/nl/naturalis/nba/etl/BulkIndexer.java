@@ -11,6 +11,7 @@ import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.common.unit.TimeValue;
@@ -89,23 +90,109 @@ public class BulkIndexer<T extends IDocumentObject> {
 
 		try {
 		  BulkResponse bulkResponse = client.bulk(bulkRequest, RequestOptions.DEFAULT);
-		  boolean hasFailed = false;
-		  List<T> failedDocs = new ArrayList<>();
 		  if (bulkResponse.hasFailures()) {
-			logger.warn("There were errors while executing the BulkRequest");
-			hasFailed = true;
-			for (BulkItemResponse bulkItemResponse : bulkResponse) {
-			  if (bulkItemResponse.isFailed()) {
-				  BulkItemResponse.Failure failure = bulkItemResponse.getFailure();
-				  failedDocs.add(documents.get( bulkItemResponse.getItemId() ));
-				  logger.error("Failed to index document {}: {}", failure.getId(), failure.getMessage());
-			  }
-			}
+			logFailures(bulkResponse, "index");
+			throw new BulkIndexException(bulkResponse, documents);
 		  }
-		  if (hasFailed) throw new BulkIndexException(bulkResponse, documents);
 		} catch (IOException e) {
 		  throw new DaoException("Failed to execute a bulk index: " + e.getMessage());
 		}
 	}
 
+	/**
+	 * Indexes the specified documents as-is. The documents are passed on to
+	 * Elasticsearch without being deserialized or serialized again, so they
+	 * must already be in the format produced by this document type's object
+	 * mapper, minus the {@code id} field. Contrary to the other methods, this
+	 * method does not log the documents that failed to be indexed; it is up to
+	 * the caller to decide which of them to log and which to send again.
+	 *
+	 * @see RawJsonDocument
+	 *
+	 * @param documents
+	 * @throws BulkIndexException
+	 */
+	public void indexRaw(List<RawJsonDocument> documents) throws BulkIndexException
+	{
+		if (documents.size() == 0) {
+			return;
+		}
+		RestHighLevelClient client = ESClientManager.getInstance().getClient();
+		String index = dt.getIndexInfo().getName();
+		BulkRequest bulkRequest = new BulkRequest();
+		bulkRequest.timeout(TimeValue.ZERO);
+		for (RawJsonDocument doc : documents) {
+			IndexRequest indexRequest = new IndexRequest(index);
+			if (doc.getId() != null) {
+				indexRequest.id(doc.getId());
+			}
+			indexRequest.source(doc.getSource(), XContentType.JSON);
+			bulkRequest.add(indexRequest);
+		}
+		try {
+			BulkResponse bulkResponse = client.bulk(bulkRequest, RequestOptions.DEFAULT);
+			if (bulkResponse.hasFailures()) {
+				throw new BulkIndexException(bulkResponse, documents);
+			}
+		}
+		catch (IOException e) {
+			throw new DaoException("Failed to execute a bulk index: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Applies the specified partial documents to the documents with the
+	 * specified IDs, using bulk update requests. Fields not present in a
+	 * partial document are left alone by Elasticsearch. Note that array fields
+	 * present in a partial document replace the existing array as a whole. The
+	 * partial documents are typically maps from field name to field value.
+	 *
+	 * @param ids
+	 * @param partialDocuments
+	 * @throws BulkIndexException
+	 */
+	public void update(List<String> ids, List<?> partialDocuments) throws BulkIndexException
+	{
+		if (partialDocuments.size() == 0) {
+			return;
+		}
+		RestHighLevelClient client = ESClientManager.getInstance().getClient();
+		String index = dt.getIndexInfo().getName();
+		ObjectMapper om = dt.getObjectMapper();
+		BulkRequest bulkRequest = new BulkRequest();
+		bulkRequest.timeout(TimeValue.ZERO);
+		for (int i = 0; i < partialDocuments.size(); ++i) {
+			UpdateRequest updateRequest = new UpdateRequest(index, ids.get(i));
+			try {
+				updateRequest.doc(om.writeValueAsBytes(partialDocuments.get(i)), XContentType.JSON);
+			}
+			catch (JsonProcessingException e) {
+				throw new DaoException(e);
+			}
+			bulkRequest.add(updateRequest);
+		}
+		try {
+			BulkResponse bulkResponse = client.bulk(bulkRequest, RequestOptions.DEFAULT);
+			if (bulkResponse.hasFailures()) {
+				logFailures(bulkResponse, "update");
+				throw new BulkIndexException(bulkResponse, partialDocuments);
+			}
+		}
+		catch (IOException e) {
+			throw new DaoException("Failed to execute a bulk update: " + e.getMessage());
+		}
+	}
+
+	private static void logFailures(BulkResponse bulkResponse, String action)
+	{
+		logger.warn("There were errors while executing the BulkRequest");
+		for (BulkItemResponse bulkItemResponse : bulkResponse) {
+			if (bulkItemResponse.isFailed()) {
+				BulkItemResponse.Failure failure = bulkItemResponse.getFailure();
+				logger.error("Failed to {} document {}: {}", action, failure.getId(),
+						failure.getMessage());
+			}
+		}
+	}
+
 }
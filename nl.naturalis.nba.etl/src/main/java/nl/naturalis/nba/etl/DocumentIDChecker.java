@@ -67,6 +67,7 @@ public class DocumentIDChecker {
 		qs.setSize(batchSize);
 		qs.setFields(new ArrayList<Path>());
 		DirtyDocumentIterator<?> iterator = new DirtyDocumentIterator<>(dt, qs);
+		iterator.setPrefetchDepth(1);
 		
 		logger.info("-----------------------------");
 		logger.info("Processing {} documents", documentType);
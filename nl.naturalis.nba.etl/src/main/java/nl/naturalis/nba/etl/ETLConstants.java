@@ -18,6 +18,39 @@ public interface ETLConstants {
 	 */
 	String SYSPROP_LOADER_QUEUE_SIZE = "nl.naturalis.nba.etl.queueSize";
 
+	/**
+	 * Optional system property that can be used to set the maximum size (in
+	 * megabytes) of Elasticsearch bulk index requests sent by the
+	 * {@link BulkIndexPipeline}. Default: 5.
+	 */
+	String SYSPROP_BULK_SIZE = "nl.naturalis.nba.etl.bulkSize";
+
+	/**
+	 * Optional system property that can be used to set the maximum number of
+	 * Elasticsearch bulk index requests that the {@link BulkIndexPipeline} may
+	 * have in flight at any time. Default: 2.
+	 */
+	String SYSPROP_BULK_CONCURRENCY = "nl.naturalis.nba.etl.bulkConcurrency";
+
+	/**
+	 * Optional system property that can be used to set the number of threads
+	 * transforming records in an {@link ETLPipeline}. Default: 1.
+	 */
+	String SYSPROP_TRANSFORMER_THREADS = "nl.naturalis.nba.etl.transformerThreads";
+
+	/**
+	 * Optional system property that can be used to set the number of NSR
+	 * source files processed concurrently. Default: 1.
+	 */
+	String SYSPROP_NSR_THREADS = "nl.naturalis.nba.etl.nsr.threads";
+
+	/**
+	 * Optional system property that can be used to set the amount of memory
+	 * (in MB) used to sort the CoL source files before they are merge-joined.
+	 * Larger files are sorted using temporary files. Default: 256.
+	 */
+	String SYSPROP_COL_SORT_BUFFER_SIZE = "nl.naturalis.nba.etl.col.sortBufferSize";
+
 	/**
 	 * Optional system property that causes the ETL programs to suppress ERROR
 	 * and WARN messages while still letting through INFO messages. This can
@@ -91,6 +124,27 @@ public interface ETLConstants {
 	 */
 	String SYS_PROP_ENRICH_SCROLL_TIMEOUT = "nl.naturalis.nba.etl.enrich.scrollTimeout";
 
+	/**
+	 * &34;nl.naturalis.nba.etl.enrich.lookupCacheSize&34;. The maximum number of
+	 * scientific names whose taxonomic enrichments are kept in memory across
+	 * batches (default 50000).
+	 */
+	String SYS_PROP_ENRICH_LOOKUP_CACHE_SIZE = "nl.naturalis.nba.etl.enrich.lookupCacheSize";
+
+	/**
+	 * &34;nl.naturalis.nba.etl.json.raw&34;. Whether the JSON importer passes
+	 * the documents in the import files on to Elasticsearch as-is, or
+	 * deserializes and validates each of them first (default false).
+	 */
+	String SYSPROP_JSON_IMPORT_RAW = "nl.naturalis.nba.etl.json.raw";
+
+	/**
+	 * &34;nl.naturalis.nba.etl.json.validateEvery&34;. When importing raw JSON
+	 * documents, validate every n-th document against the document model
+	 * (default 1000). Specify 0 to validate none of them.
+	 */
+	String SYSPROP_JSON_IMPORT_VALIDATE_EVERY = "nl.naturalis.nba.etl.json.validateEvery";
+
 	/**
 	 * Naturalis Biodiversity Center
 	 */
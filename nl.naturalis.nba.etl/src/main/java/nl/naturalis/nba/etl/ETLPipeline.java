@@ -0,0 +1,445 @@
+package nl.naturalis.nba.etl;
+
+import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_TRANSFORMER_THREADS;
+import static nl.naturalis.nba.etl.ETLUtil.getLogger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.Logger;
+
+import nl.naturalis.nba.api.model.IDocumentObject;
+
+/**
+ * Runs the extraction, transformation and loading stages of an import
+ * program on separate threads. The thread calling {@link #run(Iterable)
+ * run} iterates over the extractor and feeds the records to one or more
+ * transformer threads. A single writer thread passes the transformed objects
+ * on to a {@link DocumentObjectWriter} (e.g. a {@link Loader} or a
+ * {@link JsonNDWriter}). By default the objects are written in the order of
+ * the records they were created from. Call {@link #setOrdered(boolean)
+ * setOrdered(false)} if the order does not matter.
+ *
+ * <p>
+ * At most {@link #setCapacity(int) capacity} records can be between the
+ * reader and the writer at any time. When that many records are in flight,
+ * the reader blocks until the writer has caught up. Thus memory usage is
+ * bounded, no matter which stage is the bottleneck.
+ *
+ * <p>
+ * {@link ETLStatistics} objects are not thread-safe. Each transformer thread
+ * therefore gets its own transformer with its own statistics object. Once all
+ * records have been processed, these statistics are added to the statistics
+ * object passed to the constructor. The extractor is only used by the thread
+ * calling {@code run} and the writer only by the writer thread, so they can
+ * keep sharing the importer's statistics object, as they did before. Any
+ * other state shared by the transformers (caches, normalizers) must be
+ * thread-safe if more than one transformer thread is used. The number of
+ * transformer threads is determined by system property
+ * {@code nl.naturalis.nba.etl.transformerThreads} (default 1).
+ *
+ * @author Ayco Holleman
+ *
+ * @param <INPUT>
+ * @param <OUTPUT>
+ */
+public class ETLPipeline<INPUT, OUTPUT extends IDocumentObject> {
+
+	private static final Logger logger = getLogger(ETLPipeline.class);
+
+	private static final Batch<?, ?> END = new Batch<>(-1, null);
+
+	private final Function<ETLStatistics, ? extends Transformer<INPUT, OUTPUT>> transformerFactory;
+	private final DocumentObjectWriter<OUTPUT> writer;
+	private final ETLStatistics stats;
+
+	private final AtomicLong recordsRead = new AtomicLong();
+	private final AtomicLong recordsTransformed = new AtomicLong();
+	private final AtomicLong recordsWritten = new AtomicLong();
+	private final AtomicLong objectsWritten = new AtomicLong();
+
+	private int numTransformers;
+	private int capacity = 1000;
+	private boolean ordered = true;
+	private int logInterval = 50000;
+
+	private volatile Throwable failure;
+
+	/**
+	 * Creates a pipeline that uses transformers created by the specified
+	 * factory and writes the transformed objects to the specified writer. The
+	 * factory is called once for each transformer thread, with a statistics
+	 * object private to that thread.
+	 *
+	 * @param transformerFactory
+	 * @param writer
+	 * @param stats
+	 */
+	public ETLPipeline(Function<ETLStatistics, ? extends Transformer<INPUT, OUTPUT>> transformerFactory,
+			DocumentObjectWriter<OUTPUT> writer, ETLStatistics stats)
+	{
+		this.transformerFactory = transformerFactory;
+		this.writer = writer;
+		this.stats = stats;
+		String val = System.getProperty(SYSPROP_TRANSFORMER_THREADS, "1");
+		this.numTransformers = Math.max(1, Integer.parseInt(val));
+	}
+
+	/**
+	 * Runs the pipeline for the records produced by the specified extractor
+	 * and returns once all records have been written. Exceptions thrown by the
+	 * extractor are passed on as-is, but only after the records read before
+	 * have been written. Exceptions thrown by a transformer or by the writer
+	 * stop the pipeline and are passed on wrapped in an
+	 * {@link ETLRuntimeException}. Either way, all threads started by the
+	 * pipeline have ended and their statistics have been added to the
+	 * pipeline's statistics object by the time this method returns or throws.
+	 * {@code null} records are ignored.
+	 *
+	 * @param extractor
+	 */
+	public void run(Iterable<INPUT> extractor)
+	{
+		long start = System.currentTimeMillis();
+		Semaphore inFlight = new Semaphore(capacity);
+		BlockingQueue<Batch<INPUT, OUTPUT>> inputQueue = new LinkedBlockingQueue<>();
+		BlockingQueue<Batch<INPUT, OUTPUT>> outputQueue = new LinkedBlockingQueue<>();
+		List<ETLStatistics> transformerStats = new ArrayList<>(numTransformers);
+		List<Thread> transformerThreads = new ArrayList<>(numTransformers);
+		for (int i = 0; i < numTransformers; i++) {
+			ETLStatistics myStats = new ETLStatistics();
+			myStats.setOneToMany(stats.isOneToMany());
+			Transformer<INPUT, OUTPUT> transformer = transformerFactory.apply(myStats);
+			transformerStats.add(myStats);
+			Runnable r = () -> transform(transformer, inputQueue, outputQueue);
+			transformerThreads.add(newThread(r, "etl-transformer-" + i));
+		}
+		Thread writerThread = newThread(() -> write(outputQueue, inFlight), "etl-writer");
+		transformerThreads.forEach(Thread::start);
+		writerThread.start();
+		try {
+			try {
+				long seqno = 0;
+				for (INPUT record : extractor) {
+					if (record == null) {
+						continue;
+					}
+					while (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+						checkFailure();
+					}
+					checkFailure();
+					inputQueue.add(new Batch<>(seqno++, record));
+					long read = recordsRead.incrementAndGet();
+					if (logInterval > 0 && read % logInterval == 0) {
+						logProgress();
+					}
+				}
+			}
+			finally {
+				/*
+				 * Also if the extractor or one of the other threads failed: let
+				 * the transformers and the writer finish what is in their queues,
+				 * so nothing is still writing when the caller closes the writer.
+				 */
+				for (int i = 0; i < numTransformers; i++) {
+					inputQueue.add(end());
+				}
+				for (Thread t : transformerThreads) {
+					t.join();
+				}
+				outputQueue.add(end());
+				writerThread.join();
+			}
+		}
+		catch (InterruptedException e) {
+			transformerThreads.forEach(Thread::interrupt);
+			writerThread.interrupt();
+			transformerThreads.forEach(ETLPipeline::joinUninterruptibly);
+			joinUninterruptibly(writerThread);
+			Thread.currentThread().interrupt();
+			throw new ETLRuntimeException(e);
+		}
+		finally {
+			transformerStats.forEach(stats::add);
+		}
+		checkFailure();
+		logThroughput(System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Returns the number of records read from the extractor.
+	 *
+	 * @return
+	 */
+	public long getRecordsRead()
+	{
+		return recordsRead.get();
+	}
+
+	/**
+	 * Returns the number of records transformed by the transformer threads.
+	 *
+	 * @return
+	 */
+	public long getRecordsTransformed()
+	{
+		return recordsTransformed.get();
+	}
+
+	/**
+	 * Returns the number of records whose objects have been passed on to the
+	 * writer.
+	 *
+	 * @return
+	 */
+	public long getRecordsWritten()
+	{
+		return recordsWritten.get();
+	}
+
+	/**
+	 * Returns the number of objects passed on to the writer.
+	 *
+	 * @return
+	 */
+	public long getObjectsWritten()
+	{
+		return objectsWritten.get();
+	}
+
+	/**
+	 * Returns the number of transformer threads. Default: the value of system
+	 * property {@code nl.naturalis.nba.etl.transformerThreads}, or 1 if not
+	 * set.
+	 *
+	 * @return
+	 */
+	public int getNumTransformers()
+	{
+		return numTransformers;
+	}
+
+	/**
+	 * Sets the number of transformer threads.
+	 *
+	 * @param numTransformers
+	 */
+	public void setNumTransformers(int numTransformers)
+	{
+		this.numTransformers = Math.max(1, numTransformers);
+	}
+
+	/**
+	 * Returns the maximum number of records that can be between the reader and
+	 * the writer at any time. Default 1000.
+	 *
+	 * @return
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Sets the maximum number of records that can be between the reader and
+	 * the writer at any time.
+	 *
+	 * @param capacity
+	 */
+	public void setCapacity(int capacity)
+	{
+		this.capacity = Math.max(1, capacity);
+	}
+
+	/**
+	 * Whether the objects are written in the order of the records they were
+	 * created from. Default {@code true}.
+	 *
+	 * @return
+	 */
+	public boolean isOrdered()
+	{
+		return ordered;
+	}
+
+	/**
+	 * Determines whether the objects are written in the order of the records
+	 * they were created from.
+	 *
+	 * @param ordered
+	 */
+	public void setOrdered(boolean ordered)
+	{
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Sets the number of records after which progress is logged. Specify 0 to
+	 * disable progress logging. Default 50000.
+	 *
+	 * @param logInterval
+	 */
+	public void setLogInterval(int logInterval)
+	{
+		this.logInterval = logInterval;
+	}
+
+	private void transform(Transformer<INPUT, OUTPUT> transformer,
+			BlockingQueue<Batch<INPUT, OUTPUT>> inputQueue,
+			BlockingQueue<Batch<INPUT, OUTPUT>> outputQueue)
+	{
+		try {
+			while (true) {
+				Batch<INPUT, OUTPUT> batch = inputQueue.take();
+				if (batch == END) {
+					break;
+				}
+				if (failure != null) {
+					// Just drain the queue
+					continue;
+				}
+				batch.output = transformer.transform(batch.input);
+				batch.input = null;
+				recordsTransformed.incrementAndGet();
+				outputQueue.add(batch);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (Throwable t) {
+			fail(t);
+		}
+	}
+
+	private void write(BlockingQueue<Batch<INPUT, OUTPUT>> outputQueue, Semaphore inFlight)
+	{
+		/*
+		 * Batches arriving ahead of their turn are parked here until the
+		 * batches preceding them have been written. Their number is bounded by
+		 * the capacity of the pipeline.
+		 */
+		HashMap<Long, Batch<INPUT, OUTPUT>> parked = new HashMap<>();
+		long next = 0;
+		try {
+			while (true) {
+				Batch<INPUT, OUTPUT> batch = outputQueue.take();
+				if (batch == END) {
+					break;
+				}
+				if (!ordered) {
+					write(batch, inFlight);
+					continue;
+				}
+				parked.put(batch.seqno, batch);
+				while ((batch = parked.remove(next)) != null) {
+					write(batch, inFlight);
+					++next;
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (Throwable t) {
+			fail(t);
+		}
+	}
+
+	private void write(Batch<INPUT, OUTPUT> batch, Semaphore inFlight)
+	{
+		writer.write(batch.output);
+		if (batch.output != null) {
+			objectsWritten.addAndGet(batch.output.size());
+		}
+		recordsWritten.incrementAndGet();
+		inFlight.release();
+	}
+
+	private void fail(Throwable t)
+	{
+		if (failure == null) {
+			failure = t;
+		}
+	}
+
+	private void checkFailure()
+	{
+		Throwable t = failure;
+		if (t != null) {
+			if (t instanceof ETLRuntimeException) {
+				throw (ETLRuntimeException) t;
+			}
+			throw new ETLRuntimeException(t);
+		}
+	}
+
+	private void logProgress()
+	{
+		logger.info("Records read: {}; transformed: {}; written: {}", recordsRead.get(),
+				recordsTransformed.get(), recordsWritten.get());
+	}
+
+	private void logThroughput(long millis)
+	{
+		double seconds = Math.max(millis, 1) / 1000D;
+		logger.info("Transformer threads: {}", numTransformers);
+		logger.info("Records read ......: {} ({} per second)", recordsRead.get(),
+				Math.round(recordsRead.get() / seconds));
+		logger.info("Records transformed: {} ({} per second)", recordsTransformed.get(),
+				Math.round(recordsTransformed.get() / seconds));
+		logger.info("Objects written ...: {} ({} per second)", objectsWritten.get(),
+				Math.round(objectsWritten.get() / seconds));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Batch<INPUT, OUTPUT> end()
+	{
+		return (Batch<INPUT, OUTPUT>) END;
+	}
+
+	private static void joinUninterruptibly(Thread t)
+	{
+		boolean interrupted = false;
+		while (true) {
+			try {
+				t.join();
+				break;
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Thread newThread(Runnable r, String name)
+	{
+		Thread t = new Thread(r, name);
+		t.setDaemon(true);
+		return t;
+	}
+
+	private static class Batch<I, O> {
+
+		final long seqno;
+		I input;
+		List<O> output;
+
+		Batch(long seqno, I input)
+		{
+			this.seqno = seqno;
+			this.input = input;
+		}
+	}
+
+}
@@ -91,8 +91,11 @@ public final class ETLUtil {
 
   public static String getSpecimenPurl(String unitID) {
     try {
-      purlBuilder.setPath(purlSpecimenPath + unitID);
-      return purlBuilder.build().toString();
+      // The builder is shared by transformers running on different threads
+      synchronized (purlBuilder) {
+        purlBuilder.setPath(purlSpecimenPath + unitID);
+        return purlBuilder.build().toString();
+      }
     } catch (URISyntaxException e) {
       throw new ETLRuntimeException(e);
     }
@@ -0,0 +1,175 @@
+package nl.naturalis.nba.etl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * An index on the elements of an XML record, built in a single pass over the
+ * record. It provides the same lookups as {@link nl.naturalis.nba.utils.xml.DOMUtil
+ * DOMUtil}'s {@code getDescendant*} methods, but without walking the subtree
+ * of the ancestor element again for each lookup. For every tag name, the index
+ * keeps the elements with that tag name in document order. The descendants of
+ * an element are the elements whose position in document order falls within
+ * the range of positions spanned by that element, so they can be found using
+ * a binary search.
+ *
+ * <p>
+ * The index reflects the state of the record at the moment the index was
+ * created. The CRS transformers only read the records, so that is fine.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class ElementIndex {
+
+	private final Map<String, TagEntry> tags = new HashMap<>(128);
+	private final IdentityHashMap<Element, int[]> ranges = new IdentityHashMap<>(256);
+	private int counter;
+
+	/**
+	 * Creates an index on the specified element and all elements descending
+	 * from it.
+	 *
+	 * @param root
+	 */
+	public ElementIndex(Element root)
+	{
+		add(root);
+	}
+
+	/**
+	 * Whether or not the specified element is part of this index.
+	 *
+	 * @param e
+	 * @return
+	 */
+	public boolean contains(Element e)
+	{
+		return ranges.containsKey(e);
+	}
+
+	/**
+	 * Returns the first element descending from {@code ancestor} that has the
+	 * specified tag name, or {@code null} if there is no such element.
+	 *
+	 * @param ancestor
+	 * @param tagName
+	 * @return
+	 */
+	public Element getDescendant(Element ancestor, String tagName)
+	{
+		TagEntry entry = tags.get(tagName);
+		if (entry == null) {
+			return null;
+		}
+		int[] range = getRange(ancestor);
+		int i = entry.firstAfter(range[0]);
+		if (i == entry.size || entry.positions[i] > range[1]) {
+			return null;
+		}
+		return entry.elements.get(i);
+	}
+
+	/**
+	 * Returns all elements descending from {@code ancestor} that have the
+	 * specified tag name, or {@code null} if there are no such elements.
+	 *
+	 * @param ancestor
+	 * @param tagName
+	 * @return
+	 */
+	public List<Element> getDescendants(Element ancestor, String tagName)
+	{
+		TagEntry entry = tags.get(tagName);
+		if (entry == null) {
+			return null;
+		}
+		int[] range = getRange(ancestor);
+		int from = entry.firstAfter(range[0]);
+		int to = from;
+		while (to < entry.size && entry.positions[to] <= range[1]) {
+			++to;
+		}
+		if (from == to) {
+			return null;
+		}
+		return new ArrayList<>(entry.elements.subList(from, to));
+	}
+
+	/**
+	 * Returns the text content of the first element descending from
+	 * {@code ancestor} that has the specified tag name, or {@code null} if
+	 * there is no such element.
+	 *
+	 * @param ancestor
+	 * @param tagName
+	 * @return
+	 */
+	public String getDescendantValue(Element ancestor, String tagName)
+	{
+		Element e = getDescendant(ancestor, tagName);
+		return e == null ? null : e.getTextContent();
+	}
+
+	private int[] getRange(Element e)
+	{
+		int[] range = ranges.get(e);
+		if (range == null) {
+			throw new IllegalArgumentException("Element not in index: " + e.getTagName());
+		}
+		return range;
+	}
+
+	private void add(Element e)
+	{
+		int[] range = new int[2];
+		range[0] = counter++;
+		ranges.put(e, range);
+		TagEntry entry = tags.get(e.getTagName());
+		if (entry == null) {
+			entry = new TagEntry();
+			tags.put(e.getTagName(), entry);
+		}
+		entry.add(e, range[0]);
+		for (Node n = e.getFirstChild(); n != null; n = n.getNextSibling()) {
+			if (n.getNodeType() == Node.ELEMENT_NODE) {
+				add((Element) n);
+			}
+		}
+		range[1] = counter - 1;
+	}
+
+	private static class TagEntry {
+
+		final List<Element> elements = new ArrayList<>(2);
+		int[] positions = new int[2];
+		int size;
+
+		void add(Element e, int position)
+		{
+			if (size == positions.length) {
+				positions = Arrays.copyOf(positions, size * 2);
+			}
+			positions[size++] = position;
+			elements.add(e);
+		}
+
+		/*
+		 * Returns the index of the first element whose position is greater
+		 * than the specified position.
+		 */
+		int firstAfter(int position)
+		{
+			int i = Arrays.binarySearch(positions, 0, size, position + 1);
+			return i < 0 ? -i - 1 : i;
+		}
+	}
+
+}
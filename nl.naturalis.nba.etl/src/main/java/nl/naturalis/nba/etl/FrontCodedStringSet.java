@@ -0,0 +1,357 @@
+package nl.naturalis.nba.etl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * An immutable set of strings, stored as one front-coded byte array. The
+ * strings are UTF-8 encoded and distributed over buckets by their hash code,
+ * with 8 strings per bucket on average. Within a bucket the strings are sorted
+ * byte-wise. The first string of a bucket is stored in full; each following
+ * string is stored as the length of the prefix it shares with its predecessor,
+ * plus the remaining bytes. The set takes only a fraction of the memory a
+ * {@code TreeSet} or {@code HashSet} would take, and its memory use is fully
+ * determined by the strings in it.
+ *
+ * <p>
+ * A lookup computes the bucket of the string and scans the bucket, which lies
+ * in one or two cache lines. Thus a lookup takes a few memory accesses,
+ * whatever the size of the set. (Front-coding all strings in one sorted array
+ * takes less than half the memory, but a binary search over millions of
+ * strings spends most of its time waiting for cache misses.) ASCII strings
+ * (like media library ids) are hashed and compared with the stored bytes
+ * character by character, so looking them up does not allocate any objects.
+ * Instances are safe for use by multiple threads.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public final class FrontCodedStringSet {
+
+    private static final int BUCKET_SIZE = 8;
+
+    private final byte[] data;
+    /*
+     * Bucket i starts at buckets[i] and ends at buckets[i + 1].
+     */
+    private final int[] buckets;
+    private final int size;
+
+    private FrontCodedStringSet(byte[] data, int[] buckets, int size) {
+        this.data = data;
+        this.buckets = buckets;
+        this.size = size;
+    }
+
+    /**
+     * Creates a set containing the lines read from the specified (UTF-8
+     * encoded) input stream. Empty lines are ignored, as are trailing carriage
+     * returns. The input need not be sorted and may contain duplicates. The
+     * input stream is not closed.
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static FrontCodedStringSet build(InputStream in) throws IOException {
+        Lines lines = new Lines();
+        byte[] buf = new byte[64 * 1024];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            for (int i = 0; i < n; i++) {
+                lines.add(buf[i]);
+            }
+        }
+        lines.endLine();
+        return lines.toSet();
+    }
+
+    /**
+     * Creates a set containing the specified strings.
+     *
+     * @param strings
+     * @return
+     */
+    public static FrontCodedStringSet of(String... strings) {
+        Lines lines = new Lines();
+        for (String s : strings) {
+            for (byte b : s.getBytes(UTF_8)) {
+                lines.add(b);
+            }
+            lines.endLine();
+        }
+        return lines.toSet();
+    }
+
+    /**
+     * Whether or not the set contains the specified string.
+     *
+     * @param s
+     * @return
+     */
+    public boolean contains(String s) {
+        if (s == null || size == 0) {
+            return false;
+        }
+        byte[] key;
+        int hash;
+        if (isAscii(s)) {
+            // For ASCII strings String.hashCode equals the hash of the bytes
+            key = null;
+            hash = s.hashCode();
+        } else {
+            key = s.getBytes(UTF_8);
+            hash = hash(key, 0, key.length);
+        }
+        int keyLength = key == null ? s.length() : key.length;
+        int bucket = bucket(hash, buckets.length - 1);
+        return scanBucket(buckets[bucket], buckets[bucket + 1], s, key, keyLength);
+    }
+
+    /**
+     * Returns the number of strings in the set.
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the (approximate) number of bytes of heap space taken by the set.
+     *
+     * @return
+     */
+    public long getMemoryUsage() {
+        return data.length + 4L * buckets.length + 64;
+    }
+
+    /*
+     * Scans the bucket for the key. Keeps track of the length (m) of the prefix
+     * shared by the key and the previous string, so the strings need not be
+     * reconstructed.
+     */
+    private boolean scanBucket(int pos, int end, String s, byte[] key, int keyLength) {
+        int m = 0;
+        while (pos < end) {
+            int prefix = readVarInt(pos);
+            pos += varIntSize(prefix);
+            int suffix = readVarInt(pos);
+            pos += varIntSize(suffix);
+            if (prefix < m) {
+                // Greater than the previous string where that one equals the key
+                return false;
+            }
+            if (prefix == m) {
+                int i = 0;
+                while (i < suffix && m + i < keyLength && data[pos + i] == keyByte(s, key, m + i)) {
+                    ++i;
+                }
+                if (i == suffix && m + i == keyLength) {
+                    return true;
+                }
+                if (i < suffix && (m + i == keyLength || (data[pos + i] & 0xff) > (keyByte(s, key, m + i) & 0xff))) {
+                    // Past the key
+                    return false;
+                }
+                m += i;
+            }
+            // If prefix > m, this string is still less than the key
+            pos += suffix;
+        }
+        return false;
+    }
+
+    /*
+     * Returns the i-th byte of the UTF-8 encoded key. If the key is ASCII, it
+     * has not been encoded (key is null), and its bytes are its characters.
+     */
+    private static byte keyByte(String s, byte[] key, int i) {
+        return key == null ? (byte) s.charAt(i) : key[i];
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Same as String.hashCode for ASCII strings.
+     */
+    private static int hash(byte[] bytes, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + (bytes[i] & 0xff);
+        }
+        return h;
+    }
+
+    /*
+     * Spreads the bits of the hash code (String.hashCode does not do that very
+     * well for strings that only differ at the end) and maps it onto the
+     * buckets without a division.
+     */
+    private static int bucket(int hash, int numBuckets) {
+        int h = hash;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return (int) (((h & 0xffffffffL) * numBuckets) >>> 32);
+    }
+
+    private int readVarInt(int pos) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static int varIntSize(int value) {
+        int n = 1;
+        while ((value >>>= 7) != 0) {
+            ++n;
+        }
+        return n;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /*
+     * Collects the bytes of the strings while building the set.
+     */
+    private static final class Lines {
+
+        byte[] bytes = new byte[64 * 1024];
+        int[] offsets = new int[1025];
+        int count;
+        int length;
+
+        void add(byte b) {
+            if (b == '\n') {
+                endLine();
+                return;
+            }
+            if (length == bytes.length) {
+                if (bytes.length > Integer.MAX_VALUE / 2) {
+                    throw new ETLRuntimeException("Too much data for a FrontCodedStringSet");
+                }
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = b;
+        }
+
+        void endLine() {
+            int start = offsets[count];
+            if (length > start && bytes[length - 1] == '\r') {
+                --length;
+            }
+            if (length == start) {
+                return;
+            }
+            if (count + 1 == offsets.length - 1) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[++count] = length;
+        }
+
+        FrontCodedStringSet toSet() {
+            int numBuckets = Math.max(1, count / BUCKET_SIZE);
+            // Sort the strings by bucket (counting sort) ...
+            int[] bucketOf = new int[count];
+            int[] starts = new int[numBuckets + 1];
+            for (int i = 0; i < count; i++) {
+                bucketOf[i] = bucket(hash(bytes, offsets[i], offsets[i + 1]), numBuckets);
+                ++starts[bucketOf[i] + 1];
+            }
+            for (int b = 0; b < numBuckets; b++) {
+                starts[b + 1] += starts[b];
+            }
+            int[] order = new int[count];
+            int[] next = Arrays.copyOf(starts, numBuckets);
+            for (int i = 0; i < count; i++) {
+                order[next[bucketOf[i]]++] = i;
+            }
+            // ... and then within each bucket
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 16);
+            int[] buckets = new int[numBuckets + 1];
+            int size = 0;
+            for (int b = 0; b < numBuckets; b++) {
+                buckets[b] = out.size();
+                insertionSort(order, starts[b], starts[b + 1]);
+                int prev = -1;
+                for (int j = starts[b]; j < starts[b + 1]; j++) {
+                    int i = order[j];
+                    if (prev != -1 && compare(prev, i) == 0) {
+                        continue;
+                    }
+                    int prefix = prev == -1 ? 0 : commonPrefix(prev, i);
+                    writeVarInt(out, prefix);
+                    writeVarInt(out, length(i) - prefix);
+                    out.write(bytes, offsets[i] + prefix, length(i) - prefix);
+                    prev = i;
+                    ++size;
+                }
+            }
+            buckets[numBuckets] = out.size();
+            return new FrontCodedStringSet(out.toByteArray(), buckets, size);
+        }
+
+        private int length(int i) {
+            return offsets[i + 1] - offsets[i];
+        }
+
+        private int commonPrefix(int i, int j) {
+            int n = Math.min(length(i), length(j));
+            int k = 0;
+            while (k < n && bytes[offsets[i] + k] == bytes[offsets[j] + k]) {
+                ++k;
+            }
+            return k;
+        }
+
+        private int compare(int i, int j) {
+            int k = commonPrefix(i, j);
+            if (k < length(i) && k < length(j)) {
+                return (bytes[offsets[i] + k] & 0xff) - (bytes[offsets[j] + k] & 0xff);
+            }
+            return length(i) - length(j);
+        }
+
+        /*
+         * The buckets are small, so insertion sort will do.
+         */
+        private void insertionSort(int[] order, int from, int to) {
+            for (int i = from + 1; i < to; i++) {
+                int x = order[i];
+                int j = i - 1;
+                while (j >= from && compare(order[j], x) > 0) {
+                    order[j + 1] = order[j];
+                    --j;
+                }
+                order[j + 1] = x;
+            }
+        }
+    }
+
+}
@@ -3,14 +3,19 @@ package nl.naturalis.nba.etl;
 import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_DRY_RUN;
 import static nl.naturalis.nba.etl.ETLUtil.getLogger;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.LineNumberReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import nl.naturalis.nba.dao.util.es.ESUtil;
 import org.apache.logging.log4j.Logger;
@@ -22,6 +27,9 @@ import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.rest.RestStatus;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.common.json.JsonUtil;
 import nl.naturalis.nba.dao.DaoRegistry;
@@ -37,19 +45,37 @@ import nl.naturalis.nba.common.json.JsonDeserializationException;
  * The JsonImporter class adds new documents from a file (or files) 
  * to the Document Store. The document in the file(s) have to be in 
  * the correct Json format of the given DocumentType.
+ * 
+ * Set system property {@link ETLConstants#SYSPROP_JSON_IMPORT_RAW} to
+ * true to pass the documents on to Elasticsearch as-is (see
+ * {@link RawJsonDocument}), rather than deserializing and validating each
+ * of them. Only every n-th document is then validated against the document
+ * model. This makes re-importing the output of an ETL run a lot faster.
+ * Documents rejected by Elasticsearch because it is too busy (HTTP 429) or
+ * temporarily unavailable (HTTP 503) are sent again, with exponential backoff.
+ * Documents rejected for any other reason are logged and skipped.
  */
 public class JsonImporter {
 
   private boolean dryRun = ConfigObject.isEnabled(SYSPROP_DRY_RUN);
   private DocumentType<? extends IDocumentObject> docType;
   private final int esBulkRequestSize;
+  private final boolean raw;
+  private final int validateEvery;
   private static final Logger logger = getLogger(JsonImporter.class);
 
+  private static final long INITIAL_BACKOFF = 1000;
+  private static final long MAX_BACKOFF = 60 * 1000;
+  private static final int MAX_RETRIES = 60;
+
   JsonImporter(DocumentType<? extends IDocumentObject> docType) {
     this.docType = docType;
     String key = ETLConstants.SYSPROP_LOADER_QUEUE_SIZE;
     String val = System.getProperty(key, "1000");
     esBulkRequestSize = Integer.parseInt(val);
+    raw = ConfigObject.isEnabled(ETLConstants.SYSPROP_JSON_IMPORT_RAW);
+    val = System.getProperty(ETLConstants.SYSPROP_JSON_IMPORT_VALIDATE_EVERY, "1000");
+    validateEvery = Integer.parseInt(val);
   }
   
   public static void main(String[] args) {
@@ -83,12 +109,15 @@ public class JsonImporter {
   }
   
   private <T extends IDocumentObject> void importJsonFile(File file, DocumentType<T> docType) throws IOException, BulkIndexException {
+    if (raw) {
+      importRawJsonFile(file, docType);
+      return;
+    }
     BulkIndexer<T> indexer = new BulkIndexer<>(docType);
     Collection<T> batch = new ArrayList<>(esBulkRequestSize);
     LineNumberReader lnr = null;
     int processed = 0;
     int skipped = 0;
-    String msg = "";
     
     try {
       FileReader fr = new FileReader(file);
@@ -103,34 +132,17 @@ public class JsonImporter {
           processed++;
         } catch (RuntimeException e) {
           skipped++;
-          if (e instanceof JsonDeserializationException) {
-            logger.error("The document at line {} is of invalid format. This document has been skipped!", lineNumber);
-          } else {
-            logger.error("An error occurred while processing the document at line {}. This document has been skipped!", lineNumber);
-          }
-          logger.error("Reason: \n" + e.getMessage());
+          logSkipped(lineNumber, e);
         }
         if (batch.size() == esBulkRequestSize) {
           if (!dryRun) {
-            int n = 1;
-            boolean indexed = false;
-            while (!indexed) {
-              try {
-                indexer.index(batch);
-                logger.info(docType.getName() + " documents imported: {}", processed);
-                ESUtil.clearCache(null);
-                indexed = true;
-              } catch (ElasticsearchStatusException e) {
-                try {
-                  Thread.sleep(60000); // wait a minute
-                  logger.warn("Elasticsearch is too busy. Retrying for attempt #{}", ++n);
-                } catch (InterruptedException ignored) {}
-                if (n == 60) {
-                  logger.error("Elasticsearch failure: failed to execute an update of a batch set after retrying for a over one hour");
-                  throw new RuntimeException("Bulk update failed: {}", e.getCause());
-                }
-              }
-            }
+            int n = processed;
+            indexWithRetry(() -> {
+              indexer.index(batch);
+              logger.info(docType.getName() + " documents imported: {}", n);
+              ESUtil.clearCache(null);
+              return 0;
+            });
           }
           batch.clear();
         }
@@ -140,16 +152,157 @@ public class JsonImporter {
       }
     } finally {
       IOUtil.close(lnr);
-      logger.info(docType.getName() + " documents skipped: {}", skipped);
-      logger.info(docType.getName() + " documents imported: {}", processed);
-      if (skipped > 0) {
-        msg = (skipped == 1) ? " document was skipped!" : " documents were skipped!";
-        System.out.println("WARNING: the file has been processed but with errors! " + skipped + msg);
+      logSummary(processed, skipped);
+    }
+  }
+
+  /*
+   * Imports the documents in the specified file without deserializing them.
+   * Each line is passed on to Elasticsearch as-is, minus the id field, which
+   * is located using a streaming token scan. Every n-th document is
+   * deserialized anyway, as a sanity check on the contents of the file.
+   */
+  private <T extends IDocumentObject> void importRawJsonFile(File file, DocumentType<T> docType) throws IOException, BulkIndexException {
+    BulkIndexer<T> indexer = new BulkIndexer<>(docType);
+    JsonFactory factory = docType.getObjectMapper().getFactory();
+    List<RawJsonDocument> batch = new ArrayList<>(esBulkRequestSize);
+    LineReader reader = null;
+    int processed = 0;
+    int skipped = 0;
+
+    try {
+      reader = new LineReader(new FileInputStream(file));
+      byte[] line;
+      int lineNumber = 0;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.length == 0) {
+          continue;
+        }
+        try {
+          if (validateEvery != 0 && lineNumber % validateEvery == 0) {
+            JsonUtil.deserialize(new String(line, StandardCharsets.UTF_8), docType.getJavaType());
+          }
+          batch.add(RawJsonDocument.parse(factory, line));
+          processed++;
+        } catch (IOException | RuntimeException e) {
+          skipped++;
+          logSkipped(lineNumber, e);
+        }
+        if (batch.size() == esBulkRequestSize) {
+          if (!dryRun) {
+            int failed = indexRaw(indexer, batch);
+            processed -= failed;
+            skipped += failed;
+            logger.info(docType.getName() + " documents imported: {}", processed);
+          }
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty() && !dryRun) {
+        int failed = indexRaw(indexer, batch);
+        processed -= failed;
+        skipped += failed;
       }
-      msg = (processed == 1) ? " document was imported." : " documents were imported.";
-      System.out.println(processed + msg);
+    } finally {
+      IOUtil.close(reader);
+      logSummary(processed, skipped);
     }
   }
+
+  private static int indexRaw(BulkIndexer<?> indexer, List<RawJsonDocument> batch) throws BulkIndexException {
+    return indexWithRetry(() -> indexRaw(indexer::indexRaw, batch, INITIAL_BACKOFF));
+  }
+
+  /*
+   * Unlike the validated documents, the raw documents may well contain
+   * something Elasticsearch chokes on. Rather than abandoning the rest of the
+   * file, we log and skip these documents and return their number. Documents
+   * rejected because Elasticsearch is too busy are sent again, with
+   * exponential backoff, until they are either indexed or rejected for
+   * another reason.
+   */
+  static int indexRaw(RawIndexer indexer, List<RawJsonDocument> batch, long initialBackoff) {
+    List<RawJsonDocument> documents = batch;
+    int skipped = 0;
+    for (int attempt = 0;; attempt++) {
+      try {
+        indexer.index(documents);
+        return skipped;
+      } catch (BulkIndexException e) {
+        List<RawJsonDocument> retry = new ArrayList<>();
+        for (BulkIndexFailure failure : e.getFailures()) {
+          RawJsonDocument doc = (RawJsonDocument) failure.getObject();
+          if (isTransient(failure.getStatus())) {
+            retry.add(doc);
+          } else {
+            skipped++;
+            logger.error("Failed to index document {}: {}", doc.getId(), failure.getMessage());
+          }
+        }
+        if (retry.isEmpty()) {
+          return skipped;
+        }
+        if (attempt == MAX_RETRIES) {
+          String msg = "Elasticsearch still too busy to index " + retry.size() + " document(s) after " + MAX_RETRIES + " retries";
+          logger.error(msg);
+          throw new ETLRuntimeException(msg);
+        }
+        long delay = Math.min(MAX_BACKOFF, initialBackoff << Math.min(attempt, 20));
+        logger.warn("Elasticsearch is too busy to index {} document(s). Retrying in {} ms", retry.size(), delay);
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new ETLRuntimeException("Interrupted while waiting to index documents again");
+        }
+        documents = retry;
+      }
+    }
+  }
+
+  private static boolean isTransient(RestStatus status) {
+    return status == RestStatus.TOO_MANY_REQUESTS || status == RestStatus.SERVICE_UNAVAILABLE;
+  }
+
+  private static int indexWithRetry(BatchIndexer batchIndexer) throws BulkIndexException {
+    int n = 1;
+    while (true) {
+      try {
+        return batchIndexer.index();
+      } catch (ElasticsearchStatusException e) {
+        try {
+          Thread.sleep(60000); // wait a minute
+          logger.warn("Elasticsearch is too busy. Retrying for attempt #{}", ++n);
+        } catch (InterruptedException ignored) {}
+        if (n == 60) {
+          logger.error("Elasticsearch failure: failed to execute an update of a batch set after retrying for a over one hour");
+          throw new RuntimeException("Bulk update failed: {}", e.getCause());
+        }
+      }
+    }
+  }
+
+  private static void logSkipped(int lineNumber, Exception e) {
+    if (e instanceof JsonDeserializationException || e instanceof JsonProcessingException) {
+      logger.error("The document at line {} is of invalid format. This document has been skipped!", lineNumber);
+    } else {
+      logger.error("An error occurred while processing the document at line {}. This document has been skipped!", lineNumber);
+    }
+    logger.error("Reason: \n" + e.getMessage());
+  }
+
+  private void logSummary(int processed, int skipped) {
+    String msg;
+    logger.info(docType.getName() + " documents skipped: {}", skipped);
+    logger.info(docType.getName() + " documents imported: {}", processed);
+    if (skipped > 0) {
+      msg = (skipped == 1) ? " document was skipped!" : " documents were skipped!";
+      System.out.println("WARNING: the file has been processed but with errors! " + skipped + msg);
+    }
+    msg = (processed == 1) ? " document was imported." : " documents were imported.";
+    System.out.println(processed + msg);
+  }
   
   private void refresh() {
     
@@ -192,4 +345,83 @@ public class JsonImporter {
     return FileUtil.newFile(DaoRegistry.getInstance().getConfiguration().getDirectory("json.data.dir"), path);
   }
 
+  @FunctionalInterface
+  private interface BatchIndexer {
+    /*
+     * Returns the number of documents that were skipped.
+     */
+    int index() throws BulkIndexException;
+  }
+
+  @FunctionalInterface
+  interface RawIndexer {
+    void index(List<RawJsonDocument> documents) throws BulkIndexException;
+  }
+
+  /*
+   * Reads the lines of an NDJSON file as raw (UTF-8) bytes. Line terminators
+   * and a leading byte order mark are not included in the lines.
+   */
+  static class LineReader implements Closeable {
+
+    private final InputStream in;
+    private byte[] buf = new byte[1 << 16];
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean first = true;
+
+    LineReader(InputStream in) {
+      this.in = in;
+    }
+
+    byte[] readLine() throws IOException {
+      int start = pos;
+      while (true) {
+        for (int i = pos; i < limit; i++) {
+          if (buf[i] == '\n') {
+            pos = i + 1;
+            return line(start, i);
+          }
+        }
+        pos = limit;
+        if (eof) {
+          return start == limit ? null : line(start, limit);
+        }
+        if (start != 0) {
+          System.arraycopy(buf, start, buf, 0, limit - start);
+          limit -= start;
+          pos = limit;
+          start = 0;
+        } else if (limit == buf.length) {
+          buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n == -1) {
+          eof = true;
+        } else {
+          limit += n;
+        }
+      }
+    }
+
+    private byte[] line(int from, int to) {
+      if (to > from && buf[to - 1] == '\r') {
+        --to;
+      }
+      if (first) {
+        first = false;
+        if (to - from >= 3 && buf[from] == (byte) 0xEF && buf[from + 1] == (byte) 0xBB && buf[from + 2] == (byte) 0xBF) {
+          from += 3;
+        }
+      }
+      return Arrays.copyOfRange(buf, from, to);
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
 }
@@ -1,18 +1,12 @@
 package nl.naturalis.nba.etl;
 
 import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_DRY_RUN;
-import static nl.naturalis.nba.etl.ETLUtil.getLogger;
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 
-import nl.naturalis.nba.dao.util.es.ESUtil;
-import org.apache.logging.log4j.Logger;
 import nl.naturalis.nba.api.model.IDocumentObject;
 import nl.naturalis.nba.dao.DocumentType;
 import nl.naturalis.nba.utils.ConfigObject;
-import org.elasticsearch.ElasticsearchStatusException;
 
 /**
  * <p>
@@ -28,25 +22,23 @@ import org.elasticsearch.ElasticsearchStatusException;
  */
 public abstract class Loader<T extends IDocumentObject> implements DocumentObjectWriter<T> {
 
-	private static final Logger logger = getLogger(Loader.class);
-
-	private final BulkIndexer<T> indexer;
+	private final BulkIndexPipeline<T> pipeline;
 	private final ETLStatistics stats;
-	private final ArrayList<T> objs;
 
-	private int tresh;
-	private boolean suppressErrors;
 	private boolean dry = ConfigObject.isEnabled(SYSPROP_DRY_RUN);
 
 	private HashMap<String, T> idObjMap;
 
 	/**
-	 * Creates a loader for the specified document type. Indexing is triggered
-	 * every time the number of objects in the loader's internal queue exceeds a
-	 * certain treshold, specified by the {@code queueSize} argument. Specifying
-	 * 0 (zero) for {@code queueSize} effectively disables this trigger and you
-	 * <b>must</b> explicitly call {@link #flush()} yourself in order to avoid
-	 * an {@link OutOfMemoryError}.
+	 * Creates a loader for the specified document type. The loader hands the
+	 * objects written to it to a {@link BulkIndexPipeline}, which indexes them
+	 * asynchronously, so transformation and indexing overlap. A bulk request
+	 * is sent every time the objects in the current bulk request exceed a
+	 * certain size in bytes (see {@link BulkIndexPipeline}) or a certain
+	 * number, specified by the {@code queueSize} argument. Specifying 0 (zero)
+	 * for {@code queueSize} leaves it to the size in bytes. Call
+	 * {@link #flush()} to wait until all objects written so far have been
+	 * indexed.
 	 * 
 	 * @param dt - documentType
 	 * @param queueSize - queue size
@@ -54,16 +46,8 @@ public abstract class Loader<T extends IDocumentObject> implements DocumentObjec
 	 */
 	public Loader(DocumentType<T> dt, int queueSize, ETLStatistics stats)
 	{
-		this.indexer = new BulkIndexer<>(dt);
-		this.tresh = queueSize;
 		this.stats = stats;
-		/*
-		 * Make all lists slightly bigger than queueSize, because the
-		 * treshold-tipping call to queue() may actually fill them beyond the
-		 * treshold.
-		 */
-		int sz = queueSize == 0 ? 16 : queueSize + 256;
-		objs = new ArrayList<>(sz);
+		this.pipeline = dry ? null : new BulkIndexPipeline<>(dt, queueSize, stats);
 	}
 
 	/* (non-Javadoc)
@@ -75,16 +59,22 @@ public abstract class Loader<T extends IDocumentObject> implements DocumentObjec
 		if (objects == null || objects.size() == 0) {
 			return;
 		}
-		objs.addAll(objects);
-		if (tresh != 0 && tresh < objs.size()) {
-			flush();
+		if (dry) {
+			stats.documentsIndexed += objects.size();
+			return;
+		}
+		for (T obj : objects) {
+			if (idObjMap != null) {
+				idObjMap.put(obj.getId(), obj);
+			}
+			pipeline.add(obj);
 		}
 	}
 
 	
 	/**
-	 * Checks if the specified id belongs to a queued object and, if so, returns
-	 * the object. You must explicitly enable queue lookups by calling
+	 * Checks if the specified id belongs to an object written since the last
+	 * call to {@link #flush()} and, if so, returns the object. You must explicitly enable queue lookups by calling
 	 * {@link #enableQueueLookups(boolean) enableQueueLookups}, because they
 	 * require some extra internal administration.
 	 * 
@@ -103,7 +93,12 @@ public abstract class Loader<T extends IDocumentObject> implements DocumentObjec
 	@Override
 	public void close()
 	{
-		flush();
+		if (!dry) {
+			pipeline.close();
+		}
+		if (idObjMap != null) {
+			idObjMap.clear();
+		}
 	}
 
 	/* (non-Javadoc)
@@ -111,36 +106,11 @@ public abstract class Loader<T extends IDocumentObject> implements DocumentObjec
    */
 	@Override
   public void flush() {
-		if (!objs.isEmpty()) {
-			try {
-				if (!dry) {
-					boolean indexed = false;
-					int n = 1;
-					while (!indexed) {
-						try {
-							indexer.index(objs);
-							indexed = true;
-						} catch (ElasticsearchStatusException e) {
-							try {
-								Thread.sleep(60000); // wait a minute
-								logger.warn("Elasticsearch is too busy. Retrying for attempt #{}", ++n);
-							} catch (InterruptedException ignored) {}
-							if (n == 1000) {
-								logger.error("Elasticsearch failure: failed to execute an update of a batch set after retrying for over one hour");
-								throw new RuntimeException("Bulk update failed: {}", e.getCause());
-							}
-						}
-					}
-				}
-				stats.documentsIndexed += objs.size();
-				objs.clear();
-			} catch (BulkIndexException e) {
-				stats.documentsRejected += e.getFailureCount();
-				stats.documentsIndexed += e.getSuccessCount();
-				if (!suppressErrors) {
-					logger.warn(e.getMessage());
-				}
-			}
+		if (!dry) {
+			pipeline.flush();
+		}
+		if (idObjMap != null) {
+			idObjMap.clear();
 		}
 	}
 		
@@ -154,7 +124,9 @@ public abstract class Loader<T extends IDocumentObject> implements DocumentObjec
 	 */
 	public void suppressErrors(boolean suppressErrors)
 	{
-		this.suppressErrors = suppressErrors;
+		if (!dry) {
+			pipeline.suppressErrors(suppressErrors);
+		}
 	}
 
 	
@@ -166,7 +138,7 @@ public abstract class Loader<T extends IDocumentObject> implements DocumentObjec
 	public void enableQueueLookups(boolean enableQueueLookups)
 	{
 		if (enableQueueLookups) {
-			idObjMap = new HashMap<>(objs.size());
+			idObjMap = new HashMap<>();
 		}
 		else {
 			idObjMap = null;
@@ -21,8 +21,10 @@ import nl.naturalis.nba.utils.IOUtil;
 
 /**
  * Implementation of {@link MimeTypeCache} that uses a {@link TreeMap} as
- * backbone for the mime type cache. This is the default implementation used by
- * the import programs.
+ * backbone for the mime type cache. This used to be the default implementation
+ * used by the import programs (see {@link MappedMimeTypeCache}). To make them use
+ * a {@code MapMimeTypeCache}, specify {@code -Dmimetypecache.type=map} on the
+ * command line.
  * 
  * @author Ayco Holleman
  *
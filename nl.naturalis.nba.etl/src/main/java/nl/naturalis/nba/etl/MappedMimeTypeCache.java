@@ -0,0 +1,207 @@
+package nl.naturalis.nba.etl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.Logger;
+
+import nl.naturalis.nba.utils.IOUtil;
+
+/**
+ * Implementation of {@link MimeTypeCache} that looks up mime types in a
+ * memory-mapped {@link MimeTypeStore}. The store (mimetypes.bin) is built from
+ * the cache file (mimetypes.zip) the first time the cache is used, and again
+ * whenever the cache file changes. After that, initializing the cache is
+ * practically instantaneous and takes hardly any heap space, since the store is
+ * not loaded into memory. This is the default implementation used by the
+ * import programs.
+ *
+ * <p>
+ * The store is read-only. New entries are kept in memory and, when the cache
+ * is saved, appended to a log file (mimetypes.log) rather than written back to
+ * the cache file. The entries in the log file are loaded into memory when the
+ * cache is initialized, and take precedence over the entries in the store.
+ * They are never folded back into the cache file. Consequently, they are not
+ * seen by the other cache implementations ("map" and "array"), which only
+ * read the cache file. To make them available to those as well, append the
+ * log file to the (unzipped) cache file and zip it again. The store is then
+ * rebuilt automatically, and the log file can be removed.
+ *
+ * <p>
+ * Lookups may be done concurrently (e.g. by the transformer threads of an
+ * {@link ETLPipeline}). Entries are added and saved under the cache's lock.
+ *
+ * @author Ayco Holleman
+ *
+ */
+class MappedMimeTypeCache extends AbstractMimeTypeCache {
+
+	private static final Logger logger = ETLRegistry.getInstance()
+			.getLogger(MappedMimeTypeCache.class);
+
+	private static final String STORE_FILE_NAME = "mimetypes.bin";
+	static final String LOG_FILE_NAME = "mimetypes.log";
+
+	private MimeTypeStore store;
+	private File logFile;
+	private ConcurrentHashMap<String, String> logged;
+	private LinkedHashMap<String, String> added;
+
+	MappedMimeTypeCache(String cacheFileName)
+	{
+		super(cacheFileName);
+	}
+
+	MappedMimeTypeCache(File cacheFile)
+	{
+		super(cacheFile);
+	}
+
+	@Override
+	protected int buildCache(File cacheFile)
+	{
+		File storeFile = new File(cacheFile.getParentFile(), STORE_FILE_NAME);
+		logFile = new File(cacheFile.getParentFile(), LOG_FILE_NAME);
+		added = new LinkedHashMap<>();
+		try {
+			if (!MimeTypeStore.isUpToDate(storeFile, cacheFile)) {
+				logger.info("Building mime type store {} from {}", storeFile.getName(),
+						cacheFile.getName());
+				int size = MimeTypeStore.build(cacheFile, storeFile);
+				logger.info("Mime type store built. Number of entries: {}", size);
+			}
+			store = MimeTypeStore.open(storeFile);
+			logged = readLog(logFile);
+		}
+		catch (IOException e) {
+			throw new ETLRuntimeException(e);
+		}
+		return store.size() + logged.size();
+	}
+
+	@Override
+	protected String getEntry(String unitID)
+	{
+		if (!logged.isEmpty()) {
+			String mimeType = logged.get(unitID);
+			if (mimeType != null) {
+				return mimeType;
+			}
+		}
+		return store.get(unitID);
+	}
+
+	@Override
+	protected synchronized void addEntry(String unitID, String mimeType)
+	{
+		logged.put(unitID, mimeType);
+		added.put(unitID, mimeType);
+	}
+
+	/**
+	 * Appends the entries added since the cache was initialized (or last
+	 * saved) to the log file. The cache file itself is left alone.
+	 */
+	@Override
+	protected synchronized void saveCache(File cacheFile) throws IOException
+	{
+		if (added.isEmpty()) {
+			return;
+		}
+		logger.info("Appending {} new entries to {}", added.size(), logFile.getAbsolutePath());
+		OutputStream out = null;
+		try {
+			out = new BufferedOutputStream(new FileOutputStream(logFile, true));
+			for (Map.Entry<String, String> entry : added.entrySet()) {
+				out.write(entry.getKey().getBytes(UTF_8));
+				out.write(NEWLINE_BYTES);
+				out.write(entry.getValue().getBytes(UTF_8));
+				out.write(NEWLINE_BYTES);
+			}
+		}
+		finally {
+			IOUtil.close(out);
+		}
+		added.clear();
+	}
+
+	@Override
+	protected void closeCache() throws IOException
+	{
+		if (store != null) {
+			store.close();
+			store = null;
+		}
+		logged = null;
+		added = null;
+	}
+
+	/*
+	 * Reads the entries from the log file. An incomplete last entry (e.g.
+	 * because of a crash while saving) is ignored and cut off, so that the
+	 * entries appended next time do not get mixed up with it.
+	 */
+	static ConcurrentHashMap<String, String> readLog(File logFile) throws IOException
+	{
+		ConcurrentHashMap<String, String> entries = new ConcurrentHashMap<>();
+		if (!logFile.isFile()) {
+			return entries;
+		}
+		byte[] data = Files.readAllBytes(logFile.toPath());
+		int pos = 0;
+		while (true) {
+			int eol1 = indexOfNewline(data, pos);
+			if (eol1 == -1) {
+				break;
+			}
+			int eol2 = indexOfNewline(data, eol1 + 1);
+			if (eol2 == -1) {
+				break;
+			}
+			String unitID = readLine(data, pos, eol1);
+			String mimeType = readLine(data, eol1 + 1, eol2);
+			entries.put(unitID, mimeType.equals(JPEG) ? JPEG : mimeType.intern());
+			pos = eol2 + 1;
+		}
+		if (pos < data.length) {
+			logger.warn("Removing incomplete entry at end of {}", logFile.getName());
+			try (FileChannel fc = FileChannel.open(logFile.toPath(), WRITE)) {
+				fc.truncate(pos);
+			}
+		}
+		if (!entries.isEmpty()) {
+			logger.info("Entries loaded from {}: {}", logFile.getName(), entries.size());
+		}
+		return entries;
+	}
+
+	private static int indexOfNewline(byte[] data, int from)
+	{
+		for (int i = from; i < data.length; i++) {
+			if (data[i] == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static String readLine(byte[] data, int from, int to)
+	{
+		if (to > from && data[to - 1] == '\r') {
+			--to;
+		}
+		return new String(data, from, to - from, UTF_8);
+	}
+
+}
@@ -5,38 +5,33 @@ import nl.naturalis.nba.utils.FileUtil;
 import org.apache.logging.log4j.Logger;
 
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.InputStreamReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Set;
-import java.util.TreeSet;
 import java.util.zip.ZipInputStream;
 
 /**
- * MedialibIdsCache is an ArrayList containing all ids available in the medialibrary.
+ * MedialibIdsCache is a set containing all ids available in the medialibrary.
  * It can be used during the ETL process to check whether an image with a specific id
- * actually exists in the medialibrary.
+ * actually exists in the medialibrary. The ids are kept in a {@link FrontCodedStringSet},
+ * which takes a small, predictable amount of memory.
  *
  */
 public class MedialibIdsCache {
 
     private static final Logger logger = ETLRegistry.getInstance().getLogger(MedialibIdsCache.class);
     private static final String CACHE_FILE_NAME = "medialib_ids_cache.zip";
-    private static Set<String> ids;
+    private static FrontCodedStringSet ids;
     private static MedialibIdsCache instance;
 
     /**
-     * MedialibIdsCache provides an ArrayList containing all the ids available in
+     * MedialibIdsCache provides a set containing all the ids available in
      * the Naturalis Media Library. The {@link #contains(String)} method provides
      * a simple way to check whether a image with the specified id exists in the
      * media library.
      *
-     * NOTE: when the cache cannot be loaded, the {@link #contains(String)} method
-     * will always return true.
+     * NOTE: when the cache cannot be loaded, an {@link ETLRuntimeException} is
+     * thrown. The check is never silently disabled.
      */
     private MedialibIdsCache() {
         loadIds();
@@ -56,7 +51,9 @@ public class MedialibIdsCache {
      * @return true when the id is availalble in the cache; false otherwise
      */
     public static boolean contains(String id) {
-        if (ids == null) return true;
+        if (ids == null) {
+            throw new ETLRuntimeException("MedialibIdsCache not initialized");
+        }
         return ids.contains(id);
     }
 
@@ -68,30 +65,22 @@ public class MedialibIdsCache {
             throw new ETLRuntimeException(String.format(fmt, CACHE_FILE_NAME, dir.getAbsolutePath()));
         }
         logger.info("Initializing MedialibIdsCache");
+        long start = System.currentTimeMillis();
         try {
             ids = loadCacheFile(cacheFile);
-            if (ids != null) {
-                logger.info("Finished loading {} ids into cache", ids.size());
-            } else {
-                logger.info("Medialib ids cache is empty. Medialib ids will NOT be checked!");
-            }
+            logger.info("Finished loading {} ids into cache in {} ms ({} KB)", ids.size(),
+                System.currentTimeMillis() - start, ids.getMemoryUsage() / 1024);
         } catch (IOException e) {
-            logger.info("Unable to load medialib ids cache. Cache file ({}) was not available.", CACHE_FILE_NAME);
+            String msg = String.format("Unable to load medialib ids cache file %s: %s", cacheFile, e.getMessage());
+            logger.error(msg);
+            throw new ETLRuntimeException(msg, e);
         }
     }
 
-    private static Set<String> loadCacheFile(File cacheFile) throws IOException {
-        Set<String> ids = new TreeSet<>();
-        ZipInputStream zis = new ZipInputStream(new FileInputStream(cacheFile));
-        try (zis; BufferedReader br = new BufferedReader(new InputStreamReader(zis))) {
+    private static FrontCodedStringSet loadCacheFile(File cacheFile) throws IOException {
+        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(cacheFile))) {
             zis.getNextEntry();
-            while (br.ready()) {
-                ids.add(br.readLine());
-            }
-        } catch (OutOfMemoryError e) {
-            logger.error("Cache file is too large. Not using Medialib ids cache!");
-            return null;
+            return FrontCodedStringSet.build(zis);
         }
-        return ids;
     }
 }
@@ -1,13 +1,19 @@
 package nl.naturalis.nba.etl;
 
+import java.io.File;
+
 import org.apache.logging.log4j.Logger;
 
+import nl.naturalis.nba.dao.DaoRegistry;
+
 
 /**
  * Produces a {@link MimeTypeCache} instances based on the value of a system
- * property named "mimetypecache.type". If absent, or if it has value "map", a
- * {@link MapMimeTypeCache} is returned to the client, otherwise an
- * {@link ArrayMimeTypeCache}.
+ * property named "mimetypecache.type". If absent, or if it has value "mapped",
+ * a {@link MappedMimeTypeCache} is returned to the client. If it has value
+ * "map", a {@link MapMimeTypeCache} is returned, otherwise an
+ * {@link ArrayMimeTypeCache}. Note that only the {@link MappedMimeTypeCache}
+ * reads the entries logged to mimetypes.log.
  * 
  * @author Ayco Holleman
  *
@@ -37,17 +43,23 @@ public class MimeTypeCacheFactory {
 	private MimeTypeCacheFactory()
 	{
 		String propName = "mimetypecache.type";
-		String propVal = System.getProperty(propName, "map");
-		if (propVal.equalsIgnoreCase("array")) {
+		String propVal = System.getProperty(propName, "mapped");
+		if (propVal.equalsIgnoreCase("mapped")) {
+			logType(propName, propVal);
+			cache = new MappedMimeTypeCache(CACHE_FILE_NAME);
+		}
+		else if (propVal.equalsIgnoreCase("array")) {
 			logType(propName, propVal);
+			checkLogFile();
 			cache = new ArrayMimeTypeCache(CACHE_FILE_NAME);
 		}
 		else if (propVal.equalsIgnoreCase("map")) {
 			logType(propName, propVal);
+			checkLogFile();
 			cache = new MapMimeTypeCache(CACHE_FILE_NAME);
 		}
 		else {
-			String fmt = "Invalid value for mimetypecache.type: \"%s\". Valid cache types: \"map\" (default), \"array\"";
+			String fmt = "Invalid value for mimetypecache.type: \"%s\". Valid cache types: \"mapped\" (default), \"map\", \"array\"";
 			throw new RuntimeException(String.format(fmt, propVal));
 		}
 	}
@@ -62,11 +74,21 @@ public class MimeTypeCacheFactory {
 		return cache;
 	}
 
+	private static void checkLogFile()
+	{
+		File dir = DaoRegistry.getInstance().getConfiguration().getDirectory("medialib.data.dir");
+		File logFile = new File(dir, MappedMimeTypeCache.LOG_FILE_NAME);
+		if (logFile.isFile()) {
+			String fmt = "Entries in %s will be ignored by this type of cache";
+			logger.warn(String.format(fmt, logFile.getAbsolutePath()));
+		}
+	}
+
 	private static void logType(String propName, String propVal)
 	{
-		String s = propVal.equalsIgnoreCase("map") ? propVal + " (default)" : propVal;
+		String s = propVal.equalsIgnoreCase("mapped") ? propVal + " (default)" : propVal;
 		logger.info(String.format("Creating mime type cache. Type of cache: \"%s\"", s));
-		s = propVal.equalsIgnoreCase("map") ? "array" : "map";
+		s = propVal.equalsIgnoreCase("mapped") ? "map" : "mapped";
 		String fmt = "To change cache type, extend JAVA_OPTS in include.sh: -D%s=%s";
 		logger.info(String.format(fmt, propName, s));
 	}
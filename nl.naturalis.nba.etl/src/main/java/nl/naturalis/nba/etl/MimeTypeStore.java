@@ -0,0 +1,476 @@
+package nl.naturalis.nba.etl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static nl.naturalis.nba.etl.AbstractMimeTypeCache.JPEG;
+import static nl.naturalis.nba.etl.AbstractMimeTypeCache.READ_BUFFER_SIZE;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.ZipInputStream;
+
+import nl.naturalis.nba.utils.IOUtil;
+
+/**
+ * A read-only store of mime types keyed on UnitID, kept in a compact binary
+ * file that is memory-mapped rather than read into memory. Opening the store
+ * takes no parsing at all, and looking up a mime type does not allocate any
+ * objects. The binary file is built from the mime type cache file
+ * (mimetypes.zip) by {@link #build(File, File)}. It has the following layout
+ * (all numbers big-endian):
+ *
+ * <pre>
+ * int       magic number
+ * int       format version
+ * long      length of the zip file the store was built from
+ * long      last-modified time of the zip file the store was built from
+ * int       number of entries (n)
+ * int       number of distinct mime types (m)
+ * m times   mime type: unsigned short length, followed by the UTF-8 bytes
+ * n times   long: hash of the UnitID, in ascending order
+ * n times   unsigned short: index of the mime type
+ * n+1 times int: offset of the UnitID within the UnitID section
+ * ...       the UTF-8 bytes of the UnitIDs
+ * </pre>
+ *
+ * A lookup does a binary search on the hashes and then compares the UnitIDs of
+ * the entries with the same hash with the requested UnitID.
+ *
+ * @author Ayco Holleman
+ *
+ */
+class MimeTypeStore implements Closeable {
+
+	private static final int MAGIC = 0x4e42414d; // "NBAM"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buf;
+	private final int size;
+	private final String[] mimeTypes;
+	private final int hashesPos;
+	private final int mimeTypesPos;
+	private final int offsetsPos;
+	private final int keysPos;
+
+	/**
+	 * Opens the specified store file.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	static MimeTypeStore open(File file) throws IOException
+	{
+		return new MimeTypeStore(file);
+	}
+
+	private MimeTypeStore(File file) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		channel = raf.getChannel();
+		try {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new ETLRuntimeException("Mime type store too large: " + file);
+			}
+			buf = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+				throw new ETLRuntimeException("Not a mime type store: " + file);
+			}
+			size = buf.getInt(24);
+			mimeTypes = new String[buf.getInt(28)];
+			int pos = HEADER_SIZE;
+			for (int i = 0; i < mimeTypes.length; i++) {
+				byte[] bytes = new byte[buf.getShort(pos) & 0xffff];
+				pos += 2;
+				for (int j = 0; j < bytes.length; j++) {
+					bytes[j] = buf.get(pos++);
+				}
+				String mimeType = new String(bytes, UTF_8);
+				mimeTypes[i] = mimeType.equals(JPEG) ? JPEG : mimeType.intern();
+			}
+			hashesPos = pos;
+			mimeTypesPos = hashesPos + 8 * size;
+			offsetsPos = mimeTypesPos + 2 * size;
+			keysPos = offsetsPos + 4 * (size + 1);
+		}
+		catch (IOException | RuntimeException e) {
+			IOUtil.close(raf);
+			throw e;
+		}
+	}
+
+	/**
+	 * Whether or not the specified store file was built from the current
+	 * version of the specified zip file.
+	 *
+	 * @param file
+	 * @param zipFile
+	 * @return
+	 * @throws IOException
+	 */
+	static boolean isUpToDate(File file, File zipFile) throws IOException
+	{
+		if (!file.isFile() || file.length() < HEADER_SIZE) {
+			return false;
+		}
+		try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+			return dis.readInt() == MAGIC
+					&& dis.readInt() == VERSION
+					&& dis.readLong() == zipFile.length()
+					&& dis.readLong() == zipFile.lastModified();
+		}
+	}
+
+	/**
+	 * Builds a store file from the specified zip file. The zip file must
+	 * contain a single entry in which UnitIDs and mime types alternate line by
+	 * line (see {@link MapMimeTypeCache}). If a UnitID occurs more than once,
+	 * the last occurrence wins. Returns the number of entries in the store.
+	 *
+	 * @param zipFile
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	static int build(File zipFile, File file) throws IOException
+	{
+		Entries entries = new Entries();
+		HashMap<String, Integer> mimeTypeIndex = new HashMap<>();
+		List<String> mimeTypes = new ArrayList<>();
+		LineNumberReader lnr = null;
+		ZipInputStream zis = null;
+		try {
+			zis = new ZipInputStream(new FileInputStream(zipFile));
+			zis.getNextEntry();
+			lnr = new LineNumberReader(new InputStreamReader(zis, UTF_8), READ_BUFFER_SIZE);
+			String unitID;
+			String mimeType;
+			while ((unitID = lnr.readLine()) != null) {
+				mimeType = lnr.readLine();
+				if (mimeType == null) {
+					throw new ETLRuntimeException("Unexpected end of cache file");
+				}
+				Integer idx = mimeTypeIndex.get(mimeType);
+				if (idx == null) {
+					if (mimeTypes.size() == 0xffff) {
+						throw new ETLRuntimeException("Too many distinct mime types in cache file");
+					}
+					idx = mimeTypes.size();
+					mimeTypeIndex.put(mimeType, idx);
+					mimeTypes.add(mimeType);
+				}
+				entries.add(hash(unitID), unitID.getBytes(UTF_8), idx);
+			}
+		}
+		finally {
+			IOUtil.close(lnr, zis);
+		}
+		int[] order = entries.sort();
+		long totalSize = HEADER_SIZE + 14L * order.length + 4 + entries.keyOffsets[entries.size];
+		for (String mimeType : mimeTypes) {
+			totalSize += 2 + mimeType.getBytes(UTF_8).length;
+		}
+		if (totalSize > Integer.MAX_VALUE) {
+			// Must fit into a single memory-mapped buffer
+			throw new ETLRuntimeException("Mime type store too large");
+		}
+		File tmp = new File(file.getPath() + ".tmp");
+		try (DataOutputStream dos = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tmp), READ_BUFFER_SIZE))) {
+			dos.writeInt(MAGIC);
+			dos.writeInt(VERSION);
+			dos.writeLong(zipFile.length());
+			dos.writeLong(zipFile.lastModified());
+			dos.writeInt(order.length);
+			dos.writeInt(mimeTypes.size());
+			for (String mimeType : mimeTypes) {
+				byte[] bytes = mimeType.getBytes(UTF_8);
+				dos.writeShort(bytes.length);
+				dos.write(bytes);
+			}
+			for (int i : order) {
+				dos.writeLong(entries.hashes[i]);
+			}
+			for (int i : order) {
+				dos.writeShort(entries.mimeTypes[i]);
+			}
+			long offset = 0;
+			for (int i : order) {
+				dos.writeInt((int) offset);
+				offset += entries.keyLength(i);
+			}
+			dos.writeInt((int) offset);
+			for (int i : order) {
+				dos.write(entries.keys, entries.keyOffsets[i], entries.keyLength(i));
+			}
+		}
+		if (file.exists() && !file.delete()) {
+			throw new IOException("Failed to delete " + file.getAbsolutePath());
+		}
+		if (!tmp.renameTo(file)) {
+			throw new IOException("Failed to create " + file.getAbsolutePath());
+		}
+		return order.length;
+	}
+
+	/**
+	 * Returns the number of entries in the store.
+	 *
+	 * @return
+	 */
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the mime type for the specified UnitID, or {@code null} if the
+	 * store does not contain the UnitID.
+	 *
+	 * @param unitID
+	 * @return
+	 */
+	String get(String unitID)
+	{
+		long hash = hash(unitID);
+		int lo = 0;
+		int hi = size - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			long h = buf.getLong(hashesPos + 8 * mid);
+			if (h < hash) {
+				lo = mid + 1;
+			}
+			else if (h > hash) {
+				hi = mid - 1;
+			}
+			else {
+				// Rewind to the first entry with this hash and check them all
+				int i = mid;
+				while (i > 0 && buf.getLong(hashesPos + 8 * (i - 1)) == hash) {
+					--i;
+				}
+				for (; i < size && buf.getLong(hashesPos + 8 * i) == hash; i++) {
+					if (keyEquals(i, unitID)) {
+						return mimeTypes[buf.getShort(mimeTypesPos + 2 * i) & 0xffff];
+					}
+				}
+				return null;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		/*
+		 * The mapping itself stays valid until the buffer is garbage collected;
+		 * there is no supported way to unmap it explicitly.
+		 */
+		channel.close();
+	}
+
+	/*
+	 * Compares the UTF-8 encoded UnitID of the entry at the specified index
+	 * with the specified string, without encoding the string into a new byte
+	 * array.
+	 */
+	private boolean keyEquals(int index, String s)
+	{
+		int pos = keysPos + buf.getInt(offsetsPos + 4 * index);
+		int end = keysPos + buf.getInt(offsetsPos + 4 * (index + 1));
+		for (int i = 0; i < s.length(); i++) {
+			int cp = s.codePointAt(i);
+			if (Character.isSupplementaryCodePoint(cp)) {
+				++i;
+			}
+			if (cp < 0x80) {
+				if (pos == end || buf.get(pos++) != cp) {
+					return false;
+				}
+				continue;
+			}
+			int n = cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+			if (end - pos < n) {
+				return false;
+			}
+			int lead = n == 2 ? 0xc0 : n == 3 ? 0xe0 : 0xf0;
+			if ((buf.get(pos++) & 0xff) != (lead | (cp >> (6 * (n - 1))))) {
+				return false;
+			}
+			for (int j = n - 2; j >= 0; j--) {
+				if ((buf.get(pos++) & 0xff) != (0x80 | ((cp >> (6 * j)) & 0x3f))) {
+					return false;
+				}
+			}
+		}
+		return pos == end;
+	}
+
+	/*
+	 * 64-bit FNV-1a hash over the characters of the string.
+	 */
+	static long hash(String s)
+	{
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < s.length(); i++) {
+			h ^= s.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+	/*
+	 * The entries read from the zip file, kept in parallel primitive arrays
+	 * while building the store.
+	 */
+	private static class Entries {
+
+		long[] hashes = new long[1024];
+		short[] mimeTypes = new short[1024];
+		int[] keyOffsets = new int[1025];
+		byte[] keys = new byte[16 * 1024];
+		int size;
+
+		void add(long hash, byte[] key, int mimeType)
+		{
+			if (size == hashes.length) {
+				int newSize = hashes.length * 2;
+				hashes = Arrays.copyOf(hashes, newSize);
+				mimeTypes = Arrays.copyOf(mimeTypes, newSize);
+				keyOffsets = Arrays.copyOf(keyOffsets, newSize + 1);
+			}
+			int offset = keyOffsets[size];
+			if (offset + key.length > keys.length) {
+				long newSize = Math.max(2L * keys.length, (long) offset + key.length);
+				if (newSize > Integer.MAX_VALUE - 8) {
+					throw new ETLRuntimeException("Mime type store too large");
+				}
+				keys = Arrays.copyOf(keys, (int) newSize);
+			}
+			System.arraycopy(key, 0, keys, offset, key.length);
+			hashes[size] = hash;
+			mimeTypes[size] = (short) mimeType;
+			keyOffsets[++size] = offset + key.length;
+		}
+
+		int keyLength(int i)
+		{
+			return keyOffsets[i + 1] - keyOffsets[i];
+		}
+
+		/*
+		 * Returns the indices of the entries, ordered by hash, leaving out
+		 * all but the last occurrence of duplicate UnitIDs.
+		 */
+		int[] sort()
+		{
+			int[] order = new int[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+			quickSort(order, 0, size - 1);
+			int n = 0;
+			for (int i = 0; i < size; i++) {
+				if (!hasLaterDuplicate(order, i)) {
+					order[n++] = order[i];
+				}
+			}
+			return n == size ? order : Arrays.copyOf(order, n);
+		}
+
+		private boolean hasLaterDuplicate(int[] order, int i)
+		{
+			long hash = hashes[order[i]];
+			for (int j = i + 1; j < size && hashes[order[j]] == hash; j++) {
+				if (keyEquals(order[i], order[j])) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private boolean keyEquals(int i, int j)
+		{
+			int len = keyLength(i);
+			if (len != keyLength(j)) {
+				return false;
+			}
+			for (int k = 0; k < len; k++) {
+				if (keys[keyOffsets[i] + k] != keys[keyOffsets[j] + k]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/*
+		 * Sorts the indices on hash, and indices with the same hash on their
+		 * position in the zip file.
+		 */
+		private void quickSort(int[] order, int from, int to)
+		{
+			while (to - from > 16) {
+				int p = order[(from + to) >>> 1];
+				int i = from;
+				int j = to;
+				while (i <= j) {
+					while (compare(order[i], p) < 0) {
+						++i;
+					}
+					while (compare(order[j], p) > 0) {
+						--j;
+					}
+					if (i <= j) {
+						int tmp = order[i];
+						order[i++] = order[j];
+						order[j--] = tmp;
+					}
+				}
+				// Recurse into the smaller half to bound the stack depth
+				if (j - from < to - i) {
+					quickSort(order, from, j);
+					from = i;
+				}
+				else {
+					quickSort(order, i, to);
+					to = j;
+				}
+			}
+			for (int i = from + 1; i <= to; i++) {
+				int x = order[i];
+				int j = i - 1;
+				while (j >= from && compare(order[j], x) > 0) {
+					order[j + 1] = order[j];
+					--j;
+				}
+				order[j + 1] = x;
+			}
+		}
+
+		private int compare(int i, int j)
+		{
+			int c = Long.compare(hashes[i], hashes[j]);
+			return c != 0 ? c : Integer.compare(i, j);
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+package nl.naturalis.nba.etl;
+
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_STRING;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * A document read from an NDJSON file, kept as raw bytes. The {@code id}
+ * field is taken out of the document and made available through
+ * {@link #getId()}, because Elasticsearch does not allow the document ID to
+ * be part of the document source. Apart from that the bytes are passed on to
+ * Elasticsearch as-is, so the document never needs to be deserialized.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class RawJsonDocument {
+
+	private final String id;
+	private final byte[] source;
+
+	/**
+	 * Scans the specified JSON object for a top-level {@code id} field and
+	 * returns a {@code RawJsonDocument} whose source is the JSON object minus
+	 * that field. Only the top-level fields preceding the {@code id} field are
+	 * tokenized; nested objects and arrays are skipped. If the object has no
+	 * {@code id} field, the ID is {@code null} and the source is the JSON
+	 * object itself.
+	 *
+	 * @param factory
+	 * @param json
+	 * @return
+	 * @throws IOException
+	 *             If the bytes do not contain a valid JSON object, or if the
+	 *             {@code id} field is not a string
+	 */
+	public static RawJsonDocument parse(JsonFactory factory, byte[] json) throws IOException
+	{
+		try (JsonParser parser = factory.createParser(json)) {
+			if (parser.nextToken() != START_OBJECT) {
+				throw new JsonParseException(parser, "Document is not a JSON object");
+			}
+			JsonToken token;
+			while ((token = parser.nextToken()) == FIELD_NAME) {
+				int start = (int) parser.getTokenLocation().getByteOffset();
+				String field = parser.getCurrentName();
+				token = parser.nextToken();
+				if (field.equals("id")) {
+					if (token != VALUE_STRING) {
+						throw new JsonParseException(parser, "Document ID must be a string");
+					}
+					String id = parser.getText();
+					int end = (int) parser.getCurrentLocation().getByteOffset();
+					return new RawJsonDocument(id, removeField(json, start, end));
+				}
+				parser.skipChildren();
+			}
+			if (token != JsonToken.END_OBJECT) {
+				throw new JsonParseException(parser, "Unexpected token: " + token);
+			}
+			return new RawJsonDocument(null, json);
+		}
+	}
+
+	RawJsonDocument(String id, byte[] source)
+	{
+		this.id = id;
+		this.source = source;
+	}
+
+	/**
+	 * Returns the value of the {@code id} field, or {@code null} if the
+	 * document did not have one.
+	 *
+	 * @return
+	 */
+	public String getId()
+	{
+		return id;
+	}
+
+	/**
+	 * Returns the document without the {@code id} field.
+	 *
+	 * @return
+	 */
+	public byte[] getSource()
+	{
+		return source;
+	}
+
+	/*
+	 * Removes the bytes from start (the opening quote of the field name) up to
+	 * end (just past the field value), together with the comma separating the
+	 * field from the next field or, if it is the last field, from the previous
+	 * field.
+	 */
+	private static byte[] removeField(byte[] json, int start, int end)
+	{
+		int i = skipWhitespace(json, end);
+		if (i < json.length && json[i] == ',') {
+			end = skipWhitespace(json, i + 1);
+		}
+		else {
+			i = start - 1;
+			while (i > 0 && isWhitespace(json[i])) {
+				--i;
+			}
+			if (json[i] == ',') {
+				start = i;
+			}
+		}
+		byte[] result = new byte[json.length - (end - start)];
+		System.arraycopy(json, 0, result, 0, start);
+		System.arraycopy(json, end, result, start, json.length - end);
+		return result;
+	}
+
+	private static int skipWhitespace(byte[] json, int i)
+	{
+		while (i < json.length && isWhitespace(json[i])) {
+			++i;
+		}
+		return i;
+	}
+
+	private static boolean isWhitespace(byte b)
+	{
+		return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+	}
+
+}
@@ -0,0 +1,371 @@
+package nl.naturalis.nba.etl;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import nl.naturalis.nba.utils.IOUtil;
+
+/**
+ * An extractor that reads XML records from a stream, one at a time, using a
+ * StAX parser. Unlike parsing the entire file into a DOM tree, memory usage
+ * does not depend on the size of the file, but only on the size of the
+ * largest record. Each record is handed out as an {@link XMLRecordInfo}
+ * wrapping a small DOM tree of its own, so the transformers can process it
+ * as before.
+ *
+ * <p>
+ * Records are identified by their (qualified) tag name, their depth within
+ * the document (the root element having depth 1), or both. Besides the
+ * records, a few other elements can be "captured" (e.g. an OAI-PMH
+ * resumption token). The first occurrence of each of these elements outside
+ * a record is kept and can be retrieved through
+ * {@link #getCapturedElement(String) getCapturedElement} once the parser has
+ * got past it. Call {@link #skipRemainingRecords()} to make sure the entire
+ * stream has been read.
+ *
+ * <p>
+ * The records can be iterated over only once. The underlying stream is
+ * closed once the last record has been read, or when {@link #close()} is
+ * called.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class StreamingXMLExtractor implements Iterable<XMLRecordInfo>, Closeable {
+
+	private static final XMLInputFactory inputFactory;
+
+	static {
+		inputFactory = XMLInputFactory.newFactory();
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+	}
+
+	private final InputStream in;
+	private final XMLStreamReader reader;
+	private final String recordName;
+	private final int recordDepth;
+	private final Set<String> capture;
+	private final Map<String, Element> captured;
+	private final DocumentBuilder docBuilder;
+
+	private int depth;
+	private String rootName;
+	private Element next;
+	private boolean finished;
+	private boolean iterated;
+
+	/**
+	 * Creates an extractor for the specified stream. The constructor reads
+	 * the stream up to and including the first record. Thus, if the stream
+	 * does not contain well-formed XML at all, you will know right away.
+	 *
+	 * @param in
+	 *            The stream to read
+	 * @param recordName
+	 *            The tag name of the record elements, or {@code null} if any
+	 *            element at the specified depth is a record
+	 * @param recordDepth
+	 *            The depth of the record elements, or 0 if the records may
+	 *            occur at any depth
+	 * @param capture
+	 *            The tag names of the non-record elements to capture
+	 * @throws XMLStreamException
+	 */
+	public StreamingXMLExtractor(InputStream in, String recordName, int recordDepth,
+			String... capture) throws XMLStreamException
+	{
+		this.in = in;
+		this.recordName = recordName;
+		this.recordDepth = recordDepth;
+		this.capture = new HashSet<>(Arrays.asList(capture));
+		this.captured = new HashMap<>(4);
+		this.docBuilder = newDocumentBuilder();
+		try {
+			this.reader = inputFactory.createXMLStreamReader(in);
+			advance(false);
+		}
+		catch (XMLStreamException | RuntimeException e) {
+			IOUtil.close(in);
+			throw e;
+		}
+	}
+
+	@Override
+	public Iterator<XMLRecordInfo> iterator()
+	{
+		if (iterated) {
+			throw new IllegalStateException("Records can be iterated over only once");
+		}
+		iterated = true;
+		return new Iterator<XMLRecordInfo>() {
+
+			@Override
+			public boolean hasNext()
+			{
+				return next != null;
+			}
+
+			@Override
+			public XMLRecordInfo next()
+			{
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				Element record = next;
+				try {
+					advance(false);
+				}
+				catch (XMLStreamException e) {
+					close();
+					throw new ETLRuntimeException(e);
+				}
+				return new XMLRecordInfo(record);
+			}
+		};
+	}
+
+	/**
+	 * Returns the tag name of the root element.
+	 *
+	 * @return
+	 */
+	public String getRootElementName()
+	{
+		return rootName;
+	}
+
+	/**
+	 * Reads the rest of the stream without creating DOM trees for the records
+	 * not handed out yet. Once this method has returned, the iterator will not
+	 * return any more records.
+	 */
+	public void skipRemainingRecords()
+	{
+		try {
+			advance(true);
+		}
+		catch (XMLStreamException e) {
+			close();
+			throw new ETLRuntimeException(e);
+		}
+	}
+
+	/**
+	 * Returns the first occurrence of the element with the specified tag name
+	 * outside any record, or {@code null} if the parser has not come across
+	 * such an element (yet).
+	 *
+	 * @param tagName
+	 * @return
+	 */
+	public Element getCapturedElement(String tagName)
+	{
+		return captured.get(tagName);
+	}
+
+	/**
+	 * Returns the text content of the first occurrence of the element with the
+	 * specified tag name outside any record, or {@code null} if the parser has
+	 * not come across such an element (yet).
+	 *
+	 * @see #getCapturedElement(String)
+	 *
+	 * @param tagName
+	 * @return
+	 */
+	public String getCapturedValue(String tagName)
+	{
+		Element e = getCapturedElement(tagName);
+		return e == null ? null : e.getTextContent();
+	}
+
+	@Override
+	public void close()
+	{
+		if (!finished) {
+			finished = true;
+			next = null;
+			try {
+				reader.close();
+			}
+			catch (XMLStreamException e) {
+				// Nothing we can do about it
+			}
+			IOUtil.close(in);
+		}
+	}
+
+	/*
+	 * Moves to the next record, or to the end of the document if skipRecords
+	 * is true.
+	 */
+	private void advance(boolean skipRecords) throws XMLStreamException
+	{
+		next = null;
+		while (!finished && reader.hasNext()) {
+			int event = reader.next();
+			if (event == START_ELEMENT) {
+				String name = getName();
+				if (++depth == 1) {
+					rootName = name;
+				}
+				if (isRecord(name)) {
+					if (skipRecords) {
+						skipElement();
+					}
+					else {
+						next = readElement();
+						--depth;
+						return;
+					}
+				}
+				else if (capture.contains(name) && !captured.containsKey(name)) {
+					captured.put(name, readElement());
+				}
+				else {
+					continue;
+				}
+				--depth;
+			}
+			else if (event == END_ELEMENT) {
+				--depth;
+			}
+		}
+		close();
+	}
+
+	private boolean isRecord(String name)
+	{
+		if (recordDepth != 0 && depth != recordDepth) {
+			return false;
+		}
+		return recordName == null || recordName.equals(name);
+	}
+
+	/*
+	 * Creates a DOM tree for the element the reader is positioned on. Leaves
+	 * the reader positioned on the element's end tag.
+	 */
+	private Element readElement() throws XMLStreamException
+	{
+		Document doc = docBuilder.newDocument();
+		Element root = createElement(doc);
+		doc.appendChild(root);
+		Node current = root;
+		int level = 1;
+		while (level != 0) {
+			switch (reader.next()) {
+				case START_ELEMENT:
+					Element e = createElement(doc);
+					current.appendChild(e);
+					current = e;
+					++level;
+					break;
+				case END_ELEMENT:
+					current = current.getParentNode();
+					--level;
+					break;
+				case CHARACTERS:
+				case SPACE:
+					current.appendChild(doc.createTextNode(reader.getText()));
+					break;
+				case CDATA:
+					current.appendChild(doc.createCDATASection(reader.getText()));
+					break;
+				default:
+					// Comments and processing instructions are of no interest
+			}
+		}
+		return root;
+	}
+
+	private void skipElement() throws XMLStreamException
+	{
+		int level = 1;
+		while (level != 0) {
+			int event = reader.next();
+			if (event == START_ELEMENT) {
+				++level;
+			}
+			else if (event == END_ELEMENT) {
+				--level;
+			}
+		}
+	}
+
+	private Element createElement(Document doc)
+	{
+		Element e = doc.createElementNS(emptyToNull(reader.getNamespaceURI()), getName());
+		for (int i = 0; i < reader.getNamespaceCount(); i++) {
+			String prefix = reader.getNamespacePrefix(i);
+			String attr = isEmpty(prefix) ? "xmlns" : "xmlns:" + prefix;
+			e.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, attr, reader.getNamespaceURI(i));
+		}
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String prefix = reader.getAttributePrefix(i);
+			String localName = reader.getAttributeLocalName(i);
+			String attr = isEmpty(prefix) ? localName : prefix + ':' + localName;
+			String ns = emptyToNull(reader.getAttributeNamespace(i));
+			e.setAttributeNS(ns, attr, reader.getAttributeValue(i));
+		}
+		return e;
+	}
+
+	private String getName()
+	{
+		String prefix = reader.getPrefix();
+		if (isEmpty(prefix)) {
+			return reader.getLocalName();
+		}
+		return prefix + ':' + reader.getLocalName();
+	}
+
+	private static boolean isEmpty(String s)
+	{
+		return s == null || s.isEmpty();
+	}
+
+	private static String emptyToNull(String s)
+	{
+		return isEmpty(s) ? null : s;
+	}
+
+	private static DocumentBuilder newDocumentBuilder()
+	{
+		DocumentBuilderFactory bf = DocumentBuilderFactory.newInstance();
+		bf.setNamespaceAware(true);
+		try {
+			return bf.newDocumentBuilder();
+		}
+		catch (ParserConfigurationException e) {
+			throw new ETLRuntimeException(e);
+		}
+	}
+
+}
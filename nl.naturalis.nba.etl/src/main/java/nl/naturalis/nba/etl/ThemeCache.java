@@ -5,9 +5,14 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.logging.log4j.Logger;
 
@@ -37,15 +42,46 @@ public class ThemeCache {
 		String file;
 		String identifier;
 		List<DocumentType<?>> types;
-		List<String> ids;
 		List<SourceSystem> systems;
-		int matches = 0;
+		int ordinal;
+		final LongAdder matches = new LongAdder();
+	}
+
+	/*
+	 * The themes a particular set of ids belongs to. All ids belonging to the
+	 * same themes share the same ThemeSet instance. For each partition (i.e.
+	 * each combination of document type and source system) the ThemeSet
+	 * contains the ordinals and the identifiers of those themes that apply to
+	 * that partition.
+	 */
+	private static class ThemeSet {
+
+		final int[][] ordinals;
+		final List<String>[] identifiers;
+
+		@SuppressWarnings("unchecked")
+		ThemeSet(int numPartitions)
+		{
+			ordinals = new int[numPartitions][];
+			identifiers = new List[numPartitions];
+		}
 	}
 
 	private static final Logger logger = ETLRegistry.getInstance().getLogger(ThemeCache.class);
-	private static ThemeCache instance;
+	private static volatile ThemeCache instance;
+
+	/*
+	 * Slot 0 in the partition table is for lookups without a document type or
+	 * source system. Slot 1 is for document types and source systems not
+	 * mentioned in any theme definition.
+	 */
+	private static final int ANY = 0;
+	private static final int OTHER = 1;
 
 	private final ArrayList<Theme> themes = new ArrayList<>();
+	private final HashMap<DocumentType<?>, Integer> typeSlots = new HashMap<>();
+	private final HashMap<SourceSystem, Integer> systemSlots = new HashMap<>();
+	private HashMap<String, ThemeSet> index;
 
 	/**
 	 * Returns a {@code ThemeCache} object.
@@ -55,19 +91,28 @@ public class ThemeCache {
 	public static ThemeCache getInstance()
 	{
 		if (instance == null) {
-			instance = new ThemeCache();
+			synchronized (ThemeCache.class) {
+				if (instance == null) {
+					instance = new ThemeCache(getThematicSearchDir());
+				}
+			}
 		}
 		return instance;
 	}
 
-	private ThemeCache()
+	ThemeCache(File thematicSearchDir)
 	{
-		loadThemes();
+		HashMap<String, BitSet> ids = new HashMap<>();
+		loadThemes(thematicSearchDir, ids);
+		buildIndex(ids);
 	}
 
 	/**
 	 * Returns the themes that the object (specimen, multimedia object, etc.)
-	 * with the specified id belongs to.
+	 * with the specified id belongs to, or {@code null} if it does not belong
+	 * to any theme. The returned list is shared between all objects belonging
+	 * to the same themes and must not be modified. This method can be called
+	 * concurrently by multiple threads.
 	 * 
 	 * @param id
 	 * @param type
@@ -78,32 +123,28 @@ public class ThemeCache {
 		if (id == null) {
 			return null;
 		}
-		List<String> identifiers = null;
-		for (Theme theme : themes) {
-			if (type != null && theme.types != null && !theme.types.contains(type))
-				continue;
-			if (system != null && theme.systems != null && !theme.systems.contains(system))
-				continue;
-			if (Collections.binarySearch(theme.ids, id) >= 0) {
-				if (logger.isDebugEnabled()) {
-					String fmt = "Found match for ID %s in theme %s (%s)";
-					String msg = String.format(fmt, id, theme.code, theme.file);
-					logger.debug(msg);
-				}
-				++theme.matches;
-				if (identifiers == null) {
-					identifiers = new ArrayList<>(2);
-				}
-				identifiers.add(theme.identifier);
+		ThemeSet themeSet = index.get(id);
+		if (themeSet == null) {
+			return null;
+		}
+		int partition = getSlot(typeSlots, type) * (systemSlots.size() + 2)
+				+ getSlot(systemSlots, system);
+		for (int ordinal : themeSet.ordinals[partition]) {
+			Theme theme = themes.get(ordinal);
+			if (logger.isDebugEnabled()) {
+				String fmt = "Found match for ID %s in theme %s (%s)";
+				String msg = String.format(fmt, id, theme.code, theme.file);
+				logger.debug(msg);
 			}
+			theme.matches.increment();
 		}
-		return identifiers;
+		return themeSet.identifiers[partition];
 	}
 
 	public void resetMatchCounters()
 	{
 		for (Theme theme : themes) {
-			theme.matches = 0;
+			theme.matches.reset();
 		}
 	}
 
@@ -111,13 +152,93 @@ public class ThemeCache {
 	{
 		for (Theme theme : themes) {
 			logger.info(String.format("Number of indexed documents for theme \"%s\": %s",
-					theme.code, theme.matches));
+					theme.code, theme.matches.sum()));
+		}
+	}
+
+	/*
+	 * Compiles the theme definitions into a single hash table from id to the
+	 * (shared) ThemeSet for that id.
+	 */
+	private void buildIndex(HashMap<String, BitSet> ids)
+	{
+		for (Theme theme : themes) {
+			if (theme.types != null) {
+				for (DocumentType<?> type : theme.types) {
+					typeSlots.putIfAbsent(type, typeSlots.size() + 2);
+				}
+			}
+			if (theme.systems != null) {
+				for (SourceSystem system : theme.systems) {
+					systemSlots.putIfAbsent(system, systemSlots.size() + 2);
+				}
+			}
+		}
+		DocumentType<?>[] slotTypes = new DocumentType[typeSlots.size() + 2];
+		typeSlots.forEach((type, slot) -> slotTypes[slot] = type);
+		SourceSystem[] slotSystems = new SourceSystem[systemSlots.size() + 2];
+		systemSlots.forEach((system, slot) -> slotSystems[slot] = system);
+		HashMap<BitSet, ThemeSet> themeSets = new HashMap<>();
+		index = new HashMap<>((int) (ids.size() / .75) + 1);
+		for (Map.Entry<String, BitSet> entry : ids.entrySet()) {
+			ThemeSet themeSet = themeSets.get(entry.getValue());
+			if (themeSet == null) {
+				themeSet = new ThemeSet(slotTypes.length * slotSystems.length);
+				int partition = 0;
+				for (int i = 0; i < slotTypes.length; i++) {
+					for (int j = 0; j < slotSystems.length; j++) {
+						fillPartition(themeSet, partition++, entry.getValue(), i, slotTypes[i], j,
+								slotSystems[j]);
+					}
+				}
+				themeSets.put(entry.getValue(), themeSet);
+			}
+			index.put(entry.getKey(), themeSet);
+		}
+		logger.info("Number of distinct IDs cached for thematic search: {}", index.size());
+	}
+
+	private void fillPartition(ThemeSet themeSet, int partition, BitSet bits, int typeSlot,
+			DocumentType<?> type, int systemSlot, SourceSystem system)
+	{
+		int[] ordinals = new int[bits.cardinality()];
+		List<String> identifiers = new ArrayList<>(ordinals.length);
+		int n = 0;
+		for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+			Theme theme = themes.get(i);
+			if (!appliesTo(theme.types, typeSlot, type)) {
+				continue;
+			}
+			if (!appliesTo(theme.systems, systemSlot, system)) {
+				continue;
+			}
+			ordinals[n++] = i;
+			identifiers.add(theme.identifier);
+		}
+		themeSet.ordinals[partition] = Arrays.copyOf(ordinals, n);
+		themeSet.identifiers[partition] = n == 0 ? null
+				: Collections.unmodifiableList(identifiers);
+	}
+
+	private static <T> boolean appliesTo(List<T> restriction, int slot, T value)
+	{
+		if (restriction == null || slot == ANY) {
+			return true;
+		}
+		return slot != OTHER && restriction.contains(value);
+	}
+
+	private static <T> int getSlot(HashMap<T, Integer> slots, T value)
+	{
+		if (value == null) {
+			return ANY;
 		}
+		Integer slot = slots.get(value);
+		return slot == null ? OTHER : slot.intValue();
 	}
 
-	private void loadThemes()
+	private void loadThemes(File thematicSearchDir, HashMap<String, BitSet> ids)
 	{
-		File thematicSearchDir = getThematicSearchDir();
 		Properties props = loadConfig(thematicSearchDir);
 		if (props != null) {
       if (props.containsKey("version")) {
@@ -135,6 +256,7 @@ public class ThemeCache {
 				}
 				logger.info(String.format("Retrieving information for theme \"%s\"", code));
 				Theme theme = new Theme();
+				theme.ordinal = themes.size();
 				themes.add(theme);
 				theme.code = code;
 				String type = props.getProperty(code + ".type");
@@ -179,7 +301,7 @@ public class ThemeCache {
 						}
 					}
 				}
-				loadIdsForTheme(theme);
+				loadIdsForTheme(theme, ids);
 			}
 		}
 	}
@@ -194,7 +316,7 @@ public class ThemeCache {
 		return false;
 	}
 
-	private static void loadIdsForTheme(Theme theme)
+	private static void loadIdsForTheme(Theme theme, HashMap<String, BitSet> ids)
 	{
 		logger.info(String.format("Caching IDs for theme \"%s\"", theme.code));
 		File file = new File(theme.file);
@@ -203,7 +325,7 @@ public class ThemeCache {
 			String msg = String.format(fmt, file.getAbsolutePath(), theme.code);
 			throw new ETLRuntimeException(msg);
 		}
-		List<String> ids = new ArrayList<>(1000);
+		int count = 0;
 		try {
 			FileReader fr = new FileReader(file);
 			LineNumberReader lnr = new LineNumberReader(fr);
@@ -216,16 +338,15 @@ public class ThemeCache {
 				if (line.startsWith("#")) {
 					continue;
 				}
-				ids.add(line);
+				ids.computeIfAbsent(line, k -> new BitSet()).set(theme.ordinal);
+				++count;
 			}
 			lnr.close();
 		}
 		catch (IOException e) {
 			throw new ETLRuntimeException(e);
 		}
-		Collections.sort(ids);
-		logger.info("Number of IDs cached: " + ids.size());
-		theme.ids = ids;
+		logger.info("Number of IDs cached: " + count);
 	}
 
 	private static Properties loadConfig(File thematicSearchDir)
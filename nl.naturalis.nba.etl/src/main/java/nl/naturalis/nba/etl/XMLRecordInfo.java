@@ -13,6 +13,7 @@ import org.w3c.dom.Element;
 public class XMLRecordInfo {
 
 	private Element record;
+	private ElementIndex index;
 
 	public XMLRecordInfo(Element element)
 	{
@@ -29,4 +30,18 @@ public class XMLRecordInfo {
 		return record;
 	}
 
+	/**
+	 * Returns an index on the elements of the record. The index is created on
+	 * first use, so transformers that do not need it do not pay for it.
+	 * 
+	 * @return
+	 */
+	public ElementIndex getIndex()
+	{
+		if (index == null) {
+			index = new ElementIndex(record);
+		}
+		return index;
+	}
+
 }
@@ -23,6 +23,7 @@ import nl.naturalis.nba.dao.util.es.ESUtil;
 import nl.naturalis.nba.etl.CSVExtractor;
 import nl.naturalis.nba.etl.CSVRecordInfo;
 import nl.naturalis.nba.etl.DocumentObjectWriter;
+import nl.naturalis.nba.etl.ETLPipeline;
 import nl.naturalis.nba.etl.ETLRuntimeException;
 import nl.naturalis.nba.etl.ETLStatistics;
 import nl.naturalis.nba.etl.ETLUtil;
@@ -66,6 +67,7 @@ public class BrahmsMultiMediaImporter {
 	private final int loaderQueueSize;
 	private final boolean suppressErrors;
 	private final boolean shouldUpdateES;
+	private final boolean enrich;
 
 	public BrahmsMultiMediaImporter()
 	{
@@ -73,6 +75,7 @@ public class BrahmsMultiMediaImporter {
 		String val = System.getProperty(SYSPROP_LOADER_QUEUE_SIZE, "1000");
 		loaderQueueSize = Integer.parseInt(val);
 		shouldUpdateES = DaoRegistry.getInstance().getConfiguration().get(SYSPROP_ETL_OUTPUT, "es").equals("file") ? false : true;
+		enrich = DaoRegistry.getInstance().getConfiguration().get("etl.enrich", "false").equals("true");
 	}
 
 	public void importCsvFile(String path)
@@ -132,16 +135,12 @@ public class BrahmsMultiMediaImporter {
 		ETLStatistics myStats = new ETLStatistics();
 		myStats.setOneToMany(true);
 		CSVExtractor<BrahmsCsvField> extractor = null;
-		BrahmsMultiMediaTransformer transformer = null;
 		DocumentObjectWriter<MultiMediaObject> loader = null;
 		try {
 			extractor = createExtractor(f, myStats);
-			transformer = new BrahmsMultiMediaTransformer(myStats);
-	    // Temporary (?) modification to allow for enrichment during the specimen import
-	    if (DaoRegistry.getInstance().getConfiguration().get("etl.enrich", "false").equals("true")) {
-	      transformer.setEnrich(true);
-	      logger.info("Taxonomic enrichment of Specimen documents: true");
-	    }
+			if (enrich) {
+				logger.info("Taxonomic enrichment of Specimen documents: true");
+			}
 			if (DaoRegistry.getInstance().getConfiguration().get("etl.output", "file").equals("file")) {
         logger.info("ETL Output: Writing the multimedia documents to the file system");
         loader = new BrahmsMultiMediaJsonNDWriter(f.getName(), myStats);
@@ -150,16 +149,9 @@ public class BrahmsMultiMediaImporter {
 			  logger.info("ETL Output: loading the multimedia documents into the document store");
 			  loader = new BrahmsMultiMediaLoader(loaderQueueSize, myStats);
 			}
-			for (CSVRecordInfo<BrahmsCsvField> rec : extractor) {
-				if (rec == null) {
-					continue;
-				}
-				loader.write(transformer.transform(rec));
-				if (myStats.recordsProcessed != 0 && myStats.recordsProcessed % 50000 == 0) {
-					logger.info("Records processed: {}", myStats.recordsProcessed);
-					logger.info("Documents indexed: {}", myStats.documentsIndexed);
-				}
-			}
+			ETLPipeline<CSVRecordInfo<BrahmsCsvField>, MultiMediaObject> pipeline =
+					new ETLPipeline<>(this::createTransformer, loader, myStats);
+			pipeline.run(extractor);
 		} 
 		catch (TextParsingException e) {
       logger.error("Parsing of csv file: {} failed!", f.getAbsolutePath());
@@ -180,6 +172,14 @@ public class BrahmsMultiMediaImporter {
 		logger.info(" ");
 	}
 
+	private BrahmsMultiMediaTransformer createTransformer(ETLStatistics transformerStats)
+	{
+		BrahmsMultiMediaTransformer transformer = new BrahmsMultiMediaTransformer(transformerStats);
+		// Temporary (?) modification to allow for enrichment during the specimen import
+		transformer.setEnrich(enrich);
+		return transformer;
+	}
+
 	private CSVExtractor<BrahmsCsvField> createExtractor(File f, ETLStatistics stats)
 	{
 		CSVExtractor<BrahmsCsvField> extractor = new CSVExtractor<>(f, BrahmsCsvField.class, stats);
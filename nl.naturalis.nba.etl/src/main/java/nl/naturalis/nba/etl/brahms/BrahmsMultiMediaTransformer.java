@@ -15,7 +15,6 @@ import static nl.naturalis.nba.etl.brahms.BrahmsCsvField.VERNACULAR;
 import static nl.naturalis.nba.etl.brahms.BrahmsCsvField.YEARIDENT;
 import static nl.naturalis.nba.etl.brahms.BrahmsImportUtil.getDefaultClassification;
 import static nl.naturalis.nba.etl.brahms.BrahmsImportUtil.getScientificName;
-import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createEnrichments;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -25,22 +24,16 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import nl.naturalis.nba.api.InvalidQueryException;
-import nl.naturalis.nba.api.QueryCondition;
-import nl.naturalis.nba.api.QueryResult;
-import nl.naturalis.nba.api.QueryResultItem;
-import nl.naturalis.nba.api.QuerySpec;
 import nl.naturalis.nba.api.model.DefaultClassification;
 import nl.naturalis.nba.api.model.MultiMediaContentIdentification;
 import nl.naturalis.nba.api.model.MultiMediaGatheringEvent;
 import nl.naturalis.nba.api.model.MultiMediaObject;
 import nl.naturalis.nba.api.model.ScientificName;
 import nl.naturalis.nba.api.model.ServiceAccessPoint;
-import nl.naturalis.nba.api.model.Taxon;
 import nl.naturalis.nba.api.model.TaxonomicEnrichment;
 import nl.naturalis.nba.api.model.VernacularName;
-import nl.naturalis.nba.dao.TaxonDao;
 import nl.naturalis.nba.etl.*;
+import nl.naturalis.nba.etl.enrich.TaxonomicEnrichmentIndex;
 
 /**
  * The transformer component in the ETL cycle for Brahms multimedia.
@@ -156,34 +149,12 @@ class BrahmsMultiMediaTransformer extends BrahmsTransformer<MultiMediaObject> {/
       // The scientificNameGroup is the "id" to link with the taxon documents
       String scientificNameGroup = identification.getScientificName().getScientificNameGroup();
       
-      String field = "acceptedName.scientificNameGroup";
-      QueryCondition condition = new QueryCondition(field, "EQUALS_IC", scientificNameGroup);
-      QuerySpec query = new QuerySpec();
-      query.addCondition(condition);
-      query.setConstantScore(true);
-      
-      TaxonDao dao = new TaxonDao();
-      QueryResult<Taxon> result;
-      try {
-        result = dao.query(query);
-      }
-      catch (InvalidQueryException e) {
-        throw new ETLRuntimeException(e);
-      }
-      
-      if (result.getTotalSize() == 0) {
+      List<TaxonomicEnrichment> enrichment;
+      enrichment = TaxonomicEnrichmentIndex.getInstance().getEnrichments(scientificNameGroup);
+      if (enrichment == null) {
         // No enrichment data available
         continue;
       }
-
-      List<Taxon> taxa = new ArrayList<>();
-      for (QueryResultItem<Taxon> item : result) {
-        taxa.add(item.getItem());
-      }
-      
-      List<TaxonomicEnrichment> enrichment = null;
-      enrichment = createEnrichments(taxa);
-      
       if (enrichment.size() > 0) {
         identification.setTaxonomicEnrichments(enrichment);
       }
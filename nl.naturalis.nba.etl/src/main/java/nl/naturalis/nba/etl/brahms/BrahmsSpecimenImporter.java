@@ -55,12 +55,14 @@ public class BrahmsSpecimenImporter {
   private final int loaderQueueSize;
   private final boolean suppressErrors;
   private final boolean shouldUpdateES;
+  private final boolean enrich;
 
   public BrahmsSpecimenImporter() {
     suppressErrors = ConfigObject.isEnabled(SYSPROP_SUPPRESS_ERRORS);
     String val = System.getProperty(SYSPROP_LOADER_QUEUE_SIZE, "1000");
     loaderQueueSize = Integer.parseInt(val);
     shouldUpdateES = DaoRegistry.getInstance().getConfiguration().get(SYSPROP_ETL_OUTPUT, "es").equals("file") ? false : true;
+    enrich = DaoRegistry.getInstance().getConfiguration().get("etl.enrich", "false").equals("true");
   }
 
   public void importCsvFile(String path) {
@@ -110,14 +112,10 @@ public class BrahmsSpecimenImporter {
     logger.info("Processing file {}", f.getAbsolutePath());
     ETLStatistics myStats = new ETLStatistics();
     CSVExtractor<BrahmsCsvField> extractor = null;
-    BrahmsSpecimenTransformer transformer = null;
     DocumentObjectWriter<Specimen> loader = null;
     try {
       extractor = createExtractor(f, myStats);
-      transformer = new BrahmsSpecimenTransformer(myStats);
-      // Temporary (?) modification to allow for enrichment during the specimen import
-      if (DaoRegistry.getInstance().getConfiguration().get("etl.enrich", "false").equals("true")) {
-        transformer.setEnrich(true);
+      if (enrich) {
         logger.info("Taxonomic enrichment of Specimen documents: true");
       }
       if (DaoRegistry.getInstance().getConfiguration().get("etl.output", "file").equals("file")) {
@@ -127,16 +125,9 @@ public class BrahmsSpecimenImporter {
         logger.info("ETL Output: loading the specimen documents into the document store");
         loader = new BrahmsSpecimenLoader(loaderQueueSize, myStats);
       }
-      for (CSVRecordInfo<BrahmsCsvField> rec : extractor) {
-        if (rec == null) {
-          continue;
-        }
-        loader.write(transformer.transform(rec));
-        if (myStats.recordsProcessed != 0 && myStats.recordsProcessed % 50000 == 0) {
-          logger.info("Records processed: {}", myStats.recordsProcessed);
-          logger.info("Documents indexed: {}", myStats.documentsIndexed);
-        }
-      }
+      ETLPipeline<CSVRecordInfo<BrahmsCsvField>, Specimen> pipeline =
+          new ETLPipeline<>(this::createTransformer, loader, myStats);
+      pipeline.run(extractor);
     } 
     catch (TextParsingException e) {
       logger.error("Parsing of csv file: {} failed!", f.getAbsolutePath());
@@ -157,6 +148,13 @@ public class BrahmsSpecimenImporter {
     logger.info(" ");
   }
 
+  private BrahmsSpecimenTransformer createTransformer(ETLStatistics transformerStats) {
+    BrahmsSpecimenTransformer transformer = new BrahmsSpecimenTransformer(transformerStats);
+    // Temporary (?) modification to allow for enrichment during the specimen import
+    transformer.setEnrich(enrich);
+    return transformer;
+  }
+
   private CSVExtractor<BrahmsCsvField> createExtractor(File f, ETLStatistics extractionStats) {
     CSVExtractor<BrahmsCsvField> extractor = new CSVExtractor<>(f, BrahmsCsvField.class, extractionStats);
     extractor.setSkipHeader(true);
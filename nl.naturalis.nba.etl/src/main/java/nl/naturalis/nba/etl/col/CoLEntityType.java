@@ -1,16 +0,0 @@
-package nl.naturalis.nba.etl.col;
-
-/**
- * Enumarates the different entities that are available for 
- * Catalogue Of Life (COL)
- * 
- * @author Tom Gilissen
- *
- */
-enum CoLEntityType {
-
-  SYNONYM_NAMES,
-  VERNACULAR_NAMES,
-  REFERENCE_DATA
-  
-}
@@ -0,0 +1,245 @@
+package nl.naturalis.nba.etl.col;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static nl.naturalis.nba.etl.ETLUtil.getLogger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.logging.log4j.Logger;
+
+import nl.naturalis.nba.utils.IOUtil;
+
+/**
+ * Sorts the records in a tab-delimited file of a CoL DwC archive on one of its
+ * columns, using a bounded amount of memory. The records are read into a
+ * buffer until the buffer is full. The buffer is then sorted and written to a
+ * temporary file. Finally the temporary files are merged into the output file.
+ * If all records fit into the buffer, no temporary files are created.
+ * 
+ * <p>
+ * The sort key of a record is the whitespace-trimmed value of the sort column,
+ * which is also what {@link nl.naturalis.nba.etl.CSVRecordInfo#get(Enum)
+ * CSVRecordInfo.get} returns for it. Keys are compared using
+ * {@link String#compareTo(String)}. The sort is stable: records with the same
+ * key keep the order they had in the input file. The header line is copied
+ * as-is to the output file. Records without a value for the sort column are
+ * left out of the output file.
+ * 
+ * @author Ayco Holleman
+ *
+ */
+class CoLFileSorter {
+
+  private static final Logger logger = getLogger(CoLFileSorter.class);
+
+  /*
+   * Rough estimate of the memory taken up by a buffered record, besides the
+   * characters of the record itself.
+   */
+  private static final int RECORD_OVERHEAD = 96;
+
+  /*
+   * Records with the same key are taken from the chunk created first, so the
+   * merge is stable as well.
+   */
+  private static final Comparator<ChunkReader> CHUNK_ORDER = (r1, r2) -> {
+    int i = r1.key.compareTo(r2.key);
+    return i == 0 ? Integer.compare(r1.index, r2.index) : i;
+  };
+
+  private final int column;
+  private final long bufferSize;
+  private File tmpDir;
+
+  /**
+   * Creates a sorter that sorts on the specified (zero-based) column and
+   * keeps at most approximately {@code bufferSize} bytes worth of records in
+   * memory.
+   * 
+   * @param column
+   * @param bufferSize
+   */
+  CoLFileSorter(int column, long bufferSize) {
+    this.column = column;
+    this.bufferSize = bufferSize;
+  }
+
+  /**
+   * Sets the directory for the temporary files. By default they are created
+   * in the directory specified by system property java.io.tmpdir.
+   * 
+   * @param tmpDir
+   */
+  void setTmpDir(File tmpDir) {
+    this.tmpDir = tmpDir;
+  }
+
+  /**
+   * Sorts the records in {@code input} and writes them to {@code output}.
+   * Returns the number of records written to the output file.
+   * 
+   * @param input
+   * @param output
+   * @return
+   * @throws IOException
+   */
+  long sort(File input, File output) throws IOException {
+    long start = System.currentTimeMillis();
+    List<File> chunks = new ArrayList<>();
+    long records = 0;
+    try (BufferedReader reader = Files.newBufferedReader(input.toPath(), UTF_8)) {
+      String header = reader.readLine();
+      List<Line> buffer = new ArrayList<>();
+      long size = 0;
+      String s;
+      while ((s = reader.readLine()) != null) {
+        String key = getKey(s);
+        if (key == null) {
+          continue;
+        }
+        buffer.add(new Line(key, s));
+        ++records;
+        size += 2L * s.length() + RECORD_OVERHEAD;
+        if (size >= bufferSize) {
+          chunks.add(writeChunk(buffer));
+          buffer.clear();
+          size = 0;
+        }
+      }
+      if (chunks.isEmpty()) {
+        buffer.sort(Line.COMPARATOR);
+        try (BufferedWriter writer = Files.newBufferedWriter(output.toPath(), UTF_8)) {
+          writeLine(writer, header);
+          for (Line line : buffer) {
+            writeLine(writer, line.text);
+          }
+        }
+      } else {
+        if (!buffer.isEmpty()) {
+          chunks.add(writeChunk(buffer));
+          buffer.clear();
+        }
+        merge(header, chunks, output);
+      }
+    } finally {
+      for (File chunk : chunks) {
+        chunk.delete();
+      }
+    }
+    logger.info("Sorted {} records from {} in {} s (temporary files: {})", records,
+        input.getName(), (System.currentTimeMillis() - start) / 1000, chunks.size());
+    return records;
+  }
+
+  /*
+   * Returns the whitespace-trimmed value of the sort column, or null if the
+   * line has no (or an empty) value for the sort column.
+   */
+  String getKey(String line) {
+    int from = 0;
+    for (int i = 0; i < column; i++) {
+      from = line.indexOf('\t', from);
+      if (from == -1) {
+        return null;
+      }
+      ++from;
+    }
+    int to = line.indexOf('\t', from);
+    String key = (to == -1 ? line.substring(from) : line.substring(from, to)).trim();
+    return key.isEmpty() ? null : key;
+  }
+
+  private File writeChunk(List<Line> buffer) throws IOException {
+    buffer.sort(Line.COMPARATOR);
+    File chunk = File.createTempFile("col-sort-", ".txt", tmpDir);
+    try (BufferedWriter writer = Files.newBufferedWriter(chunk.toPath(), UTF_8)) {
+      for (Line line : buffer) {
+        writeLine(writer, line.text);
+      }
+    }
+    return chunk;
+  }
+
+  private void merge(String header, List<File> chunks, File output) throws IOException {
+    PriorityQueue<ChunkReader> queue = new PriorityQueue<>(chunks.size(), CHUNK_ORDER);
+    try (BufferedWriter writer = Files.newBufferedWriter(output.toPath(), UTF_8)) {
+      writeLine(writer, header);
+      for (int i = 0; i < chunks.size(); i++) {
+        ChunkReader reader = new ChunkReader(chunks.get(i), i);
+        if (reader.advance()) {
+          queue.add(reader);
+        } else {
+          reader.close();
+        }
+      }
+      while (!queue.isEmpty()) {
+        ChunkReader reader = queue.poll();
+        writeLine(writer, reader.line);
+        if (reader.advance()) {
+          queue.add(reader);
+        } else {
+          reader.close();
+        }
+      }
+    } finally {
+      for (ChunkReader reader : queue) {
+        reader.close();
+      }
+    }
+  }
+
+  private static void writeLine(BufferedWriter writer, String line) throws IOException {
+    if (line != null) {
+      writer.write(line);
+      writer.write('\n');
+    }
+  }
+
+  private static class Line {
+
+    static final Comparator<Line> COMPARATOR = (l1, l2) -> l1.key.compareTo(l2.key);
+
+    final String key;
+    final String text;
+
+    Line(String key, String text) {
+      this.key = key;
+      this.text = text;
+    }
+  }
+
+  private class ChunkReader {
+
+    final BufferedReader reader;
+    final int index;
+    String line;
+    String key;
+
+    ChunkReader(File chunk, int index) throws IOException {
+      this.reader = Files.newBufferedReader(chunk.toPath(), UTF_8);
+      this.index = index;
+    }
+
+    boolean advance() throws IOException {
+      line = reader.readLine();
+      if (line == null) {
+        return false;
+      }
+      key = getKey(line);
+      return true;
+    }
+
+    void close() {
+      IOUtil.close(reader);
+    }
+  }
+
+}
@@ -2,9 +2,7 @@ package nl.naturalis.nba.etl.col;
 
 import static nl.naturalis.nba.etl.ETLUtil.logDuration;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
+import java.io.IOException;
 
 import org.apache.logging.log4j.Logger;
 
@@ -26,10 +24,6 @@ public class CoLImportAll {
   
   private static final Logger logger = ETLRegistry.getInstance().getLogger(CoLImportAll.class);
   
-  private static final String DB_DRIVER = "org.h2.Driver";
-  private static final String DB_CONNECTION = "jdbc:h2:mem:test;DB_CLOSE_DELAY=-1";
-  private static final String DB_USER = "";
-  private static final String DB_PASSWORD = "";
   private int batchSize;
   
   public CoLImportAll() {}
@@ -124,29 +118,12 @@ public class CoLImportAll {
     logger.info("Transforming CoL dataset and writing the results to file");
     long start = System.currentTimeMillis();
     String colDataDir = DaoRegistry.getInstance().getConfiguration().required("col.data.dir");
-    try (Connection connection = getDBConnection()) {
-
-      // 1. Load synonym names into intermediate database
-      CoLSynonymLoader synonymLoader = new CoLSynonymLoader(connection);
-      synonymLoader.setBatchSize(batchSize);
-      synonymLoader.importCsv(colDataDir + "/taxa.txt");
-    
-      // 2. Load vernacular names into intermediate database
-      CoLVernacularNameLoader vernacularNameLoader = new CoLVernacularNameLoader(connection);
-      vernacularNameLoader.setBatchSize(batchSize);
-      vernacularNameLoader.importCsv(colDataDir + "/vernacular.txt");
-    
-      // 3. Load literature references into intermediate database
-      CoLReferenceLoader referenceLoader = new CoLReferenceLoader(connection);
-      referenceLoader.setBatchSize(batchSize);
-      referenceLoader.importCsv(colDataDir + "/reference.txt");
-
-      // Finally, create the taxon documents using the data from intermediate database
-      CoLTaxonFullImporter cti = new CoLTaxonFullImporter(connection);
-      cti.importCsv(colDataDir + "/taxa.txt");
-
-    } catch (SQLException e) {
-      throw new RuntimeException(e);
+    try {
+      CoLTaxonFullImporter cti = new CoLTaxonFullImporter();
+      cti.importCsv(colDataDir + "/taxa.txt", colDataDir + "/vernacular.txt",
+          colDataDir + "/reference.txt");
+    } catch (IOException e) {
+      throw new ETLRuntimeException(e);
     }
     
     logDuration(logger, getClass(), start);
@@ -161,21 +138,4 @@ public class CoLImportAll {
     logDuration(logger, getClass(), start);
 	}
 
-	
-  private static Connection getDBConnection() {
-    Connection dbConnection = null;
-    try {
-      Class.forName(DB_DRIVER);
-    } catch (ClassNotFoundException e) {
-      System.out.println(e.getMessage());
-    }
-    try {
-      dbConnection = DriverManager.getConnection(DB_CONNECTION, DB_USER, DB_PASSWORD);
-      return dbConnection;
-    } catch (SQLException e) {
-      System.out.println(e.getMessage());
-    }
-    return dbConnection;
-  }
-
 }
\ No newline at end of file
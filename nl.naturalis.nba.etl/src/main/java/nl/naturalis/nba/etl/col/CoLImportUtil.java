@@ -1,8 +1,31 @@
 package nl.naturalis.nba.etl.col;
 
+import static nl.naturalis.nba.api.model.SourceSystem.COL;
+import static nl.naturalis.nba.dao.DocumentType.TAXON;
+import static nl.naturalis.nba.dao.util.es.ESUtil.getElasticsearchId;
+import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_COL_SORT_BUFFER_SIZE;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.client.RequestOptions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.naturalis.nba.api.model.Taxon;
+import nl.naturalis.nba.dao.DocumentType;
+import nl.naturalis.nba.dao.ESClientManager;
+import nl.naturalis.nba.dao.exception.DaoException;
+import nl.naturalis.nba.etl.ETLRuntimeException;
+
 /**
  * Provides common functionality related to the CoL ETL cycle.
- * 
+ *
  * @author Ayco Holleman
  *
  */
@@ -12,5 +35,84 @@ class CoLImportUtil {
 	{
 	}
 
+	/**
+	 * Retrieves the CoL taxa with the specified taxon IDs (as they appear in
+	 * the taxonID column of taxa.txt) and returns them in a map keyed on that
+	 * ID. Taxa that do not exist are not in the map. The taxa are retrieved
+	 * using a multi-get request, which is realtime: it also sees documents
+	 * that were indexed after the last refresh of the taxon index.
+	 *
+	 * @param taxonIds
+	 * @return
+	 */
+	static HashMap<String, Taxon> loadTaxa(Collection<String> taxonIds)
+	{
+		DocumentType<Taxon> dt = TAXON;
+		String index = dt.getIndexInfo().getName();
+		MultiGetRequest request = new MultiGetRequest();
+		for (String id : taxonIds) {
+			request.add(index, getElasticsearchId(COL, id));
+		}
+		MultiGetResponse response;
+		try {
+			response = ESClientManager.getInstance().getClient().mget(request,
+					RequestOptions.DEFAULT);
+		}
+		catch (IOException e) {
+			throw new DaoException("Failed to execute the multi-get request: " + e.getMessage());
+		}
+		HashMap<String, Taxon> taxa = new HashMap<>(taxonIds.size() + 4, 1F);
+		ObjectMapper om = dt.getObjectMapper();
+		for (MultiGetItemResponse item : response.getResponses()) {
+			if (item.isFailed()) {
+				throw new DaoException("Failed to retrieve taxon " + item.getId() + ": "
+						+ item.getFailure().getMessage());
+			}
+			if (!item.getResponse().isExists()) {
+				continue;
+			}
+			Taxon taxon = om.convertValue(item.getResponse().getSourceAsMap(), dt.getJavaType());
+			taxon.setId(item.getId());
+			taxa.put(taxon.getSourceSystemId(), taxon);
+		}
+		return taxa;
+	}
+
+	/**
+	 * Sorts the specified CoL file on the specified column into a temporary
+	 * file and returns the temporary file. Records with an empty value in that
+	 * column are left out. The caller is responsible for deleting the
+	 * temporary file. The amount of memory used for sorting is controlled by
+	 * system property {@link nl.naturalis.nba.etl.ETLConstants#SYSPROP_COL_SORT_BUFFER_SIZE
+	 * SYSPROP_COL_SORT_BUFFER_SIZE}.
+	 *
+	 * @param f
+	 * @param column
+	 * @return
+	 */
+	static File sort(File f, Enum<?> column)
+	{
+		String val = System.getProperty(SYSPROP_COL_SORT_BUFFER_SIZE, "256");
+		long bufferSize;
+		try {
+			bufferSize = Long.parseLong(val) * 1024 * 1024;
+		}
+		catch (NumberFormatException e) {
+			throw new ETLRuntimeException("Invalid sort buffer size: " + val);
+		}
+		CoLFileSorter sorter = new CoLFileSorter(column.ordinal(), bufferSize);
+		File sorted = null;
+		try {
+			sorted = File.createTempFile("col-" + column.name() + "-", ".txt");
+			sorter.sort(f, sorted);
+			return sorted;
+		}
+		catch (IOException e) {
+			if (sorted != null) {
+				sorted.delete();
+			}
+			throw new ETLRuntimeException(e);
+		}
+	}
 
 }
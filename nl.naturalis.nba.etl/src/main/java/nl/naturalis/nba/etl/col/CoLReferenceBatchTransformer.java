@@ -1,8 +1,5 @@
 package nl.naturalis.nba.etl.col;
 
-import static nl.naturalis.nba.api.model.SourceSystem.COL;
-import static nl.naturalis.nba.dao.DocumentType.TAXON;
-import static nl.naturalis.nba.dao.util.es.ESUtil.getElasticsearchId;
 import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_DRY_RUN;
 import static nl.naturalis.nba.etl.ETLUtil.getLogger;
 import static nl.naturalis.nba.etl.ETLUtil.getTestGenera;
@@ -20,22 +17,10 @@ import java.util.HashSet;
 
 import org.apache.logging.log4j.Logger;
 
-import org.elasticsearch.action.search.SearchRequest;
-import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.index.query.IdsQueryBuilder;
-import org.elasticsearch.index.query.QueryBuilders;
-import org.elasticsearch.search.SearchHit;
-import org.elasticsearch.search.SearchHits;
-import org.elasticsearch.search.builder.SearchSourceBuilder;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import nl.naturalis.nba.api.model.Person;
 import nl.naturalis.nba.api.model.Reference;
 import nl.naturalis.nba.api.model.Taxon;
 import nl.naturalis.nba.common.es.ESDateInput;
-import nl.naturalis.nba.dao.DocumentType;
-import nl.naturalis.nba.dao.util.es.ESUtil;
 import nl.naturalis.nba.etl.CSVRecordInfo;
 import nl.naturalis.nba.utils.ConfigObject;
 
@@ -118,32 +103,9 @@ class CoLReferenceBatchTransformer {
 	{
 		HashSet<String> ids = new HashSet<>(records.size());
 		for (CSVRecordInfo<CoLReferenceCsvField> record : records) {
-			ids.add(getElasticsearchId(COL, record.get(taxonID)));
+			ids.add(record.get(taxonID));
 		}
-		DocumentType<Taxon> dt = TAXON;
-    SearchRequest searchRequest = ESUtil.newSearchRequest(dt);
-    IdsQueryBuilder query = QueryBuilders.idsQuery();
-    query.addIds(ids.toArray(new String[ids.size()]));
-    
-    SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-    searchSourceBuilder.trackTotalHits(false);
-    searchSourceBuilder.query(query);
-    searchSourceBuilder.size(ids.size());
-
-    SearchResponse response = ESUtil.executeSearchRequest(searchRequest);
-    SearchHits searchHits = response.getHits();
-    SearchHit[] hits = searchHits.getHits();
-    
-    HashMap<String, Taxon> taxa = new HashMap<>(hits.length + 4, 1F);
-    ObjectMapper om = dt.getObjectMapper();
-    
-    for (SearchHit hit : hits) {
-      Taxon taxon = om.convertValue(hit.getSourceAsMap(), dt.getJavaType());
-      taxon.setId(hit.getId());
-      taxa.put(taxon.getSourceSystemId(), taxon);
-    }
-    
-    return taxa;
+		return CoLImportUtil.loadTaxa(ids);
 	}
 
 	private static Reference createReference(CSVRecordInfo<CoLReferenceCsvField> record)
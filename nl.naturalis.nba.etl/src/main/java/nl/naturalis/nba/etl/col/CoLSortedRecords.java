@@ -0,0 +1,97 @@
+package nl.naturalis.nba.etl.col;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import nl.naturalis.nba.etl.CSVRecordInfo;
+
+/**
+ * Provides sequential access to the records of a CSV file sorted by
+ * {@link CoLFileSorter}, grouped by sort key. This allows the records to be
+ * merge-joined with the records of another file sorted on the same key: the
+ * keys passed to {@link #next(String) next} must be ascending. Records whose
+ * key is never asked for (e.g. synonyms of an accepted name that is not
+ * imported) are passed over.
+ * 
+ * @author Ayco Holleman
+ *
+ * @param <T>
+ */
+class CoLSortedRecords<T extends Enum<T>> {
+
+  private final Iterator<CSVRecordInfo<T>> records;
+  private final T keyField;
+
+  private CSVRecordInfo<T> current;
+  private String currentKey;
+  private int unmatched;
+
+  /**
+   * Creates an instance that reads the specified records, which must be
+   * sorted on the specified field.
+   * 
+   * @param records
+   * @param keyField
+   */
+  CoLSortedRecords(Iterable<CSVRecordInfo<T>> records, T keyField) {
+    this.records = records.iterator();
+    this.keyField = keyField;
+  }
+
+  /**
+   * Returns the records with the specified key, or an empty list if there are
+   * no such records. The key must be greater than the key passed to the
+   * previous call of this method.
+   * 
+   * @param key
+   * @return
+   */
+  List<CSVRecordInfo<T>> next(String key) {
+    List<CSVRecordInfo<T>> result = Collections.emptyList();
+    while (current != null || advance()) {
+      int i = currentKey.compareTo(key);
+      if (i > 0) {
+        break;
+      }
+      if (i < 0) {
+        ++unmatched;
+      } else {
+        if (result.isEmpty()) {
+          result = new ArrayList<>(4);
+        }
+        result.add(current);
+      }
+      current = null;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of records passed over so far because their key was
+   * not asked for.
+   * 
+   * @return
+   */
+  int getUnmatched() {
+    return unmatched;
+  }
+
+  private boolean advance() {
+    while (records.hasNext()) {
+      CSVRecordInfo<T> record = records.next();
+      if (record == null) {
+        continue;
+      }
+      String key = record.get(keyField);
+      if (key != null) {
+        current = record;
+        currentKey = key;
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
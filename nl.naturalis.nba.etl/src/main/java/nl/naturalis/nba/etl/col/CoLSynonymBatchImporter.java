@@ -41,10 +41,6 @@ public class CoLSynonymBatchImporter {
 		catch (NumberFormatException e) {
 			throw new ETLRuntimeException("Invalid batch size: " + prop);
 		}
-		if (batchSize >= 1024) {
-			// Elasticsearch ids query won't let you look up more than 1024 at once.
-			throw new ETLRuntimeException("Batch size exceeds maximum of 1024");
-		}
 		try {
 			CoLSynonymBatchImporter importer = new CoLSynonymBatchImporter();
 			importer.setBatchSize(batchSize);
@@ -78,8 +74,10 @@ public class CoLSynonymBatchImporter {
 			throw new ETLRuntimeException("No such file: " + path);
 		}
 		long start = System.currentTimeMillis();
+		logger.info("Sorting file {} on acceptedNameUsageID", f.getAbsolutePath());
+		File sorted = CoLImportUtil.sort(f, acceptedNameUsageID);
 		ETLStatistics stats = new ETLStatistics();
-		CSVExtractor<CoLTaxonCsvField> extractor = createExtractor(stats, f);
+		CSVExtractor<CoLTaxonCsvField> extractor = createExtractor(stats, sorted);
 		CoLSynonymBatchTransformer transformer = new CoLSynonymBatchTransformer();
 		BulkIndexer<Taxon> indexer = new BulkIndexer<>(TAXON);
 		ArrayList<CSVRecordInfo<CoLTaxonCsvField>> csvRecords;
@@ -87,37 +85,41 @@ public class CoLSynonymBatchImporter {
 		int processed = 0;
 		logger.info("Processing file {}", f.getAbsolutePath());
 		logger.info("Batch size: {}", batchSize);
-
-		for (CSVRecordInfo<CoLTaxonCsvField> rec : extractor) {
-			if (rec == null) {
-				// Garbage
-				continue;
-			}
-			if (rec.get(acceptedNameUsageID) == null) {
-				// This is an accepted name, not a synonym
-				continue;
-			}
-			csvRecords.add(rec);
-			if (csvRecords.size() == batchSize) {
-				Collection<Taxon> updates = transformer.transform(csvRecords);
-				if (updates.size() != 0) {
-					indexer.index(updates);
-					ESUtil.refreshIndex(TAXON);
+		try {
+			String prevKey = null;
+			for (CSVRecordInfo<CoLTaxonCsvField> rec : extractor) {
+				if (rec == null) {
+					// Garbage
+					continue;
+				}
+				String key = rec.get(acceptedNameUsageID);
+				if (key == null) {
+					// This is an accepted name, not a synonym
+					continue;
+				}
+				/*
+				 * The records are sorted on acceptedNameUsageID, so a batch is only
+				 * closed when moving on to the next taxon. That way all records
+				 * for a taxon end up in the same batch, and each taxon is
+				 * retrieved and written just once. Hence there is no need to
+				 * refresh the taxon index between batches.
+				 */
+				if (csvRecords.size() >= batchSize && !key.equals(prevKey)) {
+					index(transformer, indexer, csvRecords);
+				}
+				csvRecords.add(rec);
+				prevKey = key;
+				if (++processed % 100000 == 0) {
+					logger.info("Records processed: {}", processed);
+					logger.info("Synonyms created: {}", transformer.getNumCreated());
 				}
-				csvRecords.clear();
-			}
-			if (++processed % 100000 == 0) {
-				logger.info("Records processed: {}", processed);
-				logger.info("Synonyms created: {}", transformer.getNumCreated());
 			}
+			index(transformer, indexer, csvRecords);
 		}
-		if (csvRecords.size() != 0) {
-			Collection<Taxon> updates = transformer.transform(csvRecords);
-			if (updates.size() != 0) {
-				indexer.index(updates);
-				ESUtil.refreshIndex(TAXON);
-			}
+		finally {
+			sorted.delete();
 		}
+		ESUtil.refreshIndex(TAXON);
 		logger.info("Records processed: {}", processed);
 		logger.info("Synonyms created: {}", transformer.getNumCreated());
 		logger.info("Taxa enriched: {}", transformer.getNumUpdated());
@@ -136,6 +138,19 @@ public class CoLSynonymBatchImporter {
 		this.batchSize = batchSize;
 	}
 
+	private static void index(CoLSynonymBatchTransformer transformer,
+			BulkIndexer<Taxon> indexer, ArrayList<CSVRecordInfo<CoLTaxonCsvField>> csvRecords)
+			throws BulkIndexException
+	{
+		if (csvRecords.size() != 0) {
+			Collection<Taxon> updates = transformer.transform(csvRecords);
+			if (updates.size() != 0) {
+				indexer.index(updates);
+			}
+			csvRecords.clear();
+		}
+	}
+
 	private static CSVExtractor<CoLTaxonCsvField> createExtractor(ETLStatistics stats,
 			File f)
 	{
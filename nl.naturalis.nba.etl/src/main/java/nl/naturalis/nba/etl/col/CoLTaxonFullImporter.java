@@ -1,11 +1,11 @@
 package nl.naturalis.nba.etl.col;
 
 import static nl.naturalis.nba.etl.ETLUtil.logDuration;
+import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.acceptedNameUsageID;
 import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.taxonID;
 
 import java.io.File;
-import java.sql.Connection;
-import java.sql.SQLException;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,24 +17,24 @@ import nl.naturalis.nba.dao.ESClientManager;
 import nl.naturalis.nba.etl.CSVExtractor;
 import nl.naturalis.nba.etl.CSVRecordInfo;
 import nl.naturalis.nba.etl.DocumentObjectWriter;
+import nl.naturalis.nba.etl.ETLConstants;
 import nl.naturalis.nba.etl.ETLRegistry;
 import nl.naturalis.nba.etl.ETLRuntimeException;
 import nl.naturalis.nba.etl.ETLStatistics;
 import nl.naturalis.nba.utils.IOUtil;
 
 /**
- * Imports taxa from the taxa.txt file ...
+ * Imports taxa from the taxa.txt file, together with their synonyms (also
+ * from taxa.txt), vernacular names (vernacular.txt) and literature references
+ * (reference.txt).
  *
  */
 public class CoLTaxonFullImporter extends CoLImporter {
 
   private static final Logger logger = ETLRegistry.getInstance().getLogger(CoLTaxonFullImporter.class);
   
-  private Connection connection;
-  
-  public CoLTaxonFullImporter(Connection connection) {
+  public CoLTaxonFullImporter() {
     super();
-    this.connection = connection;
   }
 
   public static void main(String[] args) throws Exception {
@@ -52,82 +52,100 @@ public class CoLTaxonFullImporter extends CoLImporter {
 
 
   /**
-   * Writes CoL taxa to a file in JsonND format
+   * Writes CoL taxa to a file in JsonND format, complete with their synonyms,
+   * vernacular names and literature references. The taxa.txt, vernacular.txt
+   * and reference.txt files are first sorted on taxonID (or, for the synonyms
+   * in taxa.txt, on acceptedNameUsageID) into temporary files, which are then
+   * merge-joined in one sequential pass. Memory usage is therefore bounded by
+   * the sort buffer size (system property
+   * {@link ETLConstants#SYSPROP_COL_SORT_BUFFER_SIZE}), not by the size of the
+   * archive.
    * 
-   * @param path
-   * @throws SQLException 
+   * @param taxaPath
+   * @param vernacularPath
+   * @param referencePath
+   * @throws IOException
    */
-  public void importCsv(String path) throws SQLException {
-   
+  public void importCsv(String taxaPath, String vernacularPath, String referencePath)
+      throws IOException {
+
     long start = System.currentTimeMillis();
-    ETLStatistics stats = null;
-    CSVExtractor<CoLTaxonCsvField> extractor = null;
-    CoLTaxonFullTransformer transformer = null;
+    File taxaFile = checkFile(taxaPath);
+    File vernacularFile = checkFile(vernacularPath);
+    File referenceFile = checkFile(referencePath);
+    List<File> tmpFiles = new ArrayList<>(4);
+    ETLStatistics stats = new ETLStatistics();
     DocumentObjectWriter<Taxon> loader = null;
-   
+
     try {
-      File f = new File(path);
-      if (!f.exists())
-        throw new ETLRuntimeException("No such file: " + path);
-      stats = new ETLStatistics();
-      extractor = createExtractor(stats, f);
-      extractor.setDelimiter('\t');
-      extractor.setQuote('\u0000'); // CoL export doesn't use quotes!
-      transformer = new CoLTaxonFullTransformer(stats, connection);
+      File sortedTaxa = sort(taxaFile, taxonID, tmpFiles);
+      File sortedSynonyms = sort(taxaFile, acceptedNameUsageID, tmpFiles);
+      File sortedVernacularNames = sort(vernacularFile, CoLVernacularNameCsvField.taxonID, tmpFiles);
+      File sortedReferences = sort(referenceFile, CoLReferenceCsvField.taxonID, tmpFiles);
+
+      CoLSortedRecords<CoLTaxonCsvField> synonymRecords = new CoLSortedRecords<>(
+          createExtractor(CoLTaxonCsvField.class, new ETLStatistics(), sortedSynonyms), acceptedNameUsageID);
+      CoLSortedRecords<CoLVernacularNameCsvField> vernacularRecords = new CoLSortedRecords<>(
+          createExtractor(CoLVernacularNameCsvField.class, new ETLStatistics(), sortedVernacularNames),
+          CoLVernacularNameCsvField.taxonID);
+      CoLSortedRecords<CoLReferenceCsvField> referenceRecords = new CoLSortedRecords<>(
+          createExtractor(CoLReferenceCsvField.class, new ETLStatistics(), sortedReferences),
+          CoLReferenceCsvField.taxonID);
+
+      CSVExtractor<CoLTaxonCsvField> extractor = createExtractor(CoLTaxonCsvField.class, stats, sortedTaxa);
+      CoLTaxonFullTransformer transformer = new CoLTaxonFullTransformer(stats, synonymRecords,
+          vernacularRecords, referenceRecords);
       transformer.setSuppressErrors(suppressErrors);
-      
-      loader = new ColTaxonJsonNDWriter(f.getName(), stats);
+
+      loader = new ColTaxonJsonNDWriter(taxaFile.getName(), stats);
       logger.info("ETL Output: Writing the documents to the file system");
       loader.suppressErrors(suppressErrors);
-      logger.info("Processing file {}", f.getAbsolutePath());
+      logger.info("Processing file {}", taxaFile.getAbsolutePath());
 
-      int batchSize = 1000;
-      ArrayList<String> taxonIds = new ArrayList<>(batchSize);
-      List<CSVRecordInfo<CoLTaxonCsvField>> csvRecords = new ArrayList<>(batchSize);
-      
       for (CSVRecordInfo<CoLTaxonCsvField> rec : extractor) {
         if (rec == null)
           continue;
-        csvRecords.add(rec);
-        taxonIds.add(rec.get(taxonID));
-        if (csvRecords.size() == batchSize) {
-          transformer.createLookupTable(taxonIds);
-          for (CSVRecordInfo<CoLTaxonCsvField> record : csvRecords) {
-            List<Taxon> taxa = transformer.transform(record);
-            if (stats.recordsProcessed != 0 && stats.recordsProcessed % 50000 == 0) {
-              logger.info("Records processed: {}", stats.recordsProcessed);
-              logger.info("Documents indexed: {}", stats.documentsIndexed);
-            }
-            loader.write(taxa);
-          }
-          taxonIds.clear();
-          csvRecords.clear();
+        List<Taxon> taxa = transformer.transform(rec);
+        if (stats.recordsProcessed != 0 && stats.recordsProcessed % 50000 == 0) {
+          logger.info("Records processed: {}", stats.recordsProcessed);
+          logger.info("Documents indexed: {}", stats.documentsIndexed);
         }
+        loader.write(taxa);
       }
-      if (csvRecords.size() > 0) {
-        transformer.createLookupTable(taxonIds);
-        for (CSVRecordInfo<CoLTaxonCsvField> record : csvRecords) {
-          List<Taxon> taxa = transformer.transform(record);
-          loader.write(taxa);
-        }
-        taxonIds.clear();
-        csvRecords.clear();
-        logger.info("Records processed: {}", stats.recordsProcessed);
-        logger.info("Documents indexed: {}", stats.documentsIndexed);
-      }
+      logger.info("Records processed: {}", stats.recordsProcessed);
+      logger.info("Documents indexed: {}", stats.documentsIndexed);
+      logger.info("Synonyms without accepted name:        {}", synonymRecords.getUnmatched());
+      logger.info("Vernacular names without accepted name: {}", vernacularRecords.getUnmatched());
+      logger.info("References without accepted name:       {}", referenceRecords.getUnmatched());
     } 
     finally {
       IOUtil.close(loader);
+      for (File f : tmpFiles) {
+        f.delete();
+      }
     }
     stats.logStatistics(logger); // NOTE: skipped records are synonyms or higher taxa
     logDuration(logger, getClass(), start);
   }
 
-  private CSVExtractor<CoLTaxonCsvField> createExtractor(ETLStatistics stats, File f) {
-    CSVExtractor<CoLTaxonCsvField> extractor;
-    extractor = new CSVExtractor<>(f, CoLTaxonCsvField.class, stats);
+  private static File checkFile(String path) {
+    File f = new File(path);
+    if (!f.exists())
+      throw new ETLRuntimeException("No such file: " + path);
+    return f;
+  }
+
+  private static File sort(File f, Enum<?> column, List<File> tmpFiles) {
+    File sorted = CoLImportUtil.sort(f, column);
+    tmpFiles.add(sorted);
+    return sorted;
+  }
+
+  private <T extends Enum<T>> CSVExtractor<T> createExtractor(Class<T> csvClass, ETLStatistics stats, File f) {
+    CSVExtractor<T> extractor = new CSVExtractor<>(f, csvClass, stats);
     extractor.setSkipHeader(true);
     extractor.setDelimiter('\t');
+    extractor.setQuote('\u0000'); // CoL export doesn't use quotes!
     extractor.setSuppressErrors(suppressErrors);
     return extractor;
   }
@@ -13,9 +13,6 @@ import static nl.naturalis.nba.api.model.TaxonomicRank.SUBSPECIES;
 import static nl.naturalis.nba.api.model.TaxonomicRank.SUPERFAMILY;
 import static nl.naturalis.nba.dao.util.es.ESUtil.getElasticsearchId;
 import static nl.naturalis.nba.etl.ETLUtil.getTestGenera;
-import static nl.naturalis.nba.etl.col.CoLEntityType.REFERENCE_DATA;
-import static nl.naturalis.nba.etl.col.CoLEntityType.SYNONYM_NAMES;
-import static nl.naturalis.nba.etl.col.CoLEntityType.VERNACULAR_NAMES;
 import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.acceptedNameUsageID;
 import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.classRank;
 import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.description;
@@ -29,37 +26,42 @@ import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.references;
 import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.scientificName;
 import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.scientificNameAuthorship;
 import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.specificEpithet;
+import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.taxonomicStatus;
 import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.subgenus;
 import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.superfamily;
 import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.taxonID;
 import static nl.naturalis.nba.etl.col.CoLTaxonCsvField.taxonRank;
 
 import java.net.URI;
-import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import nl.naturalis.nba.api.model.DefaultClassification;
 import nl.naturalis.nba.api.model.Monomial;
+import nl.naturalis.nba.api.model.Person;
 import nl.naturalis.nba.api.model.Reference;
 import nl.naturalis.nba.api.model.ScientificName;
 import nl.naturalis.nba.api.model.Taxon;
 import nl.naturalis.nba.api.model.TaxonDescription;
 import nl.naturalis.nba.api.model.TaxonomicStatus;
 import nl.naturalis.nba.api.model.VernacularName;
-import nl.naturalis.nba.common.json.JsonUtil;
+import nl.naturalis.nba.common.es.ESDateInput;
 import nl.naturalis.nba.etl.AbstractCSVTransformer;
+import nl.naturalis.nba.etl.CSVRecordInfo;
 import nl.naturalis.nba.etl.ETLStatistics;
 import nl.naturalis.nba.etl.TransformUtil;
+import nl.naturalis.nba.etl.normalize.TaxonomicStatusNormalizer;
+import nl.naturalis.nba.etl.normalize.UnmappedValueException;
 
 /**
- * The transformer component in the CoL ETL cycle.
+ * The transformer component in the CoL ETL cycle. Creates taxa complete with
+ * their synonyms, vernacular names and literature references. The taxa must
+ * be passed to the transformer in ascending order of their taxonID, and the
+ * synonyms, vernacular names and references are read from files sorted on the
+ * same key (see {@link CoLFileSorter}), so they can be merge-joined with the
+ * taxa in a single pass.
  * 
  * @author Ayco Holleman
  * @author Tom Gilissen
@@ -73,23 +75,34 @@ class CoLTaxonFullTransformer extends AbstractCSVTransformer<CoLTaxonCsvField, T
     allowedTaxonRanks = Arrays.asList("species", "infraspecies");
   }
 
-  private Connection connection;
+  private static final TaxonomicStatusNormalizer statusNormalizer = TaxonomicStatusNormalizer.getInstance();
+
+  private final CoLSortedRecords<CoLTaxonCsvField> synonymRecords;
+  private final CoLSortedRecords<CoLVernacularNameCsvField> vernacularNameRecords;
+  private final CoLSortedRecords<CoLReferenceCsvField> referenceRecords;
   private String[] testGenera;
-  private ArrayList<String> taxonIds;
-  private HashMap<String, HashMap<CoLEntityType, List<String>>> cache;
 
-  public CoLTaxonFullTransformer(ETLStatistics stats, Connection connection) {
+  /**
+   * Creates a transformer that joins the taxa with the specified synonyms
+   * (sorted on acceptedNameUsageID), vernacular names and references (both
+   * sorted on taxonID).
+   * 
+   * @param stats
+   * @param synonymRecords
+   * @param vernacularNameRecords
+   * @param referenceRecords
+   */
+  public CoLTaxonFullTransformer(ETLStatistics stats,
+      CoLSortedRecords<CoLTaxonCsvField> synonymRecords,
+      CoLSortedRecords<CoLVernacularNameCsvField> vernacularNameRecords,
+      CoLSortedRecords<CoLReferenceCsvField> referenceRecords) {
     super(stats);
-    this.connection = connection;
+    this.synonymRecords = synonymRecords;
+    this.vernacularNameRecords = vernacularNameRecords;
+    this.referenceRecords = referenceRecords;
     testGenera = getTestGenera();
   }
 
-  public void createLookupTable(ArrayList<String> taxonIds) throws SQLException {
-    this.taxonIds = taxonIds;
-    this.cache = new HashMap<>(taxonIds.size());
-    createCache();
-  }
-
   @Override
   protected boolean skipRecord() {
     /*
@@ -212,66 +225,79 @@ class CoLTaxonFullTransformer extends AbstractCSVTransformer<CoLTaxonCsvField, T
     return sn;
   }
 
-   private void createCache() throws SQLException {
-     String ids = taxonIds.stream().map(id -> "'".concat(id).concat("'")).collect(Collectors.joining(","));
-     for (CoLEntityType entityType : CoLEntityType.values()) {
-       String sql = String.format("SELECT taxonId, document FROM %s WHERE taxonId in (%s);", entityType.toString(), ids);
-       Statement stmt = connection.createStatement();
-       ResultSet resultSet = stmt.executeQuery(sql);
-       while (resultSet.next()) {
-         String taxonId = resultSet.getString("taxonId");
-         if (!cache.containsKey(taxonId)) {
-           HashMap<CoLEntityType, List<String>> additionalData = new HashMap<>();
-           additionalData.put(SYNONYM_NAMES, new ArrayList<>());
-           additionalData.put(VERNACULAR_NAMES, new ArrayList<>());
-           additionalData.put(REFERENCE_DATA, new ArrayList<>());
-           cache.put(taxonId, additionalData);
-         }
-         cache.get(taxonId).get(entityType).add(resultSet.getString("document"));
-       }
-     }
-   }
-
   private List<ScientificName> getSynonyms(String taxonId) {
-    if (cache == null || !cache.containsKey(taxonId) || cache.get(taxonId).get(SYNONYM_NAMES) == null)
-      return null;
-    List<ScientificName> synonyms = new ArrayList<>();
-    List<String> documents = cache.get(taxonId).get(SYNONYM_NAMES);
-    if (documents.size() == 0)
+    List<CSVRecordInfo<CoLTaxonCsvField>> records = synonymRecords.next(taxonId);
+    if (records.isEmpty())
       return null;
-    for (String document : documents) {
-      ScientificName synonym = JsonUtil.deserialize(document, ScientificName.class);
-      synonyms.add(synonym);
+    List<ScientificName> result = new ArrayList<>(records.size());
+    for (CSVRecordInfo<CoLTaxonCsvField> record : records) {
+      result.add(createSynonym(record));
     }
-    return synonyms;
+    return result;
   }
 
   private List<VernacularName> getVernacularNames(String taxonId) {
-    if (cache == null || !cache.containsKey(taxonId) || cache.get(taxonId).get(VERNACULAR_NAMES) == null)
+    List<CSVRecordInfo<CoLVernacularNameCsvField>> records = vernacularNameRecords.next(taxonId);
+    if (records.isEmpty())
       return null;
-    List<VernacularName> vernacularNames = new ArrayList<>();
-    List<String> documents = cache.get(taxonId).get(VERNACULAR_NAMES);
-    if (documents.size() == 0)
-      return null;
-    for (String document : documents) {
-      VernacularName name = JsonUtil.deserialize(document, VernacularName.class);
-      vernacularNames.add(name);
+    List<VernacularName> result = new ArrayList<>(records.size());
+    for (CSVRecordInfo<CoLVernacularNameCsvField> record : records) {
+      VernacularName vn = new VernacularName();
+      vn.setName(record.get(CoLVernacularNameCsvField.vernacularName));
+      vn.setLanguage(record.get(CoLVernacularNameCsvField.language));
+      result.add(vn);
     }
-    return vernacularNames;
+    return result;
   }
 
   private List<Reference> getReferences(String taxonId) {
-    if (cache == null || !cache.containsKey(taxonId) || cache.get(taxonId).get(REFERENCE_DATA) == null)
-      return null;
-    List<Reference> references = new ArrayList<>();
-    List<String> documents = cache.get(taxonId).get(REFERENCE_DATA);
-    if (documents.size() == 0)
+    List<CSVRecordInfo<CoLReferenceCsvField>> records = referenceRecords.next(taxonId);
+    if (records.isEmpty())
       return null;
-    for (String document : documents) {
-      Reference reference = JsonUtil.deserialize(document, Reference.class);
-      references.add(reference);
+    List<Reference> result = new ArrayList<>(records.size());
+    for (CSVRecordInfo<CoLReferenceCsvField> record : records) {
+      result.add(createReference(record));
+    }
+    return result;
+  }
+
+  private ScientificName createSynonym(CSVRecordInfo<CoLTaxonCsvField> record) {
+    ScientificName sn = new ScientificName();
+    sn.setFullScientificName(record.get(scientificName));
+    sn.setGenusOrMonomial(record.get(genericName));
+    sn.setSpecificEpithet(record.get(specificEpithet));
+    sn.setInfraspecificEpithet(record.get(infraspecificEpithet));
+    sn.setAuthorshipVerbatim(record.get(scientificNameAuthorship));
+    TaxonomicStatus status = null;
+    try {
+      status = statusNormalizer.map(record.get(taxonomicStatus));
+    } catch (UnmappedValueException e) {
+      if (!suppressErrors)
+        warn("Synonym %s: %s", record.get(taxonID), e.getMessage());
+    }
+    sn.setTaxonomicStatus(status);
+    TransformUtil.setScientificNameGroup(sn);
+    return sn;
+  }
+
+  private Reference createReference(CSVRecordInfo<CoLReferenceCsvField> record) {
+    Reference reference = new Reference();
+    reference.setTitleCitation(record.get(CoLReferenceCsvField.title));
+    reference.setCitationDetail(record.get(CoLReferenceCsvField.description));
+    String s;
+    if ((s = record.get(CoLReferenceCsvField.date)) != null) {
+      OffsetDateTime odt = new ESDateInput(s).parseAsYear();
+      if (odt == null) {
+        if (!suppressErrors)
+          warn("Invalid date: %s", s);
+      } else {
+        reference.setPublicationDate(odt);
+      }
+    }
+    if ((s = record.get(CoLReferenceCsvField.creator)) != null) {
+      reference.setAuthor(new Person(s));
     }
-    return references;
+    return reference;
   }
 
   private static void addMonomials(Taxon taxon) {
@@ -41,10 +41,6 @@ public class CoLVernacularNameBatchImporter {
 		catch (NumberFormatException e) {
 			throw new ETLRuntimeException("Invalid batch size: " + prop);
 		}
-		if (batchSize >= 1024) {
-			// Elasticsearch ids query won't let you look up more than 1024 at once.
-			throw new ETLRuntimeException("Batch size exceeds maximum of 1024");
-		}
 		try {
 			CoLVernacularNameBatchImporter importer = new CoLVernacularNameBatchImporter();
 			importer.setBatchSize(batchSize);
@@ -78,8 +74,10 @@ public class CoLVernacularNameBatchImporter {
 			throw new ETLRuntimeException("No such file: " + path);
 		}
 		long start = System.currentTimeMillis();
+		logger.info("Sorting file {} on taxonID", f.getAbsolutePath());
+		File sorted = CoLImportUtil.sort(f, taxonID);
 		ETLStatistics stats = new ETLStatistics();
-		CSVExtractor<CoLVernacularNameCsvField> extractor = createExtractor(stats, f);
+		CSVExtractor<CoLVernacularNameCsvField> extractor = createExtractor(stats, sorted);
 		CoLVernacularNameBatchTransformer transformer = new CoLVernacularNameBatchTransformer();
 		BulkIndexer<Taxon> indexer = new BulkIndexer<>(TAXON);
 		ArrayList<CSVRecordInfo<CoLVernacularNameCsvField>> csvRecords;
@@ -87,32 +85,37 @@ public class CoLVernacularNameBatchImporter {
 		int processed = 0;
 		logger.info("Processing file {}", f.getAbsolutePath());
 		logger.info("Batch size: {}", batchSize);
-		for (CSVRecordInfo<CoLVernacularNameCsvField> rec : extractor) {
-			if (rec == null || rec.get(taxonID) == null) {
-				// Garbage
-				continue;
-			}
-			csvRecords.add(rec);
-			if (csvRecords.size() == batchSize) {
-				Collection<Taxon> updates = transformer.transform(csvRecords);
-				if (updates.size() != 0) {
-					indexer.index(updates);
-					ESUtil.refreshIndex(TAXON);
+		try {
+			String prevKey = null;
+			for (CSVRecordInfo<CoLVernacularNameCsvField> rec : extractor) {
+				if (rec == null || rec.get(taxonID) == null) {
+					// Garbage
+					continue;
+				}
+				String key = rec.get(taxonID);
+				/*
+				 * The records are sorted on taxonID, so a batch is only
+				 * closed when moving on to the next taxon. That way all records
+				 * for a taxon end up in the same batch, and each taxon is
+				 * retrieved and written just once. Hence there is no need to
+				 * refresh the taxon index between batches.
+				 */
+				if (csvRecords.size() >= batchSize && !key.equals(prevKey)) {
+					index(transformer, indexer, csvRecords);
+				}
+				csvRecords.add(rec);
+				prevKey = key;
+				if (++processed % 100000 == 0) {
+					logger.info("Records processed: {}", processed);
+					logger.info("Vernacular names created: {}", transformer.getNumCreated());
 				}
-				csvRecords.clear();
-			}
-			if (++processed % 100000 == 0) {
-				logger.info("Records processed: {}", processed);
-				logger.info("Vernacular names created: {}", transformer.getNumCreated());
 			}
+			index(transformer, indexer, csvRecords);
 		}
-		if (csvRecords.size() != 0) {
-			Collection<Taxon> updates = transformer.transform(csvRecords);
-			if (updates.size() != 0) {
-				indexer.index(updates);
-				ESUtil.refreshIndex(TAXON);
-			}
+		finally {
+			sorted.delete();
 		}
+		ESUtil.refreshIndex(TAXON);
 		logger.info("Records processed: {}", processed);
 		logger.info("Vernacular names created: {}", transformer.getNumCreated());
 		logger.info("Taxa enriched: {}", transformer.getNumUpdated());
@@ -131,6 +134,19 @@ public class CoLVernacularNameBatchImporter {
 		this.batchSize = batchSize;
 	}
 
+	private static void index(CoLVernacularNameBatchTransformer transformer,
+			BulkIndexer<Taxon> indexer, ArrayList<CSVRecordInfo<CoLVernacularNameCsvField>> csvRecords)
+			throws BulkIndexException
+	{
+		if (csvRecords.size() != 0) {
+			Collection<Taxon> updates = transformer.transform(csvRecords);
+			if (updates.size() != 0) {
+				indexer.index(updates);
+			}
+			csvRecords.clear();
+		}
+	}
+
 	private static CSVExtractor<CoLVernacularNameCsvField> createExtractor(
 			ETLStatistics stats, File f)
 	{
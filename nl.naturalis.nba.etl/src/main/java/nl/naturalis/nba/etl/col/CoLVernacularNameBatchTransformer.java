@@ -1,8 +1,5 @@
 package nl.naturalis.nba.etl.col;
 
-import static nl.naturalis.nba.api.model.SourceSystem.COL;
-import static nl.naturalis.nba.dao.DocumentType.TAXON;
-import static nl.naturalis.nba.dao.util.es.ESUtil.getElasticsearchId;
 import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_DRY_RUN;
 import static nl.naturalis.nba.etl.ETLUtil.getLogger;
 import static nl.naturalis.nba.etl.ETLUtil.getTestGenera;
@@ -17,19 +14,8 @@ import java.util.HashSet;
 
 import org.apache.logging.log4j.Logger;
 
-import org.elasticsearch.action.search.SearchRequest;
-import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.index.query.IdsQueryBuilder;
-import org.elasticsearch.index.query.QueryBuilders;
-import org.elasticsearch.search.SearchHit;
-import org.elasticsearch.search.SearchHits;
-import org.elasticsearch.search.builder.SearchSourceBuilder;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import nl.naturalis.nba.api.model.Taxon;
 import nl.naturalis.nba.api.model.VernacularName;
-import nl.naturalis.nba.dao.DocumentType;
-import nl.naturalis.nba.dao.util.es.ESUtil;
 import nl.naturalis.nba.etl.CSVRecordInfo;
 import nl.naturalis.nba.utils.ConfigObject;
 
@@ -112,32 +98,9 @@ class CoLVernacularNameBatchTransformer {
 	{
 		HashSet<String> ids = new HashSet<>(records.size());
 		for (CSVRecordInfo<CoLVernacularNameCsvField> record : records) {
-			ids.add(getElasticsearchId(COL, record.get(taxonID)));
-		}
-		DocumentType<Taxon> dt = TAXON;
-		SearchRequest searchRequest = ESUtil.newSearchRequest(dt);
-		IdsQueryBuilder query = QueryBuilders.idsQuery();
-		query.addIds(ids.toArray(new String[ids.size()]));
-
-		SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-		searchSourceBuilder.trackTotalHits(false);
-		searchSourceBuilder.query(query);
-		searchSourceBuilder.size(ids.size());
-		
-		SearchResponse response = ESUtil.executeSearchRequest(searchRequest);		
-		SearchHits hits = response.getHits();
-		SearchHit[] searchHits = hits.getHits();
-		
-		HashMap<String, Taxon> taxa = new HashMap<>(searchHits.length + 4, 1F);
-		ObjectMapper om = dt.getObjectMapper();
-		
-		for (SearchHit hit : hits) {
-			Taxon taxon = om.convertValue(hit.getSourceAsMap(), dt.getJavaType());
-		  taxon.setId(hit.getId());
-			taxa.put(taxon.getSourceSystemId(), taxon);
+			ids.add(record.get(taxonID));
 		}
-
-		return taxa;
+		return CoLImportUtil.loadTaxa(ids);
 	}
 
 	private static VernacularName createVernacularName(
@@ -2,39 +2,36 @@ package nl.naturalis.nba.etl.crs;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 
 import nl.naturalis.nba.etl.ETLRuntimeException;
 import nl.naturalis.nba.etl.ETLStatistics;
+import nl.naturalis.nba.etl.StreamingXMLExtractor;
 import nl.naturalis.nba.etl.XMLRecordInfo;
-import nl.naturalis.nba.utils.xml.DOMUtil;
 
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 /**
  * The extraction component for the CRS import. This class is used both for
  * specimen imports and for multimedia imports, and it is used both for
  * "offline" imports from the local file system and for "live" imports that call
- * the OAI service.
+ * the OAI service. The OAI-PMH records are streamed rather than parsed into a
+ * DOM tree all at once, so memory usage does not depend on the size of the
+ * file or OAI response (see {@link StreamingXMLExtractor}).
  * 
  * @author Ayco Holleman
  *
  */
 class CrsExtractor implements Iterable<XMLRecordInfo> {
 
-	private static DocumentBuilder docBuilder;
-
 	private final ETLStatistics stats;
-	private final Document doc;
+	private final StreamingXMLExtractor extractor;
 
 	/**
 	 * Create a new CRS specimen extractor for the specified XML file. Use this
@@ -42,10 +39,10 @@ class CrsExtractor implements Iterable<XMLRecordInfo> {
 	 * system. The {@link ETLStatistics} parameter is only present for
 	 * uniformity's sake (other extractors in this library are also instantiated
 	 * with a statistics object). It is not currently used. That is, its
-	 * {@link ETLStatistics#badInput} counter is not updated, because extraction
-	 * failures are already detected when the file as a whole is parsed into a
-	 * DOM tree. Once we're past that stage nothing can go wrong when handing
-	 * out individual records.
+	 * {@link ETLStatistics#badInput} counter is not updated. If the file is not
+	 * well-formed XML, a {@link SAXException} is thrown if this is detected
+	 * before the first record, and an {@link ETLRuntimeException} while
+	 * iterating over the records otherwise.
 	 * 
 	 * @param f
 	 * @param stats
@@ -55,7 +52,10 @@ class CrsExtractor implements Iterable<XMLRecordInfo> {
 	{
 		this.stats = stats;
 		try {
-			doc = getDocumentBuilder().parse(f);
+			extractor = createExtractor(new FileInputStream(f));
+		}
+		catch (XMLStreamException e) {
+			throw new SAXException(e);
 		}
 		catch (IOException e) {
 			throw new ETLRuntimeException(e);
@@ -74,59 +74,64 @@ class CrsExtractor implements Iterable<XMLRecordInfo> {
 		this.stats = stats;
 		try {
 			InputStream is = new ByteArrayInputStream(bytes);
-			doc = getDocumentBuilder().parse(is);
-			String root = doc.getDocumentElement().getTagName();
-			if (!root.equals("OAI-PMH")) {
-				// With timeouts we are sometimes redirected to the Naturalis
-				// home page
-				throw new ETLRuntimeException("Invalid OAI-PMH: <" + root + ">");
-			}
-			Element e = DOMUtil.getDescendant(doc.getDocumentElement(), "error");
-			if (e != null) {
-				String fmt = "OAI Error (code=\"%s\"): \"%s\"";
-				String msg = String.format(fmt, e.getAttribute("code"), e.getTextContent());
-				throw new ETLRuntimeException(msg);
-			}
+			extractor = createExtractor(is);
 		}
-		catch (SAXException | IOException e) {
+		catch (XMLStreamException e) {
 			throw new ETLRuntimeException(e);
 		}
+		String root = extractor.getRootElementName();
+		if (!"OAI-PMH".equals(root)) {
+			extractor.close();
+			// With timeouts we are sometimes redirected to the Naturalis
+			// home page
+			throw new ETLRuntimeException("Invalid OAI-PMH: <" + root + ">");
+		}
+		Element e = extractor.getCapturedElement("error");
+		if (e != null) {
+			String fmt = "OAI Error (code=\"%s\"): \"%s\"";
+			String msg = String.format(fmt, e.getAttribute("code"), e.getTextContent());
+			throw new ETLRuntimeException(msg);
+		}
+	}
+
+	/**
+	 * Returns the resumption token in the specified OAI response without
+	 * creating DOM trees for its records (except the first one).
+	 * 
+	 * @param bytes
+	 * @return
+	 */
+	static String getResumptionToken(byte[] bytes)
+	{
+		return new CrsExtractor(bytes, null).getResumptionToken();
 	}
 
 	@Override
 	public Iterator<XMLRecordInfo> iterator()
 	{
-		return new Iterator<XMLRecordInfo>() {
-
-			NodeList recs = doc.getElementsByTagName("record");
-			int i = 0;
-
-			public boolean hasNext()
-			{
-				return i < recs.getLength();
-			}
-
-			public XMLRecordInfo next()
-			{
-				return new XMLRecordInfo((Element) recs.item(i++));
-			}
-
-			public void remove()
-			{
-
-			}
-		};
+		return extractor.iterator();
 	}
 
 	/**
 	 * Get the resumption token from the currently processed file or OAI
-	 * response.
+	 * response. Since the resumption token comes after the records, any
+	 * records not iterated over yet are skipped.
 	 * 
 	 * @return
 	 */
 	public String getResumptionToken()
 	{
-		return DOMUtil.getDescendantValue(doc, "resumptionToken");
+		extractor.skipRemainingRecords();
+		return extractor.getCapturedValue("resumptionToken");
+	}
+
+	/**
+	 * Closes the underlying file or OAI response. Only needed if not all
+	 * records have been iterated over.
+	 */
+	public void close()
+	{
+		extractor.close();
 	}
 
 	/**
@@ -139,19 +144,10 @@ class CrsExtractor implements Iterable<XMLRecordInfo> {
 		return stats;
 	}
 
-	private static DocumentBuilder getDocumentBuilder()
+	private static StreamingXMLExtractor createExtractor(InputStream is)
+			throws XMLStreamException
 	{
-		if (docBuilder == null) {
-			DocumentBuilderFactory bf = DocumentBuilderFactory.newInstance();
-			bf.setNamespaceAware(true);
-			try {
-				docBuilder = bf.newDocumentBuilder();
-			}
-			catch (ParserConfigurationException e) {
-				throw new ETLRuntimeException(e);
-			}
-		}
-		return docBuilder;
+		return new StreamingXMLExtractor(is, "record", 0, "error", "resumptionToken");
 	}
 
 }
@@ -156,7 +156,7 @@ public class CrsHarvester {
 
 	private static String getResumptionToken(byte[] xml)
 	{
-		return new CrsExtractor(xml, null).getResumptionToken();
+		return CrsExtractor.getResumptionToken(xml);
 	}
 
 	private static File getLocalPath(String type, Date fromDate, int callNum)
@@ -8,6 +8,7 @@ import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_ETL_ENRICH;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.logging.log4j.Logger;
@@ -20,6 +21,7 @@ import nl.naturalis.nba.dao.util.es.ESUtil;
 import nl.naturalis.nba.etl.DocumentObjectWriter;
 import nl.naturalis.nba.etl.ETLConstants;
 import nl.naturalis.nba.etl.ETLRegistry;
+import nl.naturalis.nba.etl.ETLRuntimeException;
 import nl.naturalis.nba.etl.ETLStatistics;
 import nl.naturalis.nba.etl.ETLUtil;
 import nl.naturalis.nba.etl.MimeTypeCacheFactory;
@@ -146,20 +148,38 @@ public class CrsMultiMediaImportOffline {
         } catch (SAXException e) {
             logger.error("Processing failed!");
             logger.error(e.getMessage());
+            IOUtil.close(loader);
             return;
         }
-        for (XMLRecordInfo extracted : extractor) {
-            List<MultiMediaObject> transformed = transformer.transform(extracted);
-            loader.write(transformed);
-            if (stats.recordsProcessed != 0 && stats.recordsProcessed % 50000 == 0) {
-                logger.info("Records processed: {}", stats.recordsProcessed);
-                logger.info("Documents indexed: {}", stats.documentsIndexed);
+        try {
+            Iterator<XMLRecordInfo> records = extractor.iterator();
+            while (true) {
+                XMLRecordInfo extracted;
+                try {
+                    if (!records.hasNext()) {
+                        break;
+                    }
+                    extracted = records.next();
+                } catch (ETLRuntimeException e) {
+                    // The file turned out to be malformed further down
+                    logger.error("Processing failed!");
+                    logger.error(e.getMessage());
+                    break;
+                }
+                List<MultiMediaObject> transformed = transformer.transform(extracted);
+                loader.write(transformed);
+                if (stats.recordsProcessed != 0 && stats.recordsProcessed % 50000 == 0) {
+                    logger.info("Records processed: {}", stats.recordsProcessed);
+                    logger.info("Documents indexed: {}", stats.documentsIndexed);
+                }
             }
+            if (shouldUpdateES) {
+                loader.flush();
+            }
+        } finally {
+            extractor.close();
+            IOUtil.close(loader);
         }
-        if (shouldUpdateES) {
-            loader.flush();
-        }
-        IOUtil.close(loader);
     }
 
     private static File[] getXmlFiles() {
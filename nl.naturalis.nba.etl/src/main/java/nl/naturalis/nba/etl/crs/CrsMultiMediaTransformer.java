@@ -12,12 +12,8 @@ import static nl.naturalis.nba.etl.MimeTypeCache.MEDIALIB_HTTP_URL;
 import static nl.naturalis.nba.etl.MimeTypeCache.MEDIALIB_HTTPS_URL;
 import static nl.naturalis.nba.etl.TransformUtil.getSystemClassification;
 import static nl.naturalis.nba.etl.normalize.Normalizer.NOT_MAPPED;
-import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createEnrichments;
 import static nl.naturalis.nba.utils.StringUtil.rpad;
 import static nl.naturalis.nba.utils.xml.DOMUtil.getChild;
-import static nl.naturalis.nba.utils.xml.DOMUtil.getDescendant;
-import static nl.naturalis.nba.utils.xml.DOMUtil.getDescendantValue;
-import static nl.naturalis.nba.utils.xml.DOMUtil.getDescendants;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -27,11 +23,6 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.w3c.dom.Element;
-import nl.naturalis.nba.api.InvalidQueryException;
-import nl.naturalis.nba.api.QueryCondition;
-import nl.naturalis.nba.api.QueryResult;
-import nl.naturalis.nba.api.QueryResultItem;
-import nl.naturalis.nba.api.QuerySpec;
 import nl.naturalis.nba.api.model.DefaultClassification;
 import nl.naturalis.nba.api.model.GatheringSiteCoordinates;
 import nl.naturalis.nba.api.model.Monomial;
@@ -42,19 +33,18 @@ import nl.naturalis.nba.api.model.Person;
 import nl.naturalis.nba.api.model.ScientificName;
 import nl.naturalis.nba.api.model.ServiceAccessPoint;
 import nl.naturalis.nba.api.model.SpecimenTypeStatus;
-import nl.naturalis.nba.api.model.Taxon;
 import nl.naturalis.nba.api.model.TaxonomicEnrichment;
 import nl.naturalis.nba.api.model.TaxonomicRank;
 import nl.naturalis.nba.api.model.VernacularName;
 import nl.naturalis.nba.common.es.ESDateInput;
-import nl.naturalis.nba.dao.TaxonDao;
 import nl.naturalis.nba.etl.AbstractXMLTransformer;
-import nl.naturalis.nba.etl.ETLRuntimeException;
 import nl.naturalis.nba.etl.ETLStatistics;
+import nl.naturalis.nba.etl.ElementIndex;
 import nl.naturalis.nba.etl.MimeTypeCache;
 import nl.naturalis.nba.etl.MimeTypeCacheFactory;
 import nl.naturalis.nba.etl.ThemeCache;
 import nl.naturalis.nba.etl.TransformUtil;
+import nl.naturalis.nba.etl.enrich.TaxonomicEnrichmentIndex;
 import nl.naturalis.nba.etl.normalize.PhaseOrStageNormalizer;
 import nl.naturalis.nba.etl.normalize.SexNormalizer;
 import nl.naturalis.nba.etl.normalize.SpecimenTypeStatusNormalizer;
@@ -108,7 +98,7 @@ class CrsMultiMediaTransformer extends AbstractXMLTransformer<MultiMediaObject>
 
     @Override
     protected String getObjectID() {
-        Element dc = getDescendant(input.getRecord(), "oai_dc:dc");
+        Element dc = descendant(input.getRecord(), "oai_dc:dc");
         /*
          * This is actually the UnitID of the specimen, but that's all we got.
          */
@@ -135,7 +125,7 @@ class CrsMultiMediaTransformer extends AbstractXMLTransformer<MultiMediaObject>
             }
             return true;
         }
-        Element oaiDcElem = getDescendant(input.getRecord(), "oai_dc:dc");
+        Element oaiDcElem = descendant(input.getRecord(), "oai_dc:dc");
         if (val(oaiDcElem, "abcd:RecordBasis") == null) {
             if (logger.isDebugEnabled()) {
                 debug("Skipping virtual specimen");
@@ -143,14 +133,14 @@ class CrsMultiMediaTransformer extends AbstractXMLTransformer<MultiMediaObject>
             return true;
         }
 
-        if (getDescendant(oaiDcElem, "frmDigitalebestanden") == null) {
+        if (descendant(oaiDcElem, "frmDigitalebestanden") == null) {
             if (logger.isDebugEnabled()) {
                 debug("Missing or empty element <frmDigitalebestanden>");
             }
             return true;
         }
 
-        List<Element> elems = getDescendants(oaiDcElem, "ncrsDetermination");
+        List<Element> elems = descendants(oaiDcElem, "ncrsDetermination");
         if (elems == null) {
             if (logger.isDebugEnabled()) {
                 debug("Missing or empty element <ncrsDetermination>");
@@ -163,9 +153,9 @@ class CrsMultiMediaTransformer extends AbstractXMLTransformer<MultiMediaObject>
 
     @Override
     protected List<MultiMediaObject> doTransform() {
-        Element oaiDcElem = getDescendant(input.getRecord(), "oai_dc:dc");
-        List<Element> frmDigitaleBestandenElems = getDescendants(oaiDcElem, "frmDigitalebestanden");
-        List<Element> ncsrDeterminationElems = getDescendants(oaiDcElem, "ncrsDetermination");
+        Element oaiDcElem = descendant(input.getRecord(), "oai_dc:dc");
+        List<Element> frmDigitaleBestandenElems = descendants(oaiDcElem, "frmDigitalebestanden");
+        List<Element> ncsrDeterminationElems = descendants(oaiDcElem, "ncrsDetermination");
         ArrayList<MultiMediaContentIdentification> identifications;
         String collectionType = val(oaiDcElem, "abcd:CollectionType");
         identifications = getIdentifications(ncsrDeterminationElems, collectionType);
@@ -254,36 +244,13 @@ class CrsMultiMediaTransformer extends AbstractXMLTransformer<MultiMediaObject>
             // The scientificNameGroup is the "id" to link with the taxon documents
             String scientificNameGroup = identification.getScientificName().getScientificNameGroup();
 
-            String field = "acceptedName.scientificNameGroup";
-            QueryCondition condition = new QueryCondition(field, "EQUALS_IC", scientificNameGroup);
-            QuerySpec query = new QuerySpec();
-            query.addCondition(condition);
-            query.setConstantScore(true);
-
-            TaxonDao dao = new TaxonDao();
-            QueryResult<Taxon> result;
-            try {
-                result = dao.query(query);
-            } catch (InvalidQueryException e) {
-                throw new ETLRuntimeException(e);
-            }
-
-            if (result.getTotalSize() == 0) {
+            List<TaxonomicEnrichment> enrichment;
+            enrichment = TaxonomicEnrichmentIndex.getInstance().getEnrichments(scientificNameGroup);
+            if (enrichment == null) {
                 // No enrichment data available
                 continue;
             }
-
-            List<Taxon> taxa = new ArrayList<>();
-            for (QueryResultItem<Taxon> item : result) {
-                taxa.add(item.getItem());
-            }
-
-            List<TaxonomicEnrichment> enrichment = null;
-            enrichment = createEnrichments(taxa);
-
-            if (enrichment != null) {
-                identification.setTaxonomicEnrichments(enrichment);
-            }
+            identification.setTaxonomicEnrichments(enrichment);
         }
     }
 
@@ -682,7 +649,8 @@ class CrsMultiMediaTransformer extends AbstractXMLTransformer<MultiMediaObject>
     }
 
     private String val(Element e, String tag) {
-        String s = getDescendantValue(e, tag);
+        ElementIndex index = index(e);
+        String s = index == null ? DOMUtil.getDescendantValue(e, tag) : index.getDescendantValue(e, tag);
         if (s == null) {
             if (logger.isDebugEnabled())
                 debug("No element <%s> under element <%s>", tag, e.getTagName());
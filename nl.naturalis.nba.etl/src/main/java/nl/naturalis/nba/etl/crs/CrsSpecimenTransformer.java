@@ -12,7 +12,6 @@ import static nl.naturalis.nba.etl.MimeTypeCache.MEDIALIB_URL_START;
 import static nl.naturalis.nba.etl.MimeTypeCache.MEDIALIB_HTTP_URL;
 import static nl.naturalis.nba.etl.MimeTypeCache.MEDIALIB_HTTPS_URL;
 import static nl.naturalis.nba.utils.StringUtil.rpad;
-import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createEnrichments;
 
 import java.lang.reflect.Field;
 import java.net.URI;
@@ -29,11 +28,6 @@ import java.util.Map.Entry;
 
 import org.w3c.dom.Element;
 
-import nl.naturalis.nba.api.InvalidQueryException;
-import nl.naturalis.nba.api.QueryCondition;
-import nl.naturalis.nba.api.QueryResult;
-import nl.naturalis.nba.api.QueryResultItem;
-import nl.naturalis.nba.api.QuerySpec;
 import nl.naturalis.nba.api.model.Agent;
 import nl.naturalis.nba.api.model.AreaClass;
 import nl.naturalis.nba.api.model.AssociatedTaxon;
@@ -58,15 +52,16 @@ import nl.naturalis.nba.api.model.TaxonomicEnrichment;
 import nl.naturalis.nba.api.model.TaxonomicRank;
 import nl.naturalis.nba.api.model.VernacularName;
 import nl.naturalis.nba.common.es.ESDateInput;
-import nl.naturalis.nba.dao.TaxonDao;
 import nl.naturalis.nba.etl.AbstractXMLTransformer;
 import nl.naturalis.nba.etl.ETLRuntimeException;
 import nl.naturalis.nba.etl.ETLStatistics;
 import nl.naturalis.nba.etl.ETLUtil;
+import nl.naturalis.nba.etl.ElementIndex;
 import nl.naturalis.nba.etl.MimeTypeCache;
 import nl.naturalis.nba.etl.MimeTypeCacheFactory;
 import nl.naturalis.nba.etl.ThemeCache;
 import nl.naturalis.nba.etl.TransformUtil;
+import nl.naturalis.nba.etl.enrich.TaxonomicEnrichmentIndex;
 import nl.naturalis.nba.etl.normalize.AreaClassNormalizer;
 import nl.naturalis.nba.etl.normalize.PhaseOrStageNormalizer;
 import nl.naturalis.nba.etl.normalize.SexNormalizer;
@@ -152,7 +147,7 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
             return null;
         }
 
-        List<Element> elems = DOMUtil.getDescendants(record, "ncrsDetermination");
+        List<Element> elems = descendants(record, "ncrsDetermination");
 
         if (elems == null) {
             stats.recordsRejected++;
@@ -253,31 +248,12 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
             // The scientificNameGroup is the "id" to link with the taxon documents
             String scientificNameGroup = identification.getScientificName().getScientificNameGroup();
 
-            String field = "acceptedName.scientificNameGroup";
-            QueryCondition condition = new QueryCondition(field, "EQUALS_IC", scientificNameGroup);
-            QuerySpec query = new QuerySpec();
-            query.addCondition(condition);
-            query.setConstantScore(true);
-
-            TaxonDao dao = new TaxonDao();
-            QueryResult<Taxon> result;
-            try {
-                result = dao.query(query);
-            } catch (InvalidQueryException e) {
-                throw new ETLRuntimeException(e);
-            }
-
-            if (result.getTotalSize() == 0) {
+            List<TaxonomicEnrichment> enrichment;
+            enrichment = TaxonomicEnrichmentIndex.getInstance().getEnrichments(scientificNameGroup);
+            if (enrichment == null) {
                 // No enrichment data available
                 continue;
             }
-
-            List<Taxon> taxa = new ArrayList<>();
-            for (QueryResultItem<Taxon> item : result) {
-                taxa.add(item.getItem());
-            }
-
-            List<TaxonomicEnrichment> enrichment = createEnrichments(taxa);
             if (enrichment.size() > 0) {
                 identification.setTaxonomicEnrichments(enrichment);
             }
@@ -344,7 +320,7 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
     private List<ServiceAccessPoint> getAssociatedMultiMediaUris() {
 
         Element record = input.getRecord();
-        List<Element> fileUriElems = DOMUtil.getDescendants(record, "abcd:fileuri");
+        List<Element> fileUriElems = descendants(record, "abcd:fileuri");
         if (fileUriElems == null) {
             if (logger.isDebugEnabled()) {
                 debug("Missing or empty element <abcd:fileuri>");
@@ -364,7 +340,7 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
          * we check each value provided.
          *
          */
-        List<Element> multimediaPublic = DOMUtil.getDescendants(record, "abcd:MultiMediaPublic");
+        List<Element> multimediaPublic = descendants(record, "abcd:MultiMediaPublic");
         if (multimediaPublic == null || multimediaPublic.size() == 0) {
             return null;
         }
@@ -419,7 +395,7 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
 
     private List<String> getPreviousSourceIds() {
         Element record = input.getRecord();
-        List<Element> elems = DOMUtil.getDescendants(record, "abcd:PreviousSourceName");
+        List<Element> elems = descendants(record, "abcd:PreviousSourceName");
         if (elems == null) {
             return null;
         }
@@ -488,7 +464,7 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
             si.setTaxonRank("genus");
             // 6. "higherName"
         else if (taxonCoverageStr != null && taxonCoverageStr.length() > 0) {
-            List<Element> higherNames = DOMUtil.getDescendants(elem, "ncrsHighername");
+            List<Element> higherNames = descendants(elem, "ncrsHighername");
             TaxonomicRank taxonomicRank = getBestTaxonRank(higherNames);
             if (taxonomicRank != null)
                 si.setTaxonRank(taxonomicRank.getEnglishName());
@@ -637,7 +613,7 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
 
     private List<AssociatedTaxon> getAssociatedTaxa() {
         Element record = input.getRecord();
-        List<Element> elements = DOMUtil.getDescendants(record, "ncrsSynecology");
+        List<Element> elements = descendants(record, "ncrsSynecology");
         if (elements == null) {
             return null;
         }
@@ -673,7 +649,7 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
 
     private List<NamedArea> getNamedAreas() {
         Element record = input.getRecord();
-        List<Element> elements = DOMUtil.getDescendants(record, "ncrsNamedAreas");
+        List<Element> elements = descendants(record, "ncrsNamedAreas");
         if (elements == null) {
             return null;
         }
@@ -698,7 +674,7 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
 
     private List<ChronoStratigraphy> getChronoStratigraphyList() {
         Element record = input.getRecord();
-        List<Element> elems = DOMUtil.getDescendants(record, "ncrsChronoStratigraphy");
+        List<Element> elems = descendants(record, "ncrsChronoStratigraphy");
         if (elems == null) {
             return null;
         }
@@ -743,7 +719,7 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
 
     private List<BioStratigraphy> getBioStratigraphyList() {
         Element record = input.getRecord();
-        List<Element> elems = DOMUtil.getDescendants(record, "ncrsBioStratigraphy");
+        List<Element> elems = descendants(record, "ncrsBioStratigraphy");
         if (elems == null) {
             return null;
         }
@@ -777,7 +753,7 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
 
     private List<LithoStratigraphy> getLithoStratigraphyList() {
         Element record = input.getRecord();
-        List<Element> lithoStratigraphyElements = DOMUtil.getDescendants(record, "ncrsLithoStratigraphy");
+        List<Element> lithoStratigraphyElements = descendants(record, "ncrsLithoStratigraphy");
         if (lithoStratigraphyElements == null) {
             return null;
         }
@@ -978,7 +954,8 @@ class CrsSpecimenTransformer extends AbstractXMLTransformer<Specimen> {
     }
 
     private String val(Element e, String tag) {
-        String s = DOMUtil.getDescendantValue(e, tag);
+        ElementIndex index = index(e);
+        String s = index == null ? DOMUtil.getDescendantValue(e, tag) : index.getDescendantValue(e, tag);
         if (s == null) {
             if (logger.isDebugEnabled()) {
                 debug("No element <%s> under element <%s>", tag, e.getTagName());
@@ -0,0 +1,156 @@
+package nl.naturalis.nba.etl.enrich;
+
+import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.NOT_ENRICHABLE;
+import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createEnrichments;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.Logger;
+
+import nl.naturalis.nba.api.model.Taxon;
+import nl.naturalis.nba.api.model.TaxonomicEnrichment;
+
+/**
+ * A least-recently-used cache mapping scientific name groups to the taxonomic
+ * enrichments created for them. The enrichers use it to avoid querying the
+ * taxon index again for names already looked up for a previous batch. Names
+ * without taxa (or whose taxa yield no enrichments) are cached as well, so
+ * they are not queried again either.
+ *
+ * <p>
+ * This class is not thread-safe. The enrichers only access it from the thread
+ * doing the lookups (see {@link LookaheadBatchReader}). The statistics,
+ * however, can be read from any thread.
+ *
+ * @author Ayco Holleman
+ *
+ */
+class EnrichmentLookupCache {
+
+	private final int maxSize;
+	private final Function<String[], Map<String, List<Taxon>>> loader;
+	private final LinkedHashMap<String, List<TaxonomicEnrichment>> cache;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Creates a cache holding the enrichments for at most {@code maxSize}
+	 * names. Names not in the cache are looked up in the taxon index.
+	 *
+	 * @param maxSize
+	 */
+	EnrichmentLookupCache(int maxSize)
+	{
+		this(maxSize, EnrichmentUtil::createTaxonLookupTable);
+	}
+
+	EnrichmentLookupCache(int maxSize, Function<String[], Map<String, List<Taxon>>> loader)
+	{
+		this.maxSize = maxSize;
+		this.loader = loader;
+		this.cache = new LinkedHashMap<String, List<TaxonomicEnrichment>>(256, .75F, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<TaxonomicEnrichment>> eldest)
+			{
+				return size() > EnrichmentLookupCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns a lookup table containing the enrichments for each of the
+	 * specified names. Names that cannot be used for enrichment are mapped to
+	 * {@link EnrichmentUtil#NOT_ENRICHABLE NOT_ENRICHABLE}. The names not in
+	 * the cache are looked up in a single go.
+	 *
+	 * @param names
+	 * @return
+	 */
+	Map<String, List<TaxonomicEnrichment>> lookup(String[] names)
+	{
+		Map<String, List<TaxonomicEnrichment>> table = new HashMap<>(names.length + 1, 1F);
+		List<String> missing = new ArrayList<>();
+		for (String name : names) {
+			List<TaxonomicEnrichment> enrichments = cache.get(name);
+			if (enrichments == null) {
+				missing.add(name);
+			}
+			else {
+				table.put(name, enrichments);
+			}
+		}
+		hits.add(names.length - missing.size());
+		misses.add(missing.size());
+		if (!missing.isEmpty()) {
+			Map<String, List<Taxon>> taxa = loader.apply(missing.toArray(new String[missing.size()]));
+			for (String name : missing) {
+				List<TaxonomicEnrichment> enrichments = NOT_ENRICHABLE;
+				if (taxa.containsKey(name)) {
+					enrichments = createEnrichments(taxa.get(name));
+					if (enrichments.isEmpty()) {
+						enrichments = NOT_ENRICHABLE;
+					}
+				}
+				cache.put(name, enrichments);
+				table.put(name, enrichments);
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the number of names currently in the cache.
+	 *
+	 * @return
+	 */
+	int size()
+	{
+		return cache.size();
+	}
+
+	long getHits()
+	{
+		return hits.sum();
+	}
+
+	long getMisses()
+	{
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the percentage of names found in the cache.
+	 *
+	 * @return
+	 */
+	double getHitRatio()
+	{
+		return getHitRatio(hits.sum(), misses.sum());
+	}
+
+	private static double getHitRatio(long hits, long misses)
+	{
+		long total = hits + misses;
+		return total == 0 ? 0D : (100D * hits) / total;
+	}
+
+	void logStatistics(Logger logger)
+	{
+		long h = hits.sum();
+		long m = misses.sum();
+		logger.info("Names looked up in cache: {}", h + m);
+		logger.info("Cache hits: {}; misses: {}; hit ratio: {}%", h, m,
+				String.format("%.1f", getHitRatio(h, m)));
+	}
+
+}
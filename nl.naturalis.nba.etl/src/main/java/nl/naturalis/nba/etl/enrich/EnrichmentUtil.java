@@ -124,7 +124,7 @@ public class EnrichmentUtil {
 		return FileUtil.newFile(tmpDir, name.toString());
 	}
 
-	private static Map<String, List<Taxon>> createTaxonLookupTable(String[] names)
+	static Map<String, List<Taxon>> createTaxonLookupTable(String[] names)
 	{
 		if (logger.isDebugEnabled()) {
 			logger.debug("Creating taxon lookup table");
@@ -146,7 +146,7 @@ public class EnrichmentUtil {
 		return table;
 	}
 
-	private static Map<String, List<ServiceAccessPoint>> createMultiMediaLookupTable(String[] specimenIds)
+	static Map<String, List<ServiceAccessPoint>> createMultiMediaLookupTable(String[] specimenIds)
 	{
 		if (logger.isDebugEnabled()) {
 			logger.debug("Creating multimedia lookup table");
@@ -168,7 +168,7 @@ public class EnrichmentUtil {
 		return table;
 	}
 
-	private static String[] extractNamesFromSpecimens(List<Specimen> specimens)
+	static String[] extractNamesFromSpecimens(List<Specimen> specimens)
 	{
 		// Assume 3 identification per specimen
 		HashSet<String> names = new HashSet<>(specimens.size() * 3);
@@ -180,7 +180,7 @@ public class EnrichmentUtil {
 		return names.toArray(new String[names.size()]);
 	}
 
-	private static String[] extractIdsFromSpecimens(List<Specimen> specimens)
+	static String[] extractIdsFromSpecimens(List<Specimen> specimens)
 	{
 		HashSet<String> ids = new HashSet<>(specimens.size());
 		for (Specimen s : specimens) {
@@ -189,7 +189,7 @@ public class EnrichmentUtil {
 		return ids.toArray(new String[ids.size()]);
 	}
 
-	private static String[] extractNamesFromMultiMedia(List<MultiMediaObject> multimedia)
+	static String[] extractNamesFromMultiMedia(List<MultiMediaObject> multimedia)
 	{
 		HashSet<String> names = new HashSet<>(multimedia.size() * 3);
 		for (MultiMediaObject m : multimedia) {
@@ -0,0 +1,187 @@
+package nl.naturalis.nba.etl.enrich;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.Logger;
+
+import nl.naturalis.nba.etl.ETLRuntimeException;
+
+/**
+ * Reads batches of documents and creates the lookup table needed to enrich
+ * them one batch ahead of the caller. While the caller enriches and writes
+ * batch N, the lookup table for batch N+1 is created on a background thread.
+ * All lookups are done by that one thread, so the lookup function does not
+ * need to be thread-safe, as long as the caller does not use it as well.
+ *
+ * @author Ayco Holleman
+ *
+ * @param <T>
+ *            The type of the documents
+ * @param <L>
+ *            The type of the lookup table
+ */
+class LookaheadBatchReader<T, L> implements AutoCloseable {
+
+	private final Supplier<List<T>> batchSupplier;
+	private final Function<List<T>, L> lookupFunction;
+	private final ExecutorService executor;
+
+	private boolean started;
+	private List<T> nextBatch;
+	private Future<L> nextLookup;
+
+	private List<T> batch;
+	private L lookupTable;
+
+	private long lookups;
+	private volatile long lookupNanos;
+	private long waitNanos;
+
+	/**
+	 * Creates a reader that gets its batches from the specified supplier and
+	 * creates a lookup table for each batch using the specified function. The
+	 * supplier must return {@code null} once there are no more batches.
+	 *
+	 * @param batchSupplier
+	 * @param lookupFunction
+	 */
+	LookaheadBatchReader(Supplier<List<T>> batchSupplier, Function<List<T>, L> lookupFunction)
+	{
+		this.batchSupplier = batchSupplier;
+		this.lookupFunction = lookupFunction;
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "enrichment-lookup");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Moves to the next batch, waiting for its lookup table if necessary, and
+	 * starts the lookup for the batch after it. Returns {@code false} if there
+	 * are no more batches.
+	 *
+	 * @return
+	 */
+	boolean next()
+	{
+		if (!started) {
+			started = true;
+			readAhead();
+		}
+		if (nextBatch == null) {
+			batch = null;
+			lookupTable = null;
+			return false;
+		}
+		batch = nextBatch;
+		long start = System.nanoTime();
+		try {
+			lookupTable = nextLookup.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ETLRuntimeException(e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new ETLRuntimeException(e.getCause());
+		}
+		waitNanos += System.nanoTime() - start;
+		readAhead();
+		return true;
+	}
+
+	/**
+	 * Returns the current batch.
+	 *
+	 * @return
+	 */
+	List<T> getBatch()
+	{
+		return batch;
+	}
+
+	/**
+	 * Returns the lookup table for the current batch.
+	 *
+	 * @return
+	 */
+	L getLookupTable()
+	{
+		return lookupTable;
+	}
+
+	/**
+	 * Returns the number of batches for which a lookup table was created.
+	 *
+	 * @return
+	 */
+	long getLookups()
+	{
+		return lookups;
+	}
+
+	/**
+	 * Returns the average time in milliseconds it took to create a lookup
+	 * table.
+	 *
+	 * @return
+	 */
+	double getAverageLookupTime()
+	{
+		return lookups == 0 ? 0D : lookupNanos / (lookups * 1e6);
+	}
+
+	/**
+	 * Returns the total time in milliseconds the caller had to wait for lookup
+	 * tables, i.e. the lookup time that could not be overlapped with the
+	 * processing of the previous batch.
+	 *
+	 * @return
+	 */
+	long getWaitTime()
+	{
+		return waitNanos / 1000000;
+	}
+
+	void logStatistics(Logger logger)
+	{
+		logger.info("Lookup tables created: {} (average time: {} ms)", lookups,
+				String.format("%.1f", getAverageLookupTime()));
+		logger.info("Time spent waiting for lookup tables: {} ms", getWaitTime());
+	}
+
+	@Override
+	public void close()
+	{
+		executor.shutdownNow();
+	}
+
+	private void readAhead()
+	{
+		nextBatch = batchSupplier.get();
+		if (nextBatch == null) {
+			nextLookup = null;
+		}
+		else {
+			List<T> docs = nextBatch;
+			++lookups;
+			nextLookup = executor.submit(() -> {
+				long start = System.nanoTime();
+				L table = lookupFunction.apply(docs);
+				lookupNanos += System.nanoTime() - start;
+				return table;
+			});
+		}
+	}
+
+}
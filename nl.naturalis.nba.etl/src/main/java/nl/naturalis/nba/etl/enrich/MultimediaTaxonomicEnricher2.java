@@ -1,25 +1,17 @@
 package nl.naturalis.nba.etl.enrich;
 
+import static java.util.Collections.singletonMap;
 import static nl.naturalis.nba.dao.DocumentType.MULTI_MEDIA_OBJECT;
 import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_DRY_RUN;
+import static nl.naturalis.nba.etl.ETLConstants.SYS_PROP_ENRICH_LOOKUP_CACHE_SIZE;
 import static nl.naturalis.nba.etl.ETLConstants.SYS_PROP_ENRICH_READ_BATCH_SIZE;
 import static nl.naturalis.nba.etl.ETLConstants.SYS_PROP_ENRICH_WRITE_BATCH_SIZE;
 import static nl.naturalis.nba.etl.ETLUtil.getLogger;
 import static nl.naturalis.nba.etl.ETLUtil.logDuration;
 import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.NOT_ENRICHABLE;
-import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createEnrichments;
-import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createTempFile;
-import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createTaxonLookupTableForMultiMedia;
-
-import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.LineNumberReader;
+import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.extractNamesFromMultiMedia;
+
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,11 +19,8 @@ import org.apache.logging.log4j.Logger;
 
 import nl.naturalis.nba.api.QuerySpec;
 import nl.naturalis.nba.api.model.MultiMediaObject;
-import nl.naturalis.nba.api.model.Taxon;
 import nl.naturalis.nba.api.model.TaxonomicEnrichment;
 import nl.naturalis.nba.api.model.TaxonomicIdentification;
-import nl.naturalis.nba.common.json.JsonUtil;
-import nl.naturalis.nba.dao.DocumentType;
 import nl.naturalis.nba.dao.ESClientManager;
 import nl.naturalis.nba.dao.util.es.DirtyDocumentIterator;
 import nl.naturalis.nba.dao.util.es.ESUtil;
@@ -39,7 +28,6 @@ import nl.naturalis.nba.etl.BulkIndexException;
 import nl.naturalis.nba.etl.BulkIndexer;
 import nl.naturalis.nba.etl.ETLRuntimeException;
 import nl.naturalis.nba.utils.ConfigObject;
-import nl.naturalis.nba.utils.IOUtil;
 
 public class MultimediaTaxonomicEnricher2 {
 
@@ -62,92 +50,72 @@ public class MultimediaTaxonomicEnricher2 {
 	}
 
 	private static final Logger logger = getLogger(MultimediaTaxonomicEnricher2.class);
-	private static final byte[] NEW_LINE = "\n".getBytes();
 
 	private int readBatchSize = 1000;
 	private int writeBatchSize = 1000;
+	private int lookupCacheSize = 50000;
 
-	private File tempFile;
-
-	public void enrich() throws IOException, BulkIndexException
+	public void enrich() throws BulkIndexException
 	{
 		long start = System.currentTimeMillis();
-		tempFile = createTempFile(getClass().getSimpleName());
-		logger.info("Saving enriched multimedia to temp file: " + tempFile.getAbsolutePath());
-		saveToTempFile();
-		logger.info("Importing multimedia from temp file");
-		importFromTempFile();
-		tempFile.delete();
-		logDuration(logger, getClass(), start);
-	}
-
-	private void saveToTempFile() throws IOException
-	{
-		FileOutputStream fos = new FileOutputStream(tempFile);
-		BufferedOutputStream bos = new BufferedOutputStream(fos, 4096);
-		DocumentType<MultiMediaObject> dt = MULTI_MEDIA_OBJECT;
+		boolean dryRun = ConfigObject.isEnabled(SYSPROP_DRY_RUN);
+		BulkIndexer<MultiMediaObject> indexer = new BulkIndexer<>(MULTI_MEDIA_OBJECT);
 		QuerySpec qs = new QuerySpec();
 		qs.setSize(readBatchSize);
-		DirtyDocumentIterator<MultiMediaObject> extractor = new DirtyDocumentIterator<>(dt, qs);
+		/*
+		 * The identifications are all we need to look up the enrichments, and
+		 * all we send back. They are sent back as a whole, because Elasticsearch
+		 * cannot update individual array elements.
+		 */
+		qs.addFields("identifications");
+		DirtyDocumentIterator<MultiMediaObject> extractor = new DirtyDocumentIterator<>(MULTI_MEDIA_OBJECT, qs);
+		extractor.setPrefetchDepth(2);
+		List<String> ids = new ArrayList<>(writeBatchSize);
+		List<Map<String, Object>> updates = new ArrayList<>(writeBatchSize);
 		int batchNo = 0;
 		int enriched = 0;
-		List<MultiMediaObject> batch = extractor.nextBatch();
+		/*
+		 * The same names come back again and again, so we keep the enrichments
+		 * created for them across batches. The lookups for the next batch are
+		 * done while the current batch is being enriched and written.
+		 */
+		EnrichmentLookupCache cache = new EnrichmentLookupCache(lookupCacheSize);
+		LookaheadBatchReader<MultiMediaObject, Map<String, List<TaxonomicEnrichment>>> reader;
+		reader = new LookaheadBatchReader<>(extractor::nextBatch,
+				batch -> cache.lookup(extractNamesFromMultiMedia(batch)));
 		try {
-			while (batch != null) {
-				List<MultiMediaObject> enrichedMultimedia = enrichMultimedia(batch);
-				enriched += enrichedMultimedia.size();
-				for (MultiMediaObject mmo : enrichedMultimedia) {
-					byte[] json = JsonUtil.serialize(mmo);
-					bos.write(json);
-					bos.write(NEW_LINE);
+			while (reader.next()) {
+				List<MultiMediaObject> batch = reader.getBatch();
+				for (MultiMediaObject mmo : enrichMultimedia(batch, reader.getLookupTable())) {
+					ids.add(mmo.getId());
+					updates.add(singletonMap("identifications", mmo.getIdentifications()));
+					if (updates.size() == writeBatchSize) {
+						if (!dryRun) {
+							indexer.update(ids, updates);
+						}
+						ids.clear();
+						updates.clear();
+					}
+					++enriched;
 				}
 				if (++batchNo % 100 == 0) {
-					logger.info("MultiMediaObject documents processed: {}",
-							(batchNo * readBatchSize));
+					logger.info("MultiMediaObject documents processed: {}", (batchNo * readBatchSize));
 					logger.info("MultiMediaObject documents enriched: {}", enriched);
+					cache.logStatistics(logger);
 				}
-				batch = extractor.nextBatch();
+			}
+			if (!dryRun) {
+				indexer.update(ids, updates);
 			}
 		}
 		finally {
-			bos.close();
+			reader.close();
 			logger.info("MultiMediaObject documents read: {}", (batchNo * readBatchSize));
 			logger.info("MultiMediaObject documents enriched: {}", enriched);
+			cache.logStatistics(logger);
+			reader.logStatistics(logger);
 		}
-	}
-
-	private void importFromTempFile() throws IOException, BulkIndexException
-	{
-		boolean dryRun = ConfigObject.isEnabled(SYSPROP_DRY_RUN);
-		BulkIndexer<MultiMediaObject> indexer = new BulkIndexer<>(MULTI_MEDIA_OBJECT);
-		List<MultiMediaObject> batch = new ArrayList<>(writeBatchSize);
-		LineNumberReader lnr = null;
-		int processed = 0;
-		try {
-			FileReader fr = new FileReader(tempFile);
-			lnr = new LineNumberReader(fr, 4096);
-			String line;
-			while ((line = lnr.readLine()) != null) {
-				MultiMediaObject mmo = JsonUtil.deserialize(line, MultiMediaObject.class);
-				batch.add(mmo);
-				if (batch.size() == writeBatchSize) {
-					if (!dryRun) {
-						indexer.index(batch);
-					}
-					batch.clear();
-				}
-				if (++processed % 100000 == 0) {
-					logger.info("MultiMediaObject documents imported: {}", processed);
-				}
-			}
-     if (!dryRun && batch.size() != 0) {
-        indexer.index(batch);
-      }
-      logger.info("MultiMediaObject documents imported: {}", processed);
-		}
-		finally {
-			IOUtil.close(lnr);
-		}
+		logDuration(logger, getClass(), start);
 	}
 
 	public void configureWithSystemProperties()
@@ -166,6 +134,13 @@ public class MultimediaTaxonomicEnricher2 {
 		catch (NumberFormatException e) {
 			throw new ETLRuntimeException("Invalid write batch size: " + prop);
 		}
+		prop = System.getProperty(SYS_PROP_ENRICH_LOOKUP_CACHE_SIZE, "50000");
+		try {
+			setLookupCacheSize(Integer.parseInt(prop));
+		}
+		catch (NumberFormatException e) {
+			throw new ETLRuntimeException("Invalid lookup cache size: " + prop);
+		}
 	}
 
 	public int getReadBatchSize()
@@ -188,16 +163,19 @@ public class MultimediaTaxonomicEnricher2 {
 		this.writeBatchSize = writeBatchSize;
 	}
 
-	private static List<MultiMediaObject> enrichMultimedia(List<MultiMediaObject> mmos)
+	public int getLookupCacheSize()
+	{
+		return lookupCacheSize;
+	}
+
+	public void setLookupCacheSize(int lookupCacheSize)
+	{
+		this.lookupCacheSize = lookupCacheSize;
+	}
+
+	private static List<MultiMediaObject> enrichMultimedia(List<MultiMediaObject> mmos,
+			Map<String, List<TaxonomicEnrichment>> lookupTable)
 	{
-		Map<String, List<Taxon>> taxonLookupTable = createTaxonLookupTableForMultiMedia(mmos);
-		if (taxonLookupTable.isEmpty()) {
-			if (logger.isDebugEnabled()) {
-				logger.debug("No taxa found for current batch of multimedia");
-			}
-			return Collections.emptyList();
-		}
-		Map<String, List<TaxonomicEnrichment>> cache = new HashMap<>(mmos.size());
 		List<MultiMediaObject> result = new ArrayList<>(mmos.size());
 		for (MultiMediaObject mmo : mmos) {
 			if (mmo.getIdentifications() == null) {
@@ -206,26 +184,8 @@ public class MultimediaTaxonomicEnricher2 {
 			boolean enriched = false;
 			for (TaxonomicIdentification si : mmo.getIdentifications()) {
 				String name = si.getScientificName().getScientificNameGroup();
-				List<TaxonomicEnrichment> enrichments = cache.get(name);
-				if (enrichments == null) {
-					// Is this scientific name also present in the Taxon index?
-					List<Taxon> taxa = taxonLookupTable.get(name);
-					if (taxa == null) { // No
-						cache.put(name, NOT_ENRICHABLE);
-					}
-					else {
-						enrichments = createEnrichments(taxa);
-						if (enrichments.isEmpty()) {
-							cache.put(name, NOT_ENRICHABLE);
-						}
-						else {
-							cache.put(name, enrichments);
-							si.setTaxonomicEnrichments(enrichments);
-							enriched = true;
-						}
-					}
-				}
-				else if (enrichments != NOT_ENRICHABLE) {
+				List<TaxonomicEnrichment> enrichments = lookupTable.get(name);
+				if (enrichments != null && enrichments != NOT_ENRICHABLE) {
 					si.setTaxonomicEnrichments(enrichments);
 					enriched = true;
 				}
@@ -234,6 +194,9 @@ public class MultimediaTaxonomicEnricher2 {
 				result.add(mmo);
 			}
 		}
+		if (logger.isDebugEnabled() && result.isEmpty()) {
+			logger.debug("No enrichments found for current batch of multimedia");
+		}
 		return result;
 	}
 
@@ -86,6 +86,7 @@ public class SpecimenEnrichmentNullifier {
 		}
 
 		DirtyDocumentIterator<Specimen> iterator = new DirtyDocumentIterator<>(dt, qs);
+		iterator.setPrefetchDepth(2);
 		BulkIndexer<Specimen> indexer = new BulkIndexer<>(SPECIMEN);
 		ArrayList<Specimen> batch = new ArrayList<>(batchSize);
 		int processed = 0;
@@ -1,19 +1,12 @@
 package nl.naturalis.nba.etl.enrich;
 
+import static java.util.Collections.singletonMap;
 import static nl.naturalis.nba.dao.DocumentType.SPECIMEN;
 import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_DRY_RUN;
 import static nl.naturalis.nba.etl.ETLConstants.SYS_PROP_ENRICH_READ_BATCH_SIZE;
 import static nl.naturalis.nba.etl.ETLConstants.SYS_PROP_ENRICH_WRITE_BATCH_SIZE;
 import static nl.naturalis.nba.etl.ETLUtil.getLogger;
 import static nl.naturalis.nba.etl.ETLUtil.logDuration;
-import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createMultiMediaLookupTableForSpecimens;
-import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createTempFile;
-import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.LineNumberReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -23,8 +16,6 @@ import nl.naturalis.nba.api.QueryCondition;
 import nl.naturalis.nba.api.QuerySpec;
 import nl.naturalis.nba.api.model.ServiceAccessPoint;
 import nl.naturalis.nba.api.model.Specimen;
-import nl.naturalis.nba.common.json.JsonUtil;
-import nl.naturalis.nba.dao.DocumentType;
 import nl.naturalis.nba.dao.ESClientManager;
 import nl.naturalis.nba.dao.util.es.DirtyDocumentIterator;
 import nl.naturalis.nba.dao.util.es.ESUtil;
@@ -32,7 +23,6 @@ import nl.naturalis.nba.etl.BulkIndexException;
 import nl.naturalis.nba.etl.BulkIndexer;
 import nl.naturalis.nba.etl.ETLRuntimeException;
 import nl.naturalis.nba.utils.ConfigObject;
-import nl.naturalis.nba.utils.IOUtil;
 
 public class SpecimenMultimediaEnricher {
 
@@ -52,94 +42,64 @@ public class SpecimenMultimediaEnricher {
   }
 
   private static final Logger logger = getLogger(SpecimenMultimediaEnricher.class);
-  private static final byte[] NEW_LINE = "\n".getBytes();
 
   private int readBatchSize = 1000;
   private int writeBatchSize = 1000;
 
-  private File tempFile;
-
-  public void enrich() throws IOException, BulkIndexException {
+  public void enrich() throws BulkIndexException {
     if (ConfigObject.isEnabled(SYSPROP_DRY_RUN)) {
       logger.info("Enrichment skipped dry run mode");
       return;
     }
     long start = System.currentTimeMillis();
-    tempFile = createTempFile(getClass().getSimpleName());
-    logger.info("Writing enriched specimens to " + tempFile.getAbsolutePath());
-    saveToTempFile();
-    logger.info("Reading enriched specimens from " + tempFile.getAbsolutePath());
-    importTempFile();
-    tempFile.delete();
-    logDuration(logger, getClass(), start);
-  }
-
-  private void saveToTempFile() throws IOException {
-    FileOutputStream fos = new FileOutputStream(tempFile);
-    BufferedOutputStream bos = new BufferedOutputStream(fos, 4096);
-    DocumentType<Specimen> dt = SPECIMEN;
+    BulkIndexer<Specimen> indexer = new BulkIndexer<>(SPECIMEN);
     QueryCondition condition = new QueryCondition("sourceSystem.code", "=", "CRS");
     QuerySpec qs = new QuerySpec();
     qs.setConstantScore(true);
     qs.addCondition(condition);
     qs.setSize(readBatchSize);
-    DirtyDocumentIterator<Specimen> extractor = new DirtyDocumentIterator<>(dt, qs);
+    // The multimedia are looked up by specimen ID, so we need no more than that
+    qs.addFields("unitID");
+    DirtyDocumentIterator<Specimen> extractor = new DirtyDocumentIterator<>(SPECIMEN, qs);
+    extractor.setPrefetchDepth(2);
+    List<String> ids = new ArrayList<>(writeBatchSize);
+    List<Map<String, Object>> updates = new ArrayList<>(writeBatchSize);
     int batchNo = 0;
     int enriched = 0;
-    List<Specimen> batch = extractor.nextBatch();
+    /*
+     * Every specimen is read only once, so there is nothing to gain from caching the multimedia
+     * across batches. We do look them up for the next batch while the current batch is being
+     * enriched and written, though.
+     */
+    LookaheadBatchReader<Specimen, Map<String, List<ServiceAccessPoint>>> reader;
+    reader = new LookaheadBatchReader<>(extractor::nextBatch,
+        EnrichmentUtil::createMultiMediaLookupTableForSpecimens);
     try {
-      while (batch != null) {
-        List<Specimen> enrichedSpecimens = enrichSpecimens(batch);
-        enriched += enrichedSpecimens.size();
-        // Temporary file with JSON record per line
-        for (Specimen specimen : enrichedSpecimens) {
-          byte[] json = JsonUtil.serialize(specimen);
-          bos.write(json);
-          bos.write(NEW_LINE);
+      while (reader.next()) {
+        List<Specimen> batch = reader.getBatch();
+        for (Specimen specimen : enrichSpecimens(batch, reader.getLookupTable())) {
+          ids.add(specimen.getId());
+          updates.add(singletonMap("associatedMultiMediaUris", specimen.getAssociatedMultiMediaUris()));
+          if (updates.size() == writeBatchSize) {
+            indexer.update(ids, updates);
+            ids.clear();
+            updates.clear();
+          }
+          ++enriched;
         }
         if (++batchNo % 100 == 0) {
           logger.info("Specimen documents processed: {}", (batchNo * readBatchSize));
           logger.info("Specimen documents enriched: {}", enriched);
         }
-        batch = extractor.nextBatch();
       }
+      indexer.update(ids, updates);
     } finally {
-      bos.close();
+      reader.close();
       logger.info("Specimen documents read: {}", (batchNo * readBatchSize));
       logger.info("Specimen documents enriched: {}", enriched);
+      reader.logStatistics(logger);
     }
-  }
-
-  private void importTempFile() throws IOException, BulkIndexException {
-    boolean dryRun = ConfigObject.isEnabled(SYSPROP_DRY_RUN);
-    BulkIndexer<Specimen> indexer = new BulkIndexer<>(SPECIMEN);
-    List<Specimen> batch = new ArrayList<>(writeBatchSize);
-    LineNumberReader lnr = null;
-    int processed = 0;
-    try {
-      FileReader fr = new FileReader(tempFile);
-      lnr = new LineNumberReader(fr, 4096);
-      String line;
-      while ((line = lnr.readLine()) != null) {
-        Specimen specimen = JsonUtil.deserialize(line, Specimen.class);
-        batch.add(specimen);
-        if (batch.size() == writeBatchSize) {
-          if (!dryRun) {
-            indexer.index(batch);
-          }
-          batch.clear();
-        }
-        if (++processed % 100000 == 0) {
-          logger.info("Specimen documents updated: {}", processed);
-        }
-      }
-    } finally {
-      if (!dryRun && batch.size() > 0) {
-        indexer.index(batch);
-        logger.info("Specimen documents updated: {}", processed);
-      }
-      IOUtil.close(lnr);
-    }
+    logDuration(logger, getClass(), start);
   }
 
   public void configureWithSystemProperties() {
@@ -173,12 +133,8 @@ public class SpecimenMultimediaEnricher {
     this.writeBatchSize = writeBatchSize;
   }
 
-  private static List<Specimen> enrichSpecimens(List<Specimen> specimens) {
-    if (logger.isDebugEnabled()) {
-      logger.debug("Creating multimedia lookup table");
-    }
-    Map<String, List<ServiceAccessPoint>> multimediaLookupTable;
-    multimediaLookupTable = createMultiMediaLookupTableForSpecimens(specimens);
+  private static List<Specimen> enrichSpecimens(List<Specimen> specimens,
+      Map<String, List<ServiceAccessPoint>> multimediaLookupTable) {
     if (multimediaLookupTable.isEmpty()) {
       if (logger.isDebugEnabled()) {
         logger.debug("No multimedia found for current batch of specimens");
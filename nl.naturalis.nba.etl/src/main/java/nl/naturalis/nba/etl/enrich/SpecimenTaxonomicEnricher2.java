@@ -1,25 +1,17 @@
 package nl.naturalis.nba.etl.enrich;
 
+import static java.util.Collections.singletonMap;
 import static nl.naturalis.nba.dao.DocumentType.SPECIMEN;
 import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_DRY_RUN;
+import static nl.naturalis.nba.etl.ETLConstants.SYS_PROP_ENRICH_LOOKUP_CACHE_SIZE;
 import static nl.naturalis.nba.etl.ETLConstants.SYS_PROP_ENRICH_READ_BATCH_SIZE;
 import static nl.naturalis.nba.etl.ETLConstants.SYS_PROP_ENRICH_WRITE_BATCH_SIZE;
 import static nl.naturalis.nba.etl.ETLUtil.getLogger;
 import static nl.naturalis.nba.etl.ETLUtil.logDuration;
 import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.NOT_ENRICHABLE;
-import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createEnrichments;
-import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createTaxonLookupTableForSpecimens;
-import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createTempFile;
-
-import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.LineNumberReader;
+import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.extractNamesFromSpecimens;
+
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,11 +19,8 @@ import org.apache.logging.log4j.Logger;
 
 import nl.naturalis.nba.api.QuerySpec;
 import nl.naturalis.nba.api.model.Specimen;
-import nl.naturalis.nba.api.model.Taxon;
 import nl.naturalis.nba.api.model.TaxonomicEnrichment;
 import nl.naturalis.nba.api.model.TaxonomicIdentification;
-import nl.naturalis.nba.common.json.JsonUtil;
-import nl.naturalis.nba.dao.DocumentType;
 import nl.naturalis.nba.dao.ESClientManager;
 import nl.naturalis.nba.dao.util.es.DirtyDocumentIterator;
 import nl.naturalis.nba.dao.util.es.ESUtil;
@@ -39,7 +28,6 @@ import nl.naturalis.nba.etl.BulkIndexException;
 import nl.naturalis.nba.etl.BulkIndexer;
 import nl.naturalis.nba.etl.ETLRuntimeException;
 import nl.naturalis.nba.utils.ConfigObject;
-import nl.naturalis.nba.utils.IOUtil;
 
 public class SpecimenTaxonomicEnricher2 {
 
@@ -62,94 +50,72 @@ public class SpecimenTaxonomicEnricher2 {
 	}
 
 	private static final Logger logger = getLogger(SpecimenTaxonomicEnricher2.class);
-	private static final byte[] NEW_LINE = "\n".getBytes();
 
 	private int readBatchSize = 1000;
 	private int writeBatchSize = 1000;
+	private int lookupCacheSize = 50000;
 
-	private File tempFile;
-
-	public void enrich() throws IOException, BulkIndexException
+	public void enrich() throws BulkIndexException
 	{
 		long start = System.currentTimeMillis();
-		tempFile = createTempFile(getClass().getSimpleName());
-		logger.info("Writing enriched specimens to " + tempFile.getAbsolutePath());
-		saveToTempFile();
-		
-//		System.exit(0);
-		
-		logger.info("Reading enriched specimens from " + tempFile.getAbsolutePath());
-		importFromTempFile();
-		tempFile.delete();
-		logDuration(logger, getClass(), start);
-	}
-
-	private void saveToTempFile() throws IOException
-	{
-		FileOutputStream fos = new FileOutputStream(tempFile);
-		BufferedOutputStream bos = new BufferedOutputStream(fos, 4096);
-		DocumentType<Specimen> dt = SPECIMEN;
+		boolean dryRun = ConfigObject.isEnabled(SYSPROP_DRY_RUN);
+		BulkIndexer<Specimen> indexer = new BulkIndexer<>(SPECIMEN);
 		QuerySpec qs = new QuerySpec();
 		qs.setSize(readBatchSize);
-		DirtyDocumentIterator<Specimen> extractor = new DirtyDocumentIterator<>(dt, qs);
+		/*
+		 * The identifications are all we need to look up the enrichments, and
+		 * all we send back. They are sent back as a whole, because Elasticsearch
+		 * cannot update individual array elements.
+		 */
+		qs.addFields("identifications");
+		DirtyDocumentIterator<Specimen> extractor = new DirtyDocumentIterator<>(SPECIMEN, qs);
+		extractor.setPrefetchDepth(2);
+		List<String> ids = new ArrayList<>(writeBatchSize);
+		List<Map<String, Object>> updates = new ArrayList<>(writeBatchSize);
 		int batchNo = 0;
 		int enriched = 0;
-		List<Specimen> batch = extractor.nextBatch();
+		/*
+		 * The same names come back again and again, so we keep the enrichments
+		 * created for them across batches. The lookups for the next batch are
+		 * done while the current batch is being enriched and written.
+		 */
+		EnrichmentLookupCache cache = new EnrichmentLookupCache(lookupCacheSize);
+		LookaheadBatchReader<Specimen, Map<String, List<TaxonomicEnrichment>>> reader;
+		reader = new LookaheadBatchReader<>(extractor::nextBatch,
+				batch -> cache.lookup(extractNamesFromSpecimens(batch)));
 		try {
-			while (batch != null) {
-				List<Specimen> enrichedSpecimens = enrichSpecimens(batch);
-				enriched += enrichedSpecimens.size();
-				for (Specimen specimen : enrichedSpecimens) {
-					byte[] json = JsonUtil.serialize(specimen);
-					bos.write(json);
-					bos.write(NEW_LINE);
+			while (reader.next()) {
+				List<Specimen> batch = reader.getBatch();
+				for (Specimen specimen : enrichSpecimens(batch, reader.getLookupTable())) {
+					ids.add(specimen.getId());
+					updates.add(singletonMap("identifications", specimen.getIdentifications()));
+					if (updates.size() == writeBatchSize) {
+						if (!dryRun) {
+							indexer.update(ids, updates);
+						}
+						ids.clear();
+						updates.clear();
+					}
+					++enriched;
 				}
 				if (++batchNo % 100 == 0) {
 					logger.info("Specimen documents processed: {}", (batchNo * readBatchSize));
 					logger.info("Specimen documents enriched: {}", enriched);
+					cache.logStatistics(logger);
 				}
-				batch = extractor.nextBatch();
+			}
+			if (!dryRun) {
+				indexer.update(ids, updates);
 			}
 		}
 		finally {
-			bos.close();
+			reader.close();
 			logger.info("Specimen documents read: {}", (batchNo * readBatchSize));
 			logger.info("Specimen documents enriched: {}", enriched);
+			cache.logStatistics(logger);
+			reader.logStatistics(logger);
 		}
-	}
-
-	private void importFromTempFile() throws IOException, BulkIndexException
-	{
-		boolean dryRun = ConfigObject.isEnabled(SYSPROP_DRY_RUN);
-		BulkIndexer<Specimen> indexer = new BulkIndexer<>(SPECIMEN);
-		List<Specimen> batch = new ArrayList<>(writeBatchSize);
-		LineNumberReader lnr = null;
-		int processed = 0;
-		try {
-			FileReader fr = new FileReader(tempFile);
-			lnr = new LineNumberReader(fr, 4096);
-			String line;
-			while ((line = lnr.readLine()) != null) {
-				Specimen specimen = JsonUtil.deserialize(line, Specimen.class);
-				batch.add(specimen);
-				if (batch.size() == writeBatchSize) {
-					if (!dryRun) {
-						indexer.index(batch);
-					}
-					batch.clear();
-				}
-				if (++processed % 100000 == 0) {
-					logger.info("Specimen documents imported: {}", processed);
-				}
-			}
-			if (batch.size() > 0) {
-			  indexer.index(batch);
-			}
-			logger.info("Total specimen documents updated: {}", processed);
-		}
-		finally {
-			IOUtil.close(lnr);
-		}
+		logDuration(logger, getClass(), start);
 	}
 
 	public void configureWithSystemProperties()
@@ -168,6 +134,13 @@ public class SpecimenTaxonomicEnricher2 {
 		catch (NumberFormatException e) {
 			throw new ETLRuntimeException("Invalid write batch size: " + prop);
 		}
+		prop = System.getProperty(SYS_PROP_ENRICH_LOOKUP_CACHE_SIZE, "50000");
+		try {
+			setLookupCacheSize(Integer.parseInt(prop));
+		}
+		catch (NumberFormatException e) {
+			throw new ETLRuntimeException("Invalid lookup cache size: " + prop);
+		}
 	}
 
 	public int getReadBatchSize()
@@ -193,16 +166,19 @@ public class SpecimenTaxonomicEnricher2 {
 		this.writeBatchSize = writeBatchSize;
 	}
 
-	private static List<Specimen> enrichSpecimens(List<Specimen> specimens)
+	public int getLookupCacheSize()
+	{
+		return lookupCacheSize;
+	}
+
+	public void setLookupCacheSize(int lookupCacheSize)
+	{
+		this.lookupCacheSize = lookupCacheSize;
+	}
+
+	private static List<Specimen> enrichSpecimens(List<Specimen> specimens,
+			Map<String, List<TaxonomicEnrichment>> lookupTable)
 	{
-		Map<String, List<Taxon>> taxonLookupTable = createTaxonLookupTableForSpecimens(specimens);
-		if (taxonLookupTable.isEmpty()) {
-			if (logger.isDebugEnabled()) {
-				logger.debug("No taxa found for current batch of specimens");
-			}
-			return Collections.emptyList();
-		}
-		Map<String, List<TaxonomicEnrichment>> cache = new HashMap<>(specimens.size());
 		List<Specimen> result = new ArrayList<>(specimens.size());
 		for (Specimen specimen : specimens) {
 			if (specimen.getIdentifications() == null) {
@@ -211,26 +187,8 @@ public class SpecimenTaxonomicEnricher2 {
 			boolean enriched = false;
 			for (TaxonomicIdentification si : specimen.getIdentifications()) {
 				String name = si.getScientificName().getScientificNameGroup();
-				List<TaxonomicEnrichment> enrichments = cache.get(name);
-				if (enrichments == null) {
-					// Is this scientific name also present in the Taxon index?
-					List<Taxon> taxa = taxonLookupTable.get(name);
-					if (taxa == null) { // No
-						cache.put(name, NOT_ENRICHABLE);
-					}
-					else {
-						enrichments = createEnrichments(taxa);
-						if (enrichments.isEmpty()) {
-							cache.put(name, NOT_ENRICHABLE);
-						}
-						else {
-							cache.put(name, enrichments);
-							si.setTaxonomicEnrichments(enrichments);
-							enriched = true;
-						}
-					}
-				}
-				else if (enrichments != NOT_ENRICHABLE) {
+				List<TaxonomicEnrichment> enrichments = lookupTable.get(name);
+				if (enrichments != null && enrichments != NOT_ENRICHABLE) {
 					si.setTaxonomicEnrichments(enrichments);
 					enriched = true;
 				}
@@ -239,6 +197,9 @@ public class SpecimenTaxonomicEnricher2 {
 				result.add(specimen);
 			}
 		}
+		if (logger.isDebugEnabled() && result.isEmpty()) {
+			logger.debug("No enrichments found for current batch of specimens");
+		}
 		return result;
 	}
 
@@ -0,0 +1,365 @@
+package nl.naturalis.nba.etl.enrich;
+
+import static nl.naturalis.nba.dao.DocumentType.TAXON;
+import static nl.naturalis.nba.etl.ETLUtil.getLogger;
+import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.createEnrichments;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.naturalis.nba.api.QuerySpec;
+import nl.naturalis.nba.api.model.DefaultClassification;
+import nl.naturalis.nba.api.model.Taxon;
+import nl.naturalis.nba.api.model.TaxonomicEnrichment;
+import nl.naturalis.nba.api.model.TaxonomicRank;
+import nl.naturalis.nba.api.model.summary.SummarySourceSystem;
+import nl.naturalis.nba.common.json.ObjectMapperLocator;
+import nl.naturalis.nba.dao.DaoRegistry;
+import nl.naturalis.nba.dao.ESClientManager;
+import nl.naturalis.nba.dao.exception.DaoException;
+import nl.naturalis.nba.dao.util.es.AcidDocumentIterator;
+import nl.naturalis.nba.dao.util.es.ESUtil;
+import nl.naturalis.nba.etl.ETLRuntimeException;
+import nl.naturalis.nba.utils.ConfigObject;
+import nl.naturalis.nba.utils.FileUtil;
+
+/**
+ * An in-memory index of the taxonomic enrichments for each scientific name
+ * group. Used by the transformers to enrich specimens and multimedia while
+ * they are being imported (etl.enrich=true). The index is built once per run,
+ * by scanning the taxon index, so that the transformers need not query
+ * Elasticsearch for each identification they come across. If property
+ * etl.enrich.data.dir is set, the index is also saved to that directory, and
+ * subsequent runs reuse it for as long as the taxon index has not changed.
+ *
+ * <p>
+ * The index is immutable and can be used by multiple threads simultaneously.
+ * The lists it hands out are unmodifiable and shared between documents.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class TaxonomicEnrichmentIndex {
+
+	private static final Logger logger = getLogger(TaxonomicEnrichmentIndex.class);
+
+	private static final String CACHE_FILE_NAME = "taxonomic-enrichments.json.gz";
+	private static final int SCROLL_BATCH_SIZE = 1000;
+
+	private static TaxonomicEnrichmentIndex instance;
+
+	/**
+	 * Returns the index, building or loading it if this is the first call.
+	 *
+	 * @return
+	 */
+	public static synchronized TaxonomicEnrichmentIndex getInstance()
+	{
+		if (instance == null) {
+			instance = load();
+		}
+		return instance;
+	}
+
+	private final String version;
+	private final Map<String, List<TaxonomicEnrichment>> index;
+
+	private TaxonomicEnrichmentIndex(String version, Map<String, List<TaxonomicEnrichment>> index)
+	{
+		this.version = version;
+		this.index = index;
+	}
+
+	/**
+	 * Returns the taxonomic enrichments for the specified scientific name group
+	 * (case-insensitive), or {@code null} if there are no taxa with that
+	 * scientific name group. The returned list may be empty if there are taxa
+	 * with that scientific name group, but none of them provides enrichment
+	 * data.
+	 *
+	 * @param scientificNameGroup
+	 * @return
+	 */
+	public List<TaxonomicEnrichment> getEnrichments(String scientificNameGroup)
+	{
+		if (scientificNameGroup == null) {
+			return null;
+		}
+		return index.get(scientificNameGroup.toLowerCase());
+	}
+
+	/**
+	 * Returns the number of scientific name groups in the index.
+	 *
+	 * @return
+	 */
+	public int size()
+	{
+		return index.size();
+	}
+
+	/**
+	 * Returns the version of the taxon index this index was built from.
+	 *
+	 * @return
+	 */
+	public String getVersion()
+	{
+		return version;
+	}
+
+	/*
+	 * Builds the index from the specified taxa. Package private for unit
+	 * testing.
+	 */
+	static TaxonomicEnrichmentIndex build(Iterable<Taxon> taxa, String version)
+	{
+		Map<String, List<TaxonomicEnrichment>> index = new HashMap<>(1 << 16);
+		Interner interner = new Interner();
+		for (Taxon taxon : taxa) {
+			if (taxon.getAcceptedName() == null) {
+				continue;
+			}
+			String group = taxon.getAcceptedName().getScientificNameGroup();
+			if (group == null) {
+				continue;
+			}
+			List<TaxonomicEnrichment> enrichments = index.get(group = group.toLowerCase());
+			if (enrichments == null) {
+				index.put(group, enrichments = new ArrayList<>(1));
+			}
+			for (TaxonomicEnrichment enrichment : createEnrichments(Collections.singletonList(taxon))) {
+				enrichments.add(interner.intern(enrichment));
+			}
+		}
+		for (Map.Entry<String, List<TaxonomicEnrichment>> entry : index.entrySet()) {
+			entry.setValue(seal(entry.getValue()));
+		}
+		return new TaxonomicEnrichmentIndex(version, index);
+	}
+
+	/*
+	 * Saves the index to the specified file. Package private for unit testing.
+	 */
+	void save(File file) throws IOException
+	{
+		ObjectMapper om = ObjectMapperLocator.getInstance().getObjectMapper(TaxonomicEnrichment.class);
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (OutputStream out = new GZIPOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024));
+				JsonGenerator gen = om.getFactory().createGenerator(out)) {
+			gen.writeStartObject();
+			gen.writeStringField("version", version);
+			gen.writeObjectFieldStart("index");
+			for (Map.Entry<String, List<TaxonomicEnrichment>> entry : index.entrySet()) {
+				gen.writeFieldName(entry.getKey());
+				om.writeValue(gen, entry.getValue());
+			}
+			gen.writeEndObject();
+			gen.writeEndObject();
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/*
+	 * Reads an index saved to the specified file. Package private for unit
+	 * testing.
+	 */
+	static TaxonomicEnrichmentIndex read(File file) throws IOException
+	{
+		ObjectMapper om = ObjectMapperLocator.getInstance().getObjectMapper(TaxonomicEnrichment.class);
+		Map<String, List<TaxonomicEnrichment>> index = new HashMap<>(1 << 16);
+		Interner interner = new Interner();
+		String version = null;
+		try (InputStream in = new GZIPInputStream(
+				new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+				JsonParser parser = om.getFactory().createParser(in)) {
+			expect(parser, JsonToken.START_OBJECT);
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				if (field.equals("version")) {
+					expect(parser, JsonToken.VALUE_STRING);
+					version = parser.getText();
+					continue;
+				}
+				expect(parser, JsonToken.START_OBJECT);
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String group = parser.getCurrentName();
+					expect(parser, JsonToken.START_ARRAY);
+					TaxonomicEnrichment[] enrichments = om.readValue(parser, TaxonomicEnrichment[].class);
+					List<TaxonomicEnrichment> list = new ArrayList<>(enrichments.length);
+					for (TaxonomicEnrichment enrichment : enrichments) {
+						list.add(interner.intern(enrichment));
+					}
+					index.put(group, seal(list));
+				}
+			}
+		}
+		return new TaxonomicEnrichmentIndex(version, index);
+	}
+
+	private static TaxonomicEnrichmentIndex load()
+	{
+		long start = System.currentTimeMillis();
+		String version = getTaxonIndexVersion();
+		File file = getCacheFile();
+		TaxonomicEnrichmentIndex idx = null;
+		if (file != null && file.isFile()) {
+			try {
+				idx = read(file);
+			}
+			catch (IOException e) {
+				logger.warn("Failed to read {}: {}", file.getAbsolutePath(), e.getMessage());
+			}
+			if (idx != null && !version.equals(idx.version)) {
+				logger.info("Taxon index has changed since {} was saved", file.getName());
+				idx = null;
+			}
+		}
+		if (idx == null) {
+			logger.info("Building taxonomic enrichment index from taxon index");
+			QuerySpec qs = new QuerySpec();
+			qs.addFields("sourceSystem", "acceptedName.scientificNameGroup", "defaultClassification",
+					"synonyms", "vernacularNames");
+			AcidDocumentIterator<Taxon> taxa = new AcidDocumentIterator<>(TAXON, qs);
+			taxa.setBatchSize(SCROLL_BATCH_SIZE);
+			idx = build(taxa, version);
+			if (file != null) {
+				try {
+					idx.save(file);
+					logger.info("Taxonomic enrichment index saved to {}", file.getAbsolutePath());
+				}
+				catch (IOException e) {
+					logger.warn("Failed to save {}: {}", file.getAbsolutePath(), e.getMessage());
+				}
+			}
+		}
+		String fmt = "Taxonomic enrichment index ready: {} scientific name groups ({} ms)";
+		logger.info(fmt, idx.size(), System.currentTimeMillis() - start);
+		return idx;
+	}
+
+	private static File getCacheFile()
+	{
+		ConfigObject config = DaoRegistry.getInstance().getConfiguration();
+		String dir = config.get("etl.enrich.data.dir", true);
+		if (dir == null) {
+			return null;
+		}
+		File f = new File(dir);
+		if (!f.isDirectory() && !f.mkdirs()) {
+			throw new ETLRuntimeException("Failed to create directory " + f.getAbsolutePath());
+		}
+		return FileUtil.newFile(f, CACHE_FILE_NAME);
+	}
+
+	/*
+	 * Returns a fingerprint of the taxon index, made up of the index's UUID,
+	 * its document count and the sum of the highest sequence number of each
+	 * primary shard. The latter changes with every write to the index, even if
+	 * the document count remains the same.
+	 */
+	private static String getTaxonIndexVersion()
+	{
+		String index = TAXON.getIndexInfo().getName();
+		String uuid = ESUtil.getIndexSetting(TAXON, "index.uuid");
+		Request request = new Request("GET", "/" + index + "/_stats");
+		request.addParameter("level", "shards");
+		JsonNode stats;
+		try {
+			Response response = ESClientManager.getInstance().getClient().getLowLevelClient()
+					.performRequest(request);
+			try (InputStream in = response.getEntity().getContent()) {
+				stats = new ObjectMapper().readTree(in);
+			}
+		}
+		catch (IOException e) {
+			throw new DaoException("Failed to retrieve statistics for index " + index, e);
+		}
+		long count = stats.path("_all").path("primaries").path("docs").path("count").asLong();
+		long seqNo = 0;
+		for (JsonNode shard : stats.path("indices").path(index).path("shards")) {
+			for (JsonNode copy : shard) {
+				if (copy.path("routing").path("primary").asBoolean()) {
+					seqNo += copy.path("seq_no").path("max_seq_no").asLong();
+				}
+			}
+		}
+		return uuid + ':' + count + ':' + seqNo;
+	}
+
+	private static List<TaxonomicEnrichment> seal(List<TaxonomicEnrichment> enrichments)
+	{
+		if (enrichments.isEmpty()) {
+			return Collections.emptyList();
+		}
+		if (enrichments.size() == 1) {
+			return Collections.singletonList(enrichments.get(0));
+		}
+		return Collections.unmodifiableList(enrichments);
+	}
+
+	private static void expect(JsonParser parser, JsonToken token) throws IOException
+	{
+		if (parser.nextToken() != token) {
+			throw new IOException("Unexpected token: " + parser.getCurrentToken());
+		}
+	}
+
+	/*
+	 * De-duplicates the strings and objects that many enrichments have in
+	 * common (source systems and the higher ranks of the classification).
+	 */
+	private static class Interner {
+
+		private final HashMap<String, String> strings = new HashMap<>(1 << 14);
+		private final HashMap<String, SummarySourceSystem> sourceSystems = new HashMap<>(4);
+
+		TaxonomicEnrichment intern(TaxonomicEnrichment enrichment)
+		{
+			SummarySourceSystem ss = enrichment.getSourceSystem();
+			if (ss != null) {
+				enrichment.setSourceSystem(sourceSystems.computeIfAbsent(ss.getCode(), k -> ss));
+			}
+			DefaultClassification dc = enrichment.getDefaultClassification();
+			if (dc != null) {
+				for (TaxonomicRank rank : TaxonomicRank.values()) {
+					if (rank.ordinal() > TaxonomicRank.SUBGENUS.ordinal()) {
+						break;
+					}
+					String name = dc.get(rank);
+					if (name != null) {
+						dc.set(rank, strings.computeIfAbsent(name, k -> k));
+					}
+				}
+			}
+			return enrichment;
+		}
+	}
+
+}
@@ -201,11 +201,7 @@ public class Normalizer<T extends Enum<T>> {
 		if (input != null)
 			input = input.toLowerCase();
 		if (!mappings.containsKey(input)) {
-			IntHolder ih = badValues.get(input);
-			if (ih == null)
-				badValues.put(input, new IntHolder());
-			else
-				ih.i++;
+			countBadValue(input);
 			return NOT_MAPPED;
 		}
 		T t = mappings.get(input);
@@ -226,13 +222,7 @@ public class Normalizer<T extends Enum<T>> {
 		if (mappings.containsKey(input)) {
 			return mappings.get(input);
 		}
-		IntHolder ih = badValues.get(input);
-		if (ih == null) {
-			badValues.put(input, new IntHolder());
-		}
-		else {
-			ih.i++;
-		}
+		countBadValue(input);
 		throw new UnmappedValueException(input, enumClass);
 	}
 
@@ -254,20 +244,14 @@ public class Normalizer<T extends Enum<T>> {
         return mappings.get(input).toString();
       return null;
     }
-    IntHolder ih = badValues.get(input);
-    if (ih == null) {
-      badValues.put(input, new IntHolder());
-    }
-    else {
-      ih.i++;
-    }
+    countBadValue(input);
     throw new UnmappedValueException(input, enumClass);
   }
 	
 	/**
 	 * Resets the rogue value counters.
 	 */
-	public void resetStatistics()
+	public synchronized void resetStatistics()
 	{
 		badValues = new HashMap<>();
 	}
@@ -275,7 +259,7 @@ public class Normalizer<T extends Enum<T>> {
 	/**
 	 * For each rogue value print out how often it was encountered.
 	 */
-	public void logStatistics()
+	public synchronized void logStatistics()
 	{
 		for (Map.Entry<String, IntHolder> entry : badValues.entrySet()) {
 			String fmt = "Invalid value \"%s\" occurs in at least %s records";
@@ -284,6 +268,22 @@ public class Normalizer<T extends Enum<T>> {
 		}
 	}
 
+	/*
+	 * Normalizers are shared by the transformers of an ETLPipeline, which may
+	 * run on multiple threads, so the rogue value counters are guarded by the
+	 * normalizer's monitor. The mappings themselves are read-only.
+	 */
+	private synchronized void countBadValue(String input)
+	{
+		IntHolder ih = badValues.get(input);
+		if (ih == null) {
+			badValues.put(input, new IntHolder());
+		}
+		else {
+			ih.i++;
+		}
+	}
+
 	/**
 	 * Whether to skip the first line in the mappings file. Default
 	 * {@code false}.
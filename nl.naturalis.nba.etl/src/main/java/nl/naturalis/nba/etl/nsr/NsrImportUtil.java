@@ -5,11 +5,14 @@ import java.io.FilenameFilter;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.Logger;
 
 import nl.naturalis.nba.dao.DaoRegistry;
 import nl.naturalis.nba.etl.ETLRegistry;
+import nl.naturalis.nba.etl.nsr.model.NsrTaxon;
 
 /**
  * Class providing common functionality for NSR imports.
@@ -20,6 +23,7 @@ import nl.naturalis.nba.etl.ETLRegistry;
 class NsrImportUtil {
 
 	private static final Logger logger = ETLRegistry.getInstance().getLogger(NsrImportUtil.class);
+	private static final ObjectMapper objectMapper = new ObjectMapper();
 
 	private NsrImportUtil()
 	{
@@ -50,6 +54,24 @@ class NsrImportUtil {
 		return (str = str.trim()).length() == 0 ? null : str;
 	}
 
+	/**
+	 * Parses the specified JSON record. Returns {@code null} if the record
+	 * cannot be parsed. The transformers will then try to parse the record
+	 * themselves and report the error.
+	 * 
+	 * @param json
+	 * @return
+	 */
+	static NsrTaxon readNsrTaxon(String json)
+	{
+		try {
+			return objectMapper.readValue(json, NsrTaxon.class);
+		}
+		catch (JsonProcessingException e) {
+			return null;
+		}
+	}
+
 
 	/**
 	 * Returns the JSON source files that have not been processed yet.
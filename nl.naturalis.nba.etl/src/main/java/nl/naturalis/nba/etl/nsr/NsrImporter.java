@@ -5,12 +5,14 @@ import static nl.naturalis.nba.dao.DocumentType.MULTI_MEDIA_OBJECT;
 import static nl.naturalis.nba.dao.DocumentType.TAXON;
 import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_ETL_OUTPUT;
 import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_LOADER_QUEUE_SIZE;
+import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_NSR_THREADS;
 import static nl.naturalis.nba.etl.ETLConstants.SYSPROP_SUPPRESS_ERRORS;
 import static nl.naturalis.nba.etl.ETLUtil.getLogger;
 import static nl.naturalis.nba.etl.ETLUtil.logDuration;
 import static nl.naturalis.nba.etl.nsr.NsrImportUtil.backupJsonFile;
 import static nl.naturalis.nba.etl.nsr.NsrImportUtil.backupJsonFiles;
 import static nl.naturalis.nba.etl.nsr.NsrImportUtil.getJsonFiles;
+import static nl.naturalis.nba.etl.nsr.NsrImportUtil.readNsrTaxon;
 import static nl.naturalis.nba.etl.nsr.NsrImportUtil.removeBackupExtension;
 
 import java.io.File;
@@ -18,8 +20,14 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.LineNumberReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.logging.log4j.Logger;
 
@@ -29,8 +37,10 @@ import nl.naturalis.nba.dao.DaoRegistry;
 import nl.naturalis.nba.dao.ESClientManager;
 import nl.naturalis.nba.dao.util.es.ESUtil;
 import nl.naturalis.nba.etl.DocumentObjectWriter;
+import nl.naturalis.nba.etl.ETLRuntimeException;
 import nl.naturalis.nba.etl.ETLStatistics;
 import nl.naturalis.nba.etl.ETLUtil;
+import nl.naturalis.nba.etl.nsr.model.NsrTaxon;
 import nl.naturalis.nba.utils.ConfigObject;
 import nl.naturalis.nba.utils.IOUtil;
 
@@ -75,11 +85,14 @@ public class NsrImporter {
     private final int loaderQueueSize;
     private final boolean suppressErrors;
     private final boolean toFile;
+    private final int threads;
 
     public NsrImporter() {
         suppressErrors = ConfigObject.isEnabled(SYSPROP_SUPPRESS_ERRORS);
         String val = System.getProperty(SYSPROP_LOADER_QUEUE_SIZE, "1000");
         loaderQueueSize = Integer.parseInt(val);
+        val = System.getProperty(SYSPROP_NSR_THREADS, "1");
+        threads = Integer.parseInt(val);
         toFile = DaoRegistry.getInstance().getConfiguration().get("etl.output", "file").equals("file");
     }
 
@@ -95,7 +108,6 @@ public class NsrImporter {
             logger.info("No source files to process");
             return;
         }
-
         if (shouldUpdateES) {
             ETLUtil.truncate(TAXON, NSR);
             ETLUtil.truncate(MULTI_MEDIA_OBJECT, NSR);
@@ -103,74 +115,14 @@ public class NsrImporter {
         ETLStatistics taxonStats = new ETLStatistics();
         ETLStatistics mediaStats = new ETLStatistics();
         mediaStats.setOneToMany(true);
-        NsrTaxonTransformer taxonTransformer = new NsrTaxonTransformer(taxonStats);
-        taxonTransformer.setSuppressErrors(suppressErrors);
-        NsrMultiMediaTransformer multimediaTransformer = new NsrMultiMediaTransformer(mediaStats);
-        multimediaTransformer.setSuppressErrors(suppressErrors);
-        DocumentObjectWriter<Taxon> taxonLoader = null;
-        DocumentObjectWriter<MultiMediaObject> mediaLoader = null;
-        try {
-            for (File f : files) {
-                if (toFile) {
-                    logger.info("ETL Output: Writing the documents to the file system");
-                    taxonLoader = new NsrTaxonJsonNDWriter(f.getName(), taxonStats);
-                    mediaLoader = new NsrMultiMediaJsonNDWriter(f.getName(), mediaStats);
-                } else {
-                    logger.info("ETL Output: loading documents into the document store");
-                    taxonLoader = new NsrTaxonLoader(loaderQueueSize, taxonStats);
-                    mediaLoader = new NsrMultiMediaLoader(loaderQueueSize, mediaStats);
-                }
-                logger.info("Processing file {}", f.getAbsolutePath());
-
-                LineNumberReader lnr;
-                try {
-                    FileReader fr = new FileReader(f);
-                    lnr = new LineNumberReader(fr, 4096);
-                    String json ;
-                    while ((json = lnr.readLine()) != null) {
-                        List<Taxon> taxa = taxonTransformer.transform(json);
-                        taxonLoader.write(taxa);
-                        multimediaTransformer.setTaxon(taxa == null ? null : taxa.get(0));
-                        List<MultiMediaObject> multimedia = multimediaTransformer.transform(json);
-                        mediaLoader.write(multimedia);
-                    }
-                }
-                catch (FileNotFoundException e) {
-                    logger.error("Missing file {}. File has been skipped from importing.", f.getAbsolutePath());
-                }
-
-                // Summary after file has finished
-                if (taxonStats.recordsProcessed != 0) {
-                    logger.info("Records processed: {}", taxonStats.recordsProcessed);
-                    logger.info("Taxon documents indexed: {}", taxonStats.documentsIndexed);
-                    logger.info("Multimedia documents indexed: {}", mediaStats.documentsIndexed);
-                } else {
-                    logger.info("No record was processed");
-                }
-                if (toFile) {
-                    try {
-                        taxonLoader.close();
-                        mediaLoader.close();
-                    } catch (IOException e) {
-                        logger.warn("Failed to close file. There may have been documents lost.");
-                    }
-                } else {
-                    taxonLoader.flush();
-                    mediaLoader.flush();
-                }
-                backupJsonFile(f);
-            }
-            // Summery after entire import has finished
-            if (taxonStats.recordsProcessed != 0) {
-                logger.info("NSR Import complete");
-                logger.info("Records processed: {}", taxonStats.recordsProcessed);
-                logger.info("Taxon documents indexed: {}", taxonStats.documentsIndexed);
-                logger.info("Multimedia documents indexed: {}", mediaStats.documentsIndexed);
-            } else {
-                logger.info("No record was processed");
-            }
-        } finally {
-            IOUtil.close(taxonLoader, mediaLoader);
+        importFiles(files, taxonStats, mediaStats, true);
+        if (taxonStats.recordsProcessed != 0) {
+            logger.info("NSR Import complete");
+            logger.info("Records processed: {}", taxonStats.recordsProcessed);
+            logger.info("Taxon documents indexed: {}", taxonStats.documentsIndexed);
+            logger.info("Multimedia documents indexed: {}", mediaStats.documentsIndexed);
+        } else {
+            logger.info("No record was processed");
         }
         taxonStats.logStatistics(logger, "Taxa");
         mediaStats.badInput = taxonStats.badInput;
@@ -194,48 +146,7 @@ public class NsrImporter {
             ETLUtil.truncate(TAXON, NSR);
         }
         ETLStatistics stats = new ETLStatistics();
-        NsrTaxonTransformer transformer = new NsrTaxonTransformer(stats);
-        transformer.setSuppressErrors(suppressErrors);
-        DocumentObjectWriter<Taxon> loader = null;
-        if (toFile) {
-            logger.info("ETL Output: Writing the documents to the file system");
-        } else {
-            logger.info("ETL Output: loading documents into the document store");
-        }
-        try {
-            for (File f : files) {
-                logger.info("Processing file {}", f.getAbsolutePath());
-                if (toFile) {
-                    loader = new NsrTaxonJsonNDWriter(f.getName(), stats);
-                } else {
-                    loader = new NsrTaxonLoader(loaderQueueSize, stats);
-                }
-                LineNumberReader lnr;
-                try {
-                    FileReader fr = new FileReader(f);
-                    lnr = new LineNumberReader(fr, 4096);
-                    String json ;
-                    while ((json = lnr.readLine()) != null) {
-                        List<Taxon> taxa = transformer.transform(json);
-                        loader.write(taxa);
-                    }
-                }
-                catch (FileNotFoundException e) {
-                    logger.error("Missing file {}. File has been skipped from importing.", f.getAbsolutePath());
-                }
-                if (toFile) {
-                    try {
-                        loader.close();
-                    } catch (IOException e) {
-                        logger.warn("Failed to close file. There may have been documents lost.");
-                    }
-                } else {
-                    loader.flush();
-                }
-            }
-        } finally {
-            IOUtil.close(loader);
-        }
+        importFiles(files, stats, null, false);
         stats.logStatistics(logger, "Taxa");
         ETLUtil.logDuration(logger, getClass(), start);
     }
@@ -247,6 +158,7 @@ public class NsrImporter {
     public void importMultiMedia() throws IOException {
         long start = System.currentTimeMillis();
         File[] files = getJsonFiles();
+        Arrays.sort(files);
         if (files.length == 0) {
             logger.info("No source files to process");
             return;
@@ -256,65 +168,172 @@ public class NsrImporter {
         }
         ETLStatistics stats = new ETLStatistics();
         stats.setOneToMany(true);
-        NsrMultiMediaTransformer transformer = new NsrMultiMediaTransformer(stats);
-        transformer.setSuppressErrors(suppressErrors);
-        /*
-         * For multimedia we will re-use our taxon transformer class to extract
-         * taxon-related data from the XML records, so we don't have to
-         * duplicate that functionality in the multimedia transformer. However,
-         * we are not interested in the statistics maintained by the taxon
-         * transformer (only whether it was able to produce an Taxon object or
-         * not). Therefore we instantiate the taxon transformer with a trash
-         * statistics object.
-         */
-        NsrTaxonTransformer ntt = new NsrTaxonTransformer(new ETLStatistics());
-        ntt.setSuppressErrors(suppressErrors);
-        DocumentObjectWriter<MultiMediaObject> loader = null;
+        importFiles(files, null, stats, false);
+        stats.logStatistics(logger, "Multimedia");
+        logDuration(logger, getClass(), start);
+    }
+
+    /*
+     * Imports the specified files, using as many threads as specified by
+     * system property nl.naturalis.nba.etl.nsr.threads. Each file is processed
+     * by a single thread, with its own transformers, writers and statistics.
+     * Once all files have been processed, their statistics are added to the
+     * specified statistics objects. Either of them may be null, meaning that
+     * the corresponding document type must not be imported.
+     */
+    private void importFiles(File[] files, ETLStatistics taxonStats, ETLStatistics mediaStats,
+            boolean backup) throws IOException {
         if (toFile) {
             logger.info("ETL Output: Writing the documents to the file system");
         } else {
             logger.info("ETL Output: loading documents into the document store");
         }
+        int numThreads = Math.max(1, Math.min(threads, files.length));
+        if (numThreads == 1) {
+            for (File f : files) {
+                FileImport task = new FileImport(f, taxonStats != null, mediaStats != null, backup);
+                task.call();
+                task.addStatistics(taxonStats, mediaStats);
+            }
+            return;
+        }
+        logger.info("Processing {} files using {} threads", files.length, numThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
         try {
+            List<FileImport> tasks = new ArrayList<>(files.length);
             for (File f : files) {
-                if (toFile) {
-                    loader = new NsrMultiMediaJsonNDWriter(f.getName(), stats);
-                } else {
-                    loader = new NsrMultiMediaLoader(loaderQueueSize, stats);
+                tasks.add(new FileImport(f, taxonStats != null, mediaStats != null, backup));
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new ETLRuntimeException(e.getCause());
                 }
-                logger.info("Processing file {}", f.getAbsolutePath());
+            }
+            for (FileImport task : tasks) {
+                task.addStatistics(taxonStats, mediaStats);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ETLRuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * Imports a single source file. Each line is parsed once and then handed
+     * to both the taxon and the multimedia transformer. The multimedia
+     * transformer needs the taxon created from the same record, so the taxon
+     * transformer always runs, even if only the multimedia are imported. In
+     * that case it updates a trash statistics object.
+     */
+    private class FileImport implements Callable<Void> {
+
+        private final File file;
+        private final boolean importTaxa;
+        private final boolean importMultiMedia;
+        private final boolean backup;
+        private final ETLStatistics taxonStats = new ETLStatistics();
+        private final ETLStatistics mediaStats = new ETLStatistics();
+
+        FileImport(File file, boolean importTaxa, boolean importMultiMedia, boolean backup) {
+            this.file = file;
+            this.importTaxa = importTaxa;
+            this.importMultiMedia = importMultiMedia;
+            this.backup = backup;
+            mediaStats.setOneToMany(true);
+        }
 
-                LineNumberReader lnr;
+        @Override
+        public Void call() throws IOException {
+            logger.info("Processing file {}", file.getAbsolutePath());
+            NsrTaxonTransformer taxonTransformer = new NsrTaxonTransformer(taxonStats);
+            taxonTransformer.setSuppressErrors(suppressErrors);
+            NsrMultiMediaTransformer multimediaTransformer = new NsrMultiMediaTransformer(mediaStats);
+            multimediaTransformer.setSuppressErrors(suppressErrors);
+            DocumentObjectWriter<Taxon> taxonLoader = null;
+            DocumentObjectWriter<MultiMediaObject> mediaLoader = null;
+            LineNumberReader lnr = null;
+            try {
+                if (importTaxa) {
+                    taxonLoader = toFile
+                            ? new NsrTaxonJsonNDWriter(file.getName(), taxonStats)
+                            : new NsrTaxonLoader(loaderQueueSize, taxonStats);
+                }
+                if (importMultiMedia) {
+                    mediaLoader = toFile
+                            ? new NsrMultiMediaJsonNDWriter(file.getName(), mediaStats)
+                            : new NsrMultiMediaLoader(loaderQueueSize, mediaStats);
+                }
                 try {
-                    FileReader fr = new FileReader(f);
-                    lnr = new LineNumberReader(fr, 4096);
-                    String json ;
-                    while ((json = lnr.readLine()) != null) {
-                        List<Taxon> taxa = ntt.transform(json);
-                        transformer.setTaxon(taxa == null ? null : taxa.get(0));
-                        List<MultiMediaObject> multimedia = transformer.transform(json);
-                        loader.write(multimedia);
+                    lnr = new LineNumberReader(new FileReader(file), 4096);
+                } catch (FileNotFoundException e) {
+                    logger.error("Missing file {}. File has been skipped from importing.", file.getAbsolutePath());
+                    return null;
+                }
+                String json;
+                while ((json = lnr.readLine()) != null) {
+                    NsrTaxon nsrTaxon = readNsrTaxon(json);
+                    taxonTransformer.setNsrTaxon(nsrTaxon);
+                    List<Taxon> taxa = taxonTransformer.transform(json);
+                    if (importTaxa) {
+                        taxonLoader.write(taxa);
                     }
+                    if (importMultiMedia) {
+                        multimediaTransformer.setTaxon(taxa == null ? null : taxa.get(0));
+                        multimediaTransformer.setNsrTaxon(nsrTaxon);
+                        List<MultiMediaObject> multimedia = multimediaTransformer.transform(json);
+                        mediaLoader.write(multimedia);
+                    }
+                }
+            } finally {
+                IOUtil.close(lnr);
+                closeWriters(taxonLoader, mediaLoader);
+            }
+            // Summary after file has finished
+            if (taxonStats.recordsProcessed != 0) {
+                logger.info("Records processed in {}: {}", file.getName(), taxonStats.recordsProcessed);
+                if (importTaxa) {
+                    logger.info("Taxon documents indexed: {}", taxonStats.documentsIndexed);
                 }
-                catch (FileNotFoundException e) {
-                    logger.error("Missing file {}. File has been skipped from importing.", f.getAbsolutePath());
+                if (importMultiMedia) {
+                    logger.info("Multimedia documents indexed: {}", mediaStats.documentsIndexed);
                 }
+            } else {
+                logger.info("No record was processed");
+            }
+            if (backup) {
+                backupJsonFile(file);
+            }
+            return null;
+        }
 
-                if (toFile) {
-                    try {
-                        loader.close();
-                    } catch (IOException e) {
-                        logger.warn("Failed to close file. There may have been documents lost.");
-                    }
-                } else {
-                    loader.flush();
+        void addStatistics(ETLStatistics taxonTotals, ETLStatistics mediaTotals) {
+            if (taxonTotals != null) {
+                taxonTotals.add(taxonStats);
+            }
+            if (mediaTotals != null) {
+                mediaTotals.add(mediaStats);
+            }
+        }
+
+        private void closeWriters(DocumentObjectWriter<?>... writers) {
+            for (DocumentObjectWriter<?> writer : writers) {
+                if (writer == null) {
+                    continue;
+                }
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close file. There may have been documents lost.");
                 }
             }
-        } finally {
-            IOUtil.close(loader);
         }
-        stats.logStatistics(logger, "Multimedia");
-        logDuration(logger, getClass(), start);
     }
 
     /**
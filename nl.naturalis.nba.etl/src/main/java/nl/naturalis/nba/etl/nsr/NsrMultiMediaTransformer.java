@@ -47,6 +47,7 @@ class NsrMultiMediaTransformer extends AbstractJSONTransformer<MultiMediaObject>
 
 	private static ObjectMapper objectMapper = new ObjectMapper();
 	private NsrTaxon nsrTaxon;
+	private NsrTaxon parsed;
 
 	private static final String DEFAULT_IMAGE_QUALITY = "ac:BestQuality";
 
@@ -72,8 +73,27 @@ class NsrMultiMediaTransformer extends AbstractJSONTransformer<MultiMediaObject>
 		this.taxon = taxon;
 	}
 
+	/**
+	 * Provides the record passed to the next call of {@link #transform(Object)
+	 * transform} in parsed form, so the transformer does not have to parse it
+	 * again.
+	 * 
+	 * @see NsrTaxonTransformer#setNsrTaxon(NsrTaxon)
+	 * 
+	 * @param nsrTaxon
+	 */
+	void setNsrTaxon(NsrTaxon nsrTaxon)
+	{
+		this.parsed = nsrTaxon;
+	}
+
 	@Override
 	protected String getObjectID() {
+		if (parsed != null) {
+			nsrTaxon = parsed;
+			parsed = null;
+			return nsrTaxon.getNsr_id();
+		}
 		try {
 			nsrTaxon = objectMapper.readValue(input, NsrTaxon.class);
 			return nsrTaxon.getNsr_id();
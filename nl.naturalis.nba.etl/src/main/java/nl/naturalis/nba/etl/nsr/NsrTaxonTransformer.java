@@ -71,14 +71,32 @@ class NsrTaxonTransformer extends AbstractJSONTransformer<Taxon> {
 
     private static ObjectMapper objectMapper = new ObjectMapper();
     private NsrTaxon nsrTaxon;
+    private NsrTaxon parsed;
 
     NsrTaxonTransformer(ETLStatistics stats) {
         super(stats);
         testGenera = getTestGenera();
     }
 
+    /**
+     * Provides the record passed to the next call of {@link #transform(Object)
+     * transform} in parsed form, so the transformer does not have to parse it
+     * again. Allows the NSR importer to parse each record just once for the
+     * taxon and the multimedia transformer.
+     *
+     * @param nsrTaxon
+     */
+    void setNsrTaxon(NsrTaxon nsrTaxon) {
+        this.parsed = nsrTaxon;
+    }
+
     @Override
     protected String getObjectID() {
+        if (parsed != null) {
+            nsrTaxon = parsed;
+            parsed = null;
+            return nsrTaxon.getNsr_id();
+        }
         try {
             nsrTaxon = objectMapper.readValue(input, NsrTaxon.class);
             return nsrTaxon.getNsr_id();
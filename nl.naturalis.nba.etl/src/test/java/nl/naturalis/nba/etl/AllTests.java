@@ -6,7 +6,9 @@ import org.junit.runners.Suite.SuiteClasses;
 import nl.naturalis.nba.etl.brahms.BrahmsImportUtilTest;
 import nl.naturalis.nba.etl.brahms.BrahmsMultiMediaTransformerTest;
 import nl.naturalis.nba.etl.brahms.BrahmsSpecimenTransformerTest;
+import nl.naturalis.nba.etl.col.CoLFileSorterTest;
 import nl.naturalis.nba.etl.col.CoLReferenceBatchTransformerTest;
+import nl.naturalis.nba.etl.col.CoLSortedRecordsTest;
 import nl.naturalis.nba.etl.col.CoLSynonymBatchTransformerTest;
 import nl.naturalis.nba.etl.col.CoLTaxonImporterTest;
 import nl.naturalis.nba.etl.col.CoLTaxonTransformerTest;
@@ -14,10 +16,13 @@ import nl.naturalis.nba.etl.col.CoLVernacularNameBatchTransformerTest;
 import nl.naturalis.nba.etl.crs.CrsImportUtilTest;
 import nl.naturalis.nba.etl.crs.CrsMultiMediaTransformerTest;
 import nl.naturalis.nba.etl.crs.CrsSpecimenTransformerTest;
+import nl.naturalis.nba.etl.enrich.EnrichmentLookupCacheTest;
 import nl.naturalis.nba.etl.enrich.EnrichmentUtilTest;
 import nl.naturalis.nba.etl.enrich.MultimediaTaxonomicEnricherTest;
 import nl.naturalis.nba.etl.enrich.SpecimenMultimediaEnricherTest;
 import nl.naturalis.nba.etl.enrich.SpecimenTaxonomicEnricherTest;
+import nl.naturalis.nba.etl.enrich.LookaheadBatchReaderTest;
+import nl.naturalis.nba.etl.enrich.TaxonomicEnrichmentIndexTest;
 import nl.naturalis.nba.etl.geo.GeoImportUtilTest;
 import nl.naturalis.nba.etl.geo.GeoTransformerTest;
 import nl.naturalis.nba.etl.nsr.NsrImportUtilTest;
@@ -28,6 +33,15 @@ import nl.naturalis.nba.etl.nsr.NsrTaxonTransformerTest;
 @RunWith(Suite.class)
 @SuiteClasses({ 
     ETLUtilTest.class,
+    ETLPipelineTest.class,
+    StreamingXMLExtractorTest.class,
+    ElementIndexTest.class,
+    RawJsonDocumentTest.class,
+    JsonImporterTest.class,
+    BulkIndexPipelineTest.class,
+    MimeTypeStoreTest.class,
+    MappedMimeTypeCacheTest.class,
+    FrontCodedStringSetTest.class,
     BrahmsImportUtilTest.class,
     BrahmsSpecimenTransformerTest.class,
     BrahmsMultiMediaTransformerTest.class,
@@ -40,16 +54,21 @@ import nl.naturalis.nba.etl.nsr.NsrTaxonTransformerTest;
     CoLSynonymBatchTransformerTest.class,
     CoLVernacularNameBatchTransformerTest.class,
     CoLReferenceBatchTransformerTest.class,
+    CoLFileSorterTest.class,
+    CoLSortedRecordsTest.class,
     GeoTransformerTest.class,
     GeoImportUtilTest.class,
     TransformUtilTest.class,
     NsrImportUtilTest.class,
     NsrMultiMediaTransformerTest.class,
     NsrTaxonTransformerTest.class,
+    EnrichmentLookupCacheTest.class,
     EnrichmentUtilTest.class,
     MultimediaTaxonomicEnricherTest.class,
     SpecimenMultimediaEnricherTest.class,
     SpecimenTaxonomicEnricherTest.class,
+    LookaheadBatchReaderTest.class,
+    TaxonomicEnrichmentIndexTest.class,
     SummaryObjectUtilTest.class    
 })
 
@@ -0,0 +1,284 @@
+package nl.naturalis.nba.etl;
+
+import static nl.naturalis.nba.etl.BulkIndexPipeline.MAX_RETRIES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteRequest.OpType;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.After;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.naturalis.nba.api.model.Specimen;
+
+/**
+ * Test class for BulkIndexPipeline.java. The bulk requests are answered by a
+ * fake Elasticsearch cluster, either on the calling thread or on a separate
+ * thread.
+ */
+public class BulkIndexPipelineTest {
+
+  private static final RestStatus BUSY = RestStatus.TOO_MANY_REQUESTS;
+
+  private ExecutorService ioThread;
+
+  @After
+  public void after() {
+    if (ioThread != null) {
+      ioThread.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testAdd_01() {
+    // Full bulk requests are sent while documents are being added
+    ETLStatistics stats = new ETLStatistics();
+    FakePipeline pipeline = new FakePipeline(3, 2, stats);
+    for (int i = 0; i < 7; i++) {
+      pipeline.add(specimen("S" + i, "v1"));
+    }
+    assertEquals("01", Arrays.asList(3, 3), pipeline.requestSizes);
+    pipeline.close();
+    assertEquals("02", Arrays.asList(3, 3, 1), pipeline.requestSizes);
+    assertEquals("03", 7, stats.documentsIndexed);
+    assertEquals("04", 0, stats.documentsRejected);
+    // The ID must not end up in the document itself
+    assertFalse("05", pipeline.sources.get("S0").contains("S0"));
+  }
+
+  @Test
+  public void testRetry_01() {
+    // Only the documents rejected with 429 must be sent again
+    ETLStatistics stats = new ETLStatistics();
+    FakePipeline pipeline = new FakePipeline(4, 2, stats);
+    pipeline.respond("B", BUSY);
+    pipeline.respond("C", RestStatus.BAD_REQUEST);
+    pipeline.respond("D", BUSY, BUSY);
+    for (String id : new String[] {"A", "B", "C", "D"}) {
+      pipeline.add(specimen(id, "v1"));
+    }
+    pipeline.flush();
+    assertEquals("01", Arrays.asList(4, 2, 1), pipeline.requestSizes);
+    assertEquals("02", Arrays.asList("A", "B", "D"), pipeline.indexed);
+    assertEquals("03", 3, stats.documentsIndexed);
+    assertEquals("04", 1, stats.documentsRejected);
+    pipeline.close();
+  }
+
+  @Test
+  public void testRetry_02() {
+    // Give up on a document after MAX_RETRIES retries
+    ETLStatistics stats = new ETLStatistics();
+    FakePipeline pipeline = new FakePipeline(2, 1, stats);
+    RestStatus[] busy = new RestStatus[MAX_RETRIES + 10];
+    Arrays.fill(busy, BUSY);
+    pipeline.respond("B", busy);
+    pipeline.add(specimen("A", "v1"));
+    pipeline.add(specimen("B", "v1"));
+    pipeline.close();
+    assertEquals("01", MAX_RETRIES + 1, pipeline.requestSizes.size());
+    assertEquals("02", Arrays.asList("A"), pipeline.indexed);
+    assertEquals("03", 1, stats.documentsIndexed);
+    assertEquals("04", 1, stats.documentsRejected);
+  }
+
+  @Test
+  public void testFailure_01() {
+    // A bulk request failing as a whole because ES is busy is sent again
+    ETLStatistics stats = new ETLStatistics();
+    FakePipeline pipeline = new FakePipeline(2, 2, stats);
+    pipeline.fail(new ElasticsearchStatusException("Too busy", BUSY));
+    pipeline.fail(new IOException("Connection reset"));
+    pipeline.add(specimen("A", "v1"));
+    pipeline.add(specimen("B", "v1"));
+    pipeline.close();
+    assertEquals("01", Arrays.asList(2, 2, 2), pipeline.requestSizes);
+    assertEquals("02", Arrays.asList("A", "B"), pipeline.indexed);
+    assertEquals("03", 2, stats.documentsIndexed);
+    assertEquals("04", 0, stats.documentsRejected);
+  }
+
+  @Test
+  public void testFailure_02() {
+    // Other failures of a bulk request as a whole are passed on to the caller
+    ETLStatistics stats = new ETLStatistics();
+    FakePipeline pipeline = new FakePipeline(2, 2, stats);
+    pipeline.fail(new ElasticsearchStatusException("Bad request", RestStatus.BAD_REQUEST));
+    pipeline.add(specimen("A", "v1"));
+    pipeline.add(specimen("B", "v1"));
+    try {
+      pipeline.flush();
+      fail("Expected an ETLRuntimeException");
+    } catch (ETLRuntimeException e) {
+      assertTrue("01", e.getMessage().contains("Bad request"));
+    }
+    assertEquals("02", Arrays.asList(2), pipeline.requestSizes);
+    assertEquals("03", 0, stats.documentsIndexed);
+    assertEquals("04", 2, stats.documentsRejected);
+    // The failure is reported once
+    pipeline.add(specimen("C", "v1"));
+    pipeline.close();
+    assertEquals("05", 1, stats.documentsIndexed);
+  }
+
+  @Test
+  public void testFlush_01() throws InterruptedException {
+    // flush must wait for the bulk requests in flight and their retries
+    ioThread = Executors.newSingleThreadExecutor();
+    ETLStatistics stats = new ETLStatistics();
+    FakePipeline pipeline = new FakePipeline(2, 2, stats);
+    pipeline.hold = new CountDownLatch(1);
+    pipeline.respond("B", BUSY);
+    for (String id : new String[] {"A", "B", "C"}) {
+      pipeline.add(specimen(id, "v1"));
+    }
+    Thread flusher = new Thread(pipeline::flush);
+    flusher.start();
+    flusher.join(200);
+    assertTrue("01", flusher.isAlive());
+    assertEquals("02", 0, stats.documentsIndexed);
+    pipeline.hold.countDown();
+    flusher.join(10000);
+    assertFalse("03", flusher.isAlive());
+    assertEquals("04", Arrays.asList(2, 1, 1), pipeline.requestSizes);
+    assertEquals("05", 3, stats.documentsIndexed);
+    assertEquals("06", 0, stats.documentsRejected);
+    pipeline.close();
+  }
+
+  @Test
+  public void testOrdering_01() {
+    /*
+     * The second version of A must not be sent before the first version, which
+     * was rejected, has been sent again.
+     */
+    ETLStatistics stats = new ETLStatistics();
+    FakePipeline pipeline = new FakePipeline(1, 2, stats, 50);
+    pipeline.respond("A", BUSY);
+    pipeline.add(specimen("A", "v1"));
+    pipeline.add(specimen("A", "v2"));
+    pipeline.close();
+    assertEquals("01", Arrays.asList("A", "A"), pipeline.indexed);
+    assertTrue("02", pipeline.sources.get("A").contains("v2"));
+    assertEquals("03", 2, stats.documentsIndexed);
+  }
+
+  private static Specimen specimen(String id, String unitID) {
+    Specimen specimen = new Specimen();
+    specimen.setId(id);
+    specimen.setUnitID(unitID);
+    return specimen;
+  }
+
+  /*
+   * Responds to each document with the next of the statuses registered for it,
+   * and with 200 (OK) once these have been used up. Failures registered for
+   * the bulk requests as a whole are used up first.
+   */
+  private class FakePipeline extends BulkIndexPipeline<Specimen> {
+
+    final Map<String, List<RestStatus>> responses = new HashMap<>();
+    final List<Exception> failures = new ArrayList<>();
+    final List<Integer> requestSizes = new ArrayList<>();
+    final List<String> indexed = new ArrayList<>();
+    final Map<String, String> sources = new HashMap<>();
+    volatile CountDownLatch hold;
+
+    FakePipeline(int maxDocs, int maxInFlight, ETLStatistics stats) {
+      this(maxDocs, maxInFlight, stats, 0);
+    }
+
+    FakePipeline(int maxDocs, int maxInFlight, ETLStatistics stats, long initialBackoff) {
+      super(null, "specimen", new ObjectMapper(), maxDocs, maxInFlight, initialBackoff, stats);
+    }
+
+    synchronized void respond(String id, RestStatus... statuses) {
+      responses.put(id, new ArrayList<>(Arrays.asList(statuses)));
+    }
+
+    synchronized void fail(Exception e) {
+      failures.add(e);
+    }
+
+    @Override
+    void bulkAsync(BulkRequest bulkRequest, ActionListener<BulkResponse> listener) {
+      if (ioThread == null) {
+        respond(bulkRequest, listener);
+        return;
+      }
+      ioThread.execute(() -> {
+        try {
+          if (hold != null) {
+            hold.await(10, TimeUnit.SECONDS);
+          }
+        } catch (InterruptedException e) {
+          return;
+        }
+        respond(bulkRequest, listener);
+      });
+    }
+
+    private void respond(BulkRequest bulkRequest, ActionListener<BulkResponse> listener) {
+      Exception failure = null;
+      BulkResponse response;
+      synchronized (this) {
+        requestSizes.add(bulkRequest.numberOfActions());
+        if (!failures.isEmpty()) {
+          failure = failures.remove(0);
+        }
+        response = failure == null ? createResponse(bulkRequest) : null;
+      }
+      if (failure == null) {
+        listener.onResponse(response);
+      } else {
+        listener.onFailure(failure);
+      }
+    }
+
+    private BulkResponse createResponse(BulkRequest bulkRequest) {
+      List<DocWriteRequest<?>> requests = bulkRequest.requests();
+      BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+      for (int i = 0; i < items.length; i++) {
+        IndexRequest request = (IndexRequest) requests.get(i);
+        String id = request.id();
+        List<RestStatus> statuses = responses.get(id);
+        RestStatus status = statuses == null || statuses.isEmpty() ? RestStatus.OK : statuses.remove(0);
+        if (status == RestStatus.OK) {
+          ShardId shard = new ShardId("specimen", "_na_", 0);
+          items[i] = new BulkItemResponse(i, OpType.INDEX, new IndexResponse(shard, "_doc", id, 1, 1, 1, true));
+          indexed.add(id);
+          sources.put(id, request.source().utf8ToString());
+        } else {
+          Exception cause = new Exception("Status " + status);
+          items[i] = new BulkItemResponse(i, OpType.INDEX, new BulkItemResponse.Failure("specimen", "_doc", id, cause, status));
+        }
+      }
+      return new BulkResponse(items, 1);
+    }
+  }
+
+}
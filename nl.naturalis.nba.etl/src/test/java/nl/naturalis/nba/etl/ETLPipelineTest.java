@@ -0,0 +1,159 @@
+package nl.naturalis.nba.etl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import nl.naturalis.nba.api.model.Specimen;
+
+/**
+ * Test class for ETLPipeline.java
+ */
+public class ETLPipelineTest {
+
+  @Test
+  public void testRun_01() {
+    ETLStatistics stats = new ETLStatistics();
+    ListWriter writer = new ListWriter();
+    ETLPipeline<String, Specimen> pipeline = new ETLPipeline<>(TestTransformer::new, writer, stats);
+    pipeline.setNumTransformers(4);
+    pipeline.setCapacity(16);
+    pipeline.run(createRecords(1000));
+    assertEquals("01", 1000, writer.ids.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("02", String.valueOf(i), writer.ids.get(i));
+    }
+    assertEquals("03", 1000, stats.recordsProcessed);
+    assertEquals("04", 1000, stats.recordsAccepted);
+    assertEquals("05", 1000, pipeline.getRecordsRead());
+    assertEquals("06", 1000, pipeline.getObjectsWritten());
+  }
+
+  @Test
+  public void testRun_02() {
+    ETLStatistics stats = new ETLStatistics();
+    ListWriter writer = new ListWriter();
+    ETLPipeline<String, Specimen> pipeline = new ETLPipeline<>(TestTransformer::new, writer, stats);
+    pipeline.setNumTransformers(3);
+    pipeline.setOrdered(false);
+    pipeline.run(Arrays.asList("1", null, "2", "3", null));
+    assertEquals("01", 3, writer.ids.size());
+    Collections.sort(writer.ids);
+    assertEquals("02", Arrays.asList("1", "2", "3"), writer.ids);
+    assertEquals("03", 3, stats.recordsProcessed);
+  }
+
+  @Test
+  public void testRun_03() {
+    ETLStatistics stats = new ETLStatistics();
+    ListWriter writer = new ListWriter();
+    ETLPipeline<String, Specimen> pipeline = new ETLPipeline<>(TestTransformer::new, writer, stats);
+    pipeline.setNumTransformers(2);
+    pipeline.setCapacity(4);
+    List<String> records = createRecords(100);
+    records.set(50, "fail");
+    try {
+      pipeline.run(records);
+      assertTrue("01", false);
+    } catch (ETLRuntimeException e) {
+      assertEquals("02", IllegalArgumentException.class, e.getCause().getClass());
+    }
+    assertTrue("03", writer.ids.size() <= 50);
+  }
+
+  @Test
+  public void testRun_04() {
+    // An extractor failure must not abandon the records already read
+    ETLStatistics stats = new ETLStatistics();
+    ListWriter writer = new ListWriter();
+    ETLPipeline<String, Specimen> pipeline = new ETLPipeline<>(TestTransformer::new, writer, stats);
+    pipeline.setNumTransformers(3);
+    pipeline.setCapacity(1000);
+    List<String> records = createRecords(500);
+    Iterable<String> extractor = () -> new Iterator<String>() {
+      int i = 0;
+
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public String next() {
+        if (i == records.size()) {
+          throw new IllegalStateException("Corrupt input");
+        }
+        return records.get(i++);
+      }
+    };
+    try {
+      pipeline.run(extractor);
+      assertTrue("01", false);
+    } catch (IllegalStateException e) {
+      assertEquals("02", "Corrupt input", e.getMessage());
+    }
+    assertEquals("03", records, writer.ids);
+    assertEquals("04", 500, stats.recordsProcessed);
+    assertEquals("05", 500, pipeline.getObjectsWritten());
+  }
+
+  private static List<String> createRecords(int count) {
+    List<String> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      records.add(String.valueOf(i));
+    }
+    return records;
+  }
+
+  private static class TestTransformer implements Transformer<String, Specimen> {
+
+    private final ETLStatistics stats;
+
+    TestTransformer(ETLStatistics stats) {
+      this.stats = stats;
+    }
+
+    @Override
+    public List<Specimen> transform(String input) {
+      stats.recordsProcessed++;
+      if (input.equals("fail")) {
+        throw new IllegalArgumentException(input);
+      }
+      if (Integer.parseInt(input) % 7 == 0) {
+        // Let the other transformers overtake this one
+        Thread.yield();
+      }
+      stats.recordsAccepted++;
+      Specimen specimen = new Specimen();
+      specimen.setId(input);
+      return Arrays.asList(specimen);
+    }
+  }
+
+  private static class ListWriter implements DocumentObjectWriter<Specimen> {
+
+    private final List<String> ids = new ArrayList<>();
+
+    @Override
+    public void write(Collection<Specimen> objects) {
+      for (Specimen specimen : objects) {
+        ids.add(specimen.getId());
+      }
+    }
+
+    @Override
+    public void suppressErrors(boolean suppressErrors) {}
+
+    @Override
+    public void close() {}
+  }
+
+}
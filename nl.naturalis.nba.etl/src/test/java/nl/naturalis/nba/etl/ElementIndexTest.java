@@ -0,0 +1,74 @@
+package nl.naturalis.nba.etl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import nl.naturalis.nba.utils.xml.DOMUtil;
+
+/**
+ * Test class for ElementIndex.java
+ */
+public class ElementIndexTest {
+
+  private static final String XML = "<record xmlns:abcd=\"urn:abcd\">"
+      + "<header><identifier>1</identifier></header>"
+      + "<metadata>"
+      + "<abcd:UnitID>L.1</abcd:UnitID>"
+      + "<ncrsDetermination><abcd:GenusOrMonomial>Larus</abcd:GenusOrMonomial>"
+      + "<abcd:SpeciesEpithet>fuscus</abcd:SpeciesEpithet></ncrsDetermination>"
+      + "<ncrsDetermination><abcd:GenusOrMonomial>Parus</abcd:GenusOrMonomial></ncrsDetermination>"
+      + "<ncrsDetermination/>"
+      + "<abcd:SpeciesEpithet>major</abcd:SpeciesEpithet>"
+      + "</metadata>"
+      + "</record>";
+
+  @Test
+  public void testGetDescendant_01() throws Exception {
+    Element record = DOMUtil.getDocumentElement(XML, true, false);
+    ElementIndex index = new ElementIndex(record);
+    assertEquals("01", "1", index.getDescendantValue(record, "identifier"));
+    assertEquals("02", "L.1", index.getDescendantValue(record, "abcd:UnitID"));
+    assertEquals("03", "fuscus", index.getDescendantValue(record, "abcd:SpeciesEpithet"));
+    assertNull("04", index.getDescendant(record, "abcd:Subgenus"));
+    // An element is not its own descendant
+    assertNull("05", index.getDescendant(record, "record"));
+  }
+
+  @Test
+  public void testGetDescendants_01() throws Exception {
+    Element record = DOMUtil.getDocumentElement(XML, true, false);
+    ElementIndex index = new ElementIndex(record);
+    List<Element> determinations = index.getDescendants(record, "ncrsDetermination");
+    assertEquals("01", 3, determinations.size());
+    assertEquals("02", DOMUtil.getDescendants(record, "ncrsDetermination"), determinations);
+    Element first = determinations.get(0);
+    Element second = determinations.get(1);
+    Element third = determinations.get(2);
+    assertEquals("03", "Larus", index.getDescendantValue(first, "abcd:GenusOrMonomial"));
+    assertEquals("04", "fuscus", index.getDescendantValue(first, "abcd:SpeciesEpithet"));
+    assertEquals("05", "Parus", index.getDescendantValue(second, "abcd:GenusOrMonomial"));
+    // Must not pick up the epithet following the second determination
+    assertNull("06", index.getDescendant(second, "abcd:SpeciesEpithet"));
+    assertNull("07", index.getDescendants(third, "abcd:GenusOrMonomial"));
+    assertEquals("08", 2, index.getDescendants(record, "abcd:SpeciesEpithet").size());
+    assertSame("09", first, index.getDescendant(record, "ncrsDetermination"));
+  }
+
+  @Test
+  public void testContains_01() throws Exception {
+    Element record = DOMUtil.getDocumentElement(XML, true, false);
+    ElementIndex index = new ElementIndex(record);
+    assertTrue("01", index.contains(record));
+    assertTrue("02", index.contains(DOMUtil.getDescendant(record, "abcd:UnitID")));
+    assertFalse("03", index.contains(DOMUtil.getDocumentElement(XML, true, false)));
+  }
+
+}
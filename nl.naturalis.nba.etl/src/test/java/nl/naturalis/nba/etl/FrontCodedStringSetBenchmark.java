@@ -0,0 +1,111 @@
+package nl.naturalis.nba.etl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Measures the average time taken by {@link FrontCodedStringSet#contains(String)
+ * FrontCodedStringSet.contains}, separately for strings that are in the set and
+ * for strings that are not, as well as the time taken to build the set and the
+ * memory it takes. This is not a unit test; run it from the IDE or with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=nl.naturalis.nba.etl.FrontCodedStringSetBenchmark -Dexec.classpathScope=test [-Dexec.args=/path/to/medialib_ids.txt]
+ * </pre>
+ *
+ * Without an argument, a set of 5 million synthetic media library ids (like
+ * "RMNH.INS.1234567_2") is used. Otherwise the set is built from the specified
+ * file (one id per line), and ids not in the set are made by appending "X" to
+ * the ids in the file.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class FrontCodedStringSetBenchmark {
+
+	private static final String[] PREFIXES = { "RMNH.INS.", "RMNH.AVES.", "RMNH.MAM.", "RMNH.PISC.",
+			"ZMA.INS.", "ZMA.MAM.", "L.", "U.", "WAG.", "AMD." };
+
+	private static final int NUM_IDS = 5000000;
+	private static final int NUM_LOOKUPS = 1000000;
+
+	public static void main(String[] args) throws Exception
+	{
+		String[] ids;
+		FrontCodedStringSet set;
+		long start = System.nanoTime();
+		if (args.length == 0) {
+			ids = createIds(new Random(42), NUM_IDS);
+			set = FrontCodedStringSet.of(ids);
+		}
+		else {
+			try (InputStream in = new FileInputStream(args[0])) {
+				set = FrontCodedStringSet.build(in);
+			}
+			ids = readIds(args[0]);
+		}
+		long took = (System.nanoTime() - start) / 1000000;
+		System.out.printf("%d ids; built in %d ms; %d KB%n", set.size(), took,
+				set.getMemoryUsage() / 1024);
+		Random random = new Random(7);
+		String[] hits = new String[NUM_LOOKUPS];
+		String[] misses = new String[NUM_LOOKUPS];
+		for (int i = 0; i < NUM_LOOKUPS; i++) {
+			/*
+			 * Copy the ids, like the transformers get fresh strings from the
+			 * parser, rather than strings scattered all over the heap.
+			 */
+			hits[i] = new String(ids[random.nextInt(ids.length)]);
+			misses[i] = args.length == 0 ? createId(random) + "X" : hits[i] + "X";
+		}
+		for (int i = 0; i < 10; i++) {
+			double hit = run(set, hits, true);
+			double miss = run(set, misses, false);
+			System.out.printf("hits: %6.0f ns/lookup   misses: %6.0f ns/lookup%n", hit, miss);
+		}
+	}
+
+	private static double run(FrontCodedStringSet set, String[] keys, boolean expected)
+	{
+		long start = System.nanoTime();
+		for (String key : keys) {
+			if (set.contains(key) != expected) {
+				throw new AssertionError("Unexpected result for " + key);
+			}
+		}
+		return (double) (System.nanoTime() - start) / keys.length;
+	}
+
+	private static String[] createIds(Random random, int n)
+	{
+		String[] ids = new String[n];
+		for (int i = 0; i < n; i++) {
+			ids[i] = createId(random);
+		}
+		return ids;
+	}
+
+	private static String createId(Random random)
+	{
+		StringBuilder sb = new StringBuilder(24);
+		sb.append(PREFIXES[random.nextInt(PREFIXES.length)]);
+		sb.append(random.nextInt(10000000));
+		if (random.nextBoolean()) {
+			sb.append('_').append(random.nextInt(10));
+		}
+		return sb.toString();
+	}
+
+	private static String[] readIds(String path) throws IOException
+	{
+		return Files.readAllLines(Paths.get(path), UTF_8).stream().map(String::trim)
+				.filter(s -> !s.isEmpty()).toArray(String[]::new);
+	}
+
+}
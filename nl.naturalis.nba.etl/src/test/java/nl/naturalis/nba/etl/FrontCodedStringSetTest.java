@@ -0,0 +1,89 @@
+package nl.naturalis.nba.etl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for FrontCodedStringSet.java
+ */
+public class FrontCodedStringSetTest {
+
+	@Test
+	public void testContains_01() throws IOException
+	{
+		String lines = "RMNH.INS.100\r\nRMNH.INS.10\n\nRMNH.INS.1000\nL.123\nRMNH.INS.10\nÄ.1\nRMNH.INS.2";
+		FrontCodedStringSet set = FrontCodedStringSet.build(new ByteArrayInputStream(lines.getBytes(UTF_8)));
+		assertEquals("01", 6, set.size());
+		assertTrue("02", set.contains("RMNH.INS.10"));
+		assertTrue("03", set.contains("RMNH.INS.100"));
+		assertTrue("04", set.contains("RMNH.INS.1000"));
+		assertTrue("05", set.contains("RMNH.INS.2"));
+		assertTrue("06", set.contains("L.123"));
+		assertTrue("07", set.contains("Ä.1"));
+		assertFalse("08", set.contains("RMNH.INS.1"));
+		assertFalse("09", set.contains("RMNH.INS.101"));
+		assertFalse("10", set.contains("RMNH.INS.10000"));
+		assertFalse("11", set.contains("A"));
+		assertFalse("12", set.contains("ZZZ"));
+		assertFalse("13", set.contains(""));
+		assertFalse("14", set.contains(null));
+	}
+
+	@Test
+	public void testContains_02()
+	{
+		// Spans multiple blocks; every other id is left out of the set
+		Random random = new Random(42);
+		List<String> in = new ArrayList<>();
+		List<String> out = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			String id = "ZMA." + random.nextInt(100000) + (i % 3 == 0 ? "_" + i : "");
+			(i % 2 == 0 ? in : out).add(id);
+		}
+		out.removeAll(in);
+		Collections.shuffle(in, random);
+		FrontCodedStringSet set = FrontCodedStringSet.of(in.toArray(new String[in.size()]));
+		for (String id : in) {
+			assertTrue("01", set.contains(id));
+		}
+		for (String id : out) {
+			assertFalse("02", set.contains(id));
+		}
+	}
+
+	@Test
+	public void testContains_03()
+	{
+		FrontCodedStringSet set = FrontCodedStringSet.of();
+		assertEquals("01", 0, set.size());
+		assertFalse("02", set.contains("L.123"));
+	}
+
+	@Test
+	public void testContains_04()
+	{
+		// ASCII keys are compared without being encoded; other keys are not
+		String[] ids = {"L.1", "L.1\u00e9", "L.1z", "L.\u00e9", "L.\u20ac1", "L.\ud83d\udc1b", "L.\uffff"};
+		FrontCodedStringSet set = FrontCodedStringSet.of(ids);
+		for (String id : ids) {
+			assertTrue("01", set.contains(id));
+		}
+		assertFalse("02", set.contains("L.1\u00e8"));
+		assertFalse("03", set.contains("L.\u20ac"));
+		assertFalse("04", set.contains("L.\ud83d\udc1c"));
+		assertFalse("05", set.contains("L.2"));
+		assertFalse("06", set.contains("L.\u00e9z"));
+	}
+
+}
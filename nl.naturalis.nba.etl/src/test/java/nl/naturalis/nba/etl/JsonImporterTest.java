@@ -0,0 +1,116 @@
+package nl.naturalis.nba.etl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.action.DocWriteRequest.OpType;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+/**
+ * Test class for JsonImporter.java
+ */
+public class JsonImporterTest {
+
+  private static final JsonFactory factory = new JsonFactory();
+
+  @Test
+  public void testIndexRaw_01() throws IOException {
+    // Documents rejected with 429 or 503 must be sent again; others skipped
+    List<RawJsonDocument> batch = Arrays.asList(doc("A"), doc("B"), doc("C"), doc("D"));
+    FakeIndexer indexer = new FakeIndexer();
+    indexer.respond("B", RestStatus.TOO_MANY_REQUESTS, RestStatus.OK);
+    indexer.respond("C", RestStatus.BAD_REQUEST);
+    indexer.respond("D", RestStatus.SERVICE_UNAVAILABLE, RestStatus.TOO_MANY_REQUESTS, RestStatus.OK);
+    int skipped = JsonImporter.indexRaw(indexer, batch, 0);
+    assertEquals("01", 1, skipped);
+    assertEquals("02", Arrays.asList(4, 2, 1), indexer.requestSizes);
+    assertEquals("03", Arrays.asList("A", "B", "D"), indexer.indexed);
+  }
+
+  @Test
+  public void testIndexRaw_02() throws IOException {
+    List<RawJsonDocument> batch = Arrays.asList(doc("A"), doc("B"));
+    FakeIndexer indexer = new FakeIndexer();
+    int skipped = JsonImporter.indexRaw(indexer, batch, 0);
+    assertEquals("01", 0, skipped);
+    assertEquals("02", Arrays.asList(2), indexer.requestSizes);
+    assertEquals("03", Arrays.asList("A", "B"), indexer.indexed);
+  }
+
+  @Test
+  public void testIndexRaw_03() throws IOException {
+    // Give up if Elasticsearch stays too busy
+    List<RawJsonDocument> batch = Arrays.asList(doc("A"), doc("B"));
+    FakeIndexer indexer = new FakeIndexer();
+    RestStatus[] busy = new RestStatus[100];
+    Arrays.fill(busy, RestStatus.TOO_MANY_REQUESTS);
+    indexer.respond("B", busy);
+    try {
+      JsonImporter.indexRaw(indexer, batch, 0);
+      fail("Expected an ETLRuntimeException");
+    } catch (ETLRuntimeException e) {
+      assertEquals("01", 61, indexer.requestSizes.size());
+      assertEquals("02", Arrays.asList("A"), indexer.indexed);
+    }
+  }
+
+  private static RawJsonDocument doc(String id) throws IOException {
+    String json = "{\"id\":\"" + id + "\",\"unitID\":\"" + id + "\"}";
+    return RawJsonDocument.parse(factory, json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /*
+   * Responds to each document with the next of the statuses registered for
+   * it, and with 200 (OK) once these have been used up.
+   */
+  private static class FakeIndexer implements JsonImporter.RawIndexer {
+
+    final Map<String, List<RestStatus>> responses = new HashMap<>();
+    final List<Integer> requestSizes = new ArrayList<>();
+    final List<String> indexed = new ArrayList<>();
+
+    void respond(String id, RestStatus... statuses) {
+      responses.put(id, new ArrayList<>(Arrays.asList(statuses)));
+    }
+
+    @Override
+    public void index(List<RawJsonDocument> documents) throws BulkIndexException {
+      requestSizes.add(documents.size());
+      BulkItemResponse[] items = new BulkItemResponse[documents.size()];
+      boolean failed = false;
+      for (int i = 0; i < documents.size(); i++) {
+        String id = documents.get(i).getId();
+        List<RestStatus> statuses = responses.get(id);
+        RestStatus status = statuses == null || statuses.isEmpty() ? RestStatus.OK : statuses.remove(0);
+        if (status == RestStatus.OK) {
+          ShardId shard = new ShardId("specimen", "_na_", 0);
+          items[i] = new BulkItemResponse(i, OpType.INDEX, new IndexResponse(shard, "_doc", id, 1, 1, 1, true));
+          indexed.add(id);
+        } else {
+          Exception cause = new Exception("Status " + status);
+          items[i] = new BulkItemResponse(i, OpType.INDEX, new BulkItemResponse.Failure("specimen", "_doc", id, cause, status));
+          failed = true;
+        }
+      }
+      if (failed) {
+        throw new BulkIndexException(new BulkResponse(items, 1), documents);
+      }
+    }
+  }
+
+}
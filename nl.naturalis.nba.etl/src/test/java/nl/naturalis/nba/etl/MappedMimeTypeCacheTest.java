@@ -0,0 +1,164 @@
+package nl.naturalis.nba.etl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for MappedMimeTypeCache.java
+ */
+public class MappedMimeTypeCacheTest {
+
+	private File dir;
+	private File zipFile;
+	private File storeFile;
+	private File logFile;
+
+	@Before
+	public void before() throws IOException
+	{
+		dir = Files.createTempDirectory("MappedMimeTypeCacheTest").toFile();
+		zipFile = new File(dir, "mimetypes.zip");
+		storeFile = new File(dir, "mimetypes.bin");
+		logFile = new File(dir, MappedMimeTypeCache.LOG_FILE_NAME);
+	}
+
+	@After
+	public void after()
+	{
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	@Test
+	public void testBuildCache_01() throws IOException
+	{
+		// The store is built the first time, and rebuilt once the zip file changes
+		writeZip("RMNH.1\nimage/jpeg\n");
+		MappedMimeTypeCache cache = new MappedMimeTypeCache(zipFile);
+		assertTrue("01", storeFile.isFile());
+		assertEquals("02", 1, cache.getSize());
+		assertEquals("03", "image/jpeg", cache.getEntry("RMNH.1"));
+		assertNull("04", cache.getEntry("RMNH.2"));
+		cache.close();
+		writeZip("RMNH.1\nimage/png\nRMNH.2\nimage/tiff\n");
+		zipFile.setLastModified(zipFile.lastModified() + 2000);
+		assertFalse("05", MimeTypeStore.isUpToDate(storeFile, zipFile));
+		cache = new MappedMimeTypeCache(zipFile);
+		assertTrue("06", MimeTypeStore.isUpToDate(storeFile, zipFile));
+		assertEquals("07", 2, cache.getSize());
+		assertEquals("08", "image/png", cache.getEntry("RMNH.1"));
+		assertEquals("09", "image/tiff", cache.getEntry("RMNH.2"));
+		cache.close();
+	}
+
+	@Test
+	public void testSaveCache_01() throws IOException
+	{
+		// New entries are appended to the log file and read back next time
+		writeZip("RMNH.1\nimage/jpeg\n");
+		MappedMimeTypeCache cache = new MappedMimeTypeCache(zipFile);
+		cache.saveCache(zipFile);
+		assertFalse("01", logFile.exists());
+		cache.addEntry("L.2", "image/png");
+		assertEquals("02", "image/png", cache.getEntry("L.2"));
+		cache.saveCache(zipFile);
+		assertEquals("03", "L.2\nimage/png\n", readLogFile());
+		cache.addEntry("L.3", "");
+		cache.saveCache(zipFile);
+		assertEquals("04", "L.2\nimage/png\nL.3\n\n", readLogFile());
+		cache.close();
+		cache = new MappedMimeTypeCache(zipFile);
+		assertEquals("05", 3, cache.getSize());
+		assertEquals("06", "image/jpeg", cache.getEntry("RMNH.1"));
+		assertEquals("07", "image/png", cache.getEntry("L.2"));
+		assertEquals("08", "", cache.getEntry("L.3"));
+		cache.addEntry("L.4", "video/mp4");
+		cache.saveCache(zipFile);
+		assertEquals("09", "L.2\nimage/png\nL.3\n\nL.4\nvideo/mp4\n", readLogFile());
+		cache.close();
+	}
+
+	@Test
+	public void testGetEntry_01() throws IOException
+	{
+		// Entries in the log file take precedence over the entries in the store
+		writeZip("RMNH.1\nimage/jpeg\nRMNH.2\nimage/jpeg\n");
+		writeLogFile("RMNH.2\nimage/png\n");
+		MappedMimeTypeCache cache = new MappedMimeTypeCache(zipFile);
+		assertEquals("01", "image/jpeg", cache.getEntry("RMNH.1"));
+		assertEquals("02", "image/png", cache.getEntry("RMNH.2"));
+		cache.addEntry("RMNH.1", "image/tiff");
+		assertEquals("03", "image/tiff", cache.getEntry("RMNH.1"));
+		cache.close();
+	}
+
+	@Test
+	public void testReadLog_01() throws IOException
+	{
+		// An incomplete last entry is ignored and removed from the log file
+		writeLogFile("L.1\nimage/png\r\nL.2\nimage/pn");
+		Map<String, String> entries = MappedMimeTypeCache.readLog(logFile);
+		assertEquals("01", 1, entries.size());
+		assertEquals("02", "image/png", entries.get("L.1"));
+		assertEquals("03", "L.1\nimage/png\r\n", readLogFile());
+		writeLogFile("L.1\nimage/png\nL.2");
+		entries = MappedMimeTypeCache.readLog(logFile);
+		assertEquals("04", 1, entries.size());
+		assertEquals("05", "L.1\nimage/png\n", readLogFile());
+		assertTrue("06", MappedMimeTypeCache.readLog(new File(dir, "none.log")).isEmpty());
+	}
+
+	@Test
+	public void testReadLog_02() throws IOException
+	{
+		// Entries saved after an incomplete entry must not get mixed up with it
+		writeZip("RMNH.1\nimage/jpeg\n");
+		writeLogFile("L.1\nimage/png\nL.2\nimage/");
+		MappedMimeTypeCache cache = new MappedMimeTypeCache(zipFile);
+		cache.addEntry("L.3", "image/tiff");
+		cache.saveCache(zipFile);
+		cache.close();
+		cache = new MappedMimeTypeCache(zipFile);
+		assertEquals("01", 3, cache.getSize());
+		assertEquals("02", "image/png", cache.getEntry("L.1"));
+		assertNull("03", cache.getEntry("L.2"));
+		assertEquals("04", "image/tiff", cache.getEntry("L.3"));
+		cache.close();
+	}
+
+	private void writeZip(String contents) throws IOException
+	{
+		try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipFile))) {
+			zos.putNextEntry(new ZipEntry("mimetypes"));
+			zos.write(contents.getBytes(UTF_8));
+		}
+	}
+
+	private void writeLogFile(String contents) throws IOException
+	{
+		Files.write(logFile.toPath(), contents.getBytes(UTF_8));
+	}
+
+	private String readLogFile() throws IOException
+	{
+		return new String(Files.readAllBytes(logFile.toPath()), UTF_8);
+	}
+
+}
@@ -0,0 +1,106 @@
+package nl.naturalis.nba.etl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for MimeTypeStore.java
+ */
+public class MimeTypeStoreTest {
+
+	private File dir;
+	private File zipFile;
+	private File storeFile;
+
+	@Before
+	public void before() throws IOException
+	{
+		dir = Files.createTempDirectory("MimeTypeStoreTest").toFile();
+		zipFile = new File(dir, "mimetypes.zip");
+		storeFile = new File(dir, "mimetypes.bin");
+	}
+
+	@After
+	public void after()
+	{
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	@Test
+	public void testGet_01() throws IOException
+	{
+		writeZip("RMNH.1\nimage/jpeg\nL.2\nimage/png\nZMA.3\n\nL.2\nimage/tiff\n"
+				+ "Müller.4\nvideo/mp4\nA😀.5\nimage/png\n");
+		assertEquals("01", 5, MimeTypeStore.build(zipFile, storeFile));
+		try (MimeTypeStore store = MimeTypeStore.open(storeFile)) {
+			assertEquals("02", 5, store.size());
+			assertSame("03", AbstractMimeTypeCache.JPEG, store.get("RMNH.1"));
+			// Last occurrence wins
+			assertEquals("04", "image/tiff", store.get("L.2"));
+			assertEquals("05", "", store.get("ZMA.3"));
+			assertEquals("06", "video/mp4", store.get("Müller.4"));
+			assertEquals("07", "image/png", store.get("A😀.5"));
+			assertNull("08", store.get("RMNH.2"));
+			assertNull("09", store.get("RMNH.1 "));
+			assertNull("10", store.get("Muller.4"));
+			assertNull("11", store.get(""));
+		}
+	}
+
+	@Test
+	public void testGet_02() throws IOException
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			sb.append("U.").append(i).append('\n').append("image/").append(i % 7).append('\n');
+		}
+		writeZip(sb.toString());
+		MimeTypeStore.build(zipFile, storeFile);
+		try (MimeTypeStore store = MimeTypeStore.open(storeFile)) {
+			assertEquals("01", 5000, store.size());
+			for (int i = 0; i < 5000; i++) {
+				assertEquals("02", "image/" + (i % 7), store.get("U." + i));
+			}
+			assertNull("03", store.get("U.5000"));
+		}
+	}
+
+	@Test
+	public void testIsUpToDate_01() throws IOException
+	{
+		writeZip("RMNH.1\nimage/jpeg\n");
+		assertFalse("01", MimeTypeStore.isUpToDate(storeFile, zipFile));
+		MimeTypeStore.build(zipFile, storeFile);
+		assertTrue("02", MimeTypeStore.isUpToDate(storeFile, zipFile));
+		writeZip("RMNH.1\nimage/jpeg\nRMNH.2\nimage/jpeg\n");
+		zipFile.setLastModified(zipFile.lastModified() + 2000);
+		assertFalse("03", MimeTypeStore.isUpToDate(storeFile, zipFile));
+	}
+
+	private void writeZip(String contents) throws IOException
+	{
+		try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipFile))) {
+			zos.putNextEntry(new ZipEntry("mimetypes"));
+			zos.write(contents.getBytes(UTF_8));
+		}
+	}
+
+}
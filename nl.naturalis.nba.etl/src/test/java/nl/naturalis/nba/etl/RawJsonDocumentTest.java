@@ -0,0 +1,86 @@
+package nl.naturalis.nba.etl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+import nl.naturalis.nba.etl.JsonImporter.LineReader;
+
+/**
+ * Test class for RawJsonDocument.java
+ */
+public class RawJsonDocumentTest {
+
+  private static final JsonFactory factory = new JsonFactory();
+
+  @Test
+  public void testParse_01() throws IOException {
+    RawJsonDocument doc = parse("{\"id\":\"L.1@CRS\",\"unitID\":\"L.1\"}");
+    assertEquals("01", "L.1@CRS", doc.getId());
+    assertEquals("02", "{\"unitID\":\"L.1\"}", source(doc));
+    doc = parse("{\"unitID\":\"L.1\",\"id\":\"L.1@CRS\"}");
+    assertEquals("03", "L.1@CRS", doc.getId());
+    assertEquals("04", "{\"unitID\":\"L.1\"}", source(doc));
+    doc = parse("{\"a\":1, \"id\" : \"L.1@CRS\" , \"b\":2}");
+    assertEquals("05", "{\"a\":1, \"b\":2}", source(doc));
+    doc = parse("{\"id\":\"L.1@CRS\"}");
+    assertEquals("06", "{}", source(doc));
+  }
+
+  @Test
+  public void testParse_02() throws IOException {
+    // Nested id fields are left alone
+    String json = "{\"gatheringEvent\":{\"id\":\"x\",\"a\":[{\"id\":\"y\"}]},\"id\":\"é@NSR\"}";
+    RawJsonDocument doc = parse(json);
+    assertEquals("01", "é@NSR", doc.getId());
+    assertEquals("02", "{\"gatheringEvent\":{\"id\":\"x\",\"a\":[{\"id\":\"y\"}]}}", source(doc));
+    doc = parse("{\"gatheringEvent\":{\"id\":\"x\"}}");
+    assertNull("03", doc.getId());
+    assertEquals("04", "{\"gatheringEvent\":{\"id\":\"x\"}}", source(doc));
+  }
+
+  @Test(expected = IOException.class)
+  public void testParse_03() throws IOException {
+    parse("{\"id\":1}");
+  }
+
+  @Test(expected = IOException.class)
+  public void testParse_04() throws IOException {
+    parse("{\"unitID\":\"L.1\"");
+  }
+
+  @Test
+  public void testLineReader_01() throws IOException {
+    StringBuilder sb = new StringBuilder("\uFEFF{\"a\":1}\r\n\n");
+    for (int i = 0; i < 20000; i++) {
+      sb.append("{\"id\":\"").append(i).append("\"}\n");
+    }
+    sb.append("{\"b\":2}");
+    byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+    try (LineReader reader = new LineReader(new ByteArrayInputStream(bytes))) {
+      assertEquals("01", "{\"a\":1}", new String(reader.readLine(), StandardCharsets.UTF_8));
+      assertEquals("02", 0, reader.readLine().length);
+      for (int i = 0; i < 20000; i++) {
+        assertEquals("03", "{\"id\":\"" + i + "\"}", new String(reader.readLine(), StandardCharsets.UTF_8));
+      }
+      assertEquals("04", "{\"b\":2}", new String(reader.readLine(), StandardCharsets.UTF_8));
+      assertNull("05", reader.readLine());
+    }
+  }
+
+  private static RawJsonDocument parse(String json) throws IOException {
+    return RawJsonDocument.parse(factory, json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String source(RawJsonDocument doc) {
+    return new String(doc.getSource(), StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,102 @@
+package nl.naturalis.nba.etl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import nl.naturalis.nba.utils.xml.DOMUtil;
+
+/**
+ * Test class for StreamingXMLExtractor.java
+ */
+public class StreamingXMLExtractorTest {
+
+  private static final String OAI = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+      + "<OAI-PMH xmlns=\"http://www.openarchives.org/OAI/2.0/\">"
+      + "<responseDate>2017-10-11T11:58:32Z</responseDate>"
+      + "<ListRecords>"
+      + "<record><header><identifier>1</identifier></header>"
+      + "<metadata><abcd:UnitID xmlns:abcd=\"urn:abcd\" a=\"b\">L.1</abcd:UnitID></metadata>"
+      + "</record>"
+      + "<record><header><identifier>2</identifier></header>"
+      + "<metadata><![CDATA[x < y]]></metadata></record>"
+      + "<resumptionToken>next</resumptionToken>"
+      + "</ListRecords>"
+      + "</OAI-PMH>";
+
+  @Test
+  public void testIterator_01() throws XMLStreamException {
+    StreamingXMLExtractor extractor = new StreamingXMLExtractor(stream(OAI), "record", 0,
+        "resumptionToken");
+    assertEquals("01", "OAI-PMH", extractor.getRootElementName());
+    List<Element> records = new ArrayList<>();
+    for (XMLRecordInfo info : extractor) {
+      records.add(info.getRecord());
+    }
+    assertEquals("02", 2, records.size());
+    assertEquals("03", "1", DOMUtil.getDescendantValue(records.get(0), "identifier"));
+    Element unitID = DOMUtil.getDescendant(records.get(0), "abcd:UnitID");
+    assertEquals("04", "L.1", unitID.getTextContent());
+    assertEquals("05", "urn:abcd", unitID.getNamespaceURI());
+    assertEquals("06", "b", unitID.getAttribute("a"));
+    assertEquals("07", "x < y", DOMUtil.getDescendantValue(records.get(1), "metadata"));
+    assertEquals("08", "next", extractor.getCapturedValue("resumptionToken"));
+  }
+
+  @Test
+  public void testSkipRemainingRecords_01() throws XMLStreamException {
+    StreamingXMLExtractor extractor = new StreamingXMLExtractor(stream(OAI), "record", 0,
+        "resumptionToken", "error");
+    assertNull("01", extractor.getCapturedValue("resumptionToken"));
+    extractor.skipRemainingRecords();
+    assertEquals("02", "next", extractor.getCapturedValue("resumptionToken"));
+    assertNull("03", extractor.getCapturedElement("error"));
+    assertFalse("04", extractor.iterator().hasNext());
+  }
+
+  @Test
+  public void testIterator_02() throws XMLStreamException {
+    // Records identified by depth only; nested elements with the same name are not records
+    String xml = "<root><taxa><taxon><name>a</name><taxon><name>b</name></taxon></taxon>"
+        + "<taxon><name>c</name></taxon></taxa></root>";
+    StreamingXMLExtractor extractor = new StreamingXMLExtractor(stream(xml), null, 3);
+    List<String> names = new ArrayList<>();
+    for (XMLRecordInfo info : extractor) {
+      names.add(DOMUtil.getValue(info.getRecord(), "name"));
+    }
+    assertEquals("01", 2, names.size());
+    assertEquals("02", "a", names.get(0));
+    assertEquals("03", "c", names.get(1));
+  }
+
+  @Test
+  public void testIterator_03() throws XMLStreamException {
+    StreamingXMLExtractor extractor =
+        new StreamingXMLExtractor(stream("<root><record/><record>"), "record", 0);
+    try {
+      for (XMLRecordInfo info : extractor) {
+        assertTrue("01", info.getRecord() != null);
+      }
+      assertTrue("02", false);
+    } catch (ETLRuntimeException e) {
+      assertTrue("03", e.getCause() instanceof XMLStreamException);
+    }
+  }
+
+  private static InputStream stream(String xml) {
+    return new ByteArrayInputStream(xml.getBytes(UTF_8));
+  }
+
+}
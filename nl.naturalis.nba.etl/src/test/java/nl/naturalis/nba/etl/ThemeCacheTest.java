@@ -1,9 +1,43 @@
 package nl.naturalis.nba.etl;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static nl.naturalis.nba.api.model.SourceSystem.BRAHMS;
+import static nl.naturalis.nba.api.model.SourceSystem.CRS;
+import static nl.naturalis.nba.api.model.SourceSystem.NSR;
+import static nl.naturalis.nba.dao.DocumentType.MULTI_MEDIA_OBJECT;
+import static nl.naturalis.nba.dao.DocumentType.SPECIMEN;
+import static nl.naturalis.nba.dao.DocumentType.TAXON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
 public class ThemeCacheTest {
 
+  private File dir;
+
+  @Before
+  public void before() throws IOException {
+    dir = Files.createTempDirectory("ThemeCacheTest").toFile();
+  }
+
+  @After
+  public void after() {
+    for (File f : dir.listFiles()) {
+      f.delete();
+    }
+    dir.delete();
+  }
+
   @Test
   public void testThemeCache() {
 
@@ -13,4 +47,49 @@ public class ThemeCacheTest {
 
   }
 
-}
\ No newline at end of file
+  @Test
+  public void testLookup_01() throws IOException {
+    write("thematic-search.properties", "birds.identifier=Birds\n"
+        + "birds.type=Specimen\n"
+        + "crs.systems=CRS\n"
+        + "any.identifier=Anything\n");
+    write("birds.txt", "RMNH.1\n# comment\n\nRMNH.2\n");
+    write("crs.txt", "RMNH.2\nRMNH.3\n");
+    write("any.txt", " RMNH.2 \nL.4\n");
+    ThemeCache cache = new ThemeCache(dir);
+    assertEquals("01", Arrays.asList("Birds"), cache.lookup("RMNH.1", SPECIMEN, CRS));
+    assertNull("02", cache.lookup("RMNH.1", MULTI_MEDIA_OBJECT, CRS));
+    assertEquals("03", Arrays.asList("Birds", "crs", "Anything"),
+        sorted(cache.lookup("RMNH.2", SPECIMEN, CRS)));
+    assertEquals("04", Arrays.asList("Anything"), cache.lookup("RMNH.2", TAXON, NSR));
+    assertEquals("05", Arrays.asList("crs", "Anything"),
+        sorted(cache.lookup("RMNH.2", MULTI_MEDIA_OBJECT, null)));
+    assertEquals("06", Arrays.asList("Birds", "crs", "Anything"),
+        sorted(cache.lookup("RMNH.2", null, null)));
+    assertNull("07", cache.lookup("RMNH.3", SPECIMEN, BRAHMS));
+    assertEquals("08", Arrays.asList("Anything"), cache.lookup("L.4", SPECIMEN, BRAHMS));
+    assertNull("09", cache.lookup("L.5", SPECIMEN, BRAHMS));
+    assertNull("10", cache.lookup(null, SPECIMEN, BRAHMS));
+  }
+
+  /*
+   * The order of the themes depends on the order of the keys in the properties
+   * file, which is undefined.
+   */
+  private static List<String> sorted(List<String> themes) {
+    String[] order = {"Birds", "crs", "Anything"};
+    List<String> result = new ArrayList<>();
+    for (String s : order) {
+      if (themes.contains(s)) {
+        result.add(s);
+      }
+    }
+    assertEquals(themes.size(), result.size());
+    return result;
+  }
+
+  private void write(String name, String contents) throws IOException {
+    Files.write(new File(dir, name).toPath(), contents.getBytes(UTF_8));
+  }
+
+}
@@ -6,7 +6,9 @@ import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses({ 
+  CoLFileSorterTest.class,
   CoLReferenceBatchTransformerTest.class,
+  CoLSortedRecordsTest.class,
   CoLSynonymBatchTransformerTest.class,
   CoLTaxonImporterTest.class,
   CoLTaxonTransformerTest.class,
@@ -0,0 +1,100 @@
+package nl.naturalis.nba.etl.col;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for CoLFileSorter.java
+ */
+public class CoLFileSorterTest {
+
+  private File input;
+  private File output;
+
+  @Before
+  public void setUp() throws IOException {
+    input = File.createTempFile("CoLFileSorterTest-", ".txt");
+    output = File.createTempFile("CoLFileSorterTest-", ".sorted.txt");
+  }
+
+  @After
+  public void tearDown() {
+    input.delete();
+    output.delete();
+  }
+
+  @Test
+  public void testGetKey_01() {
+    CoLFileSorter sorter = new CoLFileSorter(1, 1024);
+    assertEquals("01", "b", sorter.getKey("a\tb\tc"));
+    assertEquals("02", "b", sorter.getKey("a\t b \tc"));
+    assertEquals("03", "b", sorter.getKey("a\tb"));
+    assertNull("04", sorter.getKey("a\t\tc"));
+    assertNull("05", sorter.getKey("a"));
+    assertEquals("06", "a", new CoLFileSorter(0, 1024).getKey("a\tb\tc"));
+  }
+
+  @Test
+  public void testSort_01() throws IOException {
+    write("id\tkey", "1\tc", "2\ta", "3\t", "4\tb", "5\ta");
+    long n = new CoLFileSorter(1, 1024 * 1024).sort(input, output);
+    assertEquals("01", 4, n);
+    assertEquals("02", Arrays.asList("id\tkey", "2\ta", "5\ta", "4\tb", "1\tc"), read());
+  }
+
+  @Test
+  public void testSort_02() throws IOException {
+    // A buffer too small for more than a few records forces a merge of many temporary files
+    Random random = new Random(7);
+    List<String> lines = new ArrayList<>();
+    lines.add("key\tseq");
+    for (int i = 0; i < 2000; i++) {
+      lines.add(random.nextInt(300) + "\t" + i);
+    }
+    write(lines.toArray(new String[lines.size()]));
+    long n = new CoLFileSorter(0, 1000).sort(input, output);
+    assertEquals("01", 2000, n);
+    List<String> sorted = read();
+    assertEquals("02", 2001, sorted.size());
+    assertEquals("03", "key\tseq", sorted.get(0));
+    for (int i = 2; i < sorted.size(); i++) {
+      String[] prev = sorted.get(i - 1).split("\t");
+      String[] cur = sorted.get(i).split("\t");
+      int cmp = prev[0].compareTo(cur[0]);
+      assertEquals("04", true, cmp <= 0);
+      if (cmp == 0) {
+        // Stable sort
+        assertEquals("05", true, Integer.parseInt(prev[1]) < Integer.parseInt(cur[1]));
+      }
+    }
+  }
+
+  @Test
+  public void testSort_03() throws IOException {
+    write();
+    assertEquals("01", 0, new CoLFileSorter(0, 1024).sort(input, output));
+    assertEquals("02", 0, read().size());
+  }
+
+  private void write(String... lines) throws IOException {
+    Files.write(input.toPath(), Arrays.asList(lines), UTF_8);
+  }
+
+  private List<String> read() throws IOException {
+    return Files.readAllLines(output.toPath(), UTF_8);
+  }
+
+}
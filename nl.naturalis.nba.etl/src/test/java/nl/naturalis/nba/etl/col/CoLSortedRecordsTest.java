@@ -0,0 +1,59 @@
+package nl.naturalis.nba.etl.col;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static nl.naturalis.nba.etl.col.CoLVernacularNameCsvField.taxonID;
+import static nl.naturalis.nba.etl.col.CoLVernacularNameCsvField.vernacularName;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import nl.naturalis.nba.etl.CSVExtractor;
+import nl.naturalis.nba.etl.CSVRecordInfo;
+import nl.naturalis.nba.etl.ETLStatistics;
+
+/**
+ * Test class for CoLSortedRecords.java
+ */
+public class CoLSortedRecordsTest {
+
+  @Test
+  public void testNext_01() throws IOException {
+    File f = File.createTempFile("CoLSortedRecordsTest-", ".txt");
+    try {
+      Files.write(f.toPath(), Arrays.asList(
+          "taxonID\tvernacularName\tlanguage\tcountryCode\tlocality\ttransliteration",
+          "1\tone\tEnglish\t\t\t",
+          "3\tthree\tEnglish\t\t\t",
+          "3\tdrie\tDutch\t\t\t",
+          "4\tfour\tEnglish\t\t\t",
+          "6\tsix\tEnglish\t\t\t"), UTF_8);
+      CSVExtractor<CoLVernacularNameCsvField> extractor =
+          new CSVExtractor<>(f, CoLVernacularNameCsvField.class, new ETLStatistics());
+      extractor.setSkipHeader(true);
+      extractor.setDelimiter('\t');
+      extractor.setQuote('\u0000');
+      CoLSortedRecords<CoLVernacularNameCsvField> records =
+          new CoLSortedRecords<>(extractor, taxonID);
+      assertEquals("01", 0, records.next("0").size());
+      assertEquals("02", 1, records.next("1").size());
+      List<CSVRecordInfo<CoLVernacularNameCsvField>> result = records.next("3");
+      assertEquals("03", 2, result.size());
+      assertEquals("04", "three", result.get(0).get(vernacularName));
+      assertEquals("05", "drie", result.get(1).get(vernacularName));
+      // Record 4 is passed over
+      assertEquals("06", 0, records.next("5").size());
+      assertEquals("07", 1, records.getUnmatched());
+      assertEquals("08", 1, records.next("6").size());
+      assertEquals("09", 0, records.next("7").size());
+    } finally {
+      f.delete();
+    }
+  }
+
+}
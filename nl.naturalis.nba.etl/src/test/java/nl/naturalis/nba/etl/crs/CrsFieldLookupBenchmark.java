@@ -0,0 +1,168 @@
+package nl.naturalis.nba.etl.crs;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.w3c.dom.Element;
+
+import nl.naturalis.nba.etl.AllTests;
+import nl.naturalis.nba.etl.ElementIndex;
+import nl.naturalis.nba.etl.StreamingXMLExtractor;
+import nl.naturalis.nba.etl.XMLRecordInfo;
+import nl.naturalis.nba.utils.xml.DOMUtil;
+
+/**
+ * Compares the number of CRS records per second for which the fields can be
+ * looked up the way the {@link CrsSpecimenTransformer} used to do it (walking
+ * the record for every field using {@link DOMUtil}) with the number of
+ * records per second when the fields are looked up through an
+ * {@link ElementIndex} (including the cost of building the index). The
+ * lookups replay those of the transformer: the record-level fields plus the
+ * fields of each determination. This is not a unit test; run it from the IDE
+ * or with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=nl.naturalis.nba.etl.crs.CrsFieldLookupBenchmark -Dexec.classpathScope=test [-Dexec.args=/path/to/specimens.oai.xml]
+ * </pre>
+ *
+ * Without an argument the OAI sample from the test resources is used.
+ *
+ * @author Ayco Holleman
+ *
+ */
+public class CrsFieldLookupBenchmark {
+
+	private static final String[] RECORD_FIELDS = { "identifier", "abcd:UnitID",
+			"abcd:RecordBasis", "abcd:CollectionType", "abcd:CollectorsFieldNumber",
+			"abcd:KindOfUnit", "abcd:Title", "abcd:AccessionSpecimenNumbers", "abcd:ObjectPublic",
+			"abcd:MultiMediaPublic", "abcd:FromCaptivity", "abcd:PreparationType",
+			"abcd:SpecimenMount", "abcd:ProjectTitle", "abcd:WorldRegion", "abcd:Country",
+			"abcd:ProvinceState", "abcd:Island", "abcd:Locality", "abcd:LocalityText",
+			"abcd:GatheringAgent", "abcd:LatitudeDecimal", "abcd:LongitudeDecimal",
+			"abcd:CollectingStartDate", "abcd:CollectingEndDate", "abcd:Sex", "abcd:PhaseOrStage" };
+
+	private static final String[] RECORD_LISTS = { "ncrsDetermination", "abcd:fileuri",
+			"abcd:MultiMediaPublic", "abcd:PreviousSourceName", "ncrsSynecology", "ncrsNamedAreas",
+			"ncrsChronoStratigraphy", "ncrsBioStratigraphy", "ncrsLithoStratigraphy" };
+
+	private static final String[] DETERMINATION_FIELDS = { "abcd:GenusOrMonomial",
+			"abcd:Subgenus", "abcd:SpeciesEpithet", "abcd:subspeciesepithet",
+			"abcd:InfrasubspecificName", "abcd:NameAddendum", "abcd:AuthorTeamOriginalAndYear",
+			"abcd:FullScientificNameString", "abcd:PreferredFlag", "abcd:NomenclaturalTypeText",
+			"abcd:IdentificationDate", "abcd:Identifier", "abcd:AssociatedFossilAssemblage",
+			"abcd:AssociatedMineralName", "abcd:RockMineralUsage", "abcd:RockType",
+			"abcd:InfrasubspecificRank", "abcd:taxonCoverage", "abcd:InformalNameString" };
+
+	private static final int MIN_RECORDS_PER_ROUND = 20000;
+
+	public static void main(String[] args) throws Exception
+	{
+		File file;
+		if (args.length == 0) {
+			file = new File(AllTests.class.getResource("specimens.20140701000000.000008.oai.xml").toURI());
+		}
+		else {
+			file = new File(args[0]);
+		}
+		List<Element> records = new ArrayList<>();
+		try (StreamingXMLExtractor extractor = new StreamingXMLExtractor(new FileInputStream(file),
+				"record", 0)) {
+			for (XMLRecordInfo info : extractor) {
+				records.add(info.getRecord());
+			}
+		}
+		int repeat = (int) Math.ceil((double) MIN_RECORDS_PER_ROUND / records.size());
+		System.out.printf("File: %s (%d records, each processed %d times per round)%n", file,
+				records.size(), repeat);
+		for (int i = 0; i < 10; i++) {
+			long dom = runDOMUtil(records, repeat);
+			long indexed = runIndexed(records, repeat);
+			long numRecords = (long) records.size() * repeat;
+			System.out.printf("DOMUtil: %8d records/sec   ElementIndex: %8d records/sec%n",
+					perSecond(numRecords, dom), perSecond(numRecords, indexed));
+		}
+	}
+
+	private static long runDOMUtil(List<Element> records, int repeat)
+	{
+		int count = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < repeat; i++) {
+			for (Element record : records) {
+				for (String tag : RECORD_FIELDS) {
+					if (DOMUtil.getDescendantValue(record, tag) != null) {
+						++count;
+					}
+				}
+				for (String tag : RECORD_LISTS) {
+					if (DOMUtil.getDescendants(record, tag) != null) {
+						++count;
+					}
+				}
+				List<Element> determinations = DOMUtil.getDescendants(record, "ncrsDetermination");
+				if (determinations != null) {
+					for (Element e : determinations) {
+						for (String tag : DETERMINATION_FIELDS) {
+							if (DOMUtil.getDescendantValue(e, tag) != null) {
+								++count;
+							}
+						}
+					}
+				}
+			}
+		}
+		long took = System.nanoTime() - start;
+		check(count);
+		return took;
+	}
+
+	private static long runIndexed(List<Element> records, int repeat)
+	{
+		int count = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < repeat; i++) {
+			for (Element record : records) {
+				ElementIndex index = new ElementIndex(record);
+				for (String tag : RECORD_FIELDS) {
+					if (index.getDescendantValue(record, tag) != null) {
+						++count;
+					}
+				}
+				for (String tag : RECORD_LISTS) {
+					if (index.getDescendants(record, tag) != null) {
+						++count;
+					}
+				}
+				List<Element> determinations = index.getDescendants(record, "ncrsDetermination");
+				if (determinations != null) {
+					for (Element e : determinations) {
+						for (String tag : DETERMINATION_FIELDS) {
+							if (index.getDescendantValue(e, tag) != null) {
+								++count;
+							}
+						}
+					}
+				}
+			}
+		}
+		long took = System.nanoTime() - start;
+		check(count);
+		return took;
+	}
+
+	private static long perSecond(long records, long nanos)
+	{
+		return Math.round(records / (nanos / 1e9));
+	}
+
+	// Make sure the JIT cannot optimize the lookups away
+	private static void check(int count)
+	{
+		if (count == -1) {
+			System.out.println(count);
+		}
+	}
+
+}
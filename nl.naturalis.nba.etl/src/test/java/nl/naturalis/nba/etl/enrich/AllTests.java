@@ -3,18 +3,24 @@ package nl.naturalis.nba.etl.enrich;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
+import nl.naturalis.nba.etl.enrich.EnrichmentLookupCacheTest;
 import nl.naturalis.nba.etl.enrich.EnrichmentUtilTest;
 import nl.naturalis.nba.etl.enrich.MultimediaTaxonomicEnricherTest;
 import nl.naturalis.nba.etl.enrich.SpecimenMultimediaEnricherTest;
 import nl.naturalis.nba.etl.enrich.SpecimenTaxonomicEnricherTest;
+import nl.naturalis.nba.etl.enrich.LookaheadBatchReaderTest;
+import nl.naturalis.nba.etl.enrich.TaxonomicEnrichmentIndexTest;
 
 
 @RunWith(Suite.class)
 @SuiteClasses({ 
+    EnrichmentLookupCacheTest.class,
     EnrichmentUtilTest.class,
     MultimediaTaxonomicEnricherTest.class,
     SpecimenMultimediaEnricherTest.class,
     SpecimenTaxonomicEnricherTest.class,
+    LookaheadBatchReaderTest.class,
+    TaxonomicEnrichmentIndexTest.class,
 })
 
 public class AllTests {}
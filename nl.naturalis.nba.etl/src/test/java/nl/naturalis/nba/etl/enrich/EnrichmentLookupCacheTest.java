@@ -0,0 +1,80 @@
+package nl.naturalis.nba.etl.enrich;
+
+import static nl.naturalis.nba.etl.enrich.EnrichmentUtil.NOT_ENRICHABLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import nl.naturalis.nba.api.model.DefaultClassification;
+import nl.naturalis.nba.api.model.SourceSystem;
+import nl.naturalis.nba.api.model.Taxon;
+import nl.naturalis.nba.api.model.TaxonomicEnrichment;
+
+/**
+ * Test class for EnrichmentLookupCache.java
+ */
+public class EnrichmentLookupCacheTest {
+
+  @Test
+  public void testLookup_01() {
+    List<String> queried = new ArrayList<>();
+    EnrichmentLookupCache cache = new EnrichmentLookupCache(10, names -> load(names, queried));
+    Map<String, List<TaxonomicEnrichment>> table;
+    table = cache.lookup(new String[] {"larus fuscus", "parus major", "unknown"});
+    assertEquals("01", 3, queried.size());
+    assertEquals("02", "1@COL", table.get("larus fuscus").get(0).getTaxonId());
+    assertSame("03", NOT_ENRICHABLE, table.get("unknown"));
+    table = cache.lookup(new String[] {"larus fuscus", "unknown", "pica pica"});
+    // Only the new name should have been queried
+    assertEquals("04", Arrays.asList("larus fuscus", "parus major", "unknown", "pica pica"),
+        queried);
+    assertEquals("05", "1@COL", table.get("larus fuscus").get(0).getTaxonId());
+    assertSame("06", NOT_ENRICHABLE, table.get("unknown"));
+    assertSame("07", NOT_ENRICHABLE, table.get("pica pica"));
+    assertEquals("08", 2, cache.getHits());
+    assertEquals("09", 4, cache.getMisses());
+    assertEquals("10", 100D / 3, cache.getHitRatio(), 0.001);
+  }
+
+  @Test
+  public void testLookup_02() {
+    List<String> queried = new ArrayList<>();
+    EnrichmentLookupCache cache = new EnrichmentLookupCache(2, names -> load(names, queried));
+    cache.lookup(new String[] {"a"});
+    cache.lookup(new String[] {"b"});
+    cache.lookup(new String[] {"a"});
+    // Evicts "b", the least recently used name
+    cache.lookup(new String[] {"c"});
+    assertEquals("01", 2, cache.size());
+    cache.lookup(new String[] {"a", "b"});
+    assertEquals("02", Arrays.asList("a", "b", "c", "b"), queried);
+  }
+
+  private static Map<String, List<Taxon>> load(String[] names, List<String> queried) {
+    queried.addAll(Arrays.asList(names));
+    Map<String, List<Taxon>> taxa = new HashMap<>();
+    for (String name : names) {
+      if (name.equals("larus fuscus") || name.equals("parus major")) {
+        Taxon taxon = new Taxon();
+        taxon.setId(name.equals("larus fuscus") ? "1@COL" : "2@COL");
+        taxon.setSourceSystem(SourceSystem.COL);
+        taxon.setDefaultClassification(new DefaultClassification());
+        taxa.put(name, Arrays.asList(taxon));
+      } else if (name.equals("pica pica")) {
+        // Yields no enrichments
+        Taxon taxon = new Taxon();
+        taxon.setSourceSystem(SourceSystem.NSR);
+        taxa.put(name, Arrays.asList(taxon));
+      }
+    }
+    return taxa;
+  }
+
+}
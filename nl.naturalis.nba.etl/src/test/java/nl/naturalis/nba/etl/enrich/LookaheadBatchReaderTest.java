@@ -0,0 +1,55 @@
+package nl.naturalis.nba.etl.enrich;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import nl.naturalis.nba.etl.ETLRuntimeException;
+
+/**
+ * Test class for LookaheadBatchReader.java
+ */
+public class LookaheadBatchReaderTest {
+
+  @Test
+  public void testNext_01() {
+    Iterator<List<Integer>> batches =
+        Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3), Arrays.asList(4, 5, 6)).iterator();
+    try (LookaheadBatchReader<Integer, Integer> reader = new LookaheadBatchReader<>(
+        () -> batches.hasNext() ? batches.next() : null, LookaheadBatchReaderTest::sum)) {
+      assertTrue("01", reader.next());
+      assertEquals("02", Arrays.asList(1, 2), reader.getBatch());
+      assertEquals("03", Integer.valueOf(3), reader.getLookupTable());
+      assertTrue("04", reader.next());
+      assertEquals("05", Integer.valueOf(3), reader.getLookupTable());
+      assertTrue("06", reader.next());
+      assertEquals("07", Integer.valueOf(15), reader.getLookupTable());
+      assertFalse("08", reader.next());
+      assertNull("09", reader.getBatch());
+      assertEquals("10", 3, reader.getLookups());
+    }
+  }
+
+  @Test(expected = ETLRuntimeException.class)
+  public void testNext_02() {
+    Iterator<List<Integer>> batches = Arrays.asList(Arrays.asList(1)).iterator();
+    try (LookaheadBatchReader<Integer, Integer> reader =
+        new LookaheadBatchReader<>(() -> batches.hasNext() ? batches.next() : null, batch -> {
+          throw new ETLRuntimeException("lookup failed");
+        })) {
+      reader.next();
+    }
+  }
+
+  private static Integer sum(List<Integer> batch) {
+    return batch.stream().mapToInt(Integer::intValue).sum();
+  }
+
+}
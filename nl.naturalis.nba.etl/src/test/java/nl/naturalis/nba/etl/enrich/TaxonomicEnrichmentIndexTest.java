@@ -0,0 +1,100 @@
+package nl.naturalis.nba.etl.enrich;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import nl.naturalis.nba.api.model.DefaultClassification;
+import nl.naturalis.nba.api.model.ScientificName;
+import nl.naturalis.nba.api.model.SourceSystem;
+import nl.naturalis.nba.api.model.Taxon;
+import nl.naturalis.nba.api.model.TaxonomicEnrichment;
+import nl.naturalis.nba.api.model.VernacularName;
+
+/**
+ * Test class for TaxonomicEnrichmentIndex.java
+ */
+public class TaxonomicEnrichmentIndexTest {
+
+  @Test
+  public void testBuild_01() {
+    TaxonomicEnrichmentIndex index = TaxonomicEnrichmentIndex.build(createTaxa(), "v1");
+    assertEquals("01", 3, index.size());
+    List<TaxonomicEnrichment> enrichments = index.getEnrichments("Larus fuscus");
+    assertEquals("02", 2, enrichments.size());
+    assertEquals("03", "1@COL", enrichments.get(0).getTaxonId());
+    assertEquals("04", "Aves", enrichments.get(0).getDefaultClassification().getClassName());
+    assertEquals("05", "2@NSR", enrichments.get(1).getTaxonId());
+    assertEquals("06", "Kleine mantelmeeuw",
+        enrichments.get(1).getVernacularNames().get(0).getName());
+    assertEquals("07", 0, index.getEnrichments("larus argentatus").size());
+    assertNull("08", index.getEnrichments("larus michahellis"));
+    assertNull("09", index.getEnrichments(null));
+    // Higher ranks are shared between enrichments
+    assertSame("10", enrichments.get(0).getDefaultClassification().getKingdom(),
+        index.getEnrichments("parus major").get(0).getDefaultClassification().getKingdom());
+  }
+
+  @Test
+  public void testSave_01() throws IOException {
+    TaxonomicEnrichmentIndex index = TaxonomicEnrichmentIndex.build(createTaxa(), "v1");
+    File file = File.createTempFile("TaxonomicEnrichmentIndexTest", ".json.gz");
+    try {
+      index.save(file);
+      TaxonomicEnrichmentIndex copy = TaxonomicEnrichmentIndex.read(file);
+      assertEquals("01", "v1", copy.getVersion());
+      assertEquals("02", 3, copy.size());
+      List<TaxonomicEnrichment> enrichments = copy.getEnrichments("larus fuscus");
+      assertEquals("03", 2, enrichments.size());
+      assertEquals("04", "Larus", enrichments.get(0).getDefaultClassification().getGenus());
+      assertEquals("05", "COL", enrichments.get(0).getSourceSystem().getCode());
+      assertEquals("06", "Kleine mantelmeeuw",
+          enrichments.get(1).getVernacularNames().get(0).getName());
+      assertEquals("07", 0, copy.getEnrichments("larus argentatus").size());
+    } finally {
+      file.delete();
+    }
+  }
+
+  private static List<Taxon> createTaxa() {
+    Taxon col1 = createTaxon("1@COL", SourceSystem.COL, "larus fuscus");
+    col1.setDefaultClassification(createClassification("Aves", "Laridae", "Larus"));
+    Taxon nsr = createTaxon("2@NSR", SourceSystem.NSR, "larus fuscus");
+    VernacularName vn = new VernacularName();
+    vn.setName("Kleine mantelmeeuw");
+    nsr.setVernacularNames(Arrays.asList(vn));
+    // Provides no enrichment data
+    Taxon col2 = createTaxon("3@COL", SourceSystem.COL, "larus argentatus");
+    Taxon col3 = createTaxon("4@COL", SourceSystem.COL, "parus major");
+    col3.setDefaultClassification(createClassification("Aves", "Paridae", "Parus"));
+    return Arrays.asList(col1, nsr, col2, col3);
+  }
+
+  private static Taxon createTaxon(String id, SourceSystem sourceSystem, String group) {
+    Taxon taxon = new Taxon();
+    taxon.setId(id);
+    taxon.setSourceSystem(sourceSystem);
+    ScientificName sn = new ScientificName();
+    sn.setScientificNameGroup(group);
+    taxon.setAcceptedName(sn);
+    return taxon;
+  }
+
+  private static DefaultClassification createClassification(String className, String family,
+      String genus) {
+    DefaultClassification dc = new DefaultClassification();
+    dc.setKingdom(new String("Animalia"));
+    dc.setClassName(className);
+    dc.setFamily(family);
+    dc.setGenus(genus);
+    return dc;
+  }
+
+}
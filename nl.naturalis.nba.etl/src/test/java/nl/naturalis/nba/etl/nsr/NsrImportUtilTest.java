@@ -2,6 +2,7 @@ package nl.naturalis.nba.etl.nsr;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.io.File;
 import java.io.FileReader;
@@ -13,9 +14,12 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import nl.naturalis.nba.api.model.MultiMediaObject;
 import nl.naturalis.nba.api.model.Taxon;
+import nl.naturalis.nba.common.json.JsonUtil;
 import nl.naturalis.nba.etl.AllTests;
 import nl.naturalis.nba.etl.ETLStatistics;
+import nl.naturalis.nba.etl.nsr.model.NsrTaxon;
 
 /**
  * Test class for NsrImportUtil.java
@@ -68,4 +72,40 @@ public class NsrImportUtilTest {
     assertEquals("02", expectedNameValue, actual);
   }
 
+  /**
+   * Test method for
+   * {@link nl.naturalis.nba.etl.nsr.NsrImportUtil#readNsrTaxon(java.lang.String)}.
+   * 
+   * Test to verify that the transformers produce the same output whether or
+   * not they are given the record in parsed form
+   * 
+   * @throws Exception exception
+   */
+  @Test
+  public void testReadNsrTaxon() throws Exception {
+    assertNull("01", NsrImportUtil.readNsrTaxon("{\"nsr_id\":"));
+    try (LineNumberReader lnr = new LineNumberReader(new FileReader(nsrFile), 4096)) {
+      String json;
+      while ((json = lnr.readLine()) != null) {
+        NsrTaxon nsrTaxon = NsrImportUtil.readNsrTaxon(json);
+        assertNotNull("02", nsrTaxon);
+        NsrTaxonTransformer tt0 = new NsrTaxonTransformer(new ETLStatistics());
+        NsrTaxonTransformer tt1 = new NsrTaxonTransformer(new ETLStatistics());
+        tt1.setNsrTaxon(nsrTaxon);
+        List<Taxon> taxa0 = tt0.transform(json);
+        List<Taxon> taxa1 = tt1.transform(json);
+        assertEquals("03", JsonUtil.toJson(taxa0), JsonUtil.toJson(taxa1));
+        NsrMultiMediaTransformer mt0 = new NsrMultiMediaTransformer(new ETLStatistics());
+        NsrMultiMediaTransformer mt1 = new NsrMultiMediaTransformer(new ETLStatistics());
+        mt0.setTaxon(taxa0.get(0));
+        mt1.setTaxon(taxa1.get(0));
+        mt1.setNsrTaxon(nsrTaxon);
+        List<MultiMediaObject> media0 = mt0.transform(json);
+        List<MultiMediaObject> media1 = mt1.transform(json);
+        assertNotNull("04", media1);
+        assertEquals("05", JsonUtil.toJson(media0), JsonUtil.toJson(media1));
+      }
+    }
+  }
+
 }
@@ -3,11 +3,25 @@ package nl.naturalis.nba.rest.resource;
 import static javax.ejb.ConcurrencyManagementType.BEAN;
 
 import javax.ejb.ConcurrencyManagement;
+import javax.ejb.Schedule;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
 
+import nl.naturalis.nba.dao.format.dwca.DwcaArchiveStore;
+
 @Singleton
 @Startup
 @ConcurrencyManagement(BEAN)
 public class Registry {
+
+  /**
+   * Checks every 15 minutes whether the pre-built DwCA archives are out of date (i.e. whether an
+   * import has taken place since they were generated) and, if so, regenerates them in the
+   * background. Does nothing if pre-built archives are disabled.
+   */
+  @Schedule(hour = "*", minute = "*/15", persistent = false)
+  public void buildDwcaArchives() {
+    DwcaArchiveStore.getInstance().requestBuild();
+  }
+
 }
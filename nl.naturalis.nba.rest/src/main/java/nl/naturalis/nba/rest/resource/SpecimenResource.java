@@ -5,6 +5,7 @@ import static nl.naturalis.nba.rest.util.ResourceUtil.NDJSON_CONTENT_TYPE;
 import static nl.naturalis.nba.rest.util.ResourceUtil.TEXT_CONTENT_TYPE;
 import static nl.naturalis.nba.rest.util.ResourceUtil.ZIP_CONTENT_TYPE;
 import static nl.naturalis.nba.rest.util.ResourceUtil.handleError;
+import static nl.naturalis.nba.rest.util.ResourceUtil.streamFile;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
@@ -20,8 +21,10 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.StreamingOutput;
@@ -42,6 +45,9 @@ import nl.naturalis.nba.api.QueryResult;
 import nl.naturalis.nba.api.QuerySpec;
 import nl.naturalis.nba.api.model.Specimen;
 import nl.naturalis.nba.dao.SpecimenDao;
+import nl.naturalis.nba.dao.format.dwca.DwcaArchiveStore;
+import nl.naturalis.nba.dao.format.dwca.DwcaDataSetType;
+import nl.naturalis.nba.dao.format.dwca.PrebuiltDwcaArchive;
 import nl.naturalis.nba.rest.exception.RESTException;
 import nl.naturalis.nba.rest.util.HttpGroupByScientificNameQuerySpecBuilder;
 import nl.naturalis.nba.rest.util.HttpQuerySpecBuilder;
@@ -581,8 +587,17 @@ public class SpecimenResource extends NbaResource<Specimen, SpecimenDao> {
   @Produces(ZIP_CONTENT_TYPE)
   public Response dwcaGetDataSet(
       @ApiParam(value = "name of dataset", required = true, defaultValue = "amphibia-and-reptilia") @PathParam("dataset") String name,
-      @Context UriInfo uriInfo) {
+      @Context UriInfo uriInfo, @Context Request request, @Context HttpHeaders headers) {
     try {
+      String fmt = "attachment; filename=\"%s-%s.dwca.zip\"";
+      SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
+      PrebuiltDwcaArchive archive = DwcaArchiveStore.getInstance().getArchive(DwcaDataSetType.SPECIMEN, name);
+      if (archive != null) {
+        ResponseBuilder response = streamFile(archive.getFile(), archive.getHash(), ZIP_CONTENT_TYPE, request, headers);
+        String hdr = String.format(fmt, name, sdf.format(new Date(archive.getCreated())));
+        response.header("Content-Disposition", hdr);
+        return response.build();
+      }
       StreamingOutput stream = new StreamingOutput() {
 
         @Override
@@ -598,8 +613,6 @@ public class SpecimenResource extends NbaResource<Specimen, SpecimenDao> {
       
       ResponseBuilder response = Response.ok(stream);
       response.type(ZIP_CONTENT_TYPE);
-      SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
-      String fmt = "attachment; filename=\"%s-%s.dwca.zip\"";
       String hdr = String.format(fmt, name, sdf.format(new Date()));
       response.header("Content-Disposition", hdr);
       return response.build();
@@ -5,6 +5,7 @@ import static nl.naturalis.nba.rest.util.ResourceUtil.NDJSON_CONTENT_TYPE;
 import static nl.naturalis.nba.rest.util.ResourceUtil.TEXT_CONTENT_TYPE;
 import static nl.naturalis.nba.rest.util.ResourceUtil.ZIP_CONTENT_TYPE;
 import static nl.naturalis.nba.rest.util.ResourceUtil.handleError;
+import static nl.naturalis.nba.rest.util.ResourceUtil.streamFile;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
@@ -21,8 +22,10 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.StreamingOutput;
@@ -43,6 +46,9 @@ import nl.naturalis.nba.api.QueryResult;
 import nl.naturalis.nba.api.QuerySpec;
 import nl.naturalis.nba.api.model.Taxon;
 import nl.naturalis.nba.dao.TaxonDao;
+import nl.naturalis.nba.dao.format.dwca.DwcaArchiveStore;
+import nl.naturalis.nba.dao.format.dwca.DwcaDataSetType;
+import nl.naturalis.nba.dao.format.dwca.PrebuiltDwcaArchive;
 import nl.naturalis.nba.rest.exception.RESTException;
 import nl.naturalis.nba.rest.util.HttpGroupByScientificNameQuerySpecBuilder;
 import nl.naturalis.nba.rest.util.HttpQuerySpecBuilder;
@@ -529,8 +535,18 @@ public class TaxonResource extends NbaResource<Taxon, TaxonDao> {
       notes = "Available datasets can be queried with /taxon/dwca/getDataSetNames. Response saved to <datasetname>-<yyyymmdd>.dwca.zip")
   @Produces(ZIP_CONTENT_TYPE)
   public Response dwcaGetDataSet(@ApiParam(value = "name of dataset", required = true,
-      defaultValue = "nsr") @PathParam("dataset") String name, @Context UriInfo uriInfo) {
+      defaultValue = "nsr") @PathParam("dataset") String name, @Context UriInfo uriInfo,
+      @Context Request request, @Context HttpHeaders headers) {
     try {
+      String fmt = "attachment; filename=\"%s-%s.dwca.zip\"";
+      SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
+      PrebuiltDwcaArchive archive = DwcaArchiveStore.getInstance().getArchive(DwcaDataSetType.TAXON, name);
+      if (archive != null) {
+        ResponseBuilder response = streamFile(archive.getFile(), archive.getHash(), ZIP_CONTENT_TYPE, request, headers);
+        String hdr = String.format(fmt, name, sdf.format(new Date(archive.getCreated())));
+        response.header("Content-Disposition", hdr);
+        return response.build();
+      }
       StreamingOutput stream = new StreamingOutput() {
 
         @Override
@@ -545,8 +561,6 @@ public class TaxonResource extends NbaResource<Taxon, TaxonDao> {
       };
       ResponseBuilder response = Response.ok(stream);
       response.type("application/zip");
-      SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
-      String fmt = "attachment; filename=\"%s-%s.dwca.zip\"";
       String hdr = String.format(fmt, name, sdf.format(new Date()));
       response.header("Content-Disposition", hdr);
       return response.build();
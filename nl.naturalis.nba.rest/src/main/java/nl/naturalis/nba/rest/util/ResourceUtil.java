@@ -1,7 +1,21 @@
 package nl.naturalis.nba.rest.util;
 
+import java.io.File;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.commons.text.StringEscapeUtils;
@@ -42,6 +56,126 @@ public class ResourceUtil {
 		return new RESTException(request, throwable);
 	}
 
+	/**
+	 * Creates a response that streams the specified file. The response honours
+	 * the conditional request headers ({@code If-None-Match},
+	 * {@code If-Modified-Since}, etc.) and single-range {@code Range} requests
+	 * (with or without {@code If-Range}). Multiple ranges are not supported;
+	 * in that case the entire file is sent. The entity tag must uniquely
+	 * identify the contents of the file (e.g. a hash of the contents).
+	 * 
+	 * @param file
+	 * @param entityTag
+	 * @param contentType
+	 * @param request
+	 * @param headers
+	 * @return
+	 */
+	public static ResponseBuilder streamFile(File file, String entityTag, String contentType,
+			Request request, HttpHeaders headers)
+	{
+		EntityTag etag = new EntityTag(entityTag);
+		// HTTP dates have a resolution of seconds
+		Date lastModified = new Date((file.lastModified() / 1000) * 1000);
+		ResponseBuilder response = request.evaluatePreconditions(lastModified, etag);
+		if (response != null) {
+			return response.tag(etag).lastModified(lastModified);
+		}
+		long length = file.length();
+		long[] range = null;
+		String ifRange = headers.getHeaderString("If-Range");
+		if (ifRange == null || ifRange.equals(etag.toString())) {
+			range = getRange(headers.getHeaderString("Range"), length);
+		}
+		if (range == null) {
+			response = Response.ok(streamFile(file, 0, length));
+			response.header("Content-Length", length);
+		}
+		else if (range.length == 0) {
+			response = Response.status(Status.REQUESTED_RANGE_NOT_SATISFIABLE);
+			response.header("Content-Range", "bytes */" + length);
+			return response;
+		}
+		else {
+			long count = range[1] - range[0] + 1;
+			response = Response.status(Status.PARTIAL_CONTENT);
+			response.entity(streamFile(file, range[0], count));
+			response.header("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+			response.header("Content-Length", count);
+		}
+		response.type(contentType);
+		response.tag(etag);
+		response.lastModified(lastModified);
+		response.header("Accept-Ranges", "bytes");
+		return response;
+	}
+
+	/*
+	 * Returns the first and last byte position of the requested range, an empty
+	 * array if the range cannot be satisfied, or null if the entire file must
+	 * be sent.
+	 */
+	static long[] getRange(String header, long length)
+	{
+		if (header == null || !header.startsWith("bytes=") || header.indexOf(',') != -1) {
+			return null;
+		}
+		String spec = header.substring(6).trim();
+		int i = spec.indexOf('-');
+		if (i == -1) {
+			return null;
+		}
+		long first, last;
+		try {
+			if (i == 0) {
+				long suffix = Long.parseLong(spec.substring(1));
+				if (suffix == 0) {
+					return new long[0];
+				}
+				first = Math.max(0, length - suffix);
+				last = length - 1;
+			}
+			else {
+				first = Long.parseLong(spec.substring(0, i));
+				if (i == spec.length() - 1) {
+					last = length - 1;
+				}
+				else {
+					last = Math.min(length - 1, Long.parseLong(spec.substring(i + 1)));
+				}
+			}
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+		if (last < first) {
+			return first >= length ? new long[0] : null;
+		}
+		return new long[] { first, last };
+	}
+
+	/*
+	 * FileChannel.transferTo lets the operating system copy the bytes directly
+	 * from the file to the target channel if possible.
+	 */
+	private static StreamingOutput streamFile(File file, long position, long count)
+	{
+		return out -> {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				WritableByteChannel target = Channels.newChannel(out);
+				long pos = position;
+				long end = position + count;
+				while (pos < end) {
+					long n = channel.transferTo(pos, end - pos, target);
+					if (n <= 0) {
+						break;
+					}
+					pos += n;
+				}
+			}
+		};
+	}
+
 	/**
 	 * Quotes and escapes the specified {@link String} so it becomes a JSON
 	 * string value. Strangely, when resource methods that {@link Produces
@@ -8,6 +8,7 @@ import org.junit.runners.Suite.SuiteClasses;
 
 @SuiteClasses({
 	HttpQuerySpecBuilderTest.class,
-	HttpGroupByScientificNameQuerySpecBuilderTest.class
+	HttpGroupByScientificNameQuerySpecBuilderTest.class,
+	ResourceUtilTest.class
 })
 public class AllTests {}
@@ -0,0 +1,35 @@
+package nl.naturalis.nba.rest.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class ResourceUtilTest {
+
+	@Test
+	public void testGetRange_01()
+	{
+		assertArrayEquals("01", new long[] { 0, 99 }, ResourceUtil.getRange("bytes=0-99", 1000));
+		assertArrayEquals("02", new long[] { 500, 999 }, ResourceUtil.getRange("bytes=500-", 1000));
+		assertArrayEquals("03", new long[] { 900, 999 }, ResourceUtil.getRange("bytes=-100", 1000));
+		assertArrayEquals("04", new long[] { 900, 999 }, ResourceUtil.getRange("bytes=900-5000", 1000));
+		assertArrayEquals("05", new long[] { 0, 999 }, ResourceUtil.getRange("bytes=-5000", 1000));
+	}
+
+	@Test
+	public void testGetRange_02()
+	{
+		// Entire file
+		assertNull("01", ResourceUtil.getRange(null, 1000));
+		assertNull("02", ResourceUtil.getRange("bytes=0-10,20-30", 1000));
+		assertNull("03", ResourceUtil.getRange("bytes=abc-", 1000));
+		assertNull("04", ResourceUtil.getRange("bytes=50-10", 1000));
+		assertNull("05", ResourceUtil.getRange("items=0-10", 1000));
+		// Not satisfiable
+		assertEquals("06", 0, ResourceUtil.getRange("bytes=1000-", 1000).length);
+		assertEquals("07", 0, ResourceUtil.getRange("bytes=-0", 1000).length);
+	}
+
+}